@@ -1,5 +1,6 @@
 package xyz.kuilei.datax.plugin.writer.ftprollwriter;
 
+import com.alibaba.datax.common.element.Record;
 import com.alibaba.datax.common.exception.DataXException;
 import com.alibaba.datax.common.plugin.RecordReceiver;
 import com.alibaba.datax.common.spi.Writer;
@@ -7,10 +8,20 @@ import com.alibaba.datax.common.util.Configuration;
 import com.alibaba.datax.common.util.RetryUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import xyz.kuilei.datax.plugin.writer.ftprollwriter.util.ArrowEncoder;
+import xyz.kuilei.datax.plugin.writer.ftprollwriter.util.AvroEncoder;
+import xyz.kuilei.datax.plugin.writer.ftprollwriter.util.BaseCompressCodec;
 import xyz.kuilei.datax.plugin.writer.ftprollwriter.util.BaseFtpHelper;
 import xyz.kuilei.datax.plugin.writer.ftprollwriter.util.BaseRemoteWriter;
+import xyz.kuilei.datax.plugin.writer.ftprollwriter.util.ColumnEncoder;
 import xyz.kuilei.datax.plugin.writer.ftprollwriter.util.DataXRecordReader;
 import xyz.kuilei.datax.plugin.writer.ftprollwriter.util.FilePathManager;
+import xyz.kuilei.datax.plugin.writer.ftprollwriter.util.FixedWidthEncoder;
+import xyz.kuilei.datax.plugin.writer.ftprollwriter.util.OrcEncoder;
+import xyz.kuilei.datax.plugin.writer.ftprollwriter.util.ParallelRemoteWriter;
+import xyz.kuilei.datax.plugin.writer.ftprollwriter.util.ParquetEncoder;
+import xyz.kuilei.datax.plugin.writer.ftprollwriter.util.TaskResources;
+import xyz.kuilei.datax.plugin.writer.ftprollwriter.util.TextEncoder;
 
 import javax.annotation.Nonnull;
 import java.io.IOException;
@@ -36,7 +47,16 @@ public class FtpRollWriter extends Writer {
             BaseFtpHelper.validateParameter(conf);
             FtpRollWriter.validateParameter(conf);
             DataXRecordReader.validateParameter(conf);
+            ColumnEncoder.validateParameter(conf);
             BaseRemoteWriter.validateParameter(conf);
+            BaseCompressCodec.validateParameter(conf);
+            ParquetEncoder.validateParameter(conf);
+            OrcEncoder.validateParameter(conf);
+            AvroEncoder.validateParameter(conf);
+            ArrowEncoder.validateParameter(conf);
+            FixedWidthEncoder.validateParameter(conf);
+            TextEncoder.validateParameter(conf);
+            ParallelRemoteWriter.validateParameter(conf);
             FilePathManager.validateParameter(conf);
 
             this.writerSliceConfig = conf;
@@ -153,6 +173,13 @@ public class FtpRollWriter extends Writer {
                 }
             }
 
+            // warn: task 个数确定之后才能校验所有 task 的连接数
+            final long connections = ParallelRemoteWriter.checkConnections(jobConf, mandatoryNumber);
+            LOG.info(String.format(
+                    "ftp/sftp connections: [%d] = 1 (job) + [%d] task * [%d] per task",
+                    connections, mandatoryNumber, TaskResources.ftpHelperCount(jobConf)
+            ));
+
             List<Configuration> allTaskConf = new ArrayList<>(mandatoryNumber);
 
             for (int i = 0; i < mandatoryNumber; ++i) {
@@ -186,33 +213,39 @@ public class FtpRollWriter extends Writer {
         private static final Logger LOG = LoggerFactory.getLogger(Task.class);
 
         private Configuration writerSliceConfig;
-        private BaseFtpHelper ftpHelper;
+        // warn: 并行写入时所有 lane 共享, 见 TaskResources
+        private final List<BaseFtpHelper> ftpHelpers = new ArrayList<>();
 
         @Override
         public void init() {
             Configuration conf = super.getPluginJobConf();
             this.writerSliceConfig = conf;
 
-            BaseFtpHelper ftpHelper = BaseFtpHelper.getImpl(conf);
+            // 每个 lane 1 个写入的连接, 后台滚动时再加上 maxPendingRotations 个重命名的连接
+            final int helperCount = TaskResources.ftpHelperCount(conf);
 
-            try {
-                RetryUtil.executeWithRetry((Callable<Void>) () -> {
-                    ftpHelper.loginFtpServer();
-                    return null;
-                }, 3, 4000, true);
-            } catch (Exception e) {
-                if (e instanceof DataXException) {
-                    throw (DataXException) e;
-                } else {
-                    throw DataXException.asDataXException(
-                            FtpRollWriterErrorCode.FAIL_LOGIN,
-                            "Writer.Task与ftp/sftp服务器建立连接失败",
-                            e
-                    );
+            for (int i = 0; i < helperCount; i++) {
+                BaseFtpHelper ftpHelper = BaseFtpHelper.getImpl(conf);
+
+                try {
+                    RetryUtil.executeWithRetry((Callable<Void>) () -> {
+                        ftpHelper.loginFtpServer();
+                        return null;
+                    }, 3, 4000, true);
+                } catch (Exception e) {
+                    if (e instanceof DataXException) {
+                        throw (DataXException) e;
+                    } else {
+                        throw DataXException.asDataXException(
+                                FtpRollWriterErrorCode.FAIL_LOGIN,
+                                "Writer.Task与ftp/sftp服务器建立连接失败",
+                                e
+                        );
+                    }
                 }
-            }
 
-            this.ftpHelper = ftpHelper;
+                this.ftpHelpers.add(ftpHelper);
+            }
         }
 
         @Override
@@ -223,7 +256,6 @@ public class FtpRollWriter extends Writer {
         @Override
         public void startWrite(RecordReceiver lineReceiver) {
             final Configuration conf = this.writerSliceConfig;
-            final BaseFtpHelper ftpHelper = this.ftpHelper;
 
             final String path = conf.getString(Key.PATH);
             final String prefixWithUUID = conf.getString(Key.INTERNAL_PREFIX_WITH_UUID);
@@ -233,15 +265,15 @@ public class FtpRollWriter extends Writer {
             LOG.info(String.format("write to path: [%s], prefix with UUID: [%s], suffix: [%s]", path, prefixWithUUID, suffix));
 
             DataXRecordReader recordReader = new DataXRecordReader(conf, lineReceiver);
-            BaseRemoteWriter remoteWriter = BaseRemoteWriter.getImpl(conf, ftpHelper);
+            ParallelRemoteWriter remoteWriter = new ParallelRemoteWriter(conf, this.ftpHelpers);
 
             // write
             DataXException de = null;
 
             try {
-                String[] splitRows;
-                while ((splitRows = recordReader.readOneRecord()) != null) {
-                    remoteWriter.writeOneRecord(splitRows);
+                Record record;
+                while ((record = recordReader.readOneRecord()) != null) {
+                    remoteWriter.writeOneRecord(record);
                 }
             } catch (IOException ioe) {
                 de = DataXException.asDataXException(
@@ -250,6 +282,8 @@ public class FtpRollWriter extends Writer {
                         ioe
                 );
             } finally {
+                recordReader.close();
+
                 try {
                     remoteWriter.close();
                 } catch (IOException ioe) {
@@ -278,9 +312,11 @@ public class FtpRollWriter extends Writer {
         @Override
         public void destroy() {
             // warn: ftp storage writer在close时可以保证断开ftp/sftp连接前把文件写完，因此可以忽略它的异常
-            try {
-                this.ftpHelper.logoutFtpServer();
-            } catch (Exception ignored) {
+            for (BaseFtpHelper ftpHelper : this.ftpHelpers) {
+                try {
+                    ftpHelper.logoutFtpServer();
+                } catch (Exception ignored) {
+                }
             }
         }
     }
@@ -51,11 +51,24 @@ public class Key {
     // not must, for writers ' date format
     public static final String DATE_FORMAT = "dateFormat";
 
+    // not must, default false, 由专门的线程从 reader 读取 record
+    public static final String PIPELINED_READ = "pipelinedRead";
+
+    // not must, default 1024, 预读 record 的环形缓冲区大小
+    public static final String PIPELINE_CAPACITY = "pipelineCapacity";
+
+
+    /**
+     * column encoder
+     */
+    // not must, each column 's type: long, double, string, date, bool, bytes
+    public static final String COLUMN_TYPES = "columnTypes";
+
 
     /**
      * base remote writer
      */
-    // not must, default text
+    // not must, default text, 文件格式: text, csv, parquet, orc, avro, jsonl, arrow, fixed
     public static final String FILE_FORMAT = "fileFormat";
 
     // not must, default ,
@@ -73,6 +86,95 @@ public class Key {
     // not must, default 0
     public static final String ROLL_COUNT = "rollCount";
 
+    // not must, default false, 由专门的线程写入远程文件
+    public static final String ASYNC_WRITE = "asyncWrite";
+
+    // not must, default 2, 异步写入时的缓冲区个数
+    public static final String ASYNC_BUFFER_COUNT = "asyncBufferCount";
+
+    // not must, default false, 由后台线程关闭并重命名滚动的远程文件
+    public static final String ASYNC_ROTATE = "asyncRotate";
+
+    // not must, default 2, 后台同时处理的滚动文件个数上限, 整个 task 的上限, 每个需要 1 个额外的连接
+    public static final String MAX_PENDING_ROTATIONS = "maxPendingRotations";
+
+
+    /**
+     * compress codec
+     */
+    // not must, default none, 压缩方式: none, gzip, deflate, zstd, lz4, 或者 SPI 注册的 codec
+    public static final String COMPRESS = "compress";
+
+    // not must, default 1, 每个文件的压缩线程数, 大于 1 时分块并行压缩 (gzip, zstd, lz4)
+    public static final String COMPRESS_THREADS = "compressThreads";
+
+
+    /**
+     * parquet encoder
+     */
+    // not must, default 16777216, 每个 row group 按 plain 编码估算的字节数
+    public static final String ROW_GROUP_SIZE = "rowGroupSize";
+
+    // not must, default 1048576, 每个数据页按 plain 编码估算的字节数
+    public static final String PAGE_SIZE = "pageSize";
+
+
+    /**
+     * orc encoder
+     */
+    // not must, default 67108864, 每个 stripe 按原始大小估算的字节数
+    public static final String STRIPE_SIZE = "stripeSize";
+
+
+    /**
+     * avro encoder
+     */
+    // not must, default 64000, 每个 block 未压缩的字节数, 与 syncInterval 无关
+    public static final String AVRO_SYNC_INTERVAL = "avroSyncInterval";
+
+
+    /**
+     * arrow encoder
+     */
+    // not must, default 16777216, 每个 record batch 按 arrow 格式缓冲的字节数
+    public static final String RECORD_BATCH_SIZE = "recordBatchSize";
+
+
+    /**
+     * fixed width encoder
+     */
+    // fileFormat 为 fixed 时 must, 每个字段按 encoding 编码后的字节数
+    public static final String COLUMN_WIDTHS = "columnWidths";
+
+    // not must, default left, 每个字段的对齐方式: left, right
+    public static final String COLUMN_ALIGNS = "columnAligns";
+
+    // not must, default " ", 每个字段的补齐字符, 按 encoding 编码后必须是 1 个字节
+    public static final String COLUMN_PAD_CHARS = "columnPadChars";
+
+
+    /**
+     * text encoder
+     */
+    // not must, default none, fileFormat 为 text 时的转义方式: none, backslash, hive
+    public static final String TEXT_ESCAPE = "textEscape";
+
+    // not must, default \, textEscape 不为 none 时的转义符
+    public static final String ESCAPE_CHAR = "escapeChar";
+
+
+    /**
+     * parallel remote writer
+     */
+    // not must, default 1, 每个 task 内并行写入的文件序列个数
+    public static final String PARALLELISM = "parallelism";
+
+    // not must, 按该列的值分发 record, 默认轮流分发
+    public static final String PARTITION_COLUMN = "partitionColumn";
+
+    // not must, ftp/sftp 服务器允许同时登录的连接数, 配置后校验 job 和所有 task 使用的连接数
+    public static final String MAX_CONNECTIONS = "maxConnections";
+
 
     /**
      * file path manager
@@ -125,7 +125,7 @@ public class FtpStorageWriter implements Closeable {
         this.rollCount = conf.getInt(Key.ROLL_COUNT);
 
         this.ftpHelper = ftpHelper;
-        this.filePathManager = new FilePathManager(conf, ftpHelper);
+        this.filePathManager = new FilePathManager(conf);
 
         List<String> headerList = conf.getList(Key.HEADER, String.class);
         final int headNumb = (headerList == null) ? 0 : headerList.size();
@@ -166,7 +166,7 @@ public class FtpStorageWriter implements Closeable {
             this.rollingSize = 0;
             this.rollingCount = 0;
 
-            String filePath = filePathManager.getCurrentFilePath();
+            String filePath = filePathManager.detachCurrentFilePath();
 
             try {
                 outputStream.close();
@@ -179,7 +179,7 @@ public class FtpStorageWriter implements Closeable {
             // 1. 不放到 finally, 为的是有写入异常就尽快抛出以结束 datax 任务
             // 2. 这里最好来个complete pending commands，但必须在close stream之后。
             //    file path manager里面已经有complete pending commands了，wow！
-            filePathManager.rotate();
+            filePathManager.finishFilePath(filePath, this.ftpHelper);
         }
     }
 
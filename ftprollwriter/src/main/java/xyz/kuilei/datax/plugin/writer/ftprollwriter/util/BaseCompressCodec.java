@@ -0,0 +1,323 @@
+package xyz.kuilei.datax.plugin.writer.ftprollwriter.util;
+
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.util.Configuration;
+import com.github.luben.zstd.ZstdOutputStream;
+import com.github.luben.zstd.util.Native;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import xyz.kuilei.datax.plugin.writer.ftprollwriter.FtpRollWriterErrorCode;
+import xyz.kuilei.datax.plugin.writer.ftprollwriter.Key;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 滚动文件的流式压缩
+ *
+ * NOTE:
+ * 1. 内置 gzip, deflate (jdk), zstd (zstd-jni), lz4 (lz4-java)
+ * 2. 其他 codec 通过 ServiceLoader 注册: 继承本类, 在 META-INF/services 中声明, 把 jar 放到插件的 libs 目录
+ * 3. 每个滚动的文件单独压缩, 头部信息也在压缩流里面, 传输的是压缩后的数据
+ * 4. 文件名在 suffix 之后, inUseSuffix 之前加上 codec 的扩展名, 例如 xxx.txt.gz.tmp
+ * 5. compressThreads 大于 1 时, 支持拼接的 codec 由 ParallelCompressOutputStream 多线程压缩
+ * 6. parquet, orc, avro, arrow 不压缩整个文件, 而是由 ParquetEncoder 按页, OrcEncoder, AvroEncoder 按块, ArrowEncoder 按 buffer 压缩, 文件名也不加扩展名
+ *
+ * @author JiaKun Xu, 2026-10-17 20:40
+ */
+public abstract class BaseCompressCodec {
+    private static final Logger LOG = LoggerFactory.getLogger(BaseCompressCodec.class);
+
+    // 压缩流内部的缓冲区大小
+    protected static final int BUFFER_SIZE = 64 * 1024;
+
+    // name -> codec, 内置的优先
+    @Nonnull
+    private static final Map<String, BaseCompressCodec> CODECS;
+
+    static {
+        Map<String, BaseCompressCodec> codecs = new LinkedHashMap<>();
+
+        for (BaseCompressCodec codec : new BaseCompressCodec[]{new GzipCodec(), new DeflateCodec(), new ZstdCodec(), new Lz4Codec()}) {
+            codecs.put(codec.getName(), codec);
+        }
+
+        // warn: 使用插件的 class loader, 而不是 datax 的
+        for (BaseCompressCodec codec : ServiceLoader.load(BaseCompressCodec.class, BaseCompressCodec.class.getClassLoader())) {
+            String name = codec.getName().toLowerCase(Locale.ROOT);
+
+            if (codecs.containsKey(name) || Constant.COMPRESS_NONE.equals(name)) {
+                LOG.warn(String.format("忽略重名的压缩方式 [%s]: %s", name, codec.getClass().getName()));
+            } else {
+                codecs.put(name, codec);
+            }
+        }
+
+        CODECS = Collections.unmodifiableMap(codecs);
+    }
+
+    public static void validateParameter(@Nonnull Configuration conf) {
+        String compress = conf.getString(Key.COMPRESS);
+        Integer compressThreads = conf.getInt(Key.COMPRESS_THREADS);
+
+        /*
+         * compress check
+         */
+        if (StringUtils.isBlank(compress)) {
+            compress = Constant.COMPRESS_NONE;
+        } else {
+            compress = compress.trim().toLowerCase(Locale.ROOT);
+
+            if (!Constant.COMPRESS_NONE.equals(compress)) {
+                BaseCompressCodec codec = CODECS.get(compress);
+
+                if (codec == null) {
+                    throw DataXException.asDataXException(
+                            FtpRollWriterErrorCode.ILLEGAL_VALUE,
+                            String.format("您配置的 compress: [%s] 错误, 支持 none, %s", compress, String.join(", ", CODECS.keySet()))
+                    );
+                }
+                if (!codec.isAvailable()) {
+                    throw DataXException.asDataXException(
+                            FtpRollWriterErrorCode.ILLEGAL_VALUE,
+                            String.format("您配置的 compress: [%s] 依赖的类库不可用, 请检查插件的 libs 目录", compress)
+                    );
+                }
+            }
+        }
+
+        conf.set(Key.COMPRESS, compress);
+
+        /*
+         * compressThreads check
+         */
+        if (null == compressThreads) {
+            compressThreads = Constant.DEFAULT_COMPRESS_THREADS;
+        } else {
+            if (compressThreads < 1) {
+                throw DataXException.asDataXException(
+                        FtpRollWriterErrorCode.ILLEGAL_VALUE,
+                        String.format("您配置的 compressThreads: [%d] 错误, 至少为 1", compressThreads)
+                );
+            }
+            if (compressThreads > 1 && !Constant.COMPRESS_NONE.equals(compress) && !CODECS.get(compress).isConcatenable()) {
+                throw DataXException.asDataXException(
+                        FtpRollWriterErrorCode.ILLEGAL_VALUE,
+                        String.format("您配置的 compress: [%s] 不支持多线程压缩, compressThreads 只能为 1", compress)
+                );
+            }
+        }
+
+        conf.set(Key.COMPRESS_THREADS, compressThreads);
+    }
+
+    /**
+     * 压缩整个文件的 codec
+     *
+     * @return null -> 不压缩, 或者由文件格式自己压缩 (parquet 按页压缩, orc, avro 按块压缩, arrow 按 buffer 压缩)
+     */
+    public static BaseCompressCodec getStreamImpl(@Nonnull Configuration conf) {
+        String fileFormat = conf.getString(Key.FILE_FORMAT);
+
+        if (Constant.FILE_FORMAT_PARQUET.equals(fileFormat)
+                || Constant.FILE_FORMAT_ORC.equals(fileFormat)
+                || Constant.FILE_FORMAT_AVRO.equals(fileFormat)
+                || Constant.FILE_FORMAT_ARROW.equals(fileFormat)) {
+            return null;
+        }
+        return getImpl(conf);
+    }
+
+    /**
+     * @return null -> 不压缩
+     */
+    public static BaseCompressCodec getImpl(@Nonnull Configuration conf) {
+        String compress = conf.getString(Key.COMPRESS, Constant.COMPRESS_NONE);
+
+        if (Constant.COMPRESS_NONE.equals(compress)) {
+            return null;
+        }
+
+        BaseCompressCodec codec = CODECS.get(compress);
+        if (codec == null) {
+            throw new IllegalStateException("should not happen");
+        }
+        return codec;
+    }
+
+    /**
+     * 配置中使用的名称, 小写
+     */
+    @Nonnull
+    public abstract String getName();
+
+    /**
+     * 文件的扩展名, 不包括 "."
+     */
+    @Nonnull
+    public abstract String getExtension();
+
+    /**
+     * 压缩后写入 out, close 时结束压缩并关闭 out
+     * warn: 同 1 个 codec 由多个 writer 共享, 不能有状态
+     */
+    @Nonnull
+    public abstract OutputStream compress(@Nonnull OutputStream out) throws IOException;
+
+    /**
+     * 依赖的类库不存在时为 false
+     */
+    public boolean isAvailable() {
+        return true;
+    }
+
+    /**
+     * 多个压缩流首尾拼接后仍然是合法的压缩文件时为 true, 才可以多线程压缩
+     */
+    public boolean isConcatenable() {
+        return false;
+    }
+
+    // ------------------------------------------------
+    // 内置的 codec
+    // ------------------------------------------------
+    private static final class GzipCodec extends BaseCompressCodec {
+        @Nonnull
+        @Override
+        public String getName() {
+            return Constant.COMPRESS_GZIP;
+        }
+
+        @Nonnull
+        @Override
+        public String getExtension() {
+            return "gz";
+        }
+
+        @Override
+        public boolean isConcatenable() {
+            return true;
+        }
+
+        @Nonnull
+        @Override
+        public OutputStream compress(@Nonnull OutputStream out) throws IOException {
+            return new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+    }
+
+    /**
+     * zlib 格式, 与 hadoop 的 DefaultCodec 相同
+     */
+    private static final class DeflateCodec extends BaseCompressCodec {
+        @Nonnull
+        @Override
+        public String getName() {
+            return Constant.COMPRESS_DEFLATE;
+        }
+
+        @Nonnull
+        @Override
+        public String getExtension() {
+            return "deflate";
+        }
+
+        @Nonnull
+        @Override
+        public OutputStream compress(@Nonnull OutputStream out) {
+            final Deflater deflater = new Deflater();
+
+            return new DeflaterOutputStream(out, deflater, BUFFER_SIZE) {
+                @Override
+                public void close() throws IOException {
+                    // warn: 自己创建的 deflater 需要自己释放 native 内存
+                    try {
+                        super.close();
+                    } finally {
+                        deflater.end();
+                    }
+                }
+            };
+        }
+    }
+
+    private static final class ZstdCodec extends BaseCompressCodec {
+        @Nonnull
+        @Override
+        public String getName() {
+            return Constant.COMPRESS_ZSTD;
+        }
+
+        @Nonnull
+        @Override
+        public String getExtension() {
+            return "zst";
+        }
+
+        @Override
+        public boolean isConcatenable() {
+            return true;
+        }
+
+        @Nonnull
+        @Override
+        public OutputStream compress(@Nonnull OutputStream out) throws IOException {
+            return new ZstdOutputStream(out);
+        }
+
+        /**
+         * 没有当前平台的 native 库时不可用
+         */
+        @Override
+        public boolean isAvailable() {
+            try {
+                Native.load();
+                return Native.isLoaded();
+            } catch (Throwable t) {
+                LOG.warn("加载 zstd 的 native 库失败", t);
+                return false;
+            }
+        }
+    }
+
+    /**
+     * lz4 frame 格式, 与 lz4 命令行工具相同
+     * lz4-java 没有当前平台的 native 库时退回纯 java 实现, 所以总是可用
+     * warn: 默认每块 4MB, 写满 1 块才有输出, 按压缩后的大小滚动时压缩率长时间未知, 文件远超 rollSize, 所以改为 64KB
+     */
+    private static final class Lz4Codec extends BaseCompressCodec {
+        @Nonnull
+        @Override
+        public String getName() {
+            return Constant.COMPRESS_LZ4;
+        }
+
+        @Nonnull
+        @Override
+        public String getExtension() {
+            return "lz4";
+        }
+
+        @Override
+        public boolean isConcatenable() {
+            return true;
+        }
+
+        @Nonnull
+        @Override
+        public OutputStream compress(@Nonnull OutputStream out) throws IOException {
+            return new LZ4FrameOutputStream(out, LZ4FrameOutputStream.BLOCKSIZE.SIZE_64KB);
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package xyz.kuilei.datax.plugin.writer.ftprollwriter.util;
 
+import com.alibaba.datax.common.element.Record;
 import com.alibaba.datax.common.exception.DataXException;
 import com.alibaba.datax.common.util.Configuration;
+import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import xyz.kuilei.datax.plugin.writer.ftprollwriter.FtpRollWriterErrorCode;
@@ -11,9 +14,13 @@ import xyz.kuilei.datax.plugin.writer.ftprollwriter.Key;
 import javax.annotation.Nonnull;
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
 
 /**
  * @author JiaKun Xu, 2023-02-27 20:09
@@ -28,6 +35,9 @@ public abstract class BaseRemoteWriter implements Closeable {
 
     protected static final byte[] NEW_LINE = LINE_SEPARATOR.getBytes(StandardCharsets.UTF_8);
 
+    // 攒够这么多字节再写入远程文件
+    private static final int FLUSH_SIZE = 64 * 1024;
+
     // not blank
     @Nonnull
     protected final String fileFormat;
@@ -48,6 +58,28 @@ public abstract class BaseRemoteWriter implements Closeable {
     // >= 0
     protected final int rollCount;
 
+    protected final boolean asyncWrite;
+
+    // >= 2
+    protected final int asyncBufferCount;
+
+    // null -> 不压缩整个文件
+    protected final BaseCompressCodec compressCodec;
+
+    // >= 1
+    protected final int compressThreads;
+
+    // null -> 在写入线程压缩
+    // warn: 由 TaskResources 共享, 在外面关闭
+    private final ExecutorService compressExecutor;
+
+    // 压缩时, 当前文件压缩前后的字节数
+    private CompressedSizeCounter currentCompressedSizeCounter;
+
+    // 上一个文件的压缩率, 当前文件还没有输出时使用, 第一个文件按不压缩估算
+    // warn: 后台滚动时在后台线程更新
+    private volatile double lastCompressRatio = 1.0;
+
     public static void validateParameter(@Nonnull Configuration conf) {
         String fileFormat = conf.getString(Key.FILE_FORMAT);
         String fieldDelimiter = conf.getString(Key.FIELD_DELIMITER);
@@ -55,6 +87,10 @@ public abstract class BaseRemoteWriter implements Closeable {
         String encoding = conf.getString(Key.ENCODING);
         Long rollSize = conf.getLong(Key.ROLL_SIZE);
         Integer rollCount = conf.getInt(Key.ROLL_COUNT);
+        Boolean asyncWrite = conf.getBool(Key.ASYNC_WRITE);
+        Integer asyncBufferCount = conf.getInt(Key.ASYNC_BUFFER_COUNT);
+        Boolean asyncRotate = conf.getBool(Key.ASYNC_ROTATE);
+        Integer maxPendingRotations = conf.getInt(Key.MAX_PENDING_ROTATIONS);
 
         /*
          * fileFormat check
@@ -69,10 +105,22 @@ public abstract class BaseRemoteWriter implements Closeable {
                 fileFormat = Constant.FILE_FORMAT_TEXT;
             } else if (Constant.FILE_FORMAT_CSV.equalsIgnoreCase(fileFormat)) {
                 fileFormat = Constant.FILE_FORMAT_CSV;
+            } else if (Constant.FILE_FORMAT_PARQUET.equalsIgnoreCase(fileFormat)) {
+                fileFormat = Constant.FILE_FORMAT_PARQUET;
+            } else if (Constant.FILE_FORMAT_ORC.equalsIgnoreCase(fileFormat)) {
+                fileFormat = Constant.FILE_FORMAT_ORC;
+            } else if (Constant.FILE_FORMAT_AVRO.equalsIgnoreCase(fileFormat)) {
+                fileFormat = Constant.FILE_FORMAT_AVRO;
+            } else if (Constant.FILE_FORMAT_JSONL.equalsIgnoreCase(fileFormat)) {
+                fileFormat = Constant.FILE_FORMAT_JSONL;
+            } else if (Constant.FILE_FORMAT_ARROW.equalsIgnoreCase(fileFormat)) {
+                fileFormat = Constant.FILE_FORMAT_ARROW;
+            } else if (Constant.FILE_FORMAT_FIXED.equalsIgnoreCase(fileFormat)) {
+                fileFormat = Constant.FILE_FORMAT_FIXED;
             } else {
                 throw DataXException.asDataXException(
                         FtpRollWriterErrorCode.ILLEGAL_VALUE,
-                        String.format("您配置的fileFormat: [%s]错误, 支持csv, text两种", fileFormat)
+                        String.format("您配置的fileFormat: [%s]错误, 支持csv, text, parquet, orc, avro, jsonl, arrow, fixed八种", fileFormat)
                 );
             }
         }
@@ -134,11 +182,6 @@ public abstract class BaseRemoteWriter implements Closeable {
             }
         }
 
-        if (Constant.FILE_FORMAT_CSV.equalsIgnoreCase(fileFormat)) {
-            LOG.warn("当fileFormat: [csv]时，不支持按写入字节数 rollSize 滚动文件");
-            rollSize = 0L;
-        }
-
         conf.set(Key.ROLL_SIZE, rollSize);
 
         /*
@@ -154,23 +197,105 @@ public abstract class BaseRemoteWriter implements Closeable {
         }
 
         conf.set(Key.ROLL_COUNT, rollCount);
+
+        /*
+         * asyncWrite check
+         */
+        if (null == asyncWrite) {
+            asyncWrite = Constant.DEFAULT_ASYNC_WRITE;
+        }
+
+        conf.set(Key.ASYNC_WRITE, asyncWrite);
+
+        /*
+         * asyncBufferCount check
+         */
+        if (null == asyncBufferCount) {
+            asyncBufferCount = Constant.DEFAULT_ASYNC_BUFFER_COUNT;
+        } else {
+            if (asyncBufferCount < 2) {
+                throw DataXException.asDataXException(
+                        FtpRollWriterErrorCode.ILLEGAL_VALUE,
+                        String.format("您配置的 asyncBufferCount: [%d] 错误, 至少为 2", asyncBufferCount)
+                );
+            }
+        }
+
+        conf.set(Key.ASYNC_BUFFER_COUNT, asyncBufferCount);
+
+        /*
+         * asyncRotate check
+         */
+        if (null == asyncRotate) {
+            asyncRotate = Constant.DEFAULT_ASYNC_ROTATE;
+        }
+
+        conf.set(Key.ASYNC_ROTATE, asyncRotate);
+
+        /*
+         * maxPendingRotations check
+         */
+        if (null == maxPendingRotations) {
+            maxPendingRotations = Constant.DEFAULT_MAX_PENDING_ROTATIONS;
+        } else {
+            if (maxPendingRotations < 1) {
+                throw DataXException.asDataXException(
+                        FtpRollWriterErrorCode.ILLEGAL_VALUE,
+                        String.format("您配置的 maxPendingRotations: [%d] 错误, 至少为 1", maxPendingRotations)
+                );
+            }
+        }
+
+        conf.set(Key.MAX_PENDING_ROTATIONS, maxPendingRotations);
     }
 
+    // 空闲的连接, 打开文件时取出, 文件完成后放回
+    // warn: 由 TaskResources 共享, 并行写入时所有 lane 从同一个队列取出
     @Nonnull
-    protected final BaseFtpHelper ftpHelper;
+    private final BlockingQueue<BaseFtpHelper> idleFtpHelpers;
+
+    // 当前文件使用的连接
+    private BaseFtpHelper currentFtpHelper;
+
+    // null -> 在 task 线程完成滚动的文件
+    // warn: 由 TaskResources 共享, 在外面关闭
+    private final RotationFinalizer rotationFinalizer;
 
     @Nonnull
     protected final FilePathManager filePathManager;
 
-    protected BaseRemoteWriter(@Nonnull Configuration conf, @Nonnull BaseFtpHelper ftpHelper) {
+    @Nonnull
+    protected final ColumnEncoder columnEncoder;
+
+    // 复用的写入缓冲, 写满 FLUSH_SIZE 或者 rotate 时写入远程文件
+    @Nonnull
+    protected final RecordBuffer recordBuffer;
+
+    private OutputStream currentOutputStream;
+    private long rollingSize;
+    private int rollingCount;
+
+    /**
+     * @param resources 同一个 task 内共享的文件序号, 空闲的连接, 压缩线程, 后台滚动的线程, 在外面关闭
+     */
+    protected BaseRemoteWriter(@Nonnull Configuration conf, @Nonnull TaskResources resources) {
         this.fileFormat = conf.getString(Key.FILE_FORMAT);
         this.fieldDelimiter = conf.getChar(Key.FIELD_DELIMITER);
         this.encoding = conf.getString(Key.ENCODING);
         this.rollSize = conf.getLong(Key.ROLL_SIZE);
         this.rollCount = conf.getInt(Key.ROLL_COUNT);
+        this.asyncWrite = conf.getBool(Key.ASYNC_WRITE);
+        this.asyncBufferCount = conf.getInt(Key.ASYNC_BUFFER_COUNT);
+        this.compressCodec = BaseCompressCodec.getStreamImpl(conf);
 
-        this.ftpHelper = ftpHelper;
-        this.filePathManager = new FilePathManager(conf, ftpHelper);
+        this.compressThreads = conf.getInt(Key.COMPRESS_THREADS, Constant.DEFAULT_COMPRESS_THREADS);
+        this.compressExecutor = resources.getCompressExecutor();
+        this.idleFtpHelpers = resources.getIdleFtpHelpers();
+        this.rotationFinalizer = resources.getRotationFinalizer();
+
+        this.filePathManager = new FilePathManager(conf, resources.getFileIndex());
+        this.columnEncoder = new ColumnEncoder(conf);
+        this.recordBuffer = new RecordBuffer(FLUSH_SIZE + FLUSH_SIZE / 4, Charset.forName(this.encoding));
 
         List<String> headerList = conf.getList(Key.HEADER, String.class);
         final int headNumb = (headerList == null) ? 0 : headerList.size();
@@ -181,16 +306,295 @@ public abstract class BaseRemoteWriter implements Closeable {
         }
     }
 
-    public abstract void writeOneRecord(@Nonnull String[] splitRows) throws IOException;
+    /**
+     * 把头部信息编码到 buffer，不包括换行符
+     */
+    protected abstract void encodeHeader(@Nonnull String[] header, @Nonnull RecordBuffer buffer);
+
+    /**
+     * 把 1 行编码到 buffer，不包括换行符
+     */
+    protected abstract void encodeRecord(@Nonnull Record record, @Nonnull RecordBuffer buffer) throws IOException;
+
+    /**
+     * 每个文件开头的内容, 不能作为文件滚动依据, 默认为头部信息加上换行符
+     */
+    protected void encodeFileHeader(@Nonnull RecordBuffer buffer) {
+        if (ArrayUtils.isNotEmpty(this.header)) {
+            encodeHeader(this.header, buffer);
+            buffer.write(NEW_LINE);  // remember
+        }
+    }
+
+    /**
+     * 每个文件结尾的内容, 在文件关闭之前编码, 默认没有
+     * 例如 parquet: 还没有写入的 row group 和 footer
+     */
+    protected void encodeFileFooter(@Nonnull RecordBuffer buffer) throws IOException {
+    }
+
+    /**
+     * false -> 每行之后不写入换行符, 例如 parquet
+     */
+    protected boolean isLineOriented() {
+        return true;
+    }
+
+    /**
+     * 编码器缓冲的, 还没有写入 record buffer 的字节数, 计入 rollSize, 默认没有
+     * 例如 parquet: parquet-mr 还没有写入的 row group
+     */
+    protected long bufferedSize() {
+        return 0;
+    }
+
+    @Nonnull
+    protected OutputStream openOutputStream(@Nonnull String filePath) throws IOException {
+        // warn: record buffer 已经攒批, 不需要再套一层 buffered output stream
+        OutputStream out = this.currentFtpHelper.getOutputStream(filePath);
+
+        if (this.compressCodec != null) {
+            // warn: 在 async output stream 之内, 异步写入时由专门的线程压缩
+            // rollSize 按压缩后的字节数计算
+            final CompressedSizeCounter counter = new CompressedSizeCounter();
+            this.currentCompressedSizeCounter = counter;
+
+            try {
+                if (this.compressExecutor != null) {
+                    // 正在压缩和等待写入的块为线程数的 2 倍, 线程不会空闲
+                    out = new ParallelCompressOutputStream(
+                            out, this.compressCodec, this.compressExecutor, Constant.COMPRESS_BLOCK_SIZE, 2 * this.compressThreads, counter
+                    );
+                } else {
+                    out = counter.countRaw(this.compressCodec.compress(counter.countCompressed(out)));
+                }
+            } catch (IOException | RuntimeException e) {
+                closeQuietly(out);
+                throw e;
+            }
+        }
+
+        if (this.asyncWrite) {
+            // 编码和网络传输同时进行
+            String fileName = filePath.substring(filePath.lastIndexOf('/') + 1);
+            out = new AsyncOutputStream(out, fileName, Constant.ASYNC_BUFFER_SIZE, this.asyncBufferCount);
+        }
+
+        return out;
+    }
+
+    @Nonnull
+    private OutputStream getCurrentOutputStream() throws IOException {
+        OutputStream out = this.currentOutputStream;
+
+        if (out == null) {
+            if (this.currentFtpHelper == null) {
+                // 所有连接都在后台处理滚动的文件时等待
+                try {
+                    this.currentFtpHelper = this.idleFtpHelpers.take();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("等待空闲的ftp/sftp连接时被中断");
+                }
+            }
+
+            String filePath = this.filePathManager.getCurrentFilePath();
+            LOG.info(String.format("正在打开文件 [%s] 获取写入流", filePath));
+
+            out = openOutputStream(filePath);
+            this.currentOutputStream = out;
+            this.recordBuffer.setSink(out, FLUSH_SIZE);
+
+            // warn: 因为要滚动文件，所以每个滚动的文件都要写入头部信息
+            // warn: 头部信息不能作为文件滚动依据
+            // warn: 赋值后再写入，因为要finally close
+            encodeFileHeader(this.recordBuffer);
+        }
+
+        return out;
+    }
+
+    /**
+     * 压缩时按压缩率估算压缩后的字节数
+     *
+     * @param rollingSize task 线程写入的字节数, 包括还在缓冲区里的
+     */
+    private long estimateFileSize(long rollingSize) {
+        final CompressedSizeCounter counter = this.currentCompressedSizeCounter;
+
+        if (counter == null) {
+            return rollingSize;
+        }
+        return (long) (rollingSize * counter.ratio(this.lastCompressRatio));
+    }
+
+    private void rotate() throws IOException {
+        OutputStream out = this.currentOutputStream;
+
+        if (out != null) {
+            this.currentOutputStream = null;
+            this.rollingSize = 0;
+            this.rollingCount = 0;
+
+            final RecordBuffer buffer = this.recordBuffer;
+            final String filePath = this.filePathManager.detachCurrentFilePath();
+            final BaseFtpHelper ftpHelper = this.currentFtpHelper;
+            this.currentFtpHelper = null;
+            final CompressedSizeCounter counter = this.currentCompressedSizeCounter;
+            this.currentCompressedSizeCounter = null;
+
+            Assert.assertNotNull(filePath);
+            Assert.assertNotNull(ftpHelper);
+
+            // warn: record buffer 由 task 线程复用, 所以在 task 线程编码文件结尾并写入
+            try {
+                encodeFileFooter(buffer);
+                buffer.writeTo(out);
+            } catch (IOException ioe) {
+                closeQuietly(out);
+                this.idleFtpHelpers.offer(ftpHelper);
+                throw closeFailed(filePath, ioe);
+            } finally {
+                buffer.reset();
+                buffer.setSink(null, 0);
+            }
+
+            final RotationFinalizer rotationFinalizer = this.rotationFinalizer;
+
+            if (rotationFinalizer == null) {
+                closeAndFinish(out, filePath, ftpHelper, counter);
+            } else {
+                // 下一个文件使用其他空闲的连接, 可以立即打开
+                rotationFinalizer.submit(() -> closeAndFinish(out, filePath, ftpHelper, counter));
+            }
+        }
+    }
+
+    /**
+     * 关闭文件, 再用同 1 个连接重命名, 最后放回连接
+     * warn: 后台滚动时在后台线程调用
+     *
+     * @param counter null -> 不压缩
+     */
+    private void closeAndFinish(
+            @Nonnull OutputStream out, @Nonnull String filePath, @Nonnull BaseFtpHelper ftpHelper, CompressedSizeCounter counter
+    ) throws IOException {
+        try {
+            try {
+                out.close();
+            } catch (IOException ioe) {
+                throw closeFailed(filePath, ioe);
+            }
+
+            if (counter != null) {
+                // 关闭后压缩前后的字节数是准确的
+                this.lastCompressRatio = counter.ratio(this.lastCompressRatio);
+            }
+
+            // 不放到 finally, 因为有写入异常就尽快抛出以结束 datax 任务
+            this.filePathManager.finishFilePath(filePath, ftpHelper);
+        } finally {
+            // warn: 失败时也要放回, 否则 task 线程会一直等待空闲的连接
+            this.idleFtpHelpers.offer(ftpHelper);
+        }
+    }
+
+    @Nonnull
+    private static IOException closeFailed(@Nonnull String filePath, @Nonnull IOException ioe) {
+        IOException toThrow = new IOException(String.format("关闭文件写入流失败 [%s]", filePath));
+        toThrow.addSuppressed(ioe);
+        return toThrow;
+    }
+
+    private static void closeQuietly(@Nonnull OutputStream out) {
+        try {
+            out.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    public final void writeOneRecord(@Nonnull Record record) throws IOException {
+        // write
+        // warn: 直接编码到复用的 record buffer, 写入的字节数是准确的
+        final OutputStream out = getCurrentOutputStream();
+        final RecordBuffer buffer = this.recordBuffer;
+        // warn: 编码 stripe, row group 时会 drain, 所以按 position 计算
+        final long start = buffer.position();
+
+        encodeRecord(record, buffer);
+        if (isLineOriented()) {
+            buffer.write(NEW_LINE);
+        }
+
+        final long written = buffer.position() - start;
+
+        if (buffer.size() >= FLUSH_SIZE) {
+            buffer.writeTo(out);
+            buffer.reset();
+        }
+
+        // roll
+        boolean rolled = false;
+
+        final long rollSize = this.rollSize;
+        final int rollCount = this.rollCount;
+        long rollingSize = this.rollingSize;
+        int rollingCount = this.rollingCount;
+
+        rollingSize += written;
+        rollingCount += 1;
+
+        if (rollSize > 0 && estimateFileSize(rollingSize) + bufferedSize() >= rollSize) {
+            rollingSize = 0;
+            rollingCount = 0;
+            this.rotate();
+            rolled = true;
+        }
+        if (!rolled) {
+            if (rollCount > 0 && rollingCount >= rollCount) {
+                rollingSize = 0;
+                rollingCount = 0;
+                this.rotate();
+                // rolled = true;
+            }
+        }
+
+        this.rollingSize = rollingSize;
+        this.rollingCount = rollingCount;
+    }
+
+    /**
+     * 完成最后 1 个文件
+     * warn: 后台滚动时只是提交, 由 TaskResources#close 等待所有滚动的文件处理完成
+     */
+    @Override
+    public void close() throws IOException {
+        this.rotate();
+    }
 
+    /**
+     * @param resources 同一个 task 内共享, 在外面关闭
+     */
     @Nonnull
-    public static BaseRemoteWriter getImpl(@Nonnull Configuration conf, @Nonnull BaseFtpHelper ftpHelper) {
+    public static BaseRemoteWriter getImpl(@Nonnull Configuration conf, @Nonnull TaskResources resources) {
         String fileFormat = conf.getString(Key.FILE_FORMAT);
 
         if (Constant.FILE_FORMAT_TEXT.equalsIgnoreCase(fileFormat)) {
-            return new TextRemoteWriterImpl(conf, ftpHelper);
+            return new TextRemoteWriterImpl(conf, resources);
         } else if (Constant.FILE_FORMAT_CSV.equalsIgnoreCase(fileFormat)) {
-            return new CsvRemoteWriterImpl(conf, ftpHelper);
+            return new CsvRemoteWriterImpl(conf, resources);
+        } else if (Constant.FILE_FORMAT_PARQUET.equalsIgnoreCase(fileFormat)) {
+            return new ParquetRemoteWriterImpl(conf, resources);
+        } else if (Constant.FILE_FORMAT_ORC.equalsIgnoreCase(fileFormat)) {
+            return new OrcRemoteWriterImpl(conf, resources);
+        } else if (Constant.FILE_FORMAT_AVRO.equalsIgnoreCase(fileFormat)) {
+            return new AvroRemoteWriterImpl(conf, resources);
+        } else if (Constant.FILE_FORMAT_JSONL.equalsIgnoreCase(fileFormat)) {
+            return new JsonlRemoteWriterImpl(conf, resources);
+        } else if (Constant.FILE_FORMAT_ARROW.equalsIgnoreCase(fileFormat)) {
+            return new ArrowRemoteWriterImpl(conf, resources);
+        } else if (Constant.FILE_FORMAT_FIXED.equalsIgnoreCase(fileFormat)) {
+            return new FixedRemoteWriterImpl(conf, resources);
         } else {
             throw new IllegalStateException("should not happen");
         }
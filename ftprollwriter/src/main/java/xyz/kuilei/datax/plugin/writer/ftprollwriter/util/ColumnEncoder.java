@@ -0,0 +1,395 @@
+package xyz.kuilei.datax.plugin.writer.ftprollwriter.util;
+
+import com.alibaba.datax.common.element.Column;
+import com.alibaba.datax.common.element.DateColumn;
+import com.alibaba.datax.common.element.DoubleColumn;
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.util.Configuration;
+import org.apache.commons.lang3.StringUtils;
+import xyz.kuilei.datax.plugin.writer.ftprollwriter.Key;
+import xyz.kuilei.datax.plugin.writer.ftprollwriter.FtpRollWriterErrorCode;
+
+import javax.annotation.Nonnull;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 把 datax column 转为文本，nullFormat, dateFormat 已经在 DataXRecordReader#validateParameter 中检查过
+ *
+ * NOTE: column plan
+ * 每个列下标绑定 1 种格式化方式，来自配置的 columnTypes，或者来自第 1 次见到该列时的 column type，
+ * 热点循环里只需要 switch 一个 byte，不用每个单元格都 instanceof 再走 Column 的虚方法；
+ * 遇到与绑定类型不一致的单元格时，只有这个单元格走通用方式
+ *
+ * @author JiaKun Xu, 2026-10-17 10:30
+ */
+public class ColumnEncoder {
+    // 列下标还没有绑定格式化方式
+    private static final byte PLAN_UNBOUND = 0;
+    private static final byte PLAN_GENERIC = 1;
+    private static final byte PLAN_LONG = 2;
+    private static final byte PLAN_DOUBLE = 3;
+    private static final byte PLAN_STRING = 4;
+    private static final byte PLAN_DATE = 5;
+    private static final byte PLAN_BOOL = 6;
+    private static final byte PLAN_BYTES = 7;
+
+    public static void validateParameter(@Nonnull Configuration conf) {
+        List<String> columnTypes = conf.getList(Key.COLUMN_TYPES, String.class);
+
+        /*
+         * columnTypes check
+         */
+        if (columnTypes == null || columnTypes.isEmpty()) {
+            // 没有配置时，按第 1 次见到的 column type 绑定
+            return;
+        }
+
+        for (String columnType : columnTypes) {
+            if (PLAN_UNBOUND == toPlan(columnType)) {
+                throw DataXException.asDataXException(
+                        FtpRollWriterErrorCode.ILLEGAL_VALUE,
+                        String.format("您配置的columnTypes: %s 中的类型 [%s] 错误, 支持long, double, string, date, bool, bytes",
+                                columnTypes, columnType)
+                );
+            }
+        }
+    }
+
+    private static byte toPlan(String columnType) {
+        if (columnType == null) {
+            return PLAN_UNBOUND;
+        }
+
+        columnType = columnType.trim();
+
+        if (Constant.COLUMN_TYPE_LONG.equalsIgnoreCase(columnType)) {
+            return PLAN_LONG;
+        } else if (Constant.COLUMN_TYPE_DOUBLE.equalsIgnoreCase(columnType)) {
+            return PLAN_DOUBLE;
+        } else if (Constant.COLUMN_TYPE_STRING.equalsIgnoreCase(columnType)) {
+            return PLAN_STRING;
+        } else if (Constant.COLUMN_TYPE_DATE.equalsIgnoreCase(columnType)) {
+            return PLAN_DATE;
+        } else if (Constant.COLUMN_TYPE_BOOL.equalsIgnoreCase(columnType)) {
+            return PLAN_BOOL;
+        } else if (Constant.COLUMN_TYPE_BYTES.equalsIgnoreCase(columnType)) {
+            return PLAN_BYTES;
+        } else {
+            return PLAN_UNBOUND;
+        }
+    }
+
+    private static byte toPlan(@Nonnull Column.Type type) {
+        switch (type) {
+            case INT:
+            case LONG:
+                return PLAN_LONG;
+            case DOUBLE:
+                return PLAN_DOUBLE;
+            case STRING:
+                return PLAN_STRING;
+            case DATE:
+                return PLAN_DATE;
+            case BOOL:
+                return PLAN_BOOL;
+            case BYTES:
+                return PLAN_BYTES;
+            default:
+                return PLAN_GENERIC;
+        }
+    }
+
+    // if is null, set to "null"
+    @Nonnull
+    private final String nullFormat;
+
+    // 预先编码好的 nullFormat
+    @Nonnull
+    private final byte[] nullFormatBytes;
+
+    // 预先编码好的 bool
+    @Nonnull
+    private final byte[] trueBytes;
+
+    @Nonnull
+    private final byte[] falseBytes;
+
+    // if dateFormat is blank, set dateFormatter to null
+    private final DateFormatter dateFormatter;
+
+    // 列下标 -> 格式化方式, 按需扩容
+    @Nonnull
+    private byte[] plan;
+
+    public ColumnEncoder(@Nonnull Configuration conf) {
+        this.nullFormat = conf.getString(Key.NULL_FORMAT);
+        String dateFormat = conf.getString(Key.DATE_FORMAT);
+        List<String> columnTypes = conf.getList(Key.COLUMN_TYPES, String.class);
+        Charset charset = Charset.forName(conf.getString(Key.ENCODING));
+
+        this.nullFormatBytes = this.nullFormat.getBytes(charset);
+        this.trueBytes = "true".getBytes(charset);
+        this.falseBytes = "false".getBytes(charset);
+
+        if (StringUtils.isBlank(dateFormat)) {
+            this.dateFormatter = null;
+        } else {
+            this.dateFormatter = new DateFormatter(dateFormat, charset);
+        }
+
+        final int typeNumb = (columnTypes == null) ? 0 : columnTypes.size();
+        byte[] plan = new byte[Math.max(typeNumb, 16)];
+        for (int i = 0; i < typeNumb; i++) {
+            plan[i] = toPlan(columnTypes.get(i));
+        }
+        this.plan = plan;
+    }
+
+    private byte planOf(int index, @Nonnull Column col) {
+        byte[] plan = this.plan;
+
+        if (index >= plan.length) {
+            plan = Arrays.copyOf(plan, Math.max(plan.length << 1, index + 1));
+            this.plan = plan;
+        }
+
+        byte p = plan[index];
+        if (p == PLAN_UNBOUND) {
+            // 第 1 次见到该列, 按 column type 绑定
+            p = toPlan(col.getType());
+            plan[index] = p;
+        }
+        return p;
+    }
+
+    /**
+     * 字符串形式，给需要 String 的写入方式使用
+     */
+    @Nonnull
+    public String formatColumn(int index, @Nonnull Column col) {
+        final Object raw = col.getRawData();
+        if (null == raw) {
+            return this.nullFormat;
+        }
+
+        switch (planOf(index, col)) {
+            case PLAN_LONG:
+                if (raw instanceof BigInteger) {
+                    final BigInteger bi = (BigInteger) raw;
+                    return (bi.bitLength() < 64) ? Long.toString(bi.longValue()) : bi.toString();
+                }
+                break;
+            case PLAN_DOUBLE:
+            case PLAN_STRING:
+                // warn: datax 的 double column 本身就是以 plain string 保存的
+                if (raw instanceof String) {
+                    return (String) raw;
+                }
+                break;
+            case PLAN_DATE:
+                if (raw instanceof Long && col instanceof DateColumn) {
+                    return formatDate((Long) raw, (DateColumn) col);
+                }
+                break;
+            case PLAN_BOOL:
+                if (raw instanceof Boolean) {
+                    return ((Boolean) raw) ? "true" : "false";
+                }
+                break;
+            default:
+                // warn: bytes 转字符串依赖 datax 配置的编码, 和 generic 一样走 Column#asString
+                break;
+        }
+
+        return formatGeneric(col);
+    }
+
+    /**
+     * 直接编码到 record buffer，不经过中间的 String[]
+     */
+    public void writeColumn(int index, @Nonnull Column col, @Nonnull RecordBuffer out) {
+        final Object raw = col.getRawData();
+        if (null == raw) {
+            out.write(this.nullFormatBytes);
+            return;
+        }
+
+        switch (planOf(index, col)) {
+            case PLAN_LONG:
+                if (raw instanceof BigInteger) {
+                    writeInteger((BigInteger) raw, out);
+                    return;
+                }
+                break;
+            case PLAN_DOUBLE:
+                // warn: datax 的 double column 在构造时就已经转为 plain string, 这里不需要再格式化, 只有 ASCII 字符
+                if (raw instanceof String && col instanceof DoubleColumn) {
+                    out.writeAscii((String) raw);
+                    return;
+                }
+                if (raw instanceof String) {
+                    out.writeString((String) raw);
+                    return;
+                }
+                break;
+            case PLAN_STRING:
+                if (raw instanceof String) {
+                    out.writeString((String) raw);
+                    return;
+                }
+                break;
+            case PLAN_DATE:
+                if (raw instanceof Long && col instanceof DateColumn) {
+                    writeDate((Long) raw, (DateColumn) col, out);
+                    return;
+                }
+                break;
+            case PLAN_BOOL:
+                if (raw instanceof Boolean) {
+                    out.write(((Boolean) raw) ? this.trueBytes : this.falseBytes);
+                    return;
+                }
+                break;
+            default:
+                // warn: bytes 转字符串依赖 datax 配置的编码, 和 generic 一样走 Column#asString
+                break;
+        }
+
+        out.writeString(formatGeneric(col));
+    }
+
+    /**
+     * 只写入整数列，给需要转义的写入方式(csv)使用，整数的文本只有数字和负号
+     *
+     * @return false -> 不是整数, 什么也没有写入, 调用方再按字符串处理
+     */
+    public boolean writeIntegerColumn(int index, @Nonnull Column col, @Nonnull RecordBuffer out) {
+        final Object raw = col.getRawData();
+
+        if (raw instanceof BigInteger && planOf(index, col) == PLAN_LONG) {
+            writeInteger((BigInteger) raw, out);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 只写入不是字符串的列: 整数, datax 的 double, 日期, bool, 给需要转义的写入方式(text)直接编码后原位转义, 不经过 String
+     *
+     * @return false -> 字符串, bytes 等, 什么也没有写入, 调用方再按字符串处理
+     */
+    public boolean writeNonStringColumn(int index, @Nonnull Column col, @Nonnull RecordBuffer out) {
+        final Object raw = col.getRawData();
+        if (null == raw) {
+            return false;
+        }
+
+        switch (planOf(index, col)) {
+            case PLAN_LONG:
+                if (raw instanceof BigInteger) {
+                    writeInteger((BigInteger) raw, out);
+                    return true;
+                }
+                return false;
+            case PLAN_DOUBLE:
+                if (raw instanceof String && col instanceof DoubleColumn) {
+                    out.writeAscii((String) raw);
+                    return true;
+                }
+                return false;
+            case PLAN_DATE:
+                if (raw instanceof Long && col instanceof DateColumn) {
+                    writeDate((Long) raw, (DateColumn) col, out);
+                    return true;
+                }
+                return false;
+            case PLAN_BOOL:
+                if (raw instanceof Boolean) {
+                    out.write(((Boolean) raw) ? this.trueBytes : this.falseBytes);
+                    return true;
+                }
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 只写入不需要引号的 json 字面量: 整数, 合法的 double, bool，给 jsonl 使用
+     *
+     * @return false -> 什么也没有写入, 调用方再按字符串处理
+     */
+    public boolean writeJsonLiteralColumn(int index, @Nonnull Column col, @Nonnull RecordBuffer out) {
+        final Object raw = col.getRawData();
+        if (null == raw) {
+            return false;
+        }
+
+        switch (planOf(index, col)) {
+            case PLAN_LONG:
+                if (raw instanceof BigInteger) {
+                    writeInteger((BigInteger) raw, out);
+                    return true;
+                }
+                return false;
+            case PLAN_DOUBLE:
+                if (raw instanceof String && col instanceof DoubleColumn && JsonEncoder.isJsonNumber((String) raw)) {
+                    out.writeAscii((String) raw);
+                    return true;
+                }
+                return false;
+            case PLAN_BOOL:
+                if (raw instanceof Boolean) {
+                    out.write(((Boolean) raw) ? this.trueBytes : this.falseBytes);
+                    return true;
+                }
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    private static void writeInteger(@Nonnull BigInteger bi, @Nonnull RecordBuffer out) {
+        if (bi.bitLength() < 64) {
+            // 绝大多数整数都在 long 范围内, 不经过 BigInteger#toString
+            out.writeLong(bi.longValue());
+        } else {
+            out.writeString(bi.toString());
+        }
+    }
+
+    private void writeDate(long millis, @Nonnull DateColumn col, @Nonnull RecordBuffer out) {
+        final DateFormatter dateFormatter = this.dateFormatter;
+
+        if (dateFormatter != null) {
+            dateFormatter.write(millis, out);
+        } else {
+            // warn: 没有配置 dateFormat 时使用 datax 自身的日期格式
+            out.writeString(col.asString());
+        }
+    }
+
+    @Nonnull
+    private String formatDate(long millis, @Nonnull DateColumn col) {
+        final DateFormatter dateFormatter = this.dateFormatter;
+
+        if (dateFormatter != null) {
+            return dateFormatter.format(millis);
+        } else {
+            // warn: 没有配置 dateFormat 时使用 datax 自身的日期格式
+            return col.asString();
+        }
+    }
+
+    @Nonnull
+    private String formatGeneric(@Nonnull Column col) {
+        if (this.dateFormatter != null && col instanceof DateColumn) {
+            return this.dateFormatter.format(col.asDate().getTime());
+        } else {
+            return col.asString();
+        }
+    }
+}
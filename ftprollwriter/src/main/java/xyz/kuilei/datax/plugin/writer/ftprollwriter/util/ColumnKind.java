@@ -0,0 +1,115 @@
+package xyz.kuilei.datax.plugin.writer.ftprollwriter.util;
+
+import com.alibaba.datax.common.element.Column;
+import com.alibaba.datax.common.element.DateColumn;
+import com.alibaba.datax.common.element.DoubleColumn;
+
+import javax.annotation.Nonnull;
+import java.math.BigInteger;
+
+/**
+ * 二进制格式 (parquet, orc, avro, arrow) 共用的列类型, 与 columnTypes 对应, 以及按列类型取值
+ *
+ * NOTE:
+ * 1. 取值时先看 raw data, 与 column type 相符时直接使用, 避免 datax 的 asXxx 转换
+ * 2. 取值前调用方已经处理了 null
+ *
+ * @author JiaKun Xu, 2026-10-18 12:30
+ */
+final class ColumnKind {
+    static final byte UNBOUND = 0;
+    static final byte LONG = 1;
+    static final byte DOUBLE = 2;
+    static final byte STRING = 3;
+    static final byte DATE = 4;
+    static final byte BOOL = 5;
+    static final byte BYTES = 6;
+
+    private ColumnKind() {
+    }
+
+    /**
+     * @return UNBOUND -> 没有配置或者不支持的类型
+     */
+    static byte of(String columnType) {
+        if (columnType == null) {
+            return UNBOUND;
+        }
+
+        columnType = columnType.trim();
+
+        if (Constant.COLUMN_TYPE_LONG.equalsIgnoreCase(columnType)) {
+            return LONG;
+        } else if (Constant.COLUMN_TYPE_DOUBLE.equalsIgnoreCase(columnType)) {
+            return DOUBLE;
+        } else if (Constant.COLUMN_TYPE_STRING.equalsIgnoreCase(columnType)) {
+            return STRING;
+        } else if (Constant.COLUMN_TYPE_DATE.equalsIgnoreCase(columnType)) {
+            return DATE;
+        } else if (Constant.COLUMN_TYPE_BOOL.equalsIgnoreCase(columnType)) {
+            return BOOL;
+        } else if (Constant.COLUMN_TYPE_BYTES.equalsIgnoreCase(columnType)) {
+            return BYTES;
+        } else {
+            return UNBOUND;
+        }
+    }
+
+    static byte of(@Nonnull Column.Type type) {
+        switch (type) {
+            case INT:
+            case LONG:
+                return LONG;
+            case DOUBLE:
+                return DOUBLE;
+            case DATE:
+                return DATE;
+            case BOOL:
+                return BOOL;
+            case BYTES:
+                return BYTES;
+            default:
+                return STRING;
+        }
+    }
+
+    static long asLong(@Nonnull Column col, @Nonnull Object raw) {
+        if (raw instanceof BigInteger && ((BigInteger) raw).bitLength() < 64) {
+            return ((BigInteger) raw).longValue();
+        }
+        // warn: 超出 long 的范围时 datax 抛出异常
+        return col.asLong();
+    }
+
+    static double asDouble(@Nonnull Column col, @Nonnull Object raw) {
+        // warn: datax 的 double column 本身就是以 plain string 保存的
+        if (raw instanceof String && col instanceof DoubleColumn) {
+            return Double.parseDouble((String) raw);
+        }
+        return col.asDouble();
+    }
+
+    /**
+     * @return epoch millis
+     */
+    static long asDate(@Nonnull Column col, @Nonnull Object raw) {
+        if (raw instanceof Long && col instanceof DateColumn) {
+            return (Long) raw;
+        }
+        return col.asDate().getTime();
+    }
+
+    static boolean asBoolean(@Nonnull Column col, @Nonnull Object raw) {
+        return (raw instanceof Boolean) ? (Boolean) raw : col.asBoolean();
+    }
+
+    @Nonnull
+    static byte[] asBytes(@Nonnull Column col, @Nonnull Object raw) {
+        return (raw instanceof byte[]) ? (byte[]) raw : col.asBytes();
+    }
+
+    @Nonnull
+    static String asString(@Nonnull Column col, @Nonnull Object raw) {
+        return (raw instanceof String) ? (String) raw : col.asString();
+    }
+}
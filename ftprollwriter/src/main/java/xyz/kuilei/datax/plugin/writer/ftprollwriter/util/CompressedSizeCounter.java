@@ -0,0 +1,82 @@
+package xyz.kuilei.datax.plugin.writer.ftprollwriter.util;
+
+import javax.annotation.Nonnull;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 统计 1 个文件压缩前后的字节数, 用于按压缩后的大小滚动
+ *
+ * NOTE:
+ * 1. codec 内部有缓冲, 异步写入和多线程压缩还有排队的数据, 压缩后的字节数滞后于 task 线程写入的字节数
+ *    所以不直接使用压缩后的字节数, 而是用 "已经输出的压缩后字节数 / 对应的压缩前字节数" 得到压缩率, 再乘以 task 线程写入的字节数
+ * 2. 单线程压缩: codec 的上面统计压缩前, 下面统计压缩后, codec 内部缓冲的数据只有几十 KB, 误差很小
+ * 3. 多线程压缩: 每块写入时同时累加压缩前后的字节数, 两者是准确对应的
+ * 4. 还没有任何输出时, 压缩率未知
+ *
+ * warn: 只能由写入文件的线程更新, 其他线程可以读取
+ *
+ * @author JiaKun Xu, 2026-10-17 21:50
+ */
+public class CompressedSizeCounter {
+    private volatile long rawBytes;
+
+    private volatile long compressedBytes;
+
+    public void add(long raw, long compressed) {
+        this.rawBytes += raw;
+        this.compressedBytes += compressed;
+    }
+
+    /**
+     * @return 没有任何输出时为 defaultRatio
+     */
+    public double ratio(double defaultRatio) {
+        // warn: 与更新的顺序相同, 先读压缩前的, 并发更新时压缩率只会偏大, 文件只会偏小
+        final long raw = this.rawBytes;
+        final long compressed = this.compressedBytes;
+
+        return (compressed > 0 && raw > 0) ? (double) compressed / raw : defaultRatio;
+    }
+
+    /**
+     * 放在 codec 的上面, 统计压缩前的字节数
+     */
+    @Nonnull
+    public OutputStream countRaw(@Nonnull OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(int b) throws IOException {
+                this.out.write(b);
+                add(1, 0);
+            }
+
+            @Override
+            public void write(@Nonnull byte[] b, int off, int len) throws IOException {
+                this.out.write(b, off, len);
+                add(len, 0);
+            }
+        };
+    }
+
+    /**
+     * 放在 codec 的下面, 统计压缩后的字节数
+     */
+    @Nonnull
+    public OutputStream countCompressed(@Nonnull OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(int b) throws IOException {
+                this.out.write(b);
+                add(0, 1);
+            }
+
+            @Override
+            public void write(@Nonnull byte[] b, int off, int len) throws IOException {
+                this.out.write(b, off, len);
+                add(0, len);
+            }
+        };
+    }
+}
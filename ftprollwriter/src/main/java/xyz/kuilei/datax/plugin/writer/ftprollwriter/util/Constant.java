@@ -22,6 +22,25 @@ public class Constant {
      */
     public static final String DEFAULT_NULL_FORMAT = "null";
 
+    public static final boolean DEFAULT_PIPELINED_READ = false;
+
+    public static final int DEFAULT_PIPELINE_CAPACITY = 1024;
+
+    /**
+     * column encoder
+     */
+    public static final String COLUMN_TYPE_LONG = "long";
+
+    public static final String COLUMN_TYPE_DOUBLE = "double";
+
+    public static final String COLUMN_TYPE_STRING = "string";
+
+    public static final String COLUMN_TYPE_DATE = "date";
+
+    public static final String COLUMN_TYPE_BOOL = "bool";
+
+    public static final String COLUMN_TYPE_BYTES = "bytes";
+
     /**
      * base remote writer
      */
@@ -29,6 +48,18 @@ public class Constant {
 
     public static final String FILE_FORMAT_CSV = "csv";
 
+    public static final String FILE_FORMAT_PARQUET = "parquet";
+
+    public static final String FILE_FORMAT_ORC = "orc";
+
+    public static final String FILE_FORMAT_AVRO = "avro";
+
+    public static final String FILE_FORMAT_JSONL = "jsonl";
+
+    public static final String FILE_FORMAT_ARROW = "arrow";
+
+    public static final String FILE_FORMAT_FIXED = "fixed";
+
     public static final char DEFAULT_FIELD_DELIMITER = ',';
 
     public static final String DEFAULT_ENCODING = "UTF-8";
@@ -37,6 +68,80 @@ public class Constant {
 
     public static final int DEFAULT_ROLL_COUNT = 0;
 
+    public static final boolean DEFAULT_ASYNC_WRITE = false;
+
+    public static final int DEFAULT_ASYNC_BUFFER_COUNT = 2;
+
+    // 异步写入时每个缓冲区的大小
+    public static final int ASYNC_BUFFER_SIZE = 1024 * 1024;
+
+    public static final boolean DEFAULT_ASYNC_ROTATE = false;
+
+    public static final int DEFAULT_MAX_PENDING_ROTATIONS = 2;
+
+    /**
+     * compress codec
+     */
+    public static final String COMPRESS_NONE = "none";
+
+    public static final String COMPRESS_GZIP = "gzip";
+
+    public static final String COMPRESS_DEFLATE = "deflate";
+
+    public static final String COMPRESS_ZSTD = "zstd";
+
+    public static final String COMPRESS_LZ4 = "lz4";
+
+    public static final int DEFAULT_COMPRESS_THREADS = 1;
+
+    // 多线程压缩时每块的字节数
+    public static final int COMPRESS_BLOCK_SIZE = 1024 * 1024;
+
+    /**
+     * parallel remote writer
+     */
+    public static final long DEFAULT_ROW_GROUP_SIZE = 16L * 1024 * 1024;
+
+    public static final int DEFAULT_PAGE_SIZE = 1024 * 1024;
+
+    public static final int MIN_PAGE_SIZE = 8 * 1024;
+
+    public static final long DEFAULT_STRIPE_SIZE = 64L * 1024 * 1024;
+
+    public static final long MIN_STRIPE_SIZE = 64L * 1024;
+
+    public static final int DEFAULT_AVRO_SYNC_INTERVAL = 64000;
+
+    public static final int MIN_AVRO_SYNC_INTERVAL = 32;
+
+    public static final int MAX_AVRO_SYNC_INTERVAL = 1 << 30;
+
+    public static final int DEFAULT_RECORD_BATCH_SIZE = 16 * 1024 * 1024;
+
+    public static final int MIN_RECORD_BATCH_SIZE = 64 * 1024;
+
+    public static final int MAX_RECORD_BATCH_SIZE = 1 << 30;
+
+    public static final String COLUMN_ALIGN_LEFT = "left";
+
+    public static final String COLUMN_ALIGN_RIGHT = "right";
+
+    public static final String DEFAULT_COLUMN_ALIGN = COLUMN_ALIGN_LEFT;
+
+    public static final String DEFAULT_COLUMN_PAD_CHAR = " ";
+
+    public static final String TEXT_ESCAPE_NONE = "none";
+
+    public static final String TEXT_ESCAPE_BACKSLASH = "backslash";
+
+    public static final String TEXT_ESCAPE_HIVE = "hive";
+
+    public static final String DEFAULT_TEXT_ESCAPE = TEXT_ESCAPE_NONE;
+
+    public static final char DEFAULT_ESCAPE_CHAR = '\\';
+
+    public static final int DEFAULT_PARALLELISM = 1;
+
     /**
      * file path manager
      */
@@ -1,127 +1,68 @@
 package xyz.kuilei.datax.plugin.writer.ftprollwriter.util;
 
+import com.alibaba.datax.common.element.Column;
+import com.alibaba.datax.common.element.Record;
 import com.alibaba.datax.common.util.Configuration;
-import com.csvreader.CsvWriter;
-import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.Assert;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
-import java.io.*;
+import java.nio.charset.Charset;
 
 /**
  * @author JiaKun Xu, 2023-02-27 20:09
  */
 public class CsvRemoteWriterImpl extends BaseRemoteWriter {
-    private static final Logger LOG = LoggerFactory.getLogger(CsvRemoteWriterImpl.class);
-
-    private PrintWriter currentPrintWriter;
-    private CsvWriter currentCsvWriter;
-    private int rollingCount;
-
-    public CsvRemoteWriterImpl(@Nonnull Configuration conf, @Nonnull BaseFtpHelper ftpHelper) {
-        super(conf, ftpHelper);
-
-        Assert.assertTrue(Constant.FILE_FORMAT_CSV.equalsIgnoreCase(super.fileFormat));
-    }
-
     @Nonnull
-    private CsvWriter getCurrentCsvWriter() throws IOException {
-        CsvWriter csvWriter = this.currentCsvWriter;
-
-        if (csvWriter == null) {
-            PrintWriter printWriter = this.currentPrintWriter;
-            Assert.assertNull(printWriter);
-
-            String filePath = super.filePathManager.getCurrentFilePath();
-            LOG.info(String.format("正在打开文件 [%s] 获取写入流", filePath));
-
-            try {
-                OutputStream os = super.ftpHelper.getOutputStream(filePath);
-                OutputStreamWriter osw = new OutputStreamWriter(os, super.encoding);
-                BufferedWriter bw = new BufferedWriter(osw);
+    private final CsvEncoder csvEncoder;
 
-                printWriter = new PrintWriter(bw);
-                csvWriter = new CsvWriter(printWriter, super.fieldDelimiter);
-
-                csvWriter.setRecordDelimiter(LINE_SEPARATOR_CHAR);
-            } catch (IOException ioe) {
-                IOException toThrow = new IOException(String.format("打开文件 [%s] 获取写入流时出错", filePath));
-                toThrow.addSuppressed(ioe);
-                throw toThrow;
-            }
+    // 预先编码好的列分隔符
+    @Nonnull
+    private final byte[] fieldDelimiterBytes;
 
-            Assert.assertNotNull(printWriter);
-            Assert.assertNotNull(csvWriter);
-            this.currentPrintWriter = printWriter;
-            this.currentCsvWriter = csvWriter;
+    public CsvRemoteWriterImpl(@Nonnull Configuration conf, @Nonnull TaskResources resources) {
+        super(conf, resources);
 
-            // warn: 因为要滚动文件，所以每个滚动的文件都要写入头部信息
-            // warn: 赋值后再写入，因为要finally close
-            if (ArrayUtils.isNotEmpty(super.header)) {
-                csvWriter.writeRecord(super.header);
-            }
-        }
+        Assert.assertTrue(Constant.FILE_FORMAT_CSV.equalsIgnoreCase(super.fileFormat));
 
-        return csvWriter;
+        Charset charset = Charset.forName(super.encoding);
+        // warn: 换行符固定为 LINE_SEPARATOR_CHAR, 只有它需要包起来
+        this.csvEncoder = new CsvEncoder(super.fieldDelimiter, new char[]{LINE_SEPARATOR_CHAR}, charset);
+        this.fieldDelimiterBytes = String.valueOf(super.fieldDelimiter).getBytes(charset);
     }
 
-    private void rotate() throws IOException {
-        CsvWriter csvWriter = this.currentCsvWriter;
-
-        if (csvWriter != null) {
-            PrintWriter printWriter = this.currentPrintWriter;
-            Assert.assertNotNull(printWriter);
-
-            this.currentPrintWriter = null;
-            this.currentCsvWriter = null;
-            this.rollingCount = 0;
-
-            csvWriter.close();
-
-            FilePathManager filePathManager = super.filePathManager;
-
-            if (printWriter.checkError()) {
-                String filePath = filePathManager.getCurrentFilePath();
-                throw new IOException(String.format("关闭文件写入流失败 [%s]", filePath));
+    @Override
+    protected void encodeHeader(@Nonnull String[] header, @Nonnull RecordBuffer buffer) {
+        for (int i = 0; i < header.length; i++) {
+            if (i != 0) {
+                buffer.write(this.fieldDelimiterBytes);
             }
-
-            // 不放到 finally, 因为有写入异常就尽快抛出以结束 datax 任务
-            filePathManager.rotate();
+            this.csvEncoder.writeField(header[i], i == 0, buffer);
         }
     }
 
     @Override
-    public void writeOneRecord(@Nonnull String[] splitRows) throws IOException {
-        CsvWriter csvWriter = getCurrentCsvWriter();
-
-        if (splitRows.length == 0) {
-            csvWriter.write(StringUtils.EMPTY);
-            csvWriter.endRecord();
-        } else {
-            csvWriter.writeRecord(splitRows);
+    protected void encodeRecord(@Nonnull Record record, @Nonnull RecordBuffer buffer) {
+        // warn: 直接编码到复用的 record buffer, 写入的字节数是准确的, 所以 csv 也可以按 rollSize 滚动
+        final CsvEncoder csvEncoder = this.csvEncoder;
+        final ColumnEncoder columnEncoder = super.columnEncoder;
+        final boolean integerSafe = csvEncoder.isIntegerSafe();
+
+        final int recLen = record.getColumnNumber();
+        if (recLen == 0) {
+            // 与 javacsv 一致, 没有列时写入 1 个空字段
+            csvEncoder.writeField(StringUtils.EMPTY, true, buffer);
         }
+        for (int i = 0; i < recLen; i++) {
+            if (i != 0) {
+                buffer.write(this.fieldDelimiterBytes);
+            }
 
-        // roll file
-        final int rollCount = super.rollCount;
-
-        int rollingCount = this.rollingCount;
-
-        rollingCount += 1;
-
-        if (rollCount > 0 && rollingCount >= rollCount) {
-            rollingCount = 0;
-            this.rotate();
+            Column column = record.getColumn(i);
+            // 整数不需要转义, 直接写入
+            if (!integerSafe || !columnEncoder.writeIntegerColumn(i, column, buffer)) {
+                csvEncoder.writeField(columnEncoder.formatColumn(i, column), i == 0, buffer);
+            }
         }
-
-        this.rollingCount = rollingCount;
     }
-
-    @Override
-    public void close() throws IOException {
-        rotate();
-    }
-
 }
@@ -1,12 +1,9 @@
 package xyz.kuilei.datax.plugin.writer.ftprollwriter.util;
 
-import com.alibaba.datax.common.element.Column;
-import com.alibaba.datax.common.element.DateColumn;
 import com.alibaba.datax.common.element.Record;
 import com.alibaba.datax.common.exception.DataXException;
 import com.alibaba.datax.common.plugin.RecordReceiver;
 import com.alibaba.datax.common.util.Configuration;
-import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,24 +11,21 @@ import xyz.kuilei.datax.plugin.writer.ftprollwriter.FtpRollWriterErrorCode;
 import xyz.kuilei.datax.plugin.writer.ftprollwriter.Key;
 
 import javax.annotation.Nonnull;
-import java.text.DateFormat;
+import javax.annotation.Nullable;
+import java.io.Closeable;
 import java.text.SimpleDateFormat;
 
 /**
  * @author JiaKun Xu, 2023-02-14 16:35
  */
-public class DataXRecordReader {
+public class DataXRecordReader implements Closeable {
     private static final Logger LOG = LoggerFactory.getLogger(DataXRecordReader.class);
 
-    // if is null, set to "null"
-    private final String nullFormat;
-
-    // if is blank, set to null
-    private final String dateFormat;
-
     public static void validateParameter(@Nonnull Configuration conf) {
         String nullFormat = conf.getString(Key.NULL_FORMAT);
         String dateFormat = conf.getString(Key.DATE_FORMAT);
+        Boolean pipelinedRead = conf.getBool(Key.PIPELINED_READ);
+        Integer pipelineCapacity = conf.getInt(Key.PIPELINE_CAPACITY);
 
         /*
          * nullFormat check
@@ -64,62 +58,96 @@ public class DataXRecordReader {
         }
 
         conf.set(Key.DATE_FORMAT, dateFormat);
-    }
 
-    // if dateFormat is blank, set dateParse to null
-    private final DateFormat dateParse;
+        /*
+         * pipelinedRead check
+         */
+        if (null == pipelinedRead) {
+            pipelinedRead = Constant.DEFAULT_PIPELINED_READ;
+        }
+
+        conf.set(Key.PIPELINED_READ, pipelinedRead);
+
+        /*
+         * pipelineCapacity check
+         */
+        if (null == pipelineCapacity) {
+            pipelineCapacity = Constant.DEFAULT_PIPELINE_CAPACITY;
+        } else {
+            if (pipelineCapacity < 2) {
+                throw DataXException.asDataXException(
+                        FtpRollWriterErrorCode.ILLEGAL_VALUE,
+                        String.format("您配置的 pipelineCapacity: [%d] 错误, 至少为 2", pipelineCapacity)
+                );
+            }
+        }
+
+        conf.set(Key.PIPELINE_CAPACITY, pipelineCapacity);
+    }
 
     @Nonnull
     private final RecordReceiver recordReceiver;
 
+    // 不为 null 时, 由 pump 线程预读 record
+    @Nullable
+    private final RecordRingBuffer ringBuffer;
+
     public DataXRecordReader(@Nonnull Configuration conf, @Nonnull RecordReceiver recordReceiver) {
-        this.nullFormat = conf.getString(Key.NULL_FORMAT);
-        this.dateFormat = conf.getString(Key.DATE_FORMAT);
         this.recordReceiver = recordReceiver;
 
-        final String dateFormat = this.dateFormat;
-        // warn: 可能不兼容
-        if (StringUtils.isBlank(dateFormat)) {
-            this.dateParse = null;
+        if (conf.getBool(Key.PIPELINED_READ)) {
+            this.ringBuffer = new RecordRingBuffer(conf.getInt(Key.PIPELINE_CAPACITY));
+
+            Thread pumpThread = new Thread(this::pump, "pipelined-read-" + Thread.currentThread().getName());
+            pumpThread.setDaemon(true);
+            pumpThread.start();
+
+            LOG.info(String.format("pipelined read, ring buffer capacity: [%d]", this.ringBuffer.capacity()));
         } else {
-            this.dateParse = new SimpleDateFormat(dateFormat);
+            this.ringBuffer = null;
         }
     }
 
     /**
+     * warn: 不再转为 String[], 由 writer 通过 ColumnEncoder 直接编码为字节
+     *
      * @return null -> finished
      *         not null -> still has records to read
+     * @see ColumnEncoder
      */
-    public String[] readOneRecord() {
-        Record rec = this.recordReceiver.getFromReader();
-        if (rec == null) {
-            return null;
-        }
+    public Record readOneRecord() {
+        final RecordRingBuffer ringBuffer = this.ringBuffer;
+        return ringBuffer == null ? this.recordReceiver.getFromReader() : ringBuffer.take();
+    }
 
-        int recLen = rec.getColumnNumber();
-        if (0 == recLen) {
-            return ArrayUtils.EMPTY_STRING_ARRAY;
+    /**
+     * 不再读取, pump 线程在下一次 put 时退出
+     * warn: 写入失败时也要调用, 否则 pump 线程会一直等待空闲的槽位
+     */
+    @Override
+    public void close() {
+        if (this.ringBuffer != null) {
+            this.ringBuffer.cancel();
         }
+    }
 
-        final String nullFormat = this.nullFormat;
-        final DateFormat dateParse = this.dateParse;
-
-        String[] splitRows = new String[recLen];
-
-        for (int i = 0; i < recLen; i++) {
-            Column col = rec.getColumn(i);
-            if (null != col.getRawData()) {
-                if (dateParse != null && col instanceof DateColumn) {
-                    splitRows[i] = dateParse.format(col.asDate());
-                } else {
-                    splitRows[i] = col.asString();
+    /**
+     * pump 线程: 从 reader 读取 record, 放入环形缓冲区, 编码和写入由 task 线程完成
+     */
+    private void pump() {
+        final RecordRingBuffer ringBuffer = this.ringBuffer;
+        assert ringBuffer != null;
+
+        try {
+            Record record;
+            while ((record = this.recordReceiver.getFromReader()) != null) {
+                if (!ringBuffer.put(record)) {
+                    return;
                 }
-            } else {
-                splitRows[i] = nullFormat;
             }
+            ringBuffer.finish();
+        } catch (Throwable t) {
+            ringBuffer.fail(t);
         }
-
-        return splitRows;
     }
-
 }
@@ -0,0 +1,443 @@
+package xyz.kuilei.datax.plugin.writer.ftprollwriter.util;
+
+import javax.annotation.Nonnull;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.SignStyle;
+import java.time.temporal.ChronoField;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * 替代 SimpleDateFormat 的日期格式化，线程安全
+ *
+ * NOTE:
+ * 1. dateFormat 仍然是 SimpleDateFormat 的语法，只由数字类字段(y M d H h K k m s D)和字面量组成时，
+ *    预先编译为 java.time 的 DateTimeFormatter；其他字段(E a z Z ...)为了结果完全一致，仍然交给 SimpleDateFormat
+ * 2. 格式化结果按秒缓存，没有时间字段时按天缓存，同一秒(天)的日期只需要查 1 次缓存；
+ *    SSS 毫秒字段不参与缓存，缓存的是毫秒两边的文本，写入时再拼上 3 位毫秒
+ * 3. 缓存是直接映射的，缓存项不可变，多个线程共用也没有问题
+ * 4. 1900 年以前的日期不缓存，直接交给 SimpleDateFormat
+ *
+ * @author JiaKun Xu, 2026-10-17 11:20
+ */
+public class DateFormatter {
+    // 2 的幂
+    private static final int CACHE_SIZE = 64;
+
+    private static final long SECOND_MILLIS = 1000L;
+
+    private static final long HOUR_MILLIS = 3600L * 1000L;
+
+    // 1900-01-02T00:00:00Z, 更早的日期 TimeZone 与 java.time 的地方时偏移不同(1582 年以前还有儒略历), 不缓存
+    private static final long MIN_CACHEABLE_MILLIS = -2208902400000L;
+
+    @Nonnull
+    private final String pattern;
+
+    @Nonnull
+    private final Charset charset;
+
+    @Nonnull
+    private final ZoneId zoneId;
+
+    // 以 SSS 分隔的各段, 为 null 时表示退化为 SimpleDateFormat
+    private final DateTimeFormatter[] segments;
+
+    // 不包含时间字段, 按天缓存
+    private final boolean dateOnly;
+
+    // 包含不能拆开的毫秒字段, 不能缓存
+    private final boolean cacheable;
+
+    @Nonnull
+    private final ThreadLocal<SimpleDateFormat> fallback;
+
+    @Nonnull
+    private final Entry[] cache = new Entry[CACHE_SIZE];
+
+    public DateFormatter(@Nonnull String pattern, @Nonnull Charset charset) {
+        this.pattern = pattern;
+        this.charset = charset;
+        // warn: 与 SimpleDateFormat 一样使用 jvm 默认时区
+        this.zoneId = TimeZone.getDefault().toZoneId();
+        this.fallback = ThreadLocal.withInitial(() -> new SimpleDateFormat(pattern));
+
+        List<Token> tokens = tokenize(pattern);
+
+        boolean dateOnly = true;
+        boolean hasMillis = false;
+        boolean compilable = true;
+
+        for (Token token : tokens) {
+            if (token.letter == 0) {
+                continue;
+            }
+
+            switch (token.letter) {
+                case 'S':
+                    hasMillis = true;
+                    dateOnly = false;
+                    if (token.count != 3) {
+                        compilable = false;
+                    }
+                    break;
+                case 'y':
+                case 'M':
+                case 'd':
+                case 'D':
+                    if (toField(token) == null) {
+                        compilable = false;
+                    }
+                    break;
+                case 'H':
+                case 'h':
+                case 'K':
+                case 'k':
+                case 'm':
+                case 's':
+                    dateOnly = false;
+                    if (toField(token) == null) {
+                        compilable = false;
+                    }
+                    break;
+                // 一天之内不变的非数字字段
+                case 'Y':
+                case 'L':
+                case 'E':
+                case 'F':
+                case 'u':
+                case 'w':
+                case 'W':
+                case 'G':
+                    compilable = false;
+                    break;
+                default:
+                    compilable = false;
+                    dateOnly = false;
+                    break;
+            }
+        }
+
+        this.dateOnly = dateOnly;
+
+        if (compilable) {
+            this.segments = compile(tokens);
+            this.cacheable = true;
+        } else {
+            this.segments = null;
+            this.cacheable = !hasMillis;
+        }
+    }
+
+    @Nonnull
+    public String getPattern() {
+        return this.pattern;
+    }
+
+    @Nonnull
+    public String format(long millis) {
+        Entry entry = lookup(millis);
+
+        if (entry == null) {
+            return this.fallback.get().format(new Date(millis));
+        }
+
+        final String[] texts = entry.texts;
+        if (texts.length == 1) {
+            return texts[0];
+        }
+
+        final int ms = (int) Math.floorMod(millis, SECOND_MILLIS);
+        StringBuilder sb = new StringBuilder(32);
+        sb.append(texts[0]);
+        for (int i = 1; i < texts.length; i++) {
+            sb.append((char) ('0' + ms / 100))
+                    .append((char) ('0' + ms / 10 % 10))
+                    .append((char) ('0' + ms % 10));
+            sb.append(texts[i]);
+        }
+        return sb.toString();
+    }
+
+    public void write(long millis, @Nonnull RecordBuffer out) {
+        Entry entry = lookup(millis);
+
+        if (entry == null || !out.isAsciiCompatible()) {
+            out.writeString(format(millis));
+            return;
+        }
+
+        final byte[][] bytes = entry.bytes;
+        out.write(bytes[0]);
+
+        if (bytes.length > 1) {
+            final int ms = (int) Math.floorMod(millis, SECOND_MILLIS);
+            for (int i = 1; i < bytes.length; i++) {
+                out.write('0' + ms / 100);
+                out.write('0' + ms / 10 % 10);
+                out.write('0' + ms % 10);
+                out.write(bytes[i]);
+            }
+        }
+    }
+
+    /**
+     * @return null -> 不能缓存
+     */
+    private Entry lookup(long millis) {
+        if (!this.cacheable) {
+            return null;
+        }
+        if (millis < MIN_CACHEABLE_MILLIS) {
+            return null;
+        }
+
+        final boolean dateOnly = this.dateOnly;
+        // warn: 按天缓存时也按小时分桶, 因为时区偏移不一定是整点, 命中与否以缓存项的区间为准
+        final long bucket = Math.floorDiv(millis, dateOnly ? HOUR_MILLIS : SECOND_MILLIS);
+        final int slot = (int) (bucket ^ (bucket >>> 32)) & (CACHE_SIZE - 1);
+
+        Entry entry = this.cache[slot];
+        if (entry != null && millis >= entry.from && millis < entry.until) {
+            return entry;
+        }
+
+        entry = load(millis, dateOnly);
+        this.cache[slot] = entry;
+        return entry;
+    }
+
+    @Nonnull
+    private Entry load(long millis, boolean dateOnly) {
+        final long from;
+        final long until;
+
+        if (dateOnly) {
+            // warn: 按当前的时区偏移计算这一天的区间, 再截断到前后两次偏移变化之间
+            // 例如 America/St_Johns 曾在 00:01 回拨, 同一个日期出现 2 次, 不是连续的区间
+            final Instant instant = Instant.ofEpochMilli(millis);
+            final ZoneRules rules = this.zoneId.getRules();
+            final ZoneOffset offset = rules.getOffset(instant);
+            final LocalDate day = instant.atOffset(offset).toLocalDate();
+            long dayFrom = day.atStartOfDay().toEpochSecond(offset) * SECOND_MILLIS;
+            long dayUntil = day.plusDays(1).atStartOfDay().toEpochSecond(offset) * SECOND_MILLIS;
+
+            // 偏移变化都在整秒, + 1 毫秒使正好在变化时刻的 millis 取到这次变化
+            final ZoneOffsetTransition previous = rules.previousTransition(Instant.ofEpochMilli(millis + 1));
+            if (previous != null) {
+                dayFrom = Math.max(dayFrom, previous.toEpochSecond() * SECOND_MILLIS);
+            }
+            final ZoneOffsetTransition next = rules.nextTransition(instant);
+            if (next != null) {
+                dayUntil = Math.min(dayUntil, next.toEpochSecond() * SECOND_MILLIS);
+            }
+
+            from = dayFrom;
+            until = dayUntil;
+        } else {
+            from = Math.floorDiv(millis, SECOND_MILLIS) * SECOND_MILLIS;
+            until = from + SECOND_MILLIS;
+        }
+
+        final String[] texts;
+        final DateTimeFormatter[] segments = this.segments;
+
+        if (segments != null) {
+            ZonedDateTime time = Instant.ofEpochMilli(from).atZone(this.zoneId);
+            texts = new String[segments.length];
+            for (int i = 0; i < segments.length; i++) {
+                texts[i] = segments[i].format(time);
+            }
+        } else {
+            texts = new String[]{this.fallback.get().format(new Date(from))};
+        }
+
+        byte[][] bytes = new byte[texts.length][];
+        for (int i = 0; i < texts.length; i++) {
+            bytes[i] = texts[i].getBytes(this.charset);
+        }
+
+        return new Entry(from, until, texts, bytes);
+    }
+
+    /**
+     * 按 SSS 切分为多段, 每段编译为 1 个 DateTimeFormatter
+     */
+    @Nonnull
+    private static DateTimeFormatter[] compile(@Nonnull List<Token> tokens) {
+        List<DateTimeFormatter> segments = new ArrayList<>();
+        DateTimeFormatterBuilder builder = new DateTimeFormatterBuilder();
+
+        for (Token token : tokens) {
+            if (token.letter == 0) {
+                builder.appendLiteral(token.literal);
+            } else if (token.letter == 'S') {
+                segments.add(builder.toFormatter());
+                builder = new DateTimeFormatterBuilder();
+            } else if (token.letter == 'y' && token.count == 2) {
+                builder.appendValueReduced(ChronoField.YEAR_OF_ERA, 2, 2, 2000);
+            } else {
+                Field field = toField(token);
+                if (token.count == 1) {
+                    builder.appendValue(field.field);
+                } else {
+                    builder.appendValue(field.field, token.count, Math.max(token.count, field.maxWidth), SignStyle.NOT_NEGATIVE);
+                }
+            }
+        }
+
+        segments.add(builder.toFormatter());
+        return segments.toArray(new DateTimeFormatter[0]);
+    }
+
+    private static Field toField(@Nonnull Token token) {
+        if (token.count > 19) {
+            return null;
+        }
+
+        switch (token.letter) {
+            case 'y':
+                return new Field(ChronoField.YEAR_OF_ERA, 19);
+            case 'M':
+                // warn: MMM 及以上是月份的文本形式
+                return (token.count > 2) ? null : new Field(ChronoField.MONTH_OF_YEAR, 2);
+            case 'd':
+                return new Field(ChronoField.DAY_OF_MONTH, 2);
+            case 'D':
+                return new Field(ChronoField.DAY_OF_YEAR, 3);
+            case 'H':
+                return new Field(ChronoField.HOUR_OF_DAY, 2);
+            case 'h':
+                return new Field(ChronoField.CLOCK_HOUR_OF_AMPM, 2);
+            case 'K':
+                return new Field(ChronoField.HOUR_OF_AMPM, 2);
+            case 'k':
+                return new Field(ChronoField.CLOCK_HOUR_OF_DAY, 2);
+            case 'm':
+                return new Field(ChronoField.MINUTE_OF_HOUR, 2);
+            case 's':
+                return new Field(ChronoField.SECOND_OF_MINUTE, 2);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 按 SimpleDateFormat 的规则拆分 pattern: 连续相同字母为 1 个字段, 单引号内为字面量, 两个单引号为 1 个单引号
+     */
+    @Nonnull
+    private static List<Token> tokenize(@Nonnull String pattern) {
+        List<Token> tokens = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        final int len = pattern.length();
+        int i = 0;
+
+        while (i < len) {
+            char c = pattern.charAt(i);
+
+            if (c == '\'') {
+                if (i + 1 < len && pattern.charAt(i + 1) == '\'') {
+                    literal.append('\'');
+                    i += 2;
+                    continue;
+                }
+
+                // quoted text
+                i++;
+                while (i < len) {
+                    char q = pattern.charAt(i);
+                    if (q == '\'') {
+                        if (i + 1 < len && pattern.charAt(i + 1) == '\'') {
+                            literal.append('\'');
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    literal.append(q);
+                    i++;
+                }
+                i++;  // closing quote
+            } else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                if (literal.length() != 0) {
+                    tokens.add(new Token(literal.toString()));
+                    literal.setLength(0);
+                }
+
+                int count = 1;
+                while (i + count < len && pattern.charAt(i + count) == c) {
+                    count++;
+                }
+                tokens.add(new Token(c, count));
+                i += count;
+            } else {
+                literal.append(c);
+                i++;
+            }
+        }
+
+        if (literal.length() != 0) {
+            tokens.add(new Token(literal.toString()));
+        }
+
+        return tokens;
+    }
+
+    private static final class Token {
+        // 0 -> literal
+        final char letter;
+        final int count;
+        final String literal;
+
+        Token(String literal) {
+            this.letter = 0;
+            this.count = 0;
+            this.literal = literal;
+        }
+
+        Token(char letter, int count) {
+            this.letter = letter;
+            this.count = count;
+            this.literal = null;
+        }
+    }
+
+    private static final class Field {
+        final ChronoField field;
+        final int maxWidth;
+
+        Field(ChronoField field, int maxWidth) {
+            this.field = field;
+            this.maxWidth = maxWidth;
+        }
+    }
+
+    /**
+     * [from, until) 内的日期格式化结果相同
+     */
+    private static final class Entry {
+        final long from;
+        final long until;
+        final String[] texts;
+        final byte[][] bytes;
+
+        Entry(long from, long until, String[] texts, byte[][] bytes) {
+            this.from = from;
+            this.until = until;
+            this.texts = texts;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -78,12 +78,6 @@ public class FilePathManager {
         }
     }
 
-    /**
-     * ftp helper会在外面关闭
-     */
-    @Nonnull
-    private final BaseFtpHelper ftpHelper;
-
     @Nonnull
     private final String baseDirectoryPath;
 
@@ -91,17 +85,28 @@ public class FilePathManager {
     @Nonnull
     private final String prefixWithUUID;
 
-    private final AtomicInteger fileIndex = new AtomicInteger();
+    // warn: 并行写入时多个 file path manager 共享, 保证文件名不重复
+    @Nonnull
+    private final AtomicInteger fileIndex;
+
+    // null -> 不压缩
+    private final String compressExtension;
 
     private String currentFilePath;
 
-    public FilePathManager(@Nonnull Configuration conf, @Nonnull BaseFtpHelper ftpHelper) {
+    public FilePathManager(@Nonnull Configuration conf) {
+        this(conf, new AtomicInteger());
+    }
+
+    public FilePathManager(@Nonnull Configuration conf, @Nonnull AtomicInteger fileIndex) {
+        this.fileIndex = fileIndex;
         this.baseDirectoryPath = conf.getString(Key.PATH);
         this.prefixWithUUID = conf.getString(Key.INTERNAL_PREFIX_WITH_UUID);
         this.suffix = conf.getString(Key.SUFFIX);
         this.inUseSuffix = conf.getString(Key.IN_USE_SUFFIX);
 
-        this.ftpHelper = ftpHelper;
+        BaseCompressCodec codec = BaseCompressCodec.getStreamImpl(conf);
+        this.compressExtension = (codec == null) ? null : codec.getExtension();
     }
 
     @Nonnull
@@ -115,6 +120,9 @@ public class FilePathManager {
         sb.append("-");
         sb.append(this.fileIndex.incrementAndGet());
         sb.append(".").append(this.suffix);
+        if (this.compressExtension != null) {
+            sb.append(".").append(this.compressExtension);
+        }
         sb.append(".").append(this.inUseSuffix);
 
         String tempPath = sb.toString();
@@ -128,14 +136,23 @@ public class FilePathManager {
         return (tempPath == null) ? this.nextFilePath() : tempPath;
     }
 
-    public void rotate() {
+    /**
+     * 取出当前文件路径, 下一次 getCurrentFilePath 时使用新的文件路径
+     *
+     * @return null -> 没有当前文件
+     */
+    public String detachCurrentFilePath() {
         String tempPath = this.currentFilePath;
+        this.currentFilePath = null;
+        return tempPath;
+    }
 
-        if (tempPath != null) {
-            this.currentFilePath = null;
-
-            String destPath = tempPath.substring(0, tempPath.lastIndexOf(this.inUseSuffix) - 1);
-            this.ftpHelper.rename(tempPath, destPath);
-        }
+    /**
+     * 重命名已经关闭的临时文件
+     * warn: 可以在后台线程调用, 必须使用上传该文件的连接
+     */
+    public void finishFilePath(@Nonnull String tempPath, @Nonnull BaseFtpHelper ftpHelper) {
+        String destPath = tempPath.substring(0, tempPath.lastIndexOf(this.inUseSuffix) - 1);
+        ftpHelper.rename(tempPath, destPath);
     }
 }
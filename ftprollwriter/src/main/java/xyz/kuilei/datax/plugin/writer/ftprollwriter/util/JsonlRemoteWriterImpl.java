@@ -0,0 +1,60 @@
+package xyz.kuilei.datax.plugin.writer.ftprollwriter.util;
+
+import com.alibaba.datax.common.element.Column;
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.util.Configuration;
+import org.junit.Assert;
+
+import javax.annotation.Nonnull;
+import java.nio.charset.Charset;
+
+/**
+ * NOTE:
+ * 1. 每行 1 个 json object, header 作为字段名, 不再单独写入文件开头
+ * 2. 整数, double, bool 不加引号, null 写为 json 的 null, 其余按 dateFormat 等格式化后作为字符串
+ * 3. fieldDelimiter, nullFormat 不起作用
+ *
+ * @author JiaKun Xu, 2026-10-18 01:40
+ */
+public class JsonlRemoteWriterImpl extends BaseRemoteWriter {
+    @Nonnull
+    private final JsonEncoder jsonEncoder;
+
+    public JsonlRemoteWriterImpl(@Nonnull Configuration conf, @Nonnull TaskResources resources) {
+        super(conf, resources);
+
+        Assert.assertTrue(Constant.FILE_FORMAT_JSONL.equalsIgnoreCase(super.fileFormat));
+
+        this.jsonEncoder = new JsonEncoder(super.header, Charset.forName(super.encoding));
+    }
+
+    @Override
+    protected void encodeHeader(@Nonnull String[] header, @Nonnull RecordBuffer buffer) {
+        // header 是每行的字段名, 见 encodeFileHeader
+    }
+
+    @Override
+    protected void encodeFileHeader(@Nonnull RecordBuffer buffer) {
+        // warn: jsonl 的每行都是完整的 object, 文件开头没有头部信息
+    }
+
+    @Override
+    protected void encodeRecord(@Nonnull Record record, @Nonnull RecordBuffer buffer) {
+        // warn: 直接编码到复用的 record buffer, 写入的字节数是准确的, 所以 jsonl 也可以按 rollSize 滚动
+        final JsonEncoder jsonEncoder = this.jsonEncoder;
+        final ColumnEncoder columnEncoder = super.columnEncoder;
+
+        final int recLen = record.getColumnNumber();
+        for (int i = 0; i < recLen; i++) {
+            jsonEncoder.writeKey(i, buffer);
+
+            Column column = record.getColumn(i);
+            if (column.getRawData() == null) {
+                jsonEncoder.writeNull(buffer);
+            } else if (!columnEncoder.writeJsonLiteralColumn(i, column, buffer)) {
+                jsonEncoder.writeString(columnEncoder.formatColumn(i, column), buffer);
+            }
+        }
+        jsonEncoder.writeObjectEnd(recLen, buffer);
+    }
+}
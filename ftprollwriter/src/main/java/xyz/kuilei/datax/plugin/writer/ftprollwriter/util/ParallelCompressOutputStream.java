@@ -0,0 +1,251 @@
+package xyz.kuilei.datax.plugin.writer.ftprollwriter.util;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 多线程压缩 (类似 pigz): 把数据切成固定大小的块, 由线程池各自独立压缩, 再按顺序写入底层流
+ *
+ * NOTE:
+ * 1. 每块是 1 个完整的 gzip member, zstd frame 或者 lz4 frame, 拼接后仍然是合法的压缩文件, 标准工具可以直接解压
+ * 2. 正在压缩和等待写入的块不超过 maxInFlight 个, 超过时写入线程等待最早的块完成, 内存有上限
+ * 3. 输入的块写入底层流后复用
+ * 4. 压缩失败后, 异常在下一次 write, flush 或者 close 时抛出
+ * 5. flush 只写入已经提交的块, 不满 1 块的数据不提交, 否则会产生很多很小的块
+ * 6. 没有写入任何数据时, close 也会写入 1 个空的块, 保证是合法的压缩文件
+ * 7. 每块写入时, 把压缩前后的字节数累加到 counter
+ *
+ * warn: 非线程安全，只能由 1 个线程写入
+ *
+ * @author JiaKun Xu, 2026-10-17 21:20
+ */
+public class ParallelCompressOutputStream extends OutputStream {
+    /**
+     * @param name 用于线程的名称
+     */
+    @Nonnull
+    public static ExecutorService newExecutor(@Nonnull String name, int threads) {
+        final AtomicInteger threadIndex = new AtomicInteger();
+
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "parallel-compress-" + name + "-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Nonnull
+    private final OutputStream out;
+
+    @Nonnull
+    private final BaseCompressCodec codec;
+
+    // 由 writer 共享, 在外面关闭
+    @Nonnull
+    private final ExecutorService executor;
+
+    private final int blockSize;
+
+    private final int maxInFlight;
+
+    @Nonnull
+    private final CompressedSizeCounter counter;
+
+    // 按提交顺序排列
+    @Nonnull
+    private final Deque<Block> inFlight = new ArrayDeque<>();
+
+    // 空闲的输入块
+    @Nonnull
+    private final Deque<byte[]> freeBlocks = new ArrayDeque<>();
+
+    // 正在填充的块
+    private byte[] current;
+    private int count;
+
+    // 已经提交的块数
+    private long submitted;
+
+    private boolean closed;
+
+    public ParallelCompressOutputStream(
+            @Nonnull OutputStream out, @Nonnull BaseCompressCodec codec, @Nonnull ExecutorService executor, int blockSize, int maxInFlight,
+            @Nonnull CompressedSizeCounter counter
+    ) {
+        this.out = out;
+        this.codec = codec;
+        this.executor = executor;
+        this.blockSize = blockSize;
+        this.maxInFlight = maxInFlight;
+        this.counter = counter;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+
+        if (this.current == null) {
+            this.current = nextBlock();
+        }
+
+        this.current[this.count++] = (byte) b;
+
+        if (this.count == this.blockSize) {
+            submit();
+        }
+    }
+
+    @Override
+    public void write(@Nonnull byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+
+        while (len > 0) {
+            if (this.current == null) {
+                this.current = nextBlock();
+            }
+
+            final int n = Math.min(len, this.blockSize - this.count);
+            System.arraycopy(b, off, this.current, this.count, n);
+            this.count += n;
+            off += n;
+            len -= n;
+
+            if (this.count == this.blockSize) {
+                submit();
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        while (!this.inFlight.isEmpty()) {
+            writeFirst();
+        }
+        this.out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+
+        try {
+            if (this.count > 0 || this.submitted == 0) {
+                if (this.current == null) {
+                    this.current = nextBlock();
+                }
+                submit();
+            }
+            while (!this.inFlight.isEmpty()) {
+                writeFirst();
+            }
+        } catch (IOException | RuntimeException e) {
+            for (Block block : this.inFlight) {
+                block.future.cancel(false);
+            }
+            this.inFlight.clear();
+
+            try {
+                this.out.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+
+        this.out.close();
+    }
+
+    @Nonnull
+    private byte[] nextBlock() {
+        byte[] block = this.freeBlocks.pollFirst();
+        return (block == null) ? new byte[this.blockSize] : block;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (this.closed) {
+            throw new IOException("stream closed");
+        }
+    }
+
+    private void submit() throws IOException {
+        // 先腾出位置, 保证内存有上限
+        while (this.inFlight.size() >= this.maxInFlight) {
+            writeFirst();
+        }
+
+        final byte[] input = this.current;
+        final int length = this.count;
+        this.current = null;
+        this.count = 0;
+
+        final Future<byte[]> future = this.executor.submit(() -> compress(input, length));
+        this.inFlight.addLast(new Block(input, length, future));
+        this.submitted++;
+    }
+
+    /**
+     * 等待最早提交的块压缩完成, 写入底层流
+     */
+    private void writeFirst() throws IOException {
+        final Block block = this.inFlight.peekFirst();
+        final byte[] compressed;
+
+        try {
+            compressed = block.future.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待压缩完成时被中断");
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("压缩失败", cause);
+        }
+
+        this.inFlight.pollFirst();
+        this.out.write(compressed);
+        this.counter.add(block.length, compressed.length);
+        this.freeBlocks.addLast(block.input);
+    }
+
+    @Nonnull
+    private byte[] compress(@Nonnull byte[] input, int length) throws IOException {
+        // 压缩后一般远小于输入
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(length / 4, 64));
+
+        try (OutputStream out = this.codec.compress(compressed)) {
+            out.write(input, 0, length);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static final class Block {
+        @Nonnull
+        final byte[] input;
+
+        final int length;
+
+        @Nonnull
+        final Future<byte[]> future;
+
+        Block(@Nonnull byte[] input, int length, @Nonnull Future<byte[]> future) {
+            this.input = input;
+            this.length = length;
+            this.future = future;
+        }
+    }
+}
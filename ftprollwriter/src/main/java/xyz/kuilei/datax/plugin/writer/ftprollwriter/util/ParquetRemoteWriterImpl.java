@@ -0,0 +1,61 @@
+package xyz.kuilei.datax.plugin.writer.ftprollwriter.util;
+
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.util.Configuration;
+import org.junit.Assert;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+
+/**
+ * NOTE:
+ * 1. record 先由 parquet-mr 按列缓冲, 攒够 1 个 row group 时才写入 record buffer, 写入时 drain 到文件
+ *    record buffer 不用容纳整个 row group; 还没有写入的 row group 计入 rollSize, 见 bufferedSize
+ * 2. 文件关闭之前, 剩余的行作为最后 1 个 row group, 再写入 footer
+ * 3. 远程文件只能追加写入, row group 在 parquet-mr 的内存中编码完成后再写入, footer 中的偏移量为写入 record buffer 的字节数
+ * 4. header 作为列名写入 footer, fieldDelimiter, nullFormat, dateFormat 不起作用
+ *
+ * @author JiaKun Xu, 2026-10-17 22:50
+ */
+public class ParquetRemoteWriterImpl extends BaseRemoteWriter {
+    @Nonnull
+    private final ParquetEncoder parquetEncoder;
+
+    public ParquetRemoteWriterImpl(@Nonnull Configuration conf, @Nonnull TaskResources resources) {
+        super(conf, resources);
+
+        Assert.assertTrue(Constant.FILE_FORMAT_PARQUET.equalsIgnoreCase(super.fileFormat));
+
+        this.parquetEncoder = new ParquetEncoder(conf, super.header);
+    }
+
+    @Override
+    protected void encodeHeader(@Nonnull String[] header, @Nonnull RecordBuffer buffer) {
+        // header 是 footer 里的列名, 见 encodeFileHeader
+    }
+
+    @Override
+    protected void encodeFileHeader(@Nonnull RecordBuffer buffer) {
+        this.parquetEncoder.startFile(buffer);
+    }
+
+    @Override
+    protected void encodeRecord(@Nonnull Record record, @Nonnull RecordBuffer buffer) throws IOException {
+        this.parquetEncoder.addRecord(record, buffer);
+    }
+
+    @Override
+    protected void encodeFileFooter(@Nonnull RecordBuffer buffer) throws IOException {
+        this.parquetEncoder.finishFile(buffer);
+    }
+
+    @Override
+    protected long bufferedSize() {
+        return this.parquetEncoder.bufferedSize();
+    }
+
+    @Override
+    protected boolean isLineOriented() {
+        return false;
+    }
+}
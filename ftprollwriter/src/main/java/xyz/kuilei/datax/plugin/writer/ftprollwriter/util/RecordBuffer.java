@@ -0,0 +1,516 @@
+package xyz.kuilei.datax.plugin.writer.ftprollwriter.util;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 每个 task 复用的字节缓冲区，record 直接编码进来，不再经过 String[]、join 后的整行 String 以及 getBytes 产生的 byte[]
+ *
+ * NOTE: 字符编码
+ * 1. ASCII 字符在所有 ASCII 兼容的编码下都是直接写入
+ * 2. UTF-8、GBK 有专门的单遍编码，GBK 使用预先生成的码表
+ * 3. 其他编码复用同一个 CharsetEncoder
+ * 结果都与 String#getBytes(Charset) 一致，包括无法编码的字符替换为 '?'
+ *
+ * warn: 非线程安全，一个 task 一个实例
+ *
+ * @author JiaKun Xu, 2026-10-17 10:12
+ */
+public class RecordBuffer {
+    // 00 ~ 99 的两位数字, 每次处理 2 位
+    private static final byte[] DIGIT_PAIRS = new byte[200];
+
+    static {
+        for (int i = 0; i < 100; i++) {
+            DIGIT_PAIRS[i << 1] = (byte) ('0' + i / 10);
+            DIGIT_PAIRS[(i << 1) + 1] = (byte) ('0' + i % 10);
+        }
+    }
+
+    private static final byte CODER_GENERIC = 0;
+    private static final byte CODER_UTF8 = 1;
+    private static final byte CODER_GBK = 2;
+
+    @Nonnull
+    private final Charset charset;
+
+    // 0x00 ~ 0x7F 是否与 ASCII 编码一致，UTF-8、GBK、ISO-8859-1 等都是
+    private final boolean asciiCompatible;
+
+    // 非 ASCII 字符的编码方式
+    private final byte coder;
+
+    // CODER_GENERIC 时按需创建
+    private CharsetEncoder encoder;
+
+    private byte[] buf;
+
+    private int count;
+
+    // drain 的目标, 一般是当前文件的写入流, null -> drain 不写入
+    private OutputStream sink;
+
+    // 缓冲的字节数达到这么多时 drain 才写入 sink
+    private int drainSize;
+
+    // 已经 drain 到 sink 的字节数
+    private long drained;
+
+    public RecordBuffer(int initialCapacity, @Nonnull Charset charset) {
+        this.charset = charset;
+        this.asciiCompatible = isAsciiCompatible(charset);
+        if (StandardCharsets.UTF_8.equals(charset)) {
+            this.coder = CODER_UTF8;
+        } else if ("GBK".equals(charset.name())) {
+            this.coder = CODER_GBK;
+        } else {
+            this.coder = CODER_GENERIC;
+        }
+        this.buf = new byte[Math.max(initialCapacity, 16)];
+    }
+
+    private static boolean isAsciiCompatible(@Nonnull Charset charset) {
+        char[] chars = new char[0x80];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) i;
+        }
+
+        byte[] encoded = new String(chars).getBytes(charset);
+        if (encoded.length != chars.length) {
+            return false;
+        }
+        for (int i = 0; i < encoded.length; i++) {
+            if (encoded[i] != i) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Nonnull
+    public Charset getCharset() {
+        return this.charset;
+    }
+
+    public boolean isAsciiCompatible() {
+        return this.asciiCompatible;
+    }
+
+    public int size() {
+        return this.count;
+    }
+
+    public void reset() {
+        this.count = 0;
+    }
+
+    /**
+     * 写入过的字节数, 包括已经 drain 到 sink 的, 用来计算一次编码写入的字节数
+     */
+    public long position() {
+        return this.drained + this.count;
+    }
+
+    /**
+     * 每个文件打开时设置, 关闭时设置为 null
+     */
+    public void setSink(OutputStream sink, int drainSize) {
+        this.sink = sink;
+        this.drainSize = drainSize;
+    }
+
+    /**
+     * 缓冲的字节数达到 drainSize 时先写入 sink 并清空
+     * 给一次编码很多字节的格式使用 (例如 orc 的 stripe, parquet 的 row group), 缓冲区不用容纳整个 stripe
+     *
+     * warn: drain 之后, 之前取得的 size() 不再是有效的位置, 所以不能与 truncate, padTo 混用
+     */
+    public void drain() throws IOException {
+        if (this.sink != null && this.count >= this.drainSize) {
+            this.sink.write(this.buf, 0, this.count);
+            this.drained += this.count;
+            this.count = 0;
+        }
+    }
+
+    /**
+     * 丢弃 size 之后写入的字节
+     */
+    public void truncate(int size) {
+        this.count = size;
+    }
+
+    /**
+     * 把 [start, size()) 原位补齐到 width 个字节, 给定长格式使用, 不经过临时数组
+     *
+     * @param right   true -> 右对齐, 内容后移, 补齐字节在前面
+     * @param padding 预先填充好的补齐字节, 至少 width 个
+     */
+    public void padTo(int start, int width, boolean right, @Nonnull byte[] padding) {
+        final int len = this.count - start;
+        final int padLen = width - len;
+        if (padLen <= 0) {
+            return;
+        }
+
+        ensureCapacity(start + width);
+        if (right) {
+            System.arraycopy(this.buf, start, this.buf, start + padLen, len);
+            System.arraycopy(padding, 0, this.buf, start, padLen);
+        } else {
+            System.arraycopy(padding, 0, this.buf, this.count, padLen);
+        }
+        this.count = start + width;
+    }
+
+    /**
+     * 把 [start, size()) 中的 ASCII 字节原位替换为预先编码好的字节, 从后往前移动, 不经过临时数组
+     * 给 text 格式转义直接编码的单元格 (日期, double) 使用
+     *
+     * warn: 只有 UTF-8, 或者全部是 ASCII 字节时, 小于 0x80 的字节才一定是 ASCII 字符, GBK 等编码的第 2 个字节可能与 \ 相同
+     *
+     * @param replacements ASCII 字符 -> 替换后的字节, null 表示不替换
+     * @return false -> 不能按字节判断是否为 ASCII 字符, 什么也没有改变, 调用方再按字符处理
+     */
+    public boolean escapeAscii(int start, @Nonnull byte[][] replacements) {
+        if (!this.asciiCompatible) {
+            return false;
+        }
+
+        final int end = this.count;
+        final byte[] buf = this.buf;
+        final boolean utf8 = this.coder == CODER_UTF8;
+
+        int extra = 0;
+        for (int i = start; i < end; i++) {
+            final int b = buf[i];
+            if (b < 0) {
+                if (!utf8) {
+                    return false;
+                }
+            } else if (replacements[b] != null) {
+                extra += replacements[b].length - 1;
+            }
+        }
+        if (extra == 0) {
+            return true;
+        }
+
+        ensureCapacity(end + extra);
+        final byte[] dst = this.buf;
+        int pos = end + extra;
+        for (int i = end - 1; i >= start; i--) {
+            final int b = dst[i];
+            final byte[] replacement = (b < 0) ? null : replacements[b];
+            if (replacement == null) {
+                dst[--pos] = (byte) b;
+            } else {
+                pos -= replacement.length;
+                System.arraycopy(replacement, 0, dst, pos, replacement.length);
+            }
+        }
+        this.count = end + extra;
+        return true;
+    }
+
+    public void write(int b) {
+        int pos = this.count;
+        ensureCapacity(pos + 1);
+        this.buf[pos] = (byte) b;
+        this.count = pos + 1;
+    }
+
+    public void write(@Nonnull byte[] b) {
+        write(b, 0, b.length);
+    }
+
+    public void write(@Nonnull byte[] b, int off, int len) {
+        int pos = this.count;
+        ensureCapacity(pos + len);
+        System.arraycopy(b, off, this.buf, pos, len);
+        this.count = pos + len;
+    }
+
+    /**
+     * 按 charset 编码字符串
+     * ASCII 兼容的编码先逐字符直接写入，遇到第一个非 ASCII 字符后，剩余部分再按编码方式处理
+     */
+    public void writeString(@Nonnull String s) {
+        writeString(s, 0, s.length());
+    }
+
+    /**
+     * 只编码 [start, end) 部分，不用 substring
+     */
+    public void writeString(@Nonnull String s, int start, int end) {
+        if (!this.asciiCompatible) {
+            writeGeneric(s, start, end);
+            return;
+        }
+
+        int pos = this.count;
+        ensureCapacity(pos + (end - start));
+        final byte[] buf = this.buf;
+
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x80) {
+                this.count = pos;
+                switch (this.coder) {
+                    case CODER_UTF8:
+                        writeUtf8(s, i, end);
+                        break;
+                    case CODER_GBK:
+                        writeGbk(s, i, end);
+                        break;
+                    default:
+                        writeGeneric(s, i, end);
+                        break;
+                }
+                return;
+            }
+            buf[pos++] = (byte) c;
+        }
+
+        this.count = pos;
+    }
+
+    private void writeUtf8(@Nonnull String s, int from, int end) {
+        int pos = this.count;
+        // 每个 char 最多 3 个字节, 代理对 2 个 char 共 4 个字节
+        ensureCapacity(pos + (end - from) * 3);
+        final byte[] buf = this.buf;
+
+        for (int i = from; i < end; i++) {
+            final char c = s.charAt(i);
+
+            if (c < 0x80) {
+                buf[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                buf[pos++] = (byte) (0xC0 | (c >> 6));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                final char d;
+                if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(d = s.charAt(i + 1))) {
+                    final int cp = Character.toCodePoint(c, d);
+                    buf[pos++] = (byte) (0xF0 | (cp >> 18));
+                    buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    buf[pos++] = (byte) (0x80 | (cp & 0x3F));
+                    i++;
+                } else {
+                    // 不成对的代理字符, 与 getBytes 一样替换为 '?'
+                    buf[pos++] = '?';
+                }
+            } else {
+                buf[pos++] = (byte) (0xE0 | (c >> 12));
+                buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+
+        this.count = pos;
+    }
+
+    private void writeGbk(@Nonnull String s, int from, int end) {
+        int pos = this.count;
+        ensureCapacity(pos + (end - from) * 2);
+        final byte[] buf = this.buf;
+        final char[] codes = GbkTable.CODES;
+
+        for (int i = from; i < end; i++) {
+            final char c = s.charAt(i);
+
+            if (c < 0x80) {
+                buf[pos++] = (byte) c;
+            } else if (Character.isSurrogate(c)) {
+                // warn: GBK 中没有增补字符, 很少见, 剩余部分交给 CharsetEncoder
+                this.count = pos;
+                writeGeneric(s, i, end);
+                return;
+            } else {
+                final char code = codes[c];
+                if (code > 0xFF) {
+                    buf[pos++] = (byte) (code >> 8);
+                }
+                buf[pos++] = (byte) code;
+            }
+        }
+
+        this.count = pos;
+    }
+
+    private void writeGeneric(@Nonnull String s, int from, int end) {
+        CharsetEncoder encoder = this.encoder;
+        if (encoder == null) {
+            // 与 String#getBytes(Charset) 相同的替换策略
+            encoder = this.charset.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            this.encoder = encoder;
+        }
+
+        final CharBuffer in = CharBuffer.wrap(s, from, end);
+        final int maxBytes = (int) Math.ceil(encoder.maxBytesPerChar());
+        ensureCapacity(this.count + in.remaining() * maxBytes);
+
+        encoder.reset();
+        boolean flushing = false;
+        while (true) {
+            ByteBuffer out = ByteBuffer.wrap(this.buf, this.count, this.buf.length - this.count);
+            CoderResult cr = flushing ? encoder.flush(out) : encoder.encode(in, out, true);
+            this.count = out.position();
+
+            if (cr.isOverflow()) {
+                ensureCapacity(this.buf.length + Math.max(in.remaining(), 16) * maxBytes);
+            } else if (!flushing) {
+                flushing = true;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 调用方保证字符串只包含 ASCII 字符(例如 datax double column 的 plain string)，整段按字节拷贝，不再逐字符检查
+     * 非 ASCII 兼容的编码仍然走 writeString
+     *
+     * warn: 故意使用过时的 String#getBytes(int, int, byte[], int), 它过时是因为只取每个 char 的低 8 位, 调用方保证只有 ASCII 字符, 所以结果正确;
+     * jdk 9 以上 LATIN1 的字符串直接 arraycopy 到 buf; 其他 getBytes 都要新建 byte[], 逐字符 charAt 又比它慢
+     */
+    @SuppressWarnings("deprecation")
+    public void writeAscii(@Nonnull String s) {
+        if (!this.asciiCompatible) {
+            writeString(s);
+            return;
+        }
+
+        final int len = s.length();
+        int pos = this.count;
+        ensureCapacity(pos + len);
+        // warn: 只取每个 char 的低 8 位, 仅适用于 ASCII
+        s.getBytes(0, len, this.buf, pos);
+        this.count = pos + len;
+    }
+
+    /**
+     * 十进制整数直接写为字节，结果与 Long#toString 一致
+     * 非 ASCII 兼容的编码仍然走 writeString
+     */
+    public void writeLong(long v) {
+        if (!this.asciiCompatible) {
+            writeString(Long.toString(v));
+            return;
+        }
+
+        if (v == Long.MIN_VALUE) {
+            // warn: 取反会溢出
+            writeString("-9223372036854775808");
+            return;
+        }
+
+        int pos = this.count;
+        ensureCapacity(pos + 20);
+        final byte[] buf = this.buf;
+
+        if (v < 0) {
+            buf[pos++] = '-';
+            v = -v;
+        }
+
+        // 从后往前写
+        final int end = pos + stringSize(v);
+        int i = end;
+        while (v >= 100) {
+            final int r = (int) (v % 100) << 1;
+            v /= 100;
+            buf[--i] = DIGIT_PAIRS[r + 1];
+            buf[--i] = DIGIT_PAIRS[r];
+        }
+        final int r = (int) v << 1;
+        buf[--i] = DIGIT_PAIRS[r + 1];
+        if (v >= 10) {
+            buf[--i] = DIGIT_PAIRS[r];
+        }
+
+        this.count = end;
+    }
+
+    // v >= 0
+    private static int stringSize(long v) {
+        long p = 10;
+        for (int i = 1; i < 19; i++) {
+            if (v < p) {
+                return i;
+            }
+            p *= 10;
+        }
+        return 19;
+    }
+
+    public void writeTo(@Nonnull OutputStream out) throws IOException {
+        out.write(this.buf, 0, this.count);
+    }
+
+    /**
+     * 复制已经写入的字节, 只用于预先编码的场景, 不要在热点循环里调用
+     */
+    @Nonnull
+    public byte[] toByteArray() {
+        return Arrays.copyOf(this.buf, this.count);
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        byte[] buf = this.buf;
+
+        if (minCapacity > buf.length) {
+            int newCapacity = Math.max(buf.length << 1, minCapacity);
+            this.buf = Arrays.copyOf(buf, newCapacity);
+        }
+    }
+
+    /**
+     * BMP 中每个 char 的 GBK 编码，大于 0xFF 的是双字节，无法编码的是 '?'
+     * 第 1 次用到 GBK 时才生成
+     */
+    private static final class GbkTable {
+        static final char[] CODES = build();
+
+        @Nonnull
+        private static char[] build() {
+            final char[] codes = new char[0x10000];
+            Arrays.fill(codes, '?');
+
+            // 代理字符单独处理, 不放进来, 避免相邻的高低代理被当成 1 个字符
+            StringBuilder sb = new StringBuilder(0x10000);
+            for (int c = 0x80; c < 0x10000; c++) {
+                if (!Character.isSurrogate((char) c)) {
+                    sb.append((char) c);
+                }
+            }
+
+            // GBK 的双字节编码首字节都在 0x81 ~ 0xFE, 单字节都小于 0x81
+            final byte[] encoded = sb.toString().getBytes(Charset.forName("GBK"));
+            int pos = 0;
+            for (int i = 0; i < sb.length(); i++) {
+                final int b1 = encoded[pos++] & 0xFF;
+                if (b1 >= 0x81 && b1 <= 0xFE) {
+                    final int b2 = encoded[pos++] & 0xFF;
+                    codes[sb.charAt(i)] = (char) ((b1 << 8) | b2);
+                } else {
+                    codes[sb.charAt(i)] = (char) b1;
+                }
+            }
+            return codes;
+        }
+    }
+}
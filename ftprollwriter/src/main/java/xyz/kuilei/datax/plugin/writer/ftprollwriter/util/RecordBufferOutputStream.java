@@ -0,0 +1,46 @@
+package xyz.kuilei.datax.plugin.writer.ftprollwriter.util;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 二进制格式 (parquet, orc, avro, arrow) 的官方 writer 的输出流, 写入 record buffer, 攒够 drainSize 时 drain 到当前文件
+ *
+ * NOTE:
+ * 1. 每个文件开始时 startFile, 之后写入的字节数即为文件内的偏移量, parquet-mr 等需要
+ * 2. flush, close 什么都不做, 文件的写入流由 BaseRemoteWriter 关闭
+ *
+ * warn: 非线程安全，只能由 1 个线程写入
+ *
+ * @author JiaKun Xu, 2026-10-18 15:00
+ */
+final class RecordBufferOutputStream extends OutputStream {
+    private RecordBuffer buffer;
+
+    // 当前文件已经写入的字节数
+    private long position;
+
+    void startFile(@Nonnull RecordBuffer buffer) {
+        this.buffer = buffer;
+        this.position = 0;
+    }
+
+    long position() {
+        return this.position;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        this.buffer.write(b);
+        this.position++;
+        this.buffer.drain();
+    }
+
+    @Override
+    public void write(@Nonnull byte[] b, int off, int len) throws IOException {
+        this.buffer.write(b, off, len);
+        this.position += len;
+        this.buffer.drain();
+    }
+}
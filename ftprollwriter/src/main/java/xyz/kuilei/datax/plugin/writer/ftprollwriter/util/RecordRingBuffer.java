@@ -0,0 +1,144 @@
+package xyz.kuilei.datax.plugin.writer.ftprollwriter.util;
+
+import com.alibaba.datax.common.element.Record;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 单生产者、单消费者的 record 环形缓冲区，槽位预先分配，不加锁
+ *
+ * NOTE:
+ * 1. head 只由消费者写, tail 只由生产者写, 各自 lazySet 发布
+ * 2. 满或者空时先自旋, 再 park 一小段时间, 不用 wait/notify
+ * 3. 生产者结束(finish)或者出错(fail)后, 消费者取完剩余的 record 再得到结束或者异常
+ * 4. 消费者取消(cancel)后, 生产者的 put 返回 false
+ *
+ * @author JiaKun Xu, 2026-10-17 16:20
+ */
+public class RecordRingBuffer {
+    private static final int SPIN_TIMES = 100;
+
+    private static final long PARK_NANOS = 50_000L;
+
+    @Nonnull
+    private final Record[] slots;
+
+    private final int mask;
+
+    // 下一个要读取的位置
+    @Nonnull
+    private final AtomicLong head = new AtomicLong();
+
+    // 下一个要写入的位置
+    @Nonnull
+    private final AtomicLong tail = new AtomicLong();
+
+    private volatile boolean finished;
+
+    private volatile boolean cancelled;
+
+    private volatile Throwable error;
+
+    /**
+     * @param capacity 向上取整为 2 的幂
+     */
+    public RecordRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.slots = new Record[size];
+        this.mask = size - 1;
+    }
+
+    public int capacity() {
+        return this.slots.length;
+    }
+
+    /**
+     * 生产者调用
+     *
+     * @return false -> 消费者已经取消, 不需要再生产
+     */
+    public boolean put(@Nonnull Record record) {
+        final long t = this.tail.get();
+        final long wrap = t - this.slots.length;
+
+        int idle = 0;
+        while (this.head.get() <= wrap) {
+            if (this.cancelled) {
+                return false;
+            }
+            idle = idle(idle);
+        }
+
+        this.slots[(int) t & this.mask] = record;
+        this.tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * 生产者调用, 表示不会再有 record
+     */
+    public void finish() {
+        this.finished = true;
+    }
+
+    /**
+     * 生产者调用, 异常在消费者取完剩余的 record 后抛出
+     */
+    public void fail(@Nonnull Throwable t) {
+        this.error = t;
+        this.finished = true;
+    }
+
+    /**
+     * 消费者调用
+     *
+     * @return null -> 生产者已经结束且没有剩余的 record
+     * @throws RuntimeException 生产者的异常
+     */
+    public Record take() {
+        final long h = this.head.get();
+
+        int idle = 0;
+        while (h >= this.tail.get()) {
+            // warn: 先读 finished 再读 tail, 保证 finish 之前 put 的都能取到
+            if (this.finished && h >= this.tail.get()) {
+                Throwable t = this.error;
+                if (t == null) {
+                    return null;
+                } else if (t instanceof RuntimeException) {
+                    throw (RuntimeException) t;
+                } else if (t instanceof Error) {
+                    throw (Error) t;
+                } else {
+                    throw new IllegalStateException(t);
+                }
+            }
+            idle = idle(idle);
+        }
+
+        final int index = (int) h & this.mask;
+        Record record = this.slots[index];
+        // 便于 gc
+        this.slots[index] = null;
+        this.head.lazySet(h + 1);
+        return record;
+    }
+
+    /**
+     * 消费者调用, 不再消费
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    private static int idle(int idle) {
+        if (idle < SPIN_TIMES) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+        return idle + 1;
+    }
+}
@@ -0,0 +1,123 @@
+package xyz.kuilei.datax.plugin.writer.ftprollwriter.util;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 后台完成滚动的文件 (关闭, 重命名), task 线程可以立即打开下一个文件
+ *
+ * NOTE:
+ * 1. 同时处理的文件个数不超过 maxPending, 超过时 task 线程在 submit 时等待
+ * 2. 失败后不影响其他文件的处理, 异常在 task 线程下一次 submit 或者 close 时抛出
+ * 3. close 等待所有文件处理完成
+ * 4. 并行写入时由所有 lane 共享, maxPending 是整个 task 的上限, 见 TaskResources
+ *
+ * warn: 多个线程可以同时 submit, 但是 close 只能在所有 submit 返回之后调用
+ *
+ * @author JiaKun Xu, 2026-10-17 20:10
+ */
+public class RotationFinalizer implements Closeable {
+    /**
+     * 完成 1 个滚动的文件
+     */
+    public interface Finalization {
+        void run() throws IOException;
+    }
+
+    @Nonnull
+    private final ExecutorService executor;
+
+    @Nonnull
+    private final Semaphore permits;
+
+    // 第一个失败的异常, 其他的作为 suppressed
+    private volatile Throwable error;
+
+    private boolean closed;
+
+    /**
+     * @param name 用于线程的名称
+     */
+    public RotationFinalizer(@Nonnull String name, int maxPending) {
+        final AtomicInteger threadIndex = new AtomicInteger();
+
+        this.permits = new Semaphore(maxPending);
+        this.executor = new ThreadPoolExecutor(
+                maxPending, maxPending, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "rotation-finalizer-" + name + "-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
+    }
+
+    public void submit(@Nonnull Finalization finalization) throws IOException {
+        checkError();
+
+        try {
+            this.permits.acquire();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待滚动的文件处理完成时被中断");
+        }
+
+        this.executor.execute(() -> {
+            try {
+                finalization.run();
+            } catch (Throwable t) {
+                addError(t);
+            } finally {
+                this.permits.release();
+            }
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+
+        this.executor.shutdown();
+        try {
+            while (!this.executor.awaitTermination(1L, TimeUnit.MINUTES)) {
+                // 继续等待: 文件必须处理完成
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待滚动的文件处理完成时被中断");
+        }
+
+        checkError();
+    }
+
+    private synchronized void addError(@Nonnull Throwable t) {
+        if (this.error == null) {
+            this.error = t;
+        } else {
+            this.error.addSuppressed(t);
+        }
+    }
+
+    private void checkError() throws IOException {
+        Throwable t = this.error;
+
+        if (t != null) {
+            if (t instanceof IOException) {
+                IOException toThrow = new IOException("后台处理滚动的文件失败: " + t.getMessage());
+                toThrow.addSuppressed(t);
+                throw toThrow;
+            }
+            throw new IOException("后台处理滚动的文件失败", t);
+        }
+    }
+}
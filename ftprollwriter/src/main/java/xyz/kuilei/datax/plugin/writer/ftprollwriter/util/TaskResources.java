@@ -0,0 +1,121 @@
+package xyz.kuilei.datax.plugin.writer.ftprollwriter.util;
+
+import com.alibaba.datax.common.util.Configuration;
+import xyz.kuilei.datax.plugin.writer.ftprollwriter.Key;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 同一个 task 内所有 writer 共享的资源: 文件序号, 空闲的连接, 压缩线程, 后台滚动的线程
+ *
+ * NOTE:
+ * 1. 由 ParallelRemoteWriter 创建 1 次, 注入到每个 lane 的 writer, 线程数和连接数不随 parallelism 成倍增加
+ * 2. writer 关闭时只提交最后 1 个文件, 不关闭共享的资源; 所有 writer 关闭之后再关闭, 等待后台滚动的文件处理完成
+ * 3. 先等待滚动的文件完成, 再关闭压缩线程, 因为关闭压缩流时还要用到压缩线程
+ * 4. 连接由 task 登录和退出, 这里只是借出和放回
+ *
+ * @author JiaKun Xu, 2026-10-18 20:30
+ */
+public class TaskResources implements Closeable {
+    /**
+     * 每个 task 需要的连接个数: 每个 lane 1 个正在写入的连接, 后台滚动时再加上 maxPendingRotations 个
+     * warn: 同 1 个连接上, 上一个文件完成 (completePendingCommand, rename) 之前不能打开下一个文件
+     *       所以后台滚动时, 每个正在后台处理的文件占用 1 个连接, 后台处理的文件个数是整个 task 的上限
+     */
+    public static int ftpHelperCount(@Nonnull Configuration conf) {
+        final int parallelism = conf.getInt(Key.PARALLELISM, Constant.DEFAULT_PARALLELISM);
+
+        if (conf.getBool(Key.ASYNC_ROTATE, Constant.DEFAULT_ASYNC_ROTATE)) {
+            return parallelism + conf.getInt(Key.MAX_PENDING_ROTATIONS, Constant.DEFAULT_MAX_PENDING_ROTATIONS);
+        }
+        return parallelism;
+    }
+
+    // warn: 并行写入时多个 file path manager 共享, 保证文件名不重复
+    @Nonnull
+    private final AtomicInteger fileIndex = new AtomicInteger();
+
+    // 空闲的连接, 打开文件时取出, 文件完成后放回
+    @Nonnull
+    private final BlockingQueue<BaseFtpHelper> idleFtpHelpers;
+
+    // null -> 在写入线程压缩
+    private final ExecutorService compressExecutor;
+
+    // null -> 在写入线程完成滚动的文件
+    private final RotationFinalizer rotationFinalizer;
+
+    private boolean closed;
+
+    /**
+     * @param ftpHelpers 个数为 ftpHelperCount, 已经登录, 在外面退出
+     */
+    public TaskResources(@Nonnull Configuration conf, @Nonnull List<BaseFtpHelper> ftpHelpers) {
+        final String prefixWithUUID = conf.getString(Key.INTERNAL_PREFIX_WITH_UUID);
+        final int compressThreads = conf.getInt(Key.COMPRESS_THREADS, Constant.DEFAULT_COMPRESS_THREADS);
+
+        this.idleFtpHelpers = new ArrayBlockingQueue<>(ftpHelpers.size(), false, ftpHelpers);
+
+        if (BaseCompressCodec.getStreamImpl(conf) != null && compressThreads > 1) {
+            this.compressExecutor = ParallelCompressOutputStream.newExecutor(prefixWithUUID, compressThreads);
+        } else {
+            this.compressExecutor = null;
+        }
+
+        if (conf.getBool(Key.ASYNC_ROTATE, Constant.DEFAULT_ASYNC_ROTATE)) {
+            this.rotationFinalizer = new RotationFinalizer(
+                    prefixWithUUID,
+                    conf.getInt(Key.MAX_PENDING_ROTATIONS, Constant.DEFAULT_MAX_PENDING_ROTATIONS)
+            );
+        } else {
+            this.rotationFinalizer = null;
+        }
+    }
+
+    @Nonnull
+    public AtomicInteger getFileIndex() {
+        return this.fileIndex;
+    }
+
+    @Nonnull
+    public BlockingQueue<BaseFtpHelper> getIdleFtpHelpers() {
+        return this.idleFtpHelpers;
+    }
+
+    public ExecutorService getCompressExecutor() {
+        return this.compressExecutor;
+    }
+
+    public RotationFinalizer getRotationFinalizer() {
+        return this.rotationFinalizer;
+    }
+
+    /**
+     * 等待后台滚动的文件处理完成, 再关闭压缩线程
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+
+        try {
+            if (this.rotationFinalizer != null) {
+                this.rotationFinalizer.close();
+            }
+        } finally {
+            // warn: 所有文件都已经关闭之后, 才能关闭压缩线程
+            if (this.compressExecutor != null) {
+                this.compressExecutor.shutdownNow();
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package xyz.kuilei.datax.plugin.writer.ftprollwriter.util;
+
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.util.Configuration;
+import org.apache.commons.lang3.StringUtils;
+import xyz.kuilei.datax.plugin.writer.ftprollwriter.Key;
+import xyz.kuilei.datax.plugin.writer.ftprollwriter.FtpRollWriterErrorCode;
+
+import javax.annotation.Nonnull;
+import java.nio.charset.Charset;
+
+/**
+ * text 格式的转义, 直接编码到 record buffer
+ *
+ * NOTE:
+ * 1. 转义符、列分隔符前面加上转义符, \n 和 \r 分别写为转义符 + n, 转义符 + r, 每行的换行符和列分隔符不会出现在字段中
+ * 2. hive 时 null 写为转义符 + N (与 hive 的 \N 相同), 不使用 nullFormat, 字符串 "\N" 会被转义为 "\\N", 与 null 可以区分
+ * 3. 每个字段只扫描 1 遍, ASCII 字符查表判断是否需要转义, 没有需要转义的字符时整段写入, 与不转义时相同
+ * 4. 日期, double 等不是字符串的单元格直接编码到 record buffer 之后, 按字节原位转义, 见 escapeWritten
+ *
+ * warn: 查表按 char 而不是按编码后的字节, 因为 GBK 等编码的第 2 个字节可能与 \ 相同
+ *
+ * @author JiaKun Xu, 2026-10-18 04:20
+ */
+public class TextEncoder {
+    public static void validateParameter(@Nonnull Configuration conf) {
+        String fileFormat = conf.getString(Key.FILE_FORMAT);
+        String textEscape = conf.getString(Key.TEXT_ESCAPE);
+        String escapeChar = conf.getString(Key.ESCAPE_CHAR);
+
+        if (!Constant.FILE_FORMAT_TEXT.equals(fileFormat)) {
+            return;
+        }
+
+        /*
+         * textEscape check
+         */
+        if (StringUtils.isBlank(textEscape)) {
+            textEscape = Constant.DEFAULT_TEXT_ESCAPE;
+        } else {
+            textEscape = textEscape.trim();
+            if (Constant.TEXT_ESCAPE_NONE.equalsIgnoreCase(textEscape)) {
+                textEscape = Constant.TEXT_ESCAPE_NONE;
+            } else if (Constant.TEXT_ESCAPE_BACKSLASH.equalsIgnoreCase(textEscape)) {
+                textEscape = Constant.TEXT_ESCAPE_BACKSLASH;
+            } else if (Constant.TEXT_ESCAPE_HIVE.equalsIgnoreCase(textEscape)) {
+                textEscape = Constant.TEXT_ESCAPE_HIVE;
+            } else {
+                throw DataXException.asDataXException(
+                        FtpRollWriterErrorCode.ILLEGAL_VALUE,
+                        String.format("您配置的 textEscape: [%s] 错误, 支持 none, backslash, hive 三种", textEscape)
+                );
+            }
+        }
+
+        conf.set(Key.TEXT_ESCAPE, textEscape);
+
+        if (Constant.TEXT_ESCAPE_NONE.equals(textEscape)) {
+            return;
+        }
+
+        /*
+         * escapeChar check
+         */
+        if (null == escapeChar) {
+            escapeChar = String.valueOf(Constant.DEFAULT_ESCAPE_CHAR);
+        }
+
+        // warn: 默认的转义符也要检查, 例如 fieldDelimiter 为 \ 时, 与默认的转义符相同, 查表时会互相覆盖
+        final char fieldDelimiter = conf.getChar(Key.FIELD_DELIMITER);
+        // 转义符按 ASCII 查表, 并且不能与列分隔符、换行符相同
+        if (1 != escapeChar.length()
+                || escapeChar.charAt(0) >= 0x80
+                || escapeChar.charAt(0) == fieldDelimiter
+                || escapeChar.charAt(0) == '\n'
+                || escapeChar.charAt(0) == '\r') {
+            throw DataXException.asDataXException(
+                    FtpRollWriterErrorCode.ILLEGAL_VALUE,
+                    String.format("您配置的 escapeChar: [%s] 错误, 必须是 1 个 ASCII 字符, 并且不能是列分隔符 [%s] 或者换行符, 没有配置时默认为 [%s]",
+                            escapeChar, fieldDelimiter, Constant.DEFAULT_ESCAPE_CHAR)
+            );
+        }
+
+        conf.set(Key.ESCAPE_CHAR, escapeChar);
+    }
+
+    private final char fieldDelimiter;
+
+    // ASCII 字符转义后预先编码好的字节, null -> 不需要转义
+    @Nonnull
+    private final byte[][] escapes = new byte[0x80][];
+
+    // 预先编码好的转义符, 给非 ASCII 的列分隔符使用
+    @Nonnull
+    private final byte[] escapeCharBytes;
+
+    // 整数(数字和负号)是否一定不需要转义
+    private final boolean integerSafe;
+
+    // 预先编码好的 null
+    @Nonnull
+    private final byte[] nullBytes;
+
+    public TextEncoder(@Nonnull Configuration conf, char fieldDelimiter, @Nonnull Charset charset) {
+        final String textEscape = conf.getString(Key.TEXT_ESCAPE);
+        final char escapeChar = conf.getChar(Key.ESCAPE_CHAR);
+        this.fieldDelimiter = fieldDelimiter;
+        this.escapeCharBytes = String.valueOf(escapeChar).getBytes(charset);
+
+        markEscape(escapeChar, escapeChar, escapeChar, charset);
+        markEscape(fieldDelimiter, escapeChar, fieldDelimiter, charset);
+        markEscape('\n', escapeChar, 'n', charset);
+        markEscape('\r', escapeChar, 'r', charset);
+
+        boolean integerSafe = this.escapes['-'] == null;
+        for (char c = '0'; c <= '9'; c++) {
+            integerSafe &= this.escapes[c] == null;
+        }
+        this.integerSafe = integerSafe;
+
+        if (Constant.TEXT_ESCAPE_HIVE.equals(textEscape)) {
+            this.nullBytes = (escapeChar + "N").getBytes(charset);
+        } else {
+            this.nullBytes = conf.getString(Key.NULL_FORMAT).getBytes(charset);
+        }
+    }
+
+    private void markEscape(char c, char escapeChar, char escaped, @Nonnull Charset charset) {
+        if (c < 0x80) {
+            this.escapes[c] = new String(new char[]{escapeChar, escaped}).getBytes(charset);
+        }
+    }
+
+    public boolean isIntegerSafe() {
+        return this.integerSafe;
+    }
+
+    /**
+     * null 不转义
+     */
+    public void writeNull(@Nonnull RecordBuffer out) {
+        out.write(this.nullBytes);
+    }
+
+    /**
+     * 原位转义已经直接编码到 out 中 [start, size()) 的单元格, 不经过 String
+     *
+     * @return false -> 不能按字节转义 (非 ASCII 的列分隔符, GBK 等编码中有非 ASCII 字符), out 没有改变,
+     * 调用方截断到 start 后再用 writeField 转义
+     */
+    public boolean escapeWritten(@Nonnull RecordBuffer out, int start) {
+        if (this.fieldDelimiter >= 0x80) {
+            return false;
+        }
+        return out.escapeAscii(start, this.escapes);
+    }
+
+    public void writeField(@Nonnull String field, @Nonnull RecordBuffer out) {
+        final byte[][] escapes = this.escapes;
+        final char fieldDelimiter = this.fieldDelimiter;
+        final int len = field.length();
+
+        int i = 0;
+        for (; i < len; i++) {
+            final char c = field.charAt(i);
+            if ((c < 0x80) ? escapes[c] != null : (c == fieldDelimiter)) {
+                break;
+            }
+        }
+
+        if (i == len) {
+            out.writeString(field);
+            return;
+        }
+
+        // 从第 1 个需要转义的字符开始, 慢路径
+        int from = 0;
+        for (; i < len; i++) {
+            final char c = field.charAt(i);
+            if (c < 0x80) {
+                final byte[] escaped = escapes[c];
+                if (escaped != null) {
+                    out.writeString(field, from, i);
+                    out.write(escaped);
+                    from = i + 1;
+                }
+            } else if (c == fieldDelimiter) {
+                // 转义符写在前面, 列分隔符随后面的内容一起写入
+                out.writeString(field, from, i);
+                out.write(this.escapeCharBytes);
+                from = i;
+            }
+        }
+        out.writeString(field, from, len);
+    }
+}
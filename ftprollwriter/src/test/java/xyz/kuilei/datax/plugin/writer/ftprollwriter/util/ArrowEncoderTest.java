@@ -0,0 +1,197 @@
+package xyz.kuilei.datax.plugin.writer.ftprollwriter.util;
+
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.util.Configuration;
+import org.apache.arrow.compression.CommonsCompressionFactory;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.TimeStampMilliTZVector;
+import org.apache.arrow.vector.VarBinaryVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowFileReader;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import xyz.kuilei.datax.plugin.writer.ftprollwriter.Key;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static xyz.kuilei.datax.plugin.writer.ftprollwriter.util.EncoderTestUtil.*;
+
+/**
+ * ArrowEncoder 写的文件用 arrow-vector 读回来比较, 检查 schema, record batch 的切分和 rollSize
+ *
+ * warn: jdk 9 以上 arrow-memory 需要 --add-opens=java.base/java.nio=ALL-UNNAMED, 见 pom.xml 的 surefire argLine
+ *
+ * @author JiaKun Xu, 2026-10-18 13:00
+ */
+public class ArrowEncoderTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        final long[] lengths = new long[2];
+        final String[] compresses = {Constant.COMPRESS_NONE, Constant.COMPRESS_ZSTD};
+
+        for (int i = 0; i < compresses.length; i++) {
+            final File dir = folder.newFolder(compresses[i]);
+            final List<File> files;
+            try (ArrowEncoder encoder = newEncoder(compresses[i])) {
+                files = writeFiles(dir, encoder, 30000, 0);
+            }
+
+            Assert.assertEquals(1, files.size());
+            Assert.assertEquals(30000, readRows(files.get(0), 0));
+            lengths[i] = files.get(0).length();
+
+            try (BufferAllocator allocator = new RootAllocator();
+                 FileInputStream in = new FileInputStream(files.get(0));
+                 ArrowFileReader reader = new ArrowFileReader(in.getChannel(), allocator, CommonsCompressionFactory.INSTANCE)) {
+                final Schema schema = reader.getVectorSchemaRoot().getSchema();
+                Assert.assertEquals(HEADER.length, schema.getFields().size());
+                for (int col = 0; col < HEADER.length; col++) {
+                    final Field field = schema.getFields().get(col);
+                    Assert.assertEquals(HEADER[col], field.getName());
+                    Assert.assertTrue(HEADER[col], field.isNullable());
+                }
+                Assert.assertEquals(new ArrowType.Utf8(), schema.getFields().get(CITY).getType());
+                Assert.assertEquals(new ArrowType.Timestamp(TimeUnit.MILLISECOND, "UTC"), schema.getFields().get(TS).getType());
+
+                // 每个 record batch 64KB
+                final int batches = reader.getRecordBlocks().size();
+                Assert.assertTrue(compresses[i] + " record batches: " + batches, batches > 1);
+            }
+        }
+
+        // 压缩后不变小的 buffer 保存原文, 整个文件总是变小
+        Assert.assertTrue(lengths[1] + " < " + lengths[0], lengths[1] < lengths[0]);
+    }
+
+    @Test
+    public void testRollSize() throws IOException {
+        final long rollSize = 256 * 1024;
+        final List<File> files;
+        try (ArrowEncoder encoder = newEncoder(Constant.COMPRESS_ZSTD)) {
+            files = writeFiles(folder.getRoot(), encoder, 50000, rollSize);
+        }
+
+        Assert.assertTrue("files: " + files.size(), files.size() > 2);
+
+        int row = 0;
+        for (File file : files) {
+            final int rows = readRows(file, row);
+            Assert.assertTrue(file.getName(), rows > 0);
+            row += rows;
+
+            // 缓冲的 record batch 按上 1 个 record batch 的比例计入 rollSize, 文件不会超出 1 个 record batch
+            if (file != files.get(files.size() - 1)) {
+                Assert.assertTrue(file.getName() + ": " + file.length(), file.length() >= rollSize - 64 * 1024);
+            }
+            Assert.assertTrue(file.getName() + ": " + file.length(), file.length() < rollSize + 64 * 1024);
+        }
+        Assert.assertEquals(50000, row);
+    }
+
+    @Nonnull
+    private static ArrowEncoder newEncoder(@Nonnull String compress) {
+        final Configuration conf = newConf(Constant.FILE_FORMAT_ARROW, compress);
+        conf.set(Key.RECORD_BATCH_SIZE, Constant.MIN_RECORD_BATCH_SIZE);
+        ArrowEncoder.validateParameter(conf);
+        return new ArrowEncoder(conf, HEADER);
+    }
+
+    @Nonnull
+    private static List<File> writeFiles(@Nonnull File dir, @Nonnull ArrowEncoder encoder, int rows, long rollSize)
+            throws IOException {
+        return EncoderTestUtil.writeFiles(dir, "arrow", new FileEncoder() {
+            @Override
+            public void startFile(@Nonnull RecordBuffer out) {
+                encoder.startFile(out);
+            }
+
+            @Override
+            public void addRecord(@Nonnull Record record, @Nonnull RecordBuffer out) throws IOException {
+                encoder.addRecord(record, out);
+            }
+
+            @Override
+            public void finishFile(@Nonnull RecordBuffer out) throws IOException {
+                encoder.finishFile(out);
+            }
+
+            @Override
+            public long bufferedSize() {
+                return encoder.bufferedSize();
+            }
+        }, rows, rollSize);
+    }
+
+    /**
+     * 读回来逐行比较
+     *
+     * @param firstRow 文件第 1 行的行号
+     * @return 行数
+     */
+    private static int readRows(@Nonnull File file, int firstRow) throws IOException {
+        int row = firstRow;
+        try (BufferAllocator allocator = new RootAllocator();
+             FileInputStream in = new FileInputStream(file);
+             ArrowFileReader reader = new ArrowFileReader(in.getChannel(), allocator, CommonsCompressionFactory.INSTANCE)) {
+            final VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            while (reader.loadNextBatch()) {
+                for (int r = 0; r < root.getRowCount(); r++, row++) {
+                    for (int col = 0; col < HEADER.length; col++) {
+                        final Object expected = value(row, col);
+                        final String message = "row " + row + " " + HEADER[col];
+                        final FieldVector vector = root.getVector(col);
+
+                        if (vector.isNull(r)) {
+                            Assert.assertNull(message, expected);
+                            continue;
+                        }
+                        Assert.assertNotNull(message, expected);
+
+                        switch (col) {
+                            case PRICE:
+                                Assert.assertEquals(message, (Double) expected, ((Float8Vector) vector).get(r), 0.0);
+                                break;
+                            case CITY:
+                            case UUID:
+                                Assert.assertEquals(message, expected, ((VarCharVector) vector).getObject(r).toString());
+                                break;
+                            case TS:
+                                Assert.assertEquals(message, expected, ((TimeStampMilliTZVector) vector).get(r));
+                                break;
+                            case FLAG:
+                                Assert.assertEquals(message, expected, ((BitVector) vector).getObject(r));
+                                break;
+                            case PAYLOAD:
+                                Assert.assertArrayEquals(message, (byte[]) expected, ((VarBinaryVector) vector).get(r));
+                                break;
+                            default:
+                                // id, big
+                                Assert.assertEquals(message, expected, ((BigIntVector) vector).get(r));
+                                break;
+                        }
+                    }
+                }
+            }
+        }
+        return row - firstRow;
+    }
+}
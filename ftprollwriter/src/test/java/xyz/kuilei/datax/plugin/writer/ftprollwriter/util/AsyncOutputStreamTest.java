@@ -0,0 +1,227 @@
+package xyz.kuilei.datax.plugin.writer.ftprollwriter.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * AsyncOutputStream 的写入顺序, 错误传递和 close 被中断时的行为
+ *
+ * NOTE:
+ * 1. 底层流检查 write 和 close 不会同时发生, 也不会在 close 之后 write
+ * 2. close 被中断时, 要等正在进行的写入返回后才关闭底层流
+ *
+ * @author JiaKun Xu, 2026-10-18 16:30
+ */
+public class AsyncOutputStreamTest {
+    @Test
+    public void testOrder() throws IOException {
+        final Random random = new Random(20261018L);
+        final byte[] data = new byte[3 * 1024 * 1024 + 17];
+        random.nextBytes(data);
+
+        final CheckedOutputStream out = new CheckedOutputStream();
+        try (AsyncOutputStream async = new AsyncOutputStream(out, "test", 64 * 1024, 3)) {
+            // 逐字节, 小块, 跨多个缓冲区的大块交替写入, 中间穿插 flush
+            int off = 0;
+            while (off < data.length) {
+                final int n = Math.min(data.length - off, random.nextInt(3) == 0 ? 1 : random.nextInt(200 * 1024));
+                if (n == 1) {
+                    async.write(data[off]);
+                } else {
+                    async.write(data, off, n);
+                }
+                off += n;
+                if (random.nextInt(20) == 0) {
+                    async.flush();
+                }
+            }
+        }
+
+        Assert.assertTrue(out.closed);
+        Assert.assertNull(out.violation.get());
+        Assert.assertArrayEquals(data, out.bytes.toByteArray());
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        final CheckedOutputStream out = new CheckedOutputStream();
+        new AsyncOutputStream(out, "test", 1024, 2).close();
+
+        Assert.assertTrue(out.closed);
+        Assert.assertEquals(0, out.bytes.size());
+    }
+
+    @Test
+    public void testWriteError() throws IOException {
+        final CheckedOutputStream out = new CheckedOutputStream();
+        out.failAfter = 2;
+
+        final AsyncOutputStream async = new AsyncOutputStream(out, "test", 1024, 2);
+        final byte[] chunk = new byte[1024];
+        IOException error = null;
+        try {
+            // io 线程写入失败后, 错误在之后的某次 write 抛出, 缓冲区被回收, 不会一直阻塞
+            for (int i = 0; i < 1000; i++) {
+                async.write(chunk);
+            }
+        } catch (IOException e) {
+            error = e;
+        }
+        Assert.assertNotNull(error);
+        assertCausedBy(error, "write failed");
+
+        // flush, close 也抛出同样的错误, close 时仍然关闭底层流
+        try {
+            async.flush();
+            Assert.fail();
+        } catch (IOException e) {
+            assertCausedBy(e, "write failed");
+        }
+        try {
+            async.close();
+            Assert.fail();
+        } catch (IOException e) {
+            assertCausedBy(e, "write failed");
+        }
+        Assert.assertTrue(out.closed);
+        Assert.assertNull(out.violation.get());
+        Assert.assertEquals(2 * 1024, out.bytes.size());
+
+        // 关闭之后不能再写入
+        try {
+            async.write(1);
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertEquals("stream closed", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testInterruptDuringClose() throws Exception {
+        final CheckedOutputStream out = new CheckedOutputStream();
+        out.blocking = new CountDownLatch(1);
+
+        final AsyncOutputStream async = new AsyncOutputStream(out, "test", 1024, 4);
+        async.write(new byte[3000]);
+
+        final AtomicReference<Throwable> closeError = new AtomicReference<>();
+        final AtomicReference<Boolean> interrupted = new AtomicReference<>();
+        final Thread closer = new Thread(() -> {
+            try {
+                async.close();
+            } catch (Throwable t) {
+                closeError.set(t);
+            }
+            interrupted.set(Thread.currentThread().isInterrupted());
+        }, "closer");
+        closer.start();
+
+        // io 线程正在写第 1 个缓冲区时中断 close
+        Assert.assertTrue(out.writing.await(10, TimeUnit.SECONDS));
+        closer.interrupt();
+
+        // 写入还没有返回, close 不能返回, 也不能关闭底层流
+        closer.join(300);
+        Assert.assertTrue(closer.isAlive());
+        Assert.assertFalse(out.closed);
+
+        out.blocking.countDown();
+        closer.join(10000);
+        Assert.assertFalse(closer.isAlive());
+
+        Assert.assertTrue(String.valueOf(closeError.get()), closeError.get() instanceof InterruptedIOException);
+        Assert.assertTrue(interrupted.get());
+        Assert.assertTrue(out.closed);
+        Assert.assertNull(out.violation.get());
+        // 被中断后放弃剩下的缓冲区
+        Assert.assertTrue(String.valueOf(out.bytes.size()), out.bytes.size() < 3000);
+    }
+
+    private static void assertCausedBy(@Nonnull IOException e, @Nonnull String message) {
+        Assert.assertTrue(e.getMessage(), e.getMessage().contains(message));
+    }
+
+    /**
+     * 检查 write, close 的顺序的底层流
+     */
+    private static final class CheckedOutputStream extends OutputStream {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        final AtomicReference<String> violation = new AtomicReference<>();
+
+        final CountDownLatch writing = new CountDownLatch(1);
+
+        // 不为 null 时, write 不响应中断地等待, 模拟阻塞的网络写入
+        volatile CountDownLatch blocking;
+
+        // 写入几次之后失败, -1 表示不失败
+        volatile int failAfter = -1;
+
+        private volatile boolean inWrite;
+
+        volatile boolean closed;
+
+        private int writes;
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(@Nonnull byte[] b, int off, int len) throws IOException {
+            if (this.closed) {
+                this.violation.compareAndSet(null, "write after close");
+            }
+            this.inWrite = true;
+            try {
+                if (this.writes++ == this.failAfter) {
+                    throw new IOException("write failed");
+                }
+                this.writing.countDown();
+                awaitUninterruptibly();
+                this.bytes.write(b, off, len);
+            } finally {
+                this.inWrite = false;
+            }
+        }
+
+        @Override
+        public void close() {
+            if (this.inWrite) {
+                this.violation.compareAndSet(null, "close during write");
+            }
+            this.closed = true;
+        }
+
+        private void awaitUninterruptibly() {
+            final CountDownLatch latch = this.blocking;
+            if (latch == null) {
+                return;
+            }
+
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    latch.await();
+                    break;
+                } catch (InterruptedException ie) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package xyz.kuilei.datax.plugin.writer.ftprollwriter.util;
+
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.util.Configuration;
+import com.github.luben.zstd.ZstdInputStream;
+import net.jpountz.lz4.LZ4FrameInputStream;
+import org.junit.Assert;
+import org.junit.Test;
+import xyz.kuilei.datax.plugin.writer.ftprollwriter.Key;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 内置 codec 压缩后用各自的解压流读回来比较
+ *
+ * NOTE:
+ * 1. 单线程为 codec 的压缩流, 多线程为 ParallelCompressOutputStream 拼接的多个 gzip member, zstd frame, lz4 frame
+ * 2. 数据包括空的, 不满 1 块的, 正好 1 块的, 多块且最后 1 块不满的
+ * 3. deflate 不支持拼接, compressThreads 大于 1 时校验不通过
+ *
+ * @author JiaKun Xu, 2026-10-18 16:00
+ */
+public class BaseCompressCodecTest {
+    private static final String[] CODECS = {
+            Constant.COMPRESS_GZIP, Constant.COMPRESS_DEFLATE, Constant.COMPRESS_ZSTD, Constant.COMPRESS_LZ4
+    };
+
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    private static final int[] LENGTHS = {0, 1, 1000, BLOCK_SIZE, 5 * BLOCK_SIZE + 123};
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        for (String compress : CODECS) {
+            final BaseCompressCodec codec = validCodec(compress, 1);
+            Assert.assertTrue(compress, codec.isAvailable());
+
+            for (int length : LENGTHS) {
+                final byte[] data = randomText(new Random(length), length);
+                final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+                try (OutputStream out = codec.compress(compressed)) {
+                    out.write(data);
+                }
+                Assert.assertArrayEquals(compress + " " + length, data, decompress(compress, compressed.toByteArray()));
+            }
+        }
+    }
+
+    @Test
+    public void testParallelRoundTrip() throws IOException {
+        final ExecutorService executor = ParallelCompressOutputStream.newExecutor("test", 4);
+        try {
+            for (String compress : CODECS) {
+                if (Constant.COMPRESS_DEFLATE.equals(compress)) {
+                    continue;
+                }
+                final BaseCompressCodec codec = validCodec(compress, 4);
+                Assert.assertTrue(compress, codec.isConcatenable());
+
+                for (int length : LENGTHS) {
+                    final byte[] data = randomText(new Random(length), length);
+                    final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                    final CompressedSizeCounter counter = new CompressedSizeCounter();
+
+                    try (OutputStream out = new ParallelCompressOutputStream(compressed, codec, executor, BLOCK_SIZE, 3, counter)) {
+                        // 逐字节和按块交替写入
+                        int off = 0;
+                        final Random random = new Random(length);
+                        while (off < length) {
+                            if (random.nextInt(4) == 0) {
+                                out.write(data[off++]);
+                            } else {
+                                final int n = Math.min(length - off, random.nextInt(BLOCK_SIZE));
+                                out.write(data, off, n);
+                                off += n;
+                            }
+                        }
+                    }
+                    final String message = compress + " " + length;
+
+                    Assert.assertArrayEquals(message, data, decompress(compress, compressed.toByteArray()));
+                    // 没有写入数据时只有 1 个空的块, 不计入压缩率
+                    if (length > 0) {
+                        Assert.assertEquals(message, compressed.size(), counter.ratio(0) * length, 1.0);
+                    }
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testDeflateNotConcatenable() {
+        try {
+            validCodec(Constant.COMPRESS_DEFLATE, 2);
+            Assert.fail();
+        } catch (DataXException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains(Constant.COMPRESS_DEFLATE));
+        }
+    }
+
+    @Nonnull
+    private static BaseCompressCodec validCodec(@Nonnull String compress, int compressThreads) {
+        final Configuration conf = Configuration.newDefault();
+        conf.set(Key.COMPRESS, compress.toUpperCase(Locale.ROOT));
+        conf.set(Key.COMPRESS_THREADS, compressThreads);
+        BaseCompressCodec.validateParameter(conf);
+
+        final BaseCompressCodec codec = BaseCompressCodec.getImpl(conf);
+        Assert.assertNotNull(compress, codec);
+        Assert.assertEquals(compress, codec.getName());
+        return codec;
+    }
+
+    @Nonnull
+    static byte[] decompress(@Nonnull String compress, @Nonnull byte[] compressed) throws IOException {
+        final InputStream bytes = new ByteArrayInputStream(compressed);
+        final InputStream in;
+
+        switch (compress) {
+            case Constant.COMPRESS_GZIP:
+                in = new GZIPInputStream(bytes);
+                break;
+            case Constant.COMPRESS_DEFLATE:
+                in = new InflaterInputStream(bytes);
+                break;
+            case Constant.COMPRESS_ZSTD:
+                in = new ZstdInputStream(bytes);
+                break;
+            case Constant.COMPRESS_LZ4:
+                in = new LZ4FrameInputStream(bytes);
+                break;
+            default:
+                throw new IllegalArgumentException(compress);
+        }
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream input = in) {
+            final byte[] buf = new byte[8192];
+            int n;
+            while ((n = input.read(buf)) > 0) {
+                out.write(buf, 0, n);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 有重复的文本, 压缩率与真实数据接近
+     */
+    @Nonnull
+    private static byte[] randomText(@Nonnull Random random, int length) {
+        final StringBuilder sb = new StringBuilder(length + 64);
+        while (sb.length() < length) {
+            sb.append(random.nextInt(100000)).append(',').append("city-").append(random.nextInt(50)).append(",中文\n");
+        }
+        return Arrays.copyOf(sb.toString().getBytes(StandardCharsets.UTF_8), length);
+    }
+}
@@ -0,0 +1,149 @@
+package xyz.kuilei.datax.plugin.writer.ftprollwriter.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+
+/**
+ * DateFormatter 与 SimpleDateFormat 的格式化结果相同
+ *
+ * NOTE:
+ * 1. pattern 包括预先编译的 (只有数字类字段和字面量, 有没有 SSS) 和退化为 SimpleDateFormat 的
+ * 2. 时区包括有夏令时的, 偏移不是整点的, 夏令时只差半小时的
+ * 3. 日期包括随机的, 连续的 (命中缓存), 1970 年之前毫秒为负数的, 1900 年之前不缓存的, 夏令时切换前后的
+ *
+ * @author JiaKun Xu, 2026-10-18 13:00
+ */
+public class DateFormatterTest {
+    private static final String[] PATTERNS = {
+            "yyyy-MM-dd HH:mm:ss",
+            "yyyy-MM-dd",
+            "yyyyMMdd",
+            "yyyyMMddHHmmss",
+            "yy/M/d H:m:s",
+            "yyy-MMM-d",
+            "yyyyy.MM.dd",
+            "D",
+            "DDD",
+            "yyyy-MM-dd HH:mm:ss.SSS",
+            "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'",
+            "SSS.ss.SSS",
+            "HH:mm:ss",
+            "K:mm k:mm h:mm",
+            "''yyyy'' 'at' HH 'o''clock'",
+            "yyyy年MM月dd日 HH时mm分ss秒",
+            // 退化为 SimpleDateFormat
+            "ss.S",
+            "yyyy-MM-dd HH:mm:ss.SS",
+            "hh:mm a",
+            "EEE, d MMM yyyy",
+            "yyyy-MM-dd HH:mm:ssZ",
+            "yyyy-MM-dd HH:mm:ss z",
+            "YYYY-ww-u",
+            "G yyyy-MM-dd",
+    };
+
+    private static final String[] TIME_ZONES = {
+            "UTC", "Asia/Shanghai", "America/Los_Angeles", "Asia/Kolkata", "Australia/Lord_Howe", "America/St_Johns"
+    };
+
+    // 1800-01-01T00:00:00Z ~ 2200-01-01T00:00:00Z
+    private static final long MIN_MILLIS = -5364662400000L;
+    private static final long MAX_MILLIS = 7258118400000L;
+
+    @Test
+    public void testSameAsSimpleDateFormat() {
+        final TimeZone defaultTimeZone = TimeZone.getDefault();
+        try {
+            for (String zone : TIME_ZONES) {
+                TimeZone.setDefault(TimeZone.getTimeZone(zone));
+
+                for (int i = 0; i < PATTERNS.length; i++) {
+                    final long[] dates = dates(new Random(PATTERNS[i].hashCode()), TimeZone.getTimeZone(zone));
+                    // 非 ASCII 的字面量在 GBK 和 UTF-8 下的字节不同
+                    check(zone, PATTERNS[i], ((i & 1) == 0) ? StandardCharsets.UTF_8 : Charset.forName("GBK"), dates);
+                }
+            }
+        } finally {
+            TimeZone.setDefault(defaultTimeZone);
+        }
+    }
+
+    @Test
+    public void testGetPattern() {
+        Assert.assertEquals("yyyy-MM-dd", new DateFormatter("yyyy-MM-dd", StandardCharsets.UTF_8).getPattern());
+    }
+
+    private static void check(@Nonnull String zone, @Nonnull String pattern, @Nonnull Charset charset, @Nonnull long[] dates) {
+        // warn: 与 DateFormatter 一样, 构造时取 jvm 默认时区
+        final SimpleDateFormat expectedFormat = new SimpleDateFormat(pattern);
+        final DateFormatter formatter = new DateFormatter(pattern, charset);
+        final RecordBuffer buffer = new RecordBuffer(64, charset);
+
+        for (long millis : dates) {
+            final String expected = expectedFormat.format(new Date(millis));
+            final String message = zone + " [" + pattern + "] " + millis;
+
+            Assert.assertEquals(message, expected, formatter.format(millis));
+
+            buffer.reset();
+            formatter.write(millis, buffer);
+            Assert.assertArrayEquals(message + " " + charset, expected.getBytes(charset), buffer.toByteArray());
+        }
+    }
+
+    @Nonnull
+    private static long[] dates(@Nonnull Random random, @Nonnull TimeZone timeZone) {
+        final long[] dates = new long[3000];
+        int n = 0;
+
+        // 随机的
+        for (int i = 0; i < 1000; i++) {
+            dates[n++] = MIN_MILLIS + (long) (random.nextDouble() * (MAX_MILLIS - MIN_MILLIS));
+        }
+
+        // 连续的, 每次加 0 ~ 2 秒, 包括 1970-01-01 前后
+        long millis = -30000L;
+        for (int i = 0; i < 500; i++) {
+            dates[n++] = millis;
+            millis += random.nextInt(2000);
+        }
+        millis = 1760000000000L;
+        for (int i = 0; i < 500; i++) {
+            dates[n++] = millis;
+            millis += random.nextInt(2000);
+        }
+
+        // 1900 年前后
+        millis = -2208988800000L - 3L * 24 * 3600 * 1000;
+        for (int i = 0; i < 500; i++) {
+            dates[n++] = millis;
+            millis += random.nextInt(12 * 3600 * 1000);
+        }
+
+        // 夏令时切换前后, 没有切换的时区为每年 1 月 1 日前后
+        final ZoneRules rules = timeZone.toZoneId().getRules();
+        long from = 946684800000L;  // 2000-01-01T00:00:00Z
+        while (n < dates.length) {
+            final ZoneOffsetTransition next = rules.nextTransition(Instant.ofEpochMilli(from));
+            final long transition = (next != null) ? next.toEpochSecond() * 1000 : from + 365L * 24 * 3600 * 1000;
+            dates[n++] = transition - 1;
+            dates[n++] = transition;
+            dates[n++] = transition + random.nextInt(3600 * 1000);
+            dates[n++] = transition - random.nextInt(3600 * 1000);
+            from = transition;
+        }
+
+        return dates;
+    }
+}
@@ -0,0 +1,305 @@
+package xyz.kuilei.datax.plugin.writer.ftprollwriter.util;
+
+import com.alibaba.datax.common.element.BoolColumn;
+import com.alibaba.datax.common.element.BytesColumn;
+import com.alibaba.datax.common.element.Column;
+import com.alibaba.datax.common.element.DateColumn;
+import com.alibaba.datax.common.element.DoubleColumn;
+import com.alibaba.datax.common.element.LongColumn;
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.element.StringColumn;
+import com.alibaba.datax.common.util.Configuration;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import xyz.kuilei.datax.plugin.writer.ftprollwriter.Key;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * jsonl 格式: JsonEncoder 和 writer 的 encodeRecord 写出的每一行都能被 jackson 严格解析, 解析结果与原始的值相同
+ *
+ * NOTE:
+ * 1. jackson 默认不接受未转义的控制字符, NaN, Infinity 和多余的内容, 所以按默认配置解析即可发现格式错误
+ * 2. 字符包括所有 ASCII 字符, U+2028, U+2029, CJK, surrogate pair; 列包括 null, bytes, NaN, Infinity, 超过 long 的整数
+ * 3. 编码包括 UTF-8, GBK, GBK 中没有的字符按 getBytes 替换为 ? 之后比较
+ *
+ * @author JiaKun Xu, 2026-10-18 19:10
+ */
+public class JsonEncoderTest {
+    // 2026-10-18 12:34:56.789 +08:00
+    private static final long MILLIS = 1792298096789L;
+
+    private static final String DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
+
+    private static final String[] HEADER = {"id", "na\"me", "a\\b", "行 分\u0001"};
+
+    private static final String[] ALPHABET = {
+            "a", "Z", "0", " ", "\"", "\\", "/", "\b", "\f", "\n", "\r", "\t", "\u0000", "\u0001", "\u001f", "\u007f",
+            " ", " ", "中", "文", "😀", "é"
+    };
+
+    private static final ObjectReader READER = new ObjectMapper()
+            .readerFor(JsonNode.class)
+            .with(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testWriteString() throws IOException {
+        final JsonEncoder encoder = new JsonEncoder(null, StandardCharsets.UTF_8);
+        final RecordBuffer buffer = new RecordBuffer(16, StandardCharsets.UTF_8);
+
+        final List<String> strings = new ArrayList<>();
+        for (char c = 0; c < 0x80; c++) {
+            strings.add(String.valueOf(c));
+            strings.add("a" + c + "b");
+        }
+        strings.addAll(Arrays.asList("", " ", " ", "a b c", "中文", "😀", "\"\\ \n"));
+
+        for (String s : strings) {
+            buffer.reset();
+            encoder.writeString(s, buffer);
+            final byte[] bytes = buffer.toByteArray();
+
+            final JsonNode node = READER.readValue(bytes);
+            Assert.assertTrue(escape(s), node.isTextual());
+            Assert.assertEquals(escape(s), s, node.textValue());
+            assertNoLineBreak(escape(s), new String(bytes, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testEscape() {
+        final JsonEncoder encoder = new JsonEncoder(null, StandardCharsets.UTF_8);
+        final RecordBuffer buffer = new RecordBuffer(16, StandardCharsets.UTF_8);
+
+        encoder.writeString("\"\\\b\f\n\r\t\u0000\u001f\u007f  /中", buffer);
+        Assert.assertEquals("\"\\\"\\\\\\b\\f\\n\\r\\t\\u0000\\u001f\u007f\\u2028\\u2029/中\"",
+                new String(buffer.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testIsJsonNumber() {
+        for (String s : new String[]{"0", "-0", "1", "-12", "1.5", "0.25", "1e10", "1E+10", "-1.5e-10", "1.7976931348623157E308"}) {
+            Assert.assertTrue(s, JsonEncoder.isJsonNumber(s));
+        }
+        for (String s : new String[]{"", "-", "+1", ".5", "1.", "007", "1e", "1e+", "NaN", "Infinity", "-Infinity", "0x10", "1 "}) {
+            Assert.assertFalse(s, JsonEncoder.isJsonNumber(s));
+        }
+    }
+
+    @Test
+    public void testSpecialColumns() throws IOException {
+        final Record record = new TestRecord();
+        // warn: datax 的 DoubleColumn(Double) 不接受 NaN, Infinity, reader 按字符串构造
+        record.addColumn(new DoubleColumn("NaN"));
+        record.addColumn(new DoubleColumn("Infinity"));
+        record.addColumn(new DoubleColumn("-Infinity"));
+        record.addColumn(new StringColumn(null));
+        record.addColumn(new BytesColumn(null));
+        record.addColumn(new BytesColumn("a\"\n 中".getBytes(StandardCharsets.UTF_8)));
+        record.addColumn(new LongColumn(new BigInteger("123456789012345678901234567890")));
+        record.addColumn(new DoubleColumn("1.5E-10"));
+        record.addColumn(new BoolColumn(true));
+
+        final JsonNode node = encode(newConf("UTF-8"), Arrays.asList(record)).get(0);
+        // NaN, Infinity 不是 json number, 按字符串写入
+        Assert.assertEquals("NaN", node.get("id").textValue());
+        Assert.assertEquals("Infinity", node.get("na\"me").textValue());
+        Assert.assertEquals("-Infinity", node.get("a\\b").textValue());
+        Assert.assertTrue(node.get("行 分\u0001").isNull());
+        Assert.assertTrue(node.get("_col4").isNull());
+        Assert.assertEquals("a\"\n 中", node.get("_col5").textValue());
+        Assert.assertEquals(new BigInteger("123456789012345678901234567890"), node.get("_col6").bigIntegerValue());
+        Assert.assertTrue(node.get("_col7").isNumber());
+        Assert.assertEquals(0, new BigDecimal("1.5E-10").compareTo(node.get("_col7").decimalValue()));
+        Assert.assertTrue(node.get("_col8").booleanValue());
+        Assert.assertEquals(9, node.size());
+    }
+
+    @Test
+    public void testEmptyRecord() throws IOException {
+        final JsonNode node = encode(newConf("UTF-8"), Arrays.<Record>asList(new TestRecord())).get(0);
+        Assert.assertTrue(node.isObject());
+        Assert.assertEquals(0, node.size());
+    }
+
+    @Test
+    public void testEncodeRecord() throws IOException {
+        final Random random = new Random(20261018L);
+        final List<Record> records = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            final Record record = new TestRecord();
+            final int columns = random.nextInt(9);
+            for (int j = 0; j < columns; j++) {
+                record.addColumn(randomColumn(random, j));
+            }
+            records.add(record);
+        }
+
+        for (String encoding : new String[]{"UTF-8", "GBK"}) {
+            final Charset charset = Charset.forName(encoding);
+            final List<JsonNode> nodes = encode(newConf(encoding), records);
+            Assert.assertEquals(encoding, records.size(), nodes.size());
+
+            for (int i = 0; i < records.size(); i++) {
+                assertRecord(encoding + " " + records.get(i), records.get(i), nodes.get(i), charset);
+            }
+        }
+    }
+
+    @Nonnull
+    private Configuration newConf(@Nonnull String encoding) throws IOException {
+        final Configuration conf = WriterTestUtil.newConf(folder.newFolder(), Constant.FILE_FORMAT_JSONL);
+        conf.set(Key.ENCODING, encoding);
+        conf.set(Key.DATE_FORMAT, DATE_FORMAT);
+        conf.set(Key.HEADER, Arrays.asList(HEADER));
+        WriterTestUtil.validate(conf);
+        return conf;
+    }
+
+    /**
+     * 按 \n 分行, 每行严格解析为 1 个 object
+     */
+    @Nonnull
+    private static List<JsonNode> encode(@Nonnull Configuration conf, @Nonnull List<Record> records) throws IOException {
+        final String text = new String(WriterTestUtil.encodeRecords(conf, records), conf.getString(Key.ENCODING));
+        Assert.assertTrue(text.endsWith("\n"));
+
+        final List<JsonNode> nodes = new ArrayList<>();
+        for (String line : text.substring(0, text.length() - 1).split("\n", -1)) {
+            assertNoLineBreak(line, line);
+            final JsonNode node = READER.readValue(line);
+            Assert.assertTrue(line, node.isObject());
+            nodes.add(node);
+        }
+        return nodes;
+    }
+
+    private static void assertRecord(@Nonnull String message, @Nonnull Record record, @Nonnull JsonNode node, @Nonnull Charset charset) {
+        Assert.assertEquals(message, record.getColumnNumber(), node.size());
+
+        final Iterator<String> names = node.fieldNames();
+        for (int i = 0; i < record.getColumnNumber(); i++) {
+            final String key = (i < HEADER.length) ? HEADER[i] : "_col" + i;
+            Assert.assertEquals(message, roundTrip(key, charset), names.next());
+
+            final Column column = record.getColumn(i);
+            final JsonNode value = node.get(roundTrip(key, charset));
+            final Object raw = column.getRawData();
+
+            if (raw == null) {
+                Assert.assertTrue(message, value.isNull());
+            } else if (column instanceof LongColumn) {
+                Assert.assertTrue(message, value.isIntegralNumber());
+                Assert.assertEquals(message, column.asBigInteger(), value.bigIntegerValue());
+            } else if (column instanceof DoubleColumn && JsonEncoder.isJsonNumber((String) raw)) {
+                Assert.assertTrue(message, value.isNumber());
+                Assert.assertEquals(message, 0, new BigDecimal((String) raw).compareTo(value.decimalValue()));
+            } else if (column instanceof BoolColumn) {
+                Assert.assertTrue(message, value.isBoolean());
+                Assert.assertEquals(message, raw, value.booleanValue());
+            } else if (column instanceof DateColumn) {
+                Assert.assertEquals(message, new SimpleDateFormat(DATE_FORMAT).format(new Date((Long) raw)), value.textValue());
+            } else {
+                Assert.assertTrue(message, value.isTextual());
+                Assert.assertEquals(message, roundTrip(column.asString(), charset), value.textValue());
+            }
+        }
+    }
+
+    /**
+     * warn: 同一列的类型相同, 与 reader 相同, ColumnEncoder 按第 1 次见到的类型绑定每一列的编码方式
+     */
+    @Nonnull
+    private static Column randomColumn(@Nonnull Random random, int index) {
+        if (random.nextInt(8) == 0) {
+            return (index == 6) ? new BytesColumn(null) : new StringColumn(null);
+        }
+
+        switch (index) {
+            case 0:
+                return new LongColumn(random.nextLong() >> random.nextInt(64));
+            case 1:
+                return new LongColumn(BigInteger.valueOf(random.nextLong()).shiftLeft(random.nextInt(80)));
+            case 2:
+                final String[] specials = {"NaN", "Infinity", "-Infinity", "-0.0", "4.9E-324", "+1", ".5", "007"};
+                return random.nextBoolean()
+                        ? new DoubleColumn(specials[random.nextInt(specials.length)])
+                        : new DoubleColumn(random.nextDouble() * 1e6 - 5e5);
+            case 3:
+                return new DateColumn(MILLIS + random.nextInt() * 1000L);
+            case 4:
+                return new BoolColumn(random.nextBoolean());
+            case 5:
+                return new DoubleColumn(random.nextInt(1000) / 8.0);
+            case 6:
+                return new BytesColumn(randomString(random).getBytes(StandardCharsets.UTF_8));
+            default:
+                return new StringColumn(randomString(random));
+        }
+    }
+
+    @Nonnull
+    private static String randomString(@Nonnull Random random) {
+        final StringBuilder sb = new StringBuilder();
+        final int length = random.nextInt(12);
+        for (int k = 0; k < length; k++) {
+            sb.append(ALPHABET[random.nextInt(ALPHABET.length)]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 编码中没有的字符替换为 ?, 转义后写入的 U+2028, U+2029 除外
+     */
+    @Nonnull
+    private static String roundTrip(@Nonnull String s, @Nonnull Charset charset) {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < s.length(); ) {
+            final int next = i + Character.charCount(s.codePointAt(i));
+            final String c = s.substring(i, next);
+            sb.append((c.equals("\u2028") || c.equals("\u2029")) ? c : new String(c.getBytes(charset), charset));
+            i = next;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 每行中没有原样的控制字符和 U+2028, U+2029
+     */
+    private static void assertNoLineBreak(@Nonnull String message, @Nonnull String line) {
+        for (int i = 0; i < line.length(); i++) {
+            final char c = line.charAt(i);
+            Assert.assertFalse(message, c < 0x20 || c == ' ' || c == ' ');
+        }
+    }
+
+    @Nonnull
+    private static String escape(@Nonnull String s) {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < s.length(); i++) {
+            sb.append(String.format("\\u%04X", (int) s.charAt(i)));
+        }
+        return sb.toString();
+    }
+}
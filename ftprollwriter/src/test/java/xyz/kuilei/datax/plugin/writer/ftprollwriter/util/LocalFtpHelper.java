@@ -0,0 +1,91 @@
+package xyz.kuilei.datax.plugin.writer.ftprollwriter.util;
+
+import com.alibaba.datax.common.util.Configuration;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 测试用, 远程路径直接作为本地路径, 不连接 ftp 服务器
+ *
+ * NOTE:
+ * 1. 记录登录的次数, 与 ftp 服务器上的连接数相同
+ *
+ * @author JiaKun Xu, 2026-10-18 18:10
+ */
+final class LocalFtpHelper extends BaseFtpHelper {
+    @Nonnull
+    private final AtomicInteger logins;
+
+    LocalFtpHelper(@Nonnull Configuration conf, @Nonnull AtomicInteger logins) {
+        super(conf);
+        this.logins = logins;
+    }
+
+    @Override
+    public void loginFtpServer() {
+        this.logins.incrementAndGet();
+    }
+
+    @Override
+    public void logoutFtpServer() {
+        this.logins.decrementAndGet();
+    }
+
+    @Override
+    public void mkDirRecursive(@Nonnull String directoryPath) {
+        new File(directoryPath).mkdirs();
+    }
+
+    @Nonnull
+    @Override
+    public OutputStream getOutputStream(@Nonnull String filePath) {
+        try {
+            return new FileOutputStream(filePath);
+        } catch (FileNotFoundException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public Set<String> getAllFilesInDir(@Nonnull String dir, @Nonnull String prefixFileName) {
+        final Set<String> files = new HashSet<>();
+        final String[] names = new File(dir).list();
+        if (names != null) {
+            for (String name : names) {
+                if (name.startsWith(prefixFileName)) {
+                    files.add(name);
+                }
+            }
+        }
+        return files;
+    }
+
+    @Override
+    public void deleteFiles(@Nonnull Set<String> filesToDelete) {
+        for (String file : filesToDelete) {
+            new File(file).delete();
+        }
+    }
+
+    @Override
+    public void rename(@Nonnull String oldPath, @Nonnull String newPath) {
+        try {
+            Files.move(Paths.get(oldPath), Paths.get(newPath), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package xyz.kuilei.datax.plugin.writer.ftprollwriter.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * RecordBuffer 的编码结果与 String#getBytes(Charset), Long#toString 相同
+ *
+ * NOTE:
+ * 1. 编码包括 UTF-8, GBK 的专门实现, ASCII 兼容的通用实现 (Big5, ISO-8859-1), 非 ASCII 兼容的 (UTF-16)
+ * 2. 字符包括 CJK, surrogate pair, 不成对的高低代理, GBK 中没有的字符, 以及它们出现在 ASCII 前缀之后的情况
+ *
+ * @author JiaKun Xu, 2026-10-18 17:00
+ */
+public class RecordBufferTest {
+    private static final Charset[] CHARSETS = {
+            StandardCharsets.UTF_8, Charset.forName("GBK"), Charset.forName("Big5"), StandardCharsets.ISO_8859_1, StandardCharsets.UTF_16
+    };
+
+    private static final String[] STRINGS = {
+            "",
+            "abc 123",
+            "中文",
+            "ab中文cd",
+            "😀",
+            "a😀b",
+            "😀😀",
+            // 不成对的高低代理
+            "\uD83D",
+            "\uDE00",
+            "a\uD83D",
+            "a\uDE00\uD83Db",
+            "\uD83D😀",
+            // GBK 中没有的字符
+            "ก",
+            "한국어",
+            "a€üé中",
+            "\u0080ÿ￿�",
+    };
+
+    // 各种字符混合, 随机生成
+    private static final String[] ALPHABET = {
+            "a", "Z", "0", "\t", "\n", "\"", "中", "文", "😀", "\uD83D", "\uDE00", "ก", "é", "€", "￿"
+    };
+
+    @Test
+    public void testWriteString() {
+        for (Charset charset : CHARSETS) {
+            final RecordBuffer buffer = new RecordBuffer(16, charset);
+            for (String s : STRINGS) {
+                buffer.reset();
+                buffer.writeString(s);
+                Assert.assertArrayEquals(charset + " " + escape(s), s.getBytes(charset), buffer.toByteArray());
+            }
+        }
+    }
+
+    @Test
+    public void testWriteStringRandom() {
+        final Random random = new Random(20261018L);
+
+        for (Charset charset : CHARSETS) {
+            // 扩容多次
+            final RecordBuffer buffer = new RecordBuffer(16, charset);
+            for (int i = 0; i < 5000; i++) {
+                final StringBuilder sb = new StringBuilder();
+                final int length = random.nextInt(30);
+                for (int j = 0; j < length; j++) {
+                    sb.append(ALPHABET[random.nextInt(ALPHABET.length)]);
+                }
+                final String s = sb.toString();
+
+                buffer.reset();
+                buffer.writeString(s);
+                Assert.assertArrayEquals(charset + " " + escape(s), s.getBytes(charset), buffer.toByteArray());
+
+                // 只编码一部分, 可能从 surrogate pair 中间切开
+                final int start = random.nextInt(s.length() + 1);
+                final int end = start + random.nextInt(s.length() - start + 1);
+                buffer.reset();
+                buffer.writeString(s, start, end);
+                Assert.assertArrayEquals(
+                        charset + " " + escape(s) + " [" + start + ", " + end + ")",
+                        s.substring(start, end).getBytes(charset),
+                        buffer.toByteArray()
+                );
+            }
+        }
+    }
+
+    @Test
+    public void testAppend() {
+        // 多次写入之间不互相影响, 包括 CharsetEncoder 的状态
+        for (Charset charset : CHARSETS) {
+            final RecordBuffer buffer = new RecordBuffer(16, charset);
+            final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            for (String s : STRINGS) {
+                buffer.writeString(s);
+                // warn: 逐个编码, 前后两个字符串的不成对代理不会拼成 1 个字符
+                final byte[] bytes = s.getBytes(charset);
+                expected.write(bytes, 0, bytes.length);
+            }
+
+            Assert.assertArrayEquals(charset.toString(), expected.toByteArray(), buffer.toByteArray());
+            Assert.assertEquals(buffer.size(), buffer.position());
+        }
+    }
+
+    @Test
+    public void testWriteLong() {
+        for (Charset charset : new Charset[]{StandardCharsets.UTF_8, Charset.forName("GBK"), StandardCharsets.UTF_16}) {
+            final RecordBuffer buffer = new RecordBuffer(16, charset);
+            for (long v : longs()) {
+                buffer.reset();
+                buffer.writeLong(v);
+                Assert.assertArrayEquals(charset + " " + v, Long.toString(v).getBytes(charset), buffer.toByteArray());
+            }
+        }
+    }
+
+    @Test
+    public void testWriteAscii() {
+        for (Charset charset : CHARSETS) {
+            final RecordBuffer buffer = new RecordBuffer(16, charset);
+            for (String s : new String[]{"", "0", "-1.5E-10", "NaN", "-Infinity", "1.7976931348623157E308", "4.9E-324"}) {
+                buffer.reset();
+                buffer.write('x');
+                buffer.writeAscii(s);
+
+                // 非 ASCII 兼容的编码按字符串单独编码, 例如 UTF-16 的 BOM
+                Assert.assertArrayEquals(charset + " " + s, s.getBytes(charset), tail(buffer.toByteArray(), 1));
+            }
+        }
+    }
+
+    /**
+     * 0, 正负两位一组的边界, 10 的幂前后, 最大最小值, 随机的
+     */
+    @Nonnull
+    private static List<Long> longs() {
+        final List<Long> longs = new ArrayList<>();
+        longs.add(0L);
+        longs.add(Long.MIN_VALUE);
+        longs.add(Long.MIN_VALUE + 1);
+        longs.add(Long.MAX_VALUE);
+        longs.add(Long.MAX_VALUE - 1);
+
+        long p = 1;
+        for (int i = 0; i < 19; i++) {
+            for (long v : new long[]{p - 1, p, p + 1, p * 2 - 1}) {
+                longs.add(v);
+                longs.add(-v);
+            }
+            p *= 10;
+        }
+        for (long v = -1000; v <= 1000; v++) {
+            longs.add(v);
+        }
+
+        final Random random = new Random(20261018L);
+        for (int i = 0; i < 10000; i++) {
+            longs.add(random.nextLong() >> random.nextInt(64));
+        }
+        return longs;
+    }
+
+    @Nonnull
+    private static byte[] tail(@Nonnull byte[] bytes, int from) {
+        final byte[] tail = new byte[bytes.length - from];
+        System.arraycopy(bytes, from, tail, 0, tail.length);
+        return tail;
+    }
+
+    @Nonnull
+    private static String escape(@Nonnull String s) {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < s.length(); i++) {
+            sb.append(String.format("\\u%04X", (int) s.charAt(i)));
+        }
+        return sb.toString();
+    }
+}
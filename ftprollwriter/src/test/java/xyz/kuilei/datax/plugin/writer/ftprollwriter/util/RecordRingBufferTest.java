@@ -0,0 +1,120 @@
+package xyz.kuilei.datax.plugin.writer.ftprollwriter.util;
+
+import com.alibaba.datax.common.element.LongColumn;
+import com.alibaba.datax.common.element.Record;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * RecordRingBuffer 的顺序, 结束, 错误传递和取消
+ *
+ * NOTE:
+ * 1. 生产者和消费者在不同的线程, 缓冲区很小, 反复经过满和空
+ * 2. finish, fail 之前 put 的 record 都能取到, 之后才得到结束或者异常
+ *
+ * @author JiaKun Xu, 2026-10-18 21:10
+ */
+public class RecordRingBufferTest {
+    private static final int COUNT = 200000;
+
+    @Test
+    public void testCapacity() {
+        Assert.assertEquals(2, new RecordRingBuffer(1).capacity());
+        Assert.assertEquals(2, new RecordRingBuffer(2).capacity());
+        Assert.assertEquals(8, new RecordRingBuffer(5).capacity());
+        Assert.assertEquals(1024, new RecordRingBuffer(1024).capacity());
+    }
+
+    @Test
+    public void testOrder() throws InterruptedException {
+        final RecordRingBuffer ring = new RecordRingBuffer(16);
+        final Thread producer = new Thread(() -> {
+            for (int i = 0; i < COUNT; i++) {
+                Assert.assertTrue(ring.put(record(i)));
+            }
+            ring.finish();
+        });
+        producer.start();
+
+        for (int i = 0; i < COUNT; i++) {
+            final Record record = ring.take();
+            Assert.assertNotNull(record);
+            Assert.assertEquals(i, record.getColumn(0).asLong().intValue());
+        }
+        Assert.assertNull(ring.take());
+        Assert.assertNull(ring.take());
+
+        producer.join();
+    }
+
+    @Test
+    public void testFail() throws InterruptedException {
+        final RecordRingBuffer ring = new RecordRingBuffer(4);
+        final IllegalStateException error = new IllegalStateException("reader failed");
+        final Thread producer = new Thread(() -> {
+            for (int i = 0; i < 10; i++) {
+                ring.put(record(i));
+            }
+            ring.fail(error);
+        });
+        producer.start();
+
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(i, ring.take().getColumn(0).asLong().intValue());
+        }
+        try {
+            ring.take();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertSame(error, e);
+        }
+
+        producer.join();
+    }
+
+    @Test
+    public void testFailChecked() {
+        final RecordRingBuffer ring = new RecordRingBuffer(4);
+        final Exception error = new Exception("checked");
+        ring.fail(error);
+
+        try {
+            ring.take();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertSame(error, e.getCause());
+        }
+    }
+
+    @Test
+    public void testCancel() throws InterruptedException {
+        final RecordRingBuffer ring = new RecordRingBuffer(2);
+        final AtomicReference<Boolean> result = new AtomicReference<>();
+        final Thread producer = new Thread(() -> {
+            boolean put = true;
+            for (int i = 0; i < 10 && put; i++) {
+                put = ring.put(record(i));
+            }
+            result.set(put);
+        });
+        producer.start();
+
+        // 缓冲区满之后生产者一直等待, 取消后 put 返回 false
+        Assert.assertEquals(0, ring.take().getColumn(0).asLong().intValue());
+        ring.cancel();
+        producer.join(10000L);
+
+        Assert.assertFalse(producer.isAlive());
+        Assert.assertEquals(Boolean.FALSE, result.get());
+    }
+
+    @Nonnull
+    private static Record record(int i) {
+        final Record record = new TestRecord();
+        record.addColumn(new LongColumn(i));
+        return record;
+    }
+}
@@ -0,0 +1,179 @@
+package xyz.kuilei.datax.plugin.writer.ftprollwriter.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * RotationFinalizer 的并发上限, 等待和错误传递
+ *
+ * NOTE:
+ * 1. 同时处理的文件个数不超过 maxPending, 超过时 submit 等待, 多个线程同时 submit 时也一样
+ * 2. close 返回时所有文件都已经处理完成
+ * 3. 失败后其他文件继续处理, 异常在之后的 submit 或者 close 时抛出
+ *
+ * @author JiaKun Xu, 2026-10-18 22:30
+ */
+public class RotationFinalizerTest {
+    @Test
+    public void testMaxPending() throws Exception {
+        final RotationFinalizer finalizer = new RotationFinalizer("test", 2);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger finished = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            finalizer.submit(() -> {
+                await(release);
+                finished.incrementAndGet();
+            });
+        }
+
+        // 第 3 个等待前面的完成
+        final CountDownLatch submitted = new CountDownLatch(1);
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final Thread thread = new Thread(() -> {
+            try {
+                finalizer.submit(finished::incrementAndGet);
+            } catch (Throwable t) {
+                error.set(t);
+            } finally {
+                submitted.countDown();
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+
+        Assert.assertFalse(submitted.await(200L, TimeUnit.MILLISECONDS));
+        release.countDown();
+        Assert.assertTrue(submitted.await(10L, TimeUnit.SECONDS));
+        Assert.assertNull(error.get());
+
+        finalizer.close();
+        Assert.assertEquals(3, finished.get());
+    }
+
+    @Test
+    public void testConcurrentSubmit() throws Exception {
+        final int maxPending = 3;
+        final RotationFinalizer finalizer = new RotationFinalizer("test", maxPending);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final AtomicInteger finished = new AtomicInteger();
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+
+        // 与并行写入相同, 多个 lane 共享
+        final Thread[] lanes = new Thread[4];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Thread(() -> {
+                try {
+                    for (int j = 0; j < 50; j++) {
+                        finalizer.submit(() -> {
+                            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                            Thread.yield();
+                            running.decrementAndGet();
+                            finished.incrementAndGet();
+                        });
+                    }
+                } catch (Throwable t) {
+                    error.compareAndSet(null, t);
+                }
+            });
+            lanes[i].start();
+        }
+        for (Thread lane : lanes) {
+            lane.join();
+        }
+
+        // close 返回时全部完成
+        finalizer.close();
+        Assert.assertNull(error.get());
+        Assert.assertEquals(lanes.length * 50, finished.get());
+        Assert.assertTrue(maxRunning.get() <= maxPending);
+    }
+
+    @Test
+    public void testErrorOnSubmit() throws Exception {
+        final RotationFinalizer finalizer = new RotationFinalizer("test", 2);
+        final CountDownLatch failed = new CountDownLatch(1);
+
+        finalizer.submit(() -> {
+            try {
+                throw new IOException("rename failed");
+            } finally {
+                failed.countDown();
+            }
+        });
+        Assert.assertTrue(failed.await(10L, TimeUnit.SECONDS));
+
+        // 异常在失败的 finalization 返回之后才记录
+        IOException error = null;
+        for (int i = 0; i < 1000 && error == null; i++) {
+            try {
+                finalizer.submit(() -> {
+                });
+                Thread.sleep(10L);
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+        Assert.assertNotNull(error);
+        Assert.assertTrue(error.getMessage(), error.getMessage().contains("rename failed"));
+
+        try {
+            finalizer.close();
+            Assert.fail();
+        } catch (IOException expected) {
+            // close 也抛出
+        }
+    }
+
+    @Test
+    public void testErrorOnClose() throws Exception {
+        final RotationFinalizer finalizer = new RotationFinalizer("test", 3);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger finished = new AtomicInteger();
+
+        finalizer.submit(() -> {
+            await(release);
+            finished.incrementAndGet();
+        });
+        finalizer.submit(() -> {
+            await(release);
+            throw new IllegalStateException("first");
+        });
+        finalizer.submit(() -> {
+            await(release);
+            throw new IOException("second");
+        });
+        release.countDown();
+
+        try {
+            finalizer.close();
+            Assert.fail();
+        } catch (IOException e) {
+            // 第一个失败的作为 cause 或者 suppressed, 其他的作为它的 suppressed
+            final Throwable first = (e.getCause() != null) ? e.getCause() : e.getSuppressed()[0];
+            Assert.assertEquals(1, first.getSuppressed().length);
+        }
+        // 失败不影响其他文件
+        Assert.assertEquals(1, finished.get());
+
+        // 重复 close 不再等待, 也不再抛出
+        finalizer.close();
+    }
+
+    private static void await(@Nonnull CountDownLatch latch) throws IOException {
+        try {
+            latch.await();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException(ie);
+        }
+    }
+}
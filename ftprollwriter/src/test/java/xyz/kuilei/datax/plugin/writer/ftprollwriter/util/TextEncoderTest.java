@@ -0,0 +1,285 @@
+package xyz.kuilei.datax.plugin.writer.ftprollwriter.util;
+
+import com.alibaba.datax.common.element.BoolColumn;
+import com.alibaba.datax.common.element.Column;
+import com.alibaba.datax.common.element.DateColumn;
+import com.alibaba.datax.common.element.DoubleColumn;
+import com.alibaba.datax.common.element.LongColumn;
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.element.StringColumn;
+import com.alibaba.datax.common.util.Configuration;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import xyz.kuilei.datax.plugin.writer.ftprollwriter.Key;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * text 格式的转义: TextEncoder 和 writer 的 encodeRecord 与按字符转义再 getBytes 的结果相同
+ *
+ * NOTE:
+ * 1. 需要转义的有列分隔符, \n, \r, 转义符, 包括出现在日期, double, 整数直接编码后原位转义的情况
+ * 2. null 在 hive 时为 \N, 字符串 "\N" 转义为 "\\N"; backslash 时为 nullFormat, 不转义
+ * 3. 编码包括 UTF-8, GBK; GBK 中 乗, 亅 的第 2 个字节与 \, | 相同, 不能按字节转义
+ *
+ * @author JiaKun Xu, 2026-10-18 17:30
+ */
+public class TextEncoderTest {
+    // 2026-10-18 12:34:56.789 +08:00
+    private static final long MILLIS = 1792298096789L;
+
+    private static final String[] STRINGS = {
+            "", "abc", "a,b", "a|b", "line1\nline2", "cr\rlf\r\n", "back\\slash", "\\N", "\\", "N",
+            "中文", "乗", "亅|乗\\", "，全角，", "😀", "1-2", "\u0001"
+    };
+
+    private static final String[] ALPHABET = {
+            "a", "1", "-", ",", "|", "\n", "\r", "\\", "N", "中", "乗", "亅", "，", "😀", "\u0001", "#"
+    };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testWriteField() {
+        for (Charset charset : new Charset[]{StandardCharsets.UTF_8, Charset.forName("GBK")}) {
+            for (char delimiter : new char[]{',', '|', '\u0001', '，', '1'}) {
+                final TextEncoder encoder = newEncoder(Constant.TEXT_ESCAPE_BACKSLASH, '\\', delimiter, charset);
+                final RecordBuffer buffer = new RecordBuffer(16, charset);
+
+                for (String s : STRINGS) {
+                    buffer.reset();
+                    encoder.writeField(s, buffer);
+                    Assert.assertArrayEquals(charset + " [" + delimiter + "] " + s,
+                            escape(s, delimiter, '\\').getBytes(charset), buffer.toByteArray());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCustomEscapeChar() {
+        final TextEncoder encoder = newEncoder(Constant.TEXT_ESCAPE_BACKSLASH, '#', '|', StandardCharsets.UTF_8);
+        final RecordBuffer buffer = new RecordBuffer(16, StandardCharsets.UTF_8);
+
+        encoder.writeField("a|b#c\\d\ne\rf", buffer);
+        Assert.assertEquals("a#|b##c\\d#ne#rf", new String(buffer.toByteArray(), StandardCharsets.UTF_8));
+        Assert.assertTrue(encoder.isIntegerSafe());
+    }
+
+    @Test
+    public void testEscapeWritten() {
+        final Charset gbk = Charset.forName("GBK");
+
+        // ASCII 字节原位转义
+        RecordBuffer buffer = new RecordBuffer(4, StandardCharsets.UTF_8);
+        buffer.writeString("x");
+        buffer.writeString("12,34\\5\n6\r");
+        Assert.assertTrue(newEncoder(Constant.TEXT_ESCAPE_BACKSLASH, '\\', ',', StandardCharsets.UTF_8).escapeWritten(buffer, 1));
+        Assert.assertEquals("x12\\,34\\\\5\\n6\\r", new String(buffer.toByteArray(), StandardCharsets.UTF_8));
+
+        // UTF-8 的多字节字符中没有小于 0x80 的字节
+        buffer = new RecordBuffer(4, StandardCharsets.UTF_8);
+        buffer.writeString("乗|亅");
+        Assert.assertTrue(newEncoder(Constant.TEXT_ESCAPE_BACKSLASH, '\\', '|', StandardCharsets.UTF_8).escapeWritten(buffer, 0));
+        Assert.assertEquals("乗\\|亅", new String(buffer.toByteArray(), StandardCharsets.UTF_8));
+
+        // GBK 的第 2 个字节可能是 \ 或者 |, 不能按字节转义, 什么也不改变
+        buffer = new RecordBuffer(4, gbk);
+        buffer.writeString("乗|亅");
+        final byte[] before = buffer.toByteArray();
+        Assert.assertFalse(newEncoder(Constant.TEXT_ESCAPE_BACKSLASH, '\\', '|', gbk).escapeWritten(buffer, 0));
+        Assert.assertArrayEquals(before, buffer.toByteArray());
+
+        // GBK 全部是 ASCII 字节时可以
+        buffer = new RecordBuffer(4, gbk);
+        buffer.writeString("1|2");
+        Assert.assertTrue(newEncoder(Constant.TEXT_ESCAPE_BACKSLASH, '\\', '|', gbk).escapeWritten(buffer, 0));
+        Assert.assertEquals("1\\|2", new String(buffer.toByteArray(), gbk));
+
+        // 非 ASCII 的列分隔符要按字符匹配
+        buffer = new RecordBuffer(4, StandardCharsets.UTF_8);
+        buffer.writeString("1，2");
+        Assert.assertFalse(newEncoder(Constant.TEXT_ESCAPE_BACKSLASH, '\\', '，', StandardCharsets.UTF_8).escapeWritten(buffer, 0));
+    }
+
+    @Test
+    public void testWriteNull() {
+        final RecordBuffer buffer = new RecordBuffer(16, StandardCharsets.UTF_8);
+
+        newEncoder(Constant.TEXT_ESCAPE_HIVE, '\\', '\u0001', StandardCharsets.UTF_8).writeNull(buffer);
+        Assert.assertEquals("\\N", new String(buffer.toByteArray(), StandardCharsets.UTF_8));
+
+        buffer.reset();
+        newEncoder(Constant.TEXT_ESCAPE_BACKSLASH, '\\', '\u0001', StandardCharsets.UTF_8).writeNull(buffer);
+        Assert.assertEquals("NULL", new String(buffer.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testEncodeRecord() throws IOException {
+        final Random random = new Random(20261018L);
+        final List<Record> records = randomRecords(random, 500);
+
+        for (String textEscape : new String[]{Constant.TEXT_ESCAPE_BACKSLASH, Constant.TEXT_ESCAPE_HIVE}) {
+            for (String encoding : new String[]{"UTF-8", "GBK"}) {
+                for (char delimiter : new char[]{',', '|', '\u0001', '，', '1', '-'}) {
+                    // 日期格式中有列分隔符, 转义符和 GBK 第 2 个字节为 \ 的字面量
+                    for (String dateFormat : new String[]{"yyyy-MM-dd HH:mm:ss", "yyyy,MM|dd'\\'HH", "yyyy乗MM亅dd"}) {
+                        final Configuration conf = newConf(textEscape, delimiter, encoding, dateFormat);
+                        final String message = textEscape + " " + encoding + " [" + delimiter + "] " + dateFormat;
+
+                        Assert.assertArrayEquals(
+                                message,
+                                expected(records, textEscape, delimiter, dateFormat).getBytes(encoding),
+                                WriterTestUtil.encodeRecords(conf, records)
+                        );
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testHiveNull() throws IOException {
+        final List<Record> records = new ArrayList<>();
+        final Record record = new TestRecord();
+        record.addColumn(new StringColumn(null));
+        record.addColumn(new StringColumn("\\N"));
+        record.addColumn(new LongColumn((Long) null));
+        record.addColumn(new StringColumn("NULL"));
+        records.add(record);
+
+        Assert.assertEquals("\\N\u0001\\\\N\u0001\\N\u0001NULL\n", new String(
+                WriterTestUtil.encodeRecords(newConf(Constant.TEXT_ESCAPE_HIVE, '\u0001', "UTF-8", "yyyy-MM-dd"), records),
+                StandardCharsets.UTF_8
+        ));
+        // backslash 时 null 为 nullFormat, 与字符串 "NULL" 相同
+        Assert.assertEquals("NULL,\\\\N,NULL,NULL\n", new String(
+                WriterTestUtil.encodeRecords(newConf(Constant.TEXT_ESCAPE_BACKSLASH, ',', "UTF-8", "yyyy-MM-dd"), records),
+                StandardCharsets.UTF_8
+        ));
+    }
+
+    @Nonnull
+    private Configuration newConf(@Nonnull String textEscape, char delimiter, @Nonnull String encoding, @Nonnull String dateFormat)
+            throws IOException {
+        final Configuration conf = WriterTestUtil.newConf(folder.newFolder(), Constant.FILE_FORMAT_TEXT);
+        conf.set(Key.TEXT_ESCAPE, textEscape);
+        conf.set(Key.FIELD_DELIMITER, String.valueOf(delimiter));
+        conf.set(Key.ENCODING, encoding);
+        conf.set(Key.DATE_FORMAT, dateFormat);
+        conf.set(Key.NULL_FORMAT, "NULL");
+        WriterTestUtil.validate(conf);
+        return conf;
+    }
+
+    @Nonnull
+    private static TextEncoder newEncoder(@Nonnull String textEscape, char escapeChar, char delimiter, @Nonnull Charset charset) {
+        final Configuration conf = Configuration.newDefault();
+        conf.set(Key.FILE_FORMAT, Constant.FILE_FORMAT_TEXT);
+        conf.set(Key.TEXT_ESCAPE, textEscape);
+        conf.set(Key.ESCAPE_CHAR, String.valueOf(escapeChar));
+        conf.set(Key.FIELD_DELIMITER, String.valueOf(delimiter));
+        conf.set(Key.NULL_FORMAT, "NULL");
+        TextEncoder.validateParameter(conf);
+        return new TextEncoder(conf, delimiter, charset);
+    }
+
+    /**
+     * 每行的列数和类型都不同: string, long, double, date, bool, null
+     */
+    @Nonnull
+    private static List<Record> randomRecords(@Nonnull Random random, int n) {
+        final List<Record> records = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            final Record record = new TestRecord();
+            final int columns = 1 + random.nextInt(6);
+            for (int j = 0; j < columns; j++) {
+                record.addColumn(randomColumn(random));
+            }
+            records.add(record);
+        }
+        return records;
+    }
+
+    @Nonnull
+    private static Column randomColumn(@Nonnull Random random) {
+        switch (random.nextInt(7)) {
+            case 0:
+                return new LongColumn(random.nextLong() >> random.nextInt(64));
+            case 1:
+                return new DoubleColumn(random.nextBoolean() ? random.nextDouble() * 1000 - 500 : -random.nextInt(100) / 4.0);
+            case 2:
+                return new DateColumn(MILLIS + random.nextInt() * 1000L);
+            case 3:
+                return new BoolColumn(random.nextBoolean());
+            case 4:
+                return new StringColumn(null);
+            case 5:
+                return new StringColumn(STRINGS[random.nextInt(STRINGS.length)]);
+            default:
+                final StringBuilder sb = new StringBuilder();
+                final int length = random.nextInt(10);
+                for (int k = 0; k < length; k++) {
+                    sb.append(ALPHABET[random.nextInt(ALPHABET.length)]);
+                }
+                return new StringColumn(sb.toString());
+        }
+    }
+
+    /**
+     * 按字符转义后拼接
+     */
+    @Nonnull
+    private static String expected(@Nonnull List<Record> records, @Nonnull String textEscape, char delimiter, @Nonnull String dateFormat) {
+        final SimpleDateFormat format = new SimpleDateFormat(dateFormat);
+        final StringBuilder sb = new StringBuilder();
+
+        for (Record record : records) {
+            for (int i = 0; i < record.getColumnNumber(); i++) {
+                if (i != 0) {
+                    sb.append(delimiter);
+                }
+
+                final Column column = record.getColumn(i);
+                if (column.getRawData() == null) {
+                    sb.append(Constant.TEXT_ESCAPE_HIVE.equals(textEscape) ? "\\N" : "NULL");
+                } else if (column instanceof DateColumn) {
+                    sb.append(escape(format.format(new Date((Long) column.getRawData())), delimiter, '\\'));
+                } else {
+                    sb.append(escape(column.asString(), delimiter, '\\'));
+                }
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    @Nonnull
+    private static String escape(@Nonnull String s, char delimiter, char escapeChar) {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            if (c == '\n') {
+                sb.append(escapeChar).append('n');
+            } else if (c == '\r') {
+                sb.append(escapeChar).append('r');
+            } else if (c == delimiter || c == escapeChar) {
+                sb.append(escapeChar).append(c);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,141 @@
+package xyz.kuilei.datax.plugin.writer.ftprollwriter.util;
+
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.util.Configuration;
+import org.junit.Assert;
+import xyz.kuilei.datax.plugin.writer.ftprollwriter.FtpRollWriter;
+import xyz.kuilei.datax.plugin.writer.ftprollwriter.Key;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 文本格式 (text, jsonl, fixed) 测试共用: 按 job 的方式校验配置, 创建 writer, 把 record 编码为字节或者写入文件
+ *
+ * NOTE:
+ * 1. 配置的校验与 FtpRollWriter.Job#init 相同, prefixWithUUID 与 split 之后相同
+ * 2. encodeRecords 直接调用 writer 的 encodeRecord, 不写文件, 每行后面加上 \n
+ * 3. writeFiles 与 task 相同, 上传并关闭后按文件序号读回所有文件
+ * 4. 远程路径为本地的临时目录, 见 LocalFtpHelper
+ *
+ * @author JiaKun Xu, 2026-10-18 18:10
+ */
+final class WriterTestUtil {
+    static final String PREFIX = "test";
+
+    static final String PREFIX_WITH_UUID = PREFIX + "-uuid";
+
+    private WriterTestUtil() {
+    }
+
+    @Nonnull
+    static Configuration newConf(@Nonnull File dir, @Nonnull String fileFormat) {
+        final Configuration conf = Configuration.newDefault();
+        conf.set(Key.PROTOCOL, Constant.PROTOCOL_SFTP);
+        conf.set(Key.HOST, "localhost");
+        conf.set(Key.USERNAME, "test");
+        conf.set(Key.PASSWORD, "test");
+        conf.set(Key.PATH, dir.getAbsolutePath());
+        conf.set(Key.WRITE_MODE, "truncate");
+        conf.set(Key.PREFIX, PREFIX);
+        conf.set(Key.FILE_FORMAT, fileFormat);
+        return conf;
+    }
+
+    /**
+     * 与 FtpRollWriter.Job#init 相同的校验, 以及 split 之后的 prefixWithUUID
+     */
+    static void validate(@Nonnull Configuration conf) {
+        BaseFtpHelper.validateParameter(conf);
+        FtpRollWriter.validateParameter(conf);
+        DataXRecordReader.validateParameter(conf);
+        ColumnEncoder.validateParameter(conf);
+        BaseRemoteWriter.validateParameter(conf);
+        BaseCompressCodec.validateParameter(conf);
+        ParquetEncoder.validateParameter(conf);
+        OrcEncoder.validateParameter(conf);
+        AvroEncoder.validateParameter(conf);
+        ArrowEncoder.validateParameter(conf);
+        FixedWidthEncoder.validateParameter(conf);
+        TextEncoder.validateParameter(conf);
+        ParallelRemoteWriter.validateParameter(conf);
+        FilePathManager.validateParameter(conf);
+
+        conf.set(Key.INTERNAL_PREFIX_WITH_UUID, PREFIX_WITH_UUID);
+    }
+
+    /**
+     * 与 FtpRollWriter.Task#init 相同, 每个 task 登录 TaskResources.ftpHelperCount 个连接
+     */
+    @Nonnull
+    static List<BaseFtpHelper> newFtpHelpers(@Nonnull Configuration conf, int count, @Nonnull AtomicInteger logins) {
+        final List<BaseFtpHelper> ftpHelpers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final BaseFtpHelper ftpHelper = new LocalFtpHelper(conf, logins);
+            ftpHelper.loginFtpServer();
+            ftpHelpers.add(ftpHelper);
+        }
+        return ftpHelpers;
+    }
+
+    /**
+     * 用 conf 创建的 writer 编码 records, 每行后面加上 \n
+     */
+    @Nonnull
+    static byte[] encodeRecords(@Nonnull Configuration conf, @Nonnull List<Record> records) throws IOException {
+        final RecordBuffer buffer = new RecordBuffer(64, Charset.forName(conf.getString(Key.ENCODING)));
+        final List<BaseFtpHelper> ftpHelpers = newFtpHelpers(conf, TaskResources.ftpHelperCount(conf), new AtomicInteger());
+
+        try (TaskResources resources = new TaskResources(conf, ftpHelpers);
+             BaseRemoteWriter writer = BaseRemoteWriter.getImpl(conf, resources)) {
+            for (Record record : records) {
+                writer.encodeRecord(record, buffer);
+                buffer.write('\n');
+            }
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * 用 conf 创建的 writer 写入 records 并关闭, 按文件序号返回每个文件的内容
+     * warn: path 需要是空目录
+     */
+    @Nonnull
+    static List<byte[]> writeFiles(@Nonnull Configuration conf, @Nonnull List<Record> records) throws IOException {
+        final List<BaseFtpHelper> ftpHelpers = newFtpHelpers(conf, TaskResources.ftpHelperCount(conf), new AtomicInteger());
+
+        try (TaskResources resources = new TaskResources(conf, ftpHelpers);
+             BaseRemoteWriter writer = BaseRemoteWriter.getImpl(conf, resources)) {
+            for (Record record : records) {
+                writer.writeOneRecord(record);
+            }
+        }
+
+        final File[] files = new File(conf.getString(Key.PATH)).listFiles();
+        Assert.assertNotNull(files);
+        final String prefix = conf.getString(Key.INTERNAL_PREFIX_WITH_UUID) + "-";
+        final String inUse = "." + conf.getString(Key.IN_USE_SUFFIX);
+
+        // 文件名: prefixWithUUID-序号.suffix[.压缩的扩展名]
+        Arrays.sort(files, Comparator.comparingInt(file -> {
+            final String name = file.getName();
+            return Integer.parseInt(name.substring(prefix.length(), name.indexOf('.', prefix.length())));
+        }));
+
+        final List<byte[]> contents = new ArrayList<>(files.length);
+        for (File file : files) {
+            Assert.assertTrue(file.getName(), file.getName().startsWith(prefix));
+            Assert.assertFalse(file.getName(), file.getName().endsWith(inUse));
+            contents.add(Files.readAllBytes(file.toPath()));
+        }
+        return contents;
+    }
+}
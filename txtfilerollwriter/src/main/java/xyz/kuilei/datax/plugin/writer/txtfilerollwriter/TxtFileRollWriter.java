@@ -1,5 +1,6 @@
 package xyz.kuilei.datax.plugin.writer.txtfilerollwriter;
 
+import com.alibaba.datax.common.element.Record;
 import com.alibaba.datax.common.exception.DataXException;
 import com.alibaba.datax.common.plugin.RecordReceiver;
 import com.alibaba.datax.common.spi.Writer;
@@ -9,9 +10,18 @@ import org.apache.commons.io.filefilter.PrefixFileFilter;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util.ArrowEncoder;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util.AvroEncoder;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util.BaseCompressCodec;
 import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util.BaseUnstructuredWriter;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util.ColumnEncoder;
 import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util.DataXRecordReader;
 import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util.FileManager;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util.FixedWidthEncoder;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util.OrcEncoder;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util.ParallelWriter;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util.ParquetEncoder;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util.TextEncoder;
 
 import javax.annotation.Nonnull;
 import java.io.File;
@@ -36,7 +46,16 @@ public class TxtFileRollWriter extends Writer {
 
             TxtFileRollWriter.validateParameter(conf);
             DataXRecordReader.validateParameter(conf);
+            ColumnEncoder.validateParameter(conf);
             BaseUnstructuredWriter.validateParameter(conf);
+            BaseCompressCodec.validateParameter(conf);
+            ParquetEncoder.validateParameter(conf);
+            OrcEncoder.validateParameter(conf);
+            AvroEncoder.validateParameter(conf);
+            ArrowEncoder.validateParameter(conf);
+            FixedWidthEncoder.validateParameter(conf);
+            TextEncoder.validateParameter(conf);
+            ParallelWriter.validateParameter(conf);
             FileManager.validateParameter(conf);
 
             this.writerSliceConfig = conf;
@@ -262,7 +281,7 @@ public class TxtFileRollWriter extends Writer {
             LOG.info(String.format("write to path: [%s], prefix with UUID: [%s], suffix: [%s]", path, prefixWithUUID, suffix));
 
             DataXRecordReader recordReader = new DataXRecordReader(conf, lineReceiver);
-            BaseUnstructuredWriter baseWriter = BaseUnstructuredWriter.getImpl(conf);
+            ParallelWriter parallelWriter = new ParallelWriter(conf);
 
             /*
              * 在 alibaba 的 txt file writer 中: 如果写入文件失败, 那么放到错误记录里面, 而且不会抛出异常
@@ -271,9 +290,9 @@ public class TxtFileRollWriter extends Writer {
             DataXException de = null;
 
             try {
-                String[] splitRows;
-                while ((splitRows = recordReader.readOneRecord()) != null) {
-                    baseWriter.writeOneRecord(splitRows);
+                Record record;
+                while ((record = recordReader.readOneRecord()) != null) {
+                    parallelWriter.writeOneRecord(record);
                 }
             } catch (SecurityException se) {
                 de = DataXException.asDataXException(
@@ -288,8 +307,10 @@ public class TxtFileRollWriter extends Writer {
                         ioe
                 );
             } finally {
+                recordReader.close();
+
                 try {
-                    baseWriter.close();
+                    parallelWriter.close();
                 } catch (IOException ioe) {
                     if (de == null) {
                         de = DataXException.asDataXException(
@@ -0,0 +1,351 @@
+package xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util;
+
+import com.alibaba.datax.common.element.Column;
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.util.Configuration;
+import org.apache.arrow.compression.CommonsCompressionFactory;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BaseFixedWidthVector;
+import org.apache.arrow.vector.BaseVariableWidthVector;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.TimeStampMilliTZVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.compression.CompressionCodec;
+import org.apache.arrow.vector.compression.CompressionUtil;
+import org.apache.arrow.vector.compression.NoCompressionCodec;
+import org.apache.arrow.vector.ipc.ArrowFileWriter;
+import org.apache.arrow.vector.ipc.message.IpcOption;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.Key;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.TxtFileRollWriterErrorCode;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 用 arrow-vector 的 ArrowFileWriter 写 arrow IPC 文件 (feather v2)
+ *
+ * NOTE:
+ * 1. schema 为 1 层, 字段名来自 header, 没有配置时为 _col0, _col1, ...; 类型来自 columnTypes, 必须配置, 每个字段都是 nullable:
+ *    long -> int64, double -> float64, string -> utf8, date -> timestamp[ms, tz=UTC], bool -> bool, bytes -> binary
+ * 2. record 先写入 VectorSchemaRoot 的 vector, 按 arrow 的内存格式估算的字节数达到 recordBatchSize 时写入 1 个 record batch
+ * 3. 文件的 message, footer, 8 字节对齐, 按 IPC 的 BodyCompression 压缩每个 buffer (zstd) 都由 ArrowFileWriter 完成
+ * 4. 每个文件 1 个 ArrowFileWriter, 共用 1 个 VectorSchemaRoot, 写入 record batch 之后 vector 清空再复用
+ *    还没有写入的 record batch 按上 1 个 record batch 写入后与估算的比例计入 rollSize, 见 bufferedSize
+ * 5. 只追加写入, 不需要 seek
+ *
+ * warn: 非线程安全，只能由 1 个线程写入
+ * warn: vector 的内存由 arrow-memory 分配, 用完之后必须 close; jdk 9 以上需要 --add-opens=java.base/java.nio=ALL-UNNAMED
+ *
+ * @author JiaKun Xu, 2026-10-18 02:20
+ */
+public class ArrowEncoder implements Closeable {
+
+    public static void validateParameter(@Nonnull Configuration conf) {
+        String fileFormat = conf.getString(Key.FILE_FORMAT);
+        String compress = conf.getString(Key.COMPRESS, Constant.COMPRESS_NONE);
+        int compressThreads = conf.getInt(Key.COMPRESS_THREADS, Constant.DEFAULT_COMPRESS_THREADS);
+        List<String> columnTypes = conf.getList(Key.COLUMN_TYPES, String.class);
+        List<String> header = conf.getList(Key.HEADER, String.class);
+        Integer recordBatchSize = conf.getInt(Key.RECORD_BATCH_SIZE);
+
+        /*
+         * recordBatchSize check
+         */
+        if (null == recordBatchSize) {
+            recordBatchSize = Constant.DEFAULT_RECORD_BATCH_SIZE;
+        } else {
+            if (recordBatchSize < Constant.MIN_RECORD_BATCH_SIZE || recordBatchSize > Constant.MAX_RECORD_BATCH_SIZE) {
+                throw DataXException.asDataXException(
+                        TxtFileRollWriterErrorCode.ILLEGAL_VALUE,
+                        String.format("您配置的recordBatchSize: [%d]错误, 范围为 [%d, %d]",
+                                recordBatchSize, Constant.MIN_RECORD_BATCH_SIZE, Constant.MAX_RECORD_BATCH_SIZE)
+                );
+            }
+        }
+
+        conf.set(Key.RECORD_BATCH_SIZE, recordBatchSize);
+
+        if (!Constant.FILE_FORMAT_ARROW.equals(fileFormat)) {
+            return;
+        }
+
+        /*
+         * columnTypes check
+         */
+        if (columnTypes == null || columnTypes.isEmpty()) {
+            throw DataXException.asDataXException(
+                    TxtFileRollWriterErrorCode.REQUIRED_VALUE,
+                    "fileFormat为arrow时必须配置columnTypes, 作为arrow文件的schema"
+            );
+        }
+
+        /*
+         * header check
+         */
+        if (header != null && !header.isEmpty() && header.size() != columnTypes.size()) {
+            throw DataXException.asDataXException(
+                    TxtFileRollWriterErrorCode.ILLEGAL_VALUE,
+                    String.format("您配置的header的个数 [%d] 与columnTypes的个数 [%d] 不一致, arrow 文件的字段名来自 header",
+                            header.size(), columnTypes.size())
+            );
+        }
+
+        /*
+         * compress check
+         */
+        if (!Constant.COMPRESS_NONE.equals(compress) && !Constant.COMPRESS_ZSTD.equals(compress)) {
+            throw DataXException.asDataXException(
+                    TxtFileRollWriterErrorCode.ILLEGAL_VALUE,
+                    String.format("您配置的compress: [%s]错误, fileFormat为arrow时按buffer压缩, 支持none, zstd", compress)
+            );
+        }
+        if (compressThreads > 1) {
+            throw DataXException.asDataXException(
+                    TxtFileRollWriterErrorCode.ILLEGAL_VALUE,
+                    String.format("您配置的compressThreads: [%d]错误, fileFormat为arrow时按buffer压缩, 只能为 1", compressThreads)
+            );
+        }
+    }
+
+    @Nonnull
+    private final byte[] kinds;
+
+    @Nonnull
+    private final BufferAllocator allocator;
+
+    @Nonnull
+    private final VectorSchemaRoot root;
+
+    @Nonnull
+    private final FieldVector[] vectors;
+
+    // CommonsCompressionFactory 不支持 NO_COMPRESSION
+    @Nonnull
+    private final CompressionCodec.Factory codecFactory;
+
+    @Nonnull
+    private final CompressionUtil.CodecType codecType;
+
+    // 按 arrow 格式估算的字节数的上限
+    private final int recordBatchSize;
+
+    // 每行定长部分的字节数: 64 位的值, 变长值的 offset
+    private final int fixedRowSize;
+
+    @Nonnull
+    private final RecordBufferOutputStream out = new RecordBufferOutputStream();
+
+    // 当前文件的 writer, null -> 当前文件还没有 record
+    private ArrowFileWriter writer;
+
+    // 当前 record batch 的行数和估算的字节数
+    private int rowCount;
+    private long estimatedSize;
+
+    // 上 1 个 record batch 写入后的字节数 / 估算的字节数
+    private double encodedRatio = 1.0;
+
+    /**
+     * @param header if is null, use _col0, _col1, ...
+     */
+    public ArrowEncoder(@Nonnull Configuration conf, String[] header) {
+        List<String> columnTypes = conf.getList(Key.COLUMN_TYPES, String.class);
+
+        if (Constant.COMPRESS_ZSTD.equals(conf.getString(Key.COMPRESS, Constant.COMPRESS_NONE))) {
+            this.codecFactory = CommonsCompressionFactory.INSTANCE;
+            this.codecType = CompressionUtil.CodecType.ZSTD;
+        } else {
+            this.codecFactory = NoCompressionCodec.Factory.INSTANCE;
+            this.codecType = CompressionUtil.CodecType.NO_COMPRESSION;
+        }
+        this.recordBatchSize = conf.getInt(Key.RECORD_BATCH_SIZE, Constant.DEFAULT_RECORD_BATCH_SIZE);
+
+        final int columnNumb = columnTypes.size();
+        final List<Field> fields = new ArrayList<>(columnNumb);
+        int fixedRowSize = 0;
+        this.kinds = new byte[columnNumb];
+        for (int i = 0; i < columnNumb; i++) {
+            final String name = (header != null) ? header[i] : "_col" + i;
+            final byte kind = ColumnKind.of(columnTypes.get(i));
+            this.kinds[i] = kind;
+
+            switch (kind) {
+                case ColumnKind.LONG:
+                    fields.add(Field.nullable(name, new ArrowType.Int(64, true)));
+                    fixedRowSize += 8;
+                    break;
+                case ColumnKind.DOUBLE:
+                    fields.add(Field.nullable(name, new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE)));
+                    fixedRowSize += 8;
+                    break;
+                case ColumnKind.DATE:
+                    fields.add(Field.nullable(name, new ArrowType.Timestamp(TimeUnit.MILLISECOND, "UTC")));
+                    fixedRowSize += 8;
+                    break;
+                case ColumnKind.BOOL:
+                    // 按位保存, 与 validity bitmap 一样忽略
+                    fields.add(Field.nullable(name, ArrowType.Bool.INSTANCE));
+                    break;
+                case ColumnKind.BYTES:
+                    fields.add(Field.nullable(name, ArrowType.Binary.INSTANCE));
+                    fixedRowSize += 4;
+                    break;
+                default:
+                    fields.add(Field.nullable(name, ArrowType.Utf8.INSTANCE));
+                    fixedRowSize += 4;
+                    break;
+            }
+        }
+        this.fixedRowSize = fixedRowSize;
+
+        this.allocator = new RootAllocator();
+        this.root = VectorSchemaRoot.create(new Schema(fields), this.allocator);
+        this.vectors = this.root.getFieldVectors().toArray(new FieldVector[0]);
+    }
+
+    /**
+     * ArrowFileWriter 在 addRecord 时创建, 创建时写入文件头: magic, schema message
+     */
+    public void startFile(@Nonnull RecordBuffer out) {
+        this.out.startFile(out);
+    }
+
+    /**
+     * 写入 vector, 达到 recordBatchSize 时由 ArrowFileWriter 写入 out
+     */
+    public void addRecord(@Nonnull Record record, @Nonnull RecordBuffer out) throws IOException {
+        final byte[] kinds = this.kinds;
+
+        final int recLen = record.getColumnNumber();
+        if (recLen != kinds.length) {
+            throw DataXException.asDataXException(
+                    TxtFileRollWriterErrorCode.ILLEGAL_VALUE,
+                    String.format("arrow 文件每行的列数必须与columnTypes的个数 [%d] 相同, 当前行为 [%d] 列", kinds.length, recLen)
+            );
+        }
+
+        if (this.writer == null) {
+            final ArrowFileWriter writer = new ArrowFileWriter(
+                    this.root, null, Channels.newChannel(this.out), null, IpcOption.DEFAULT,
+                    this.codecFactory, this.codecType
+            );
+            writer.start();
+            this.writer = writer;
+        }
+
+        final FieldVector[] vectors = this.vectors;
+        final int row = this.rowCount;
+        long estimatedSize = this.estimatedSize + this.fixedRowSize;
+        for (int i = 0; i < recLen; i++) {
+            estimatedSize += setValue(vectors[i], kinds[i], row, record.getColumn(i));
+        }
+        this.estimatedSize = estimatedSize;
+        this.rowCount = row + 1;
+
+        if (estimatedSize >= this.recordBatchSize) {
+            writeBatch();
+        }
+    }
+
+    /**
+     * 剩余的行作为最后 1 个 record batch, 再写入 footer
+     */
+    public void finishFile(@Nonnull RecordBuffer out) throws IOException {
+        final ArrowFileWriter writer = this.writer;
+        if (writer != null) {
+            writeBatch();
+            this.writer = null;
+            writer.end();
+            writer.close();
+        }
+    }
+
+    /**
+     * @return 还没有写入 out 的 record batch 的字节数, 按上 1 个 record batch 写入后与估算的比例
+     */
+    public long bufferedSize() {
+        return (long) (this.estimatedSize * this.encodedRatio);
+    }
+
+    /**
+     * 释放 vector 的内存
+     */
+    @Override
+    public void close() {
+        this.root.close();
+        this.allocator.close();
+    }
+
+    private void writeBatch() throws IOException {
+        final int rowCount = this.rowCount;
+        if (rowCount == 0) {
+            return;
+        }
+
+        final long position = this.out.position();
+        this.root.setRowCount(rowCount);
+        this.writer.writeBatch();
+        this.encodedRatio = (double) (this.out.position() - position) / this.estimatedSize;
+
+        // 保留已经分配的内存, 下 1 个 record batch 复用
+        for (FieldVector vector : this.vectors) {
+            vector.reset();
+        }
+        this.rowCount = 0;
+        this.estimatedSize = 0;
+    }
+
+    /**
+     * @return 变长值的字节数
+     */
+    private static int setValue(@Nonnull FieldVector vector, byte kind, int row, @Nonnull Column col) {
+        final Object raw = col.getRawData();
+        if (raw == null) {
+            if (vector instanceof BaseFixedWidthVector) {
+                ((BaseFixedWidthVector) vector).setNull(row);
+            } else {
+                ((BaseVariableWidthVector) vector).setNull(row);
+            }
+            return 0;
+        }
+
+        switch (kind) {
+            case ColumnKind.LONG:
+                ((BigIntVector) vector).setSafe(row, ColumnKind.asLong(col, raw));
+                return 0;
+            case ColumnKind.DOUBLE:
+                ((Float8Vector) vector).setSafe(row, ColumnKind.asDouble(col, raw));
+                return 0;
+            case ColumnKind.DATE:
+                ((TimeStampMilliTZVector) vector).setSafe(row, ColumnKind.asDate(col, raw));
+                return 0;
+            case ColumnKind.BOOL:
+                ((BitVector) vector).setSafe(row, ColumnKind.asBoolean(col, raw) ? 1 : 0);
+                return 0;
+            case ColumnKind.BYTES:
+                final byte[] bytes = ColumnKind.asBytes(col, raw);
+                ((BaseVariableWidthVector) vector).setSafe(row, bytes, 0, bytes.length);
+                return bytes.length;
+            default:
+                // warn: arrow 的 utf8 固定为 UTF-8, 与 encoding 无关
+                final byte[] utf8 = ColumnKind.asString(col, raw).getBytes(StandardCharsets.UTF_8);
+                ((BaseVariableWidthVector) vector).setSafe(row, utf8, 0, utf8.length);
+                return utf8.length;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util;
+
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.util.Configuration;
+import org.junit.Assert;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+
+/**
+ * NOTE:
+ * 1. record 先写入 arrow 的 vector, 攒够 1 个 record batch 时才写入 record buffer; 还没有写入的 record batch 计入 rollSize, 见 bufferedSize
+ * 2. 文件关闭之前, 剩余的行作为最后 1 个 record batch, 再写入 footer
+ * 3. header 作为字段名写入 schema, fieldDelimiter, nullFormat, dateFormat 不起作用
+ * 4. vector 的内存在所有文件关闭之后释放, 见 close
+ *
+ * @author JiaKun Xu, 2026-10-18 02:40
+ */
+public class ArrowWriterImpl extends BaseUnstructuredWriter {
+    @Nonnull
+    private final ArrowEncoder arrowEncoder;
+
+    public ArrowWriterImpl(@Nonnull Configuration conf, @Nonnull TaskResources resources) {
+        super(conf, resources);
+
+        Assert.assertTrue(Constant.FILE_FORMAT_ARROW.equalsIgnoreCase(super.fileFormat));
+
+        this.arrowEncoder = new ArrowEncoder(conf, super.header);
+    }
+
+    @Override
+    protected void encodeHeader(@Nonnull String[] header, @Nonnull RecordBuffer buffer) {
+        // header 是 schema 里的字段名, 见 encodeFileHeader
+    }
+
+    @Override
+    protected void encodeFileHeader(@Nonnull RecordBuffer buffer) {
+        this.arrowEncoder.startFile(buffer);
+    }
+
+    @Override
+    protected void encodeRecord(@Nonnull Record record, @Nonnull RecordBuffer buffer) throws IOException {
+        this.arrowEncoder.addRecord(record, buffer);
+    }
+
+    @Override
+    protected void encodeFileFooter(@Nonnull RecordBuffer buffer) throws IOException {
+        this.arrowEncoder.finishFile(buffer);
+    }
+
+    @Override
+    protected long bufferedSize() {
+        return this.arrowEncoder.bufferedSize();
+    }
+
+    @Override
+    protected boolean isLineOriented() {
+        return false;
+    }
+
+    /**
+     * 最后 1 个文件的 footer 也要用到 vector, 所以在 super.close 之后释放
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            this.arrowEncoder.close();
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 异步写入: task 线程把数据拷贝到空闲的缓冲区, 写满后交给专门的 io 线程写入底层流
+ * 编码和写入(磁盘, 网络)可以同时进行, 而不是交替进行
+ *
+ * NOTE:
+ * 1. 缓冲区数量固定, io 线程来不及写时, task 线程在拿空闲缓冲区时阻塞, 内存有上限
+ * 2. io 线程写入失败后, 不再写入, 只回收缓冲区, 错误在 task 线程下一次 write, flush 或者 close 时抛出
+ * 3. 底层流在 close 时由 task 线程关闭, 此时 io 线程已经结束; close 被中断时也要等 io 线程结束, 底层流不会同时被两个线程使用
+ *
+ * warn: 非线程安全，只能由 1 个线程写入
+ *
+ * @author JiaKun Xu, 2026-10-17 15:10
+ */
+public class AsyncOutputStream extends OutputStream {
+    @Nonnull
+    private final OutputStream out;
+
+    @Nonnull
+    private final BlockingQueue<Chunk> freeChunks;
+
+    @Nonnull
+    private final BlockingQueue<Chunk> fullChunks;
+
+    @Nonnull
+    private final Thread ioThread;
+
+    // io 线程写入时的异常
+    private volatile Throwable ioError;
+
+    // 正在填充的缓冲区
+    private Chunk current;
+
+    private boolean closed;
+
+    /**
+     * @param name 用于 io 线程的名称
+     */
+    public AsyncOutputStream(@Nonnull OutputStream out, @Nonnull String name, int bufferSize, int bufferCount) {
+        this.out = out;
+        this.freeChunks = new ArrayBlockingQueue<>(bufferCount);
+        // warn: 多 1 个位置放结束标记
+        this.fullChunks = new ArrayBlockingQueue<>(bufferCount + 1);
+
+        for (int i = 0; i < bufferCount; i++) {
+            this.freeChunks.add(new Chunk(bufferSize));
+        }
+
+        this.ioThread = new Thread(this::drain, "async-output-" + name);
+        this.ioThread.setDaemon(true);
+        this.ioThread.start();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        Chunk chunk = currentChunk();
+        chunk.buf[chunk.len++] = (byte) b;
+
+        if (chunk.len == chunk.buf.length) {
+            submit();
+        }
+    }
+
+    @Override
+    public void write(@Nonnull byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            Chunk chunk = currentChunk();
+            final int n = Math.min(len, chunk.buf.length - chunk.len);
+
+            System.arraycopy(b, off, chunk.buf, chunk.len, n);
+            chunk.len += n;
+            off += n;
+            len -= n;
+
+            if (chunk.len == chunk.buf.length) {
+                submit();
+            }
+        }
+    }
+
+    /**
+     * 只把已经写入的数据交给 io 线程, 不等待写入完成
+     */
+    @Override
+    public void flush() throws IOException {
+        checkError();
+
+        if (this.current != null && this.current.len > 0) {
+            submit();
+        }
+    }
+
+    /**
+     * 等待 io 线程写完所有数据后关闭底层流
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+
+        try {
+            try {
+                if (this.current != null && this.current.len > 0) {
+                    submit();
+                }
+            } finally {
+                finish();
+            }
+            checkError();
+        } finally {
+            this.out.close();
+        }
+    }
+
+    @Nonnull
+    private Chunk currentChunk() throws IOException {
+        Chunk chunk = this.current;
+
+        if (chunk == null) {
+            if (this.closed) {
+                throw new IOException("stream closed");
+            }
+            checkError();
+
+            try {
+                chunk = this.freeChunks.take();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("等待空闲写入缓冲区时被中断");
+            }
+            this.current = chunk;
+        }
+
+        return chunk;
+    }
+
+    private void submit() throws IOException {
+        Chunk chunk = this.current;
+        this.current = null;
+
+        putInterruptibly(this.fullChunks, chunk);
+        checkError();
+    }
+
+    private void checkError() throws IOException {
+        Throwable t = this.ioError;
+
+        if (t != null) {
+            if (t instanceof IOException) {
+                IOException toThrow = new IOException("异步写入失败: " + t.getMessage());
+                toThrow.addSuppressed(t);
+                throw toThrow;
+            }
+            throw new IOException("异步写入失败", t);
+        }
+    }
+
+    /**
+     * io 线程
+     */
+    private void drain() {
+        try {
+            while (true) {
+                Chunk chunk = this.fullChunks.take();
+                if (chunk == Chunk.END) {
+                    return;
+                }
+
+                try {
+                    // 写入失败后只回收缓冲区, 避免 task 线程一直等待空闲缓冲区
+                    if (this.ioError == null) {
+                        this.out.write(chunk.buf, 0, chunk.len);
+                    }
+                } catch (Throwable t) {
+                    this.ioError = t;
+                } finally {
+                    chunk.len = 0;
+                    this.freeChunks.add(chunk);
+                }
+            }
+        } catch (InterruptedException ie) {
+            this.ioError = ie;
+        }
+    }
+
+    private static void putInterruptibly(@Nonnull BlockingQueue<Chunk> queue, @Nonnull Chunk chunk) throws IOException {
+        try {
+            queue.put(chunk);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("提交写入缓冲区时被中断");
+        }
+    }
+
+    /**
+     * 放入结束标记, 等待 io 线程写完
+     * 被中断时先中断 io 线程, 放弃剩下的数据, 但仍然等 io 线程结束 (最多等到正在进行的 1 次写入返回)
+     */
+    private void finish() throws IOException {
+        try {
+            this.fullChunks.put(Chunk.END);
+            this.ioThread.join();
+        } catch (InterruptedException ie) {
+            this.ioThread.interrupt();
+
+            // warn: 不能带超时, 否则 io 线程可能还在写入时, 底层流就被关闭了
+            boolean joined = false;
+            while (!joined) {
+                try {
+                    this.ioThread.join();
+                    joined = true;
+                } catch (InterruptedException ignored) {
+                    // 等待 io 线程结束后再恢复中断状态
+                }
+            }
+
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待异步写入结束时被中断");
+        }
+    }
+
+    private static final class Chunk {
+        static final Chunk END = new Chunk(0);
+
+        @Nonnull
+        final byte[] buf;
+
+        int len;
+
+        Chunk(int size) {
+            this.buf = new byte[size];
+        }
+    }
+}
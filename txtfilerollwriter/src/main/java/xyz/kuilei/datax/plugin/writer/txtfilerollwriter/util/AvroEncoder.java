@@ -0,0 +1,346 @@
+package xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util;
+
+import com.alibaba.datax.common.element.Column;
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.util.Configuration;
+import org.apache.avro.Schema;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.Key;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.TxtFileRollWriterErrorCode;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 用 avro 的 DataFileWriter 写 avro object container 文件
+ *
+ * NOTE:
+ * 1. schema 为 1 个 record, 字段名来自 header, 没有配置时为 _col0, _col1, ...; 类型来自 columnTypes, 必须配置,
+ *    每个字段都是 ["null", type] 的 union, 默认值为 null:
+ *    long -> long, double -> double, string -> string, date -> long (timestamp-millis), bool -> boolean, bytes -> bytes
+ * 2. record 直接从 column 的值用 avro 的 BinaryEncoder 编码, 不经过 GenericRecord, 再 appendEncoded 到 DataFileWriter
+ * 3. block 的切分 (avroSyncInterval), 按 compress 压缩 (none (null), deflate, zstd (zstandard)), sync marker 都由 DataFileWriter 完成
+ * 4. 每个文件 1 个 DataFileWriter, 还没有写入的 block 在 DataFileWriter 的缓冲里, 按上 1 个 block 的压缩率估算, 见 bufferedSize
+ *
+ * warn: 非线程安全，只能由 1 个线程写入
+ *
+ * @author JiaKun Xu, 2026-10-18 00:10
+ */
+public class AvroEncoder {
+    private static final String SCHEMA_NAME = "DataXRecord";
+
+    // avro 的 name: 字段名和 record 名
+    private static final Pattern NAME_PATTERN = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+
+    public static void validateParameter(@Nonnull Configuration conf) {
+        String fileFormat = conf.getString(Key.FILE_FORMAT);
+        String compress = conf.getString(Key.COMPRESS, Constant.COMPRESS_NONE);
+        int compressThreads = conf.getInt(Key.COMPRESS_THREADS, Constant.DEFAULT_COMPRESS_THREADS);
+        List<String> columnTypes = conf.getList(Key.COLUMN_TYPES, String.class);
+        List<String> header = conf.getList(Key.HEADER, String.class);
+        Integer avroSyncInterval = conf.getInt(Key.AVRO_SYNC_INTERVAL);
+
+        /*
+         * avroSyncInterval check
+         */
+        if (null == avroSyncInterval) {
+            avroSyncInterval = Constant.DEFAULT_AVRO_SYNC_INTERVAL;
+        } else {
+            if (avroSyncInterval < Constant.MIN_AVRO_SYNC_INTERVAL || avroSyncInterval > Constant.MAX_AVRO_SYNC_INTERVAL) {
+                throw DataXException.asDataXException(
+                        TxtFileRollWriterErrorCode.ILLEGAL_VALUE,
+                        String.format("您配置的avroSyncInterval: [%d]错误, 范围为 [%d, %d]",
+                                avroSyncInterval, Constant.MIN_AVRO_SYNC_INTERVAL, Constant.MAX_AVRO_SYNC_INTERVAL)
+                );
+            }
+        }
+
+        conf.set(Key.AVRO_SYNC_INTERVAL, avroSyncInterval);
+
+        if (!Constant.FILE_FORMAT_AVRO.equals(fileFormat)) {
+            return;
+        }
+
+        /*
+         * columnTypes check
+         */
+        if (columnTypes == null || columnTypes.isEmpty()) {
+            throw DataXException.asDataXException(
+                    TxtFileRollWriterErrorCode.REQUIRED_VALUE,
+                    "fileFormat为avro时必须配置columnTypes, 作为avro文件的schema"
+            );
+        }
+
+        /*
+         * header check
+         */
+        if (header != null && !header.isEmpty()) {
+            if (header.size() != columnTypes.size()) {
+                throw DataXException.asDataXException(
+                        TxtFileRollWriterErrorCode.ILLEGAL_VALUE,
+                        String.format("您配置的header的个数 [%d] 与columnTypes的个数 [%d] 不一致, avro 文件的字段名来自 header",
+                                header.size(), columnTypes.size())
+                );
+            }
+
+            Set<String> names = new HashSet<>();
+            for (String name : header) {
+                if (name == null || !NAME_PATTERN.matcher(name).matches() || !names.add(name)) {
+                    throw DataXException.asDataXException(
+                            TxtFileRollWriterErrorCode.ILLEGAL_VALUE,
+                            String.format("您配置的header: %s 中的 [%s] 错误, avro 的字段名只能包含字母, 数字和下划线, 不能以数字开头, 也不能重复",
+                                    header, name)
+                    );
+                }
+            }
+        }
+
+        /*
+         * compress check
+         */
+        if (toCodecName(compress) == null) {
+            throw DataXException.asDataXException(
+                    TxtFileRollWriterErrorCode.ILLEGAL_VALUE,
+                    String.format("您配置的compress: [%s]错误, fileFormat为avro时按block压缩, 支持none, deflate, zstd", compress)
+            );
+        }
+        if (compressThreads > 1) {
+            throw DataXException.asDataXException(
+                    TxtFileRollWriterErrorCode.ILLEGAL_VALUE,
+                    String.format("您配置的compressThreads: [%d]错误, fileFormat为avro时按block压缩, 只能为 1", compressThreads)
+            );
+        }
+    }
+
+    /**
+     * @return avro.codec; null -> avro 不支持
+     */
+    private static String toCodecName(@Nonnull String compress) {
+        if (Constant.COMPRESS_NONE.equals(compress)) {
+            return "null";
+        } else if (Constant.COMPRESS_DEFLATE.equals(compress)) {
+            return "deflate";
+        } else if (Constant.COMPRESS_ZSTD.equals(compress)) {
+            return "zstandard";
+        } else {
+            return null;
+        }
+    }
+
+    @Nonnull
+    private final byte[] kinds;
+
+    @Nonnull
+    private final Schema schema;
+
+    @Nonnull
+    private final String codecName;
+
+    // 按未压缩的字节数, block 的上限
+    private final int syncInterval;
+
+    @Nonnull
+    private final RecordBufferOutputStream out = new RecordBufferOutputStream();
+
+    // 当前文件的 writer, null -> 当前文件还没有 record
+    private DataFileWriter<Object> writer;
+
+    // 复用的缓冲区, 编码 1 个对象
+    @Nonnull
+    private final DatumBytes datum = new DatumBytes();
+
+    private BinaryEncoder encoder;
+
+    // 当前 block 已经 append 的字节数 (压缩前), 以及上次 block 写入之后 out 的位置
+    private long blockSize;
+    private long blockPosition;
+
+    // 上 1 个 block 压缩后的字节数 / 压缩前的字节数
+    private double encodedRatio = 1.0;
+
+    /**
+     * @param header if is null, use _col0, _col1, ...
+     */
+    public AvroEncoder(@Nonnull Configuration conf, String[] header) {
+        List<String> columnTypes = conf.getList(Key.COLUMN_TYPES, String.class);
+
+        this.codecName = toCodecName(conf.getString(Key.COMPRESS, Constant.COMPRESS_NONE));
+        this.syncInterval = conf.getInt(Key.AVRO_SYNC_INTERVAL, Constant.DEFAULT_AVRO_SYNC_INTERVAL);
+
+        final int columnNumb = columnTypes.size();
+        this.kinds = new byte[columnNumb];
+        for (int i = 0; i < columnNumb; i++) {
+            this.kinds[i] = ColumnKind.of(columnTypes.get(i));
+        }
+        this.schema = new Schema.Parser().parse(buildSchema(header, this.kinds));
+    }
+
+    @Nonnull
+    private static String buildSchema(String[] header, @Nonnull byte[] kinds) {
+        final StringBuilder sb = new StringBuilder(64 + kinds.length * 64);
+        sb.append("{\"type\":\"record\",\"name\":\"").append(SCHEMA_NAME).append("\",\"fields\":[");
+
+        for (int i = 0; i < kinds.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            // warn: 字段名已经校验过, 不需要转义
+            sb.append("{\"name\":\"").append((header != null) ? header[i] : "_col" + i).append("\",\"type\":[\"null\",");
+            switch (kinds[i]) {
+                case ColumnKind.LONG:
+                    sb.append("\"long\"");
+                    break;
+                case ColumnKind.DOUBLE:
+                    sb.append("\"double\"");
+                    break;
+                case ColumnKind.DATE:
+                    sb.append("{\"type\":\"long\",\"logicalType\":\"timestamp-millis\"}");
+                    break;
+                case ColumnKind.BOOL:
+                    sb.append("\"boolean\"");
+                    break;
+                case ColumnKind.BYTES:
+                    sb.append("\"bytes\"");
+                    break;
+                default:
+                    sb.append("\"string\"");
+                    break;
+            }
+            sb.append("],\"default\":null}");
+        }
+
+        return sb.append("]}").toString();
+    }
+
+    /**
+     * DataFileWriter 在 addRecord 时创建, 创建时写入文件头: magic, 元数据 (avro.schema, avro.codec), sync marker
+     */
+    public void startFile(@Nonnull RecordBuffer out) {
+        this.out.startFile(out);
+        this.blockSize = 0;
+        this.blockPosition = 0;
+    }
+
+    /**
+     * 编码 1 个对象, append 到 DataFileWriter 的 block 缓冲区, 达到 avroSyncInterval 时由 DataFileWriter 写入 out
+     */
+    public void addRecord(@Nonnull Record record, @Nonnull RecordBuffer out) throws IOException {
+        final byte[] kinds = this.kinds;
+
+        final int recLen = record.getColumnNumber();
+        if (recLen != kinds.length) {
+            throw DataXException.asDataXException(
+                    TxtFileRollWriterErrorCode.ILLEGAL_VALUE,
+                    String.format("avro 文件每行的列数必须与columnTypes的个数 [%d] 相同, 当前行为 [%d] 列", kinds.length, recLen)
+            );
+        }
+
+        DataFileWriter<Object> writer = this.writer;
+        if (writer == null) {
+            writer = new DataFileWriter<>(new GenericDatumWriter<>(this.schema))
+                    .setCodec(CodecFactory.fromString(this.codecName))
+                    .setSyncInterval(this.syncInterval)
+                    .create(this.schema, this.out);
+            this.writer = writer;
+            this.blockPosition = this.out.position();
+        }
+
+        final DatumBytes datum = this.datum;
+        datum.reset();
+        final BinaryEncoder encoder = EncoderFactory.get().directBinaryEncoder(datum, this.encoder);
+        this.encoder = encoder;
+        for (int i = 0; i < recLen; i++) {
+            writeValue(encoder, kinds[i], record.getColumn(i));
+        }
+
+        this.blockSize += datum.size();
+        writer.appendEncoded(datum.asByteBuffer());
+
+        // DataFileWriter 写入 block 之后立即 flush, out 的位置变化即为写入了 1 个 block
+        final long position = this.out.position();
+        if (position != this.blockPosition) {
+            this.encodedRatio = (double) (position - this.blockPosition) / this.blockSize;
+            this.blockPosition = position;
+            this.blockSize = 0;
+        }
+    }
+
+    /**
+     * 剩余的对象作为最后 1 个 block, avro 文件没有 footer
+     */
+    public void finishFile(@Nonnull RecordBuffer out) throws IOException {
+        final DataFileWriter<Object> writer = this.writer;
+        if (writer != null) {
+            this.writer = null;
+            writer.close();
+        }
+    }
+
+    /**
+     * @return DataFileWriter 缓冲的还没有写入 out 的字节数, 按上 1 个 block 的压缩率估算
+     */
+    public long bufferedSize() {
+        return (long) (this.blockSize * this.encodedRatio);
+    }
+
+    /**
+     * union 的分支序号 (0 -> null, 1 -> 值) + 值
+     */
+    private static void writeValue(@Nonnull BinaryEncoder encoder, byte kind, @Nonnull Column col) throws IOException {
+        final Object raw = col.getRawData();
+        if (raw == null) {
+            encoder.writeIndex(0);
+            encoder.writeNull();
+            return;
+        }
+        encoder.writeIndex(1);
+
+        switch (kind) {
+            case ColumnKind.LONG:
+                encoder.writeLong(ColumnKind.asLong(col, raw));
+                break;
+            case ColumnKind.DOUBLE:
+                encoder.writeDouble(ColumnKind.asDouble(col, raw));
+                break;
+            case ColumnKind.DATE:
+                encoder.writeLong(ColumnKind.asDate(col, raw));
+                break;
+            case ColumnKind.BOOL:
+                encoder.writeBoolean(ColumnKind.asBoolean(col, raw));
+                break;
+            case ColumnKind.BYTES:
+                encoder.writeBytes(ColumnKind.asBytes(col, raw));
+                break;
+            default:
+                // warn: avro 的字符串固定为 UTF-8, 与 encoding 无关
+                encoder.writeString(ColumnKind.asString(col, raw));
+                break;
+        }
+    }
+
+    /**
+     * 编码好的 1 个对象, 不复制就交给 appendEncoded
+     */
+    private static final class DatumBytes extends ByteArrayOutputStream {
+        DatumBytes() {
+            super(1024);
+        }
+
+        @Nonnull
+        ByteBuffer asByteBuffer() {
+            return ByteBuffer.wrap(this.buf, 0, this.count);
+        }
+    }
+}
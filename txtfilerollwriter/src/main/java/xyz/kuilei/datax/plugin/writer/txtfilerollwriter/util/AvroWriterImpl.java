@@ -0,0 +1,59 @@
+package xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util;
+
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.util.Configuration;
+import org.junit.Assert;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+
+/**
+ * NOTE:
+ * 1. record 先编码到 DataFileWriter 的 block 缓冲区, 攒够 1 个 block 时才写入 record buffer; 还没有写入的 block 计入 rollSize, 见 bufferedSize
+ * 2. 文件关闭之前, 剩余的行作为最后 1 个 block, avro 文件没有 footer
+ * 3. header 作为字段名写入文件头的 schema, fieldDelimiter, nullFormat, dateFormat 不起作用
+ *
+ * @author JiaKun Xu, 2026-10-18 00:20
+ */
+public class AvroWriterImpl extends BaseUnstructuredWriter {
+    @Nonnull
+    private final AvroEncoder avroEncoder;
+
+    public AvroWriterImpl(@Nonnull Configuration conf, @Nonnull TaskResources resources) {
+        super(conf, resources);
+
+        Assert.assertTrue(Constant.FILE_FORMAT_AVRO.equalsIgnoreCase(super.fileFormat));
+
+        this.avroEncoder = new AvroEncoder(conf, super.header);
+    }
+
+    @Override
+    protected void encodeHeader(@Nonnull String[] header, @Nonnull RecordBuffer buffer) {
+        // header 是文件头 schema 里的字段名, 见 encodeFileHeader
+    }
+
+    @Override
+    protected void encodeFileHeader(@Nonnull RecordBuffer buffer) {
+        this.avroEncoder.startFile(buffer);
+    }
+
+    @Override
+    protected void encodeRecord(@Nonnull Record record, @Nonnull RecordBuffer buffer) throws IOException {
+        this.avroEncoder.addRecord(record, buffer);
+    }
+
+    @Override
+    protected void encodeFileFooter(@Nonnull RecordBuffer buffer) throws IOException {
+        this.avroEncoder.finishFile(buffer);
+    }
+
+    @Override
+    protected long bufferedSize() {
+        return this.avroEncoder.bufferedSize();
+    }
+
+    @Override
+    protected boolean isLineOriented() {
+        return false;
+    }
+}
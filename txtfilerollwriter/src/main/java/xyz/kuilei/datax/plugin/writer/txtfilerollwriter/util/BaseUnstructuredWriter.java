@@ -1,8 +1,11 @@
 package xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util;
 
+import com.alibaba.datax.common.element.Record;
 import com.alibaba.datax.common.exception.DataXException;
 import com.alibaba.datax.common.util.Configuration;
+import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.Key;
@@ -10,9 +13,19 @@ import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.TxtFileRollWriterErrorCo
 
 import javax.annotation.Nonnull;
 import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
 
 /**
  * @author JiaKun Xu, 2023-02-25 11:57
@@ -20,6 +33,12 @@ import java.util.List;
 public abstract class BaseUnstructuredWriter implements Closeable {
     private static final Logger LOG = LoggerFactory.getLogger(BaseUnstructuredWriter.class);
 
+    // warn: 个人还是倾向于使用操作系统自身的换行符
+    protected static final byte[] NEW_LINE = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    // 攒够这么多字节再写入文件
+    private static final int FLUSH_SIZE = 64 * 1024;
+
     // not blank
     @Nonnull
     protected final String fileFormat;
@@ -40,6 +59,39 @@ public abstract class BaseUnstructuredWriter implements Closeable {
     // >= 0
     protected final int rollCount;
 
+    protected final boolean asyncWrite;
+
+    // >= 2
+    protected final int asyncBufferCount;
+
+    // null -> 在 task 线程完成滚动的文件
+    // warn: 由 TaskResources 共享, 在外面关闭
+    private final RotationFinalizer rotationFinalizer;
+
+    // stream, channel, mmap or direct
+    @Nonnull
+    protected final String outputEngine;
+
+    // >= MIN_DIRECT_BUFFER_SIZE
+    protected final int directBufferSize;
+
+    // null -> 不压缩整个文件
+    protected final BaseCompressCodec compressCodec;
+
+    // >= 1
+    protected final int compressThreads;
+
+    // null -> 在写入线程压缩
+    // warn: 由 TaskResources 共享, 在外面关闭
+    private final ExecutorService compressExecutor;
+
+    // 压缩时, 当前文件压缩前后的字节数
+    private CompressedSizeCounter currentCompressedSizeCounter;
+
+    // 上一个文件的压缩率, 当前文件还没有输出时使用, 第一个文件按不压缩估算
+    // warn: 后台滚动时在后台线程更新
+    private volatile double lastCompressRatio = 1.0;
+
     public static void validateParameter(@Nonnull Configuration conf) {
         String fileFormat = conf.getString(Key.FILE_FORMAT);
         String fieldDelimiter = conf.getString(Key.FIELD_DELIMITER);
@@ -47,6 +99,12 @@ public abstract class BaseUnstructuredWriter implements Closeable {
         String encoding = conf.getString(Key.ENCODING);
         Long rollSize = conf.getLong(Key.ROLL_SIZE);
         Integer rollCount = conf.getInt(Key.ROLL_COUNT);
+        Boolean asyncWrite = conf.getBool(Key.ASYNC_WRITE);
+        Integer asyncBufferCount = conf.getInt(Key.ASYNC_BUFFER_COUNT);
+        Boolean asyncRotate = conf.getBool(Key.ASYNC_ROTATE);
+        Integer maxPendingRotations = conf.getInt(Key.MAX_PENDING_ROTATIONS);
+        String outputEngine = conf.getString(Key.OUTPUT_ENGINE);
+        Integer directBufferSize = conf.getInt(Key.DIRECT_BUFFER_SIZE);
 
         /*
          * fileFormat check
@@ -61,10 +119,22 @@ public abstract class BaseUnstructuredWriter implements Closeable {
                 fileFormat = Constant.FILE_FORMAT_TEXT;
             } else if (Constant.FILE_FORMAT_CSV.equalsIgnoreCase(fileFormat)) {
                 fileFormat = Constant.FILE_FORMAT_CSV;
+            } else if (Constant.FILE_FORMAT_PARQUET.equalsIgnoreCase(fileFormat)) {
+                fileFormat = Constant.FILE_FORMAT_PARQUET;
+            } else if (Constant.FILE_FORMAT_ORC.equalsIgnoreCase(fileFormat)) {
+                fileFormat = Constant.FILE_FORMAT_ORC;
+            } else if (Constant.FILE_FORMAT_AVRO.equalsIgnoreCase(fileFormat)) {
+                fileFormat = Constant.FILE_FORMAT_AVRO;
+            } else if (Constant.FILE_FORMAT_JSONL.equalsIgnoreCase(fileFormat)) {
+                fileFormat = Constant.FILE_FORMAT_JSONL;
+            } else if (Constant.FILE_FORMAT_ARROW.equalsIgnoreCase(fileFormat)) {
+                fileFormat = Constant.FILE_FORMAT_ARROW;
+            } else if (Constant.FILE_FORMAT_FIXED.equalsIgnoreCase(fileFormat)) {
+                fileFormat = Constant.FILE_FORMAT_FIXED;
             } else {
                 throw DataXException.asDataXException(
                         TxtFileRollWriterErrorCode.ILLEGAL_VALUE,
-                        String.format("您配置的fileFormat: [%s]错误, 支持csv, text两种", fileFormat)
+                        String.format("您配置的fileFormat: [%s]错误, 支持csv, text, parquet, orc, avro, jsonl, arrow, fixed八种", fileFormat)
                 );
             }
         }
@@ -126,11 +196,6 @@ public abstract class BaseUnstructuredWriter implements Closeable {
             }
         }
 
-        if (Constant.FILE_FORMAT_CSV.equalsIgnoreCase(fileFormat)) {
-            LOG.warn("当fileFormat: [csv]时，不支持按写入字节数 rollSize 滚动文件");
-            rollSize = 0L;
-        }
-
         conf.set(Key.ROLL_SIZE, rollSize);
 
         /*
@@ -146,20 +211,151 @@ public abstract class BaseUnstructuredWriter implements Closeable {
         }
 
         conf.set(Key.ROLL_COUNT, rollCount);
+
+        /*
+         * asyncWrite check
+         */
+        if (null == asyncWrite) {
+            asyncWrite = Constant.DEFAULT_ASYNC_WRITE;
+        }
+
+        conf.set(Key.ASYNC_WRITE, asyncWrite);
+
+        /*
+         * asyncBufferCount check
+         */
+        if (null == asyncBufferCount) {
+            asyncBufferCount = Constant.DEFAULT_ASYNC_BUFFER_COUNT;
+        } else {
+            if (asyncBufferCount < 2) {
+                throw DataXException.asDataXException(
+                        TxtFileRollWriterErrorCode.ILLEGAL_VALUE,
+                        String.format("您配置的asyncBufferCount: [%d]错误, 至少为 2", asyncBufferCount)
+                );
+            }
+        }
+
+        conf.set(Key.ASYNC_BUFFER_COUNT, asyncBufferCount);
+
+        /*
+         * asyncRotate check
+         */
+        if (null == asyncRotate) {
+            asyncRotate = Constant.DEFAULT_ASYNC_ROTATE;
+        }
+
+        conf.set(Key.ASYNC_ROTATE, asyncRotate);
+
+        /*
+         * maxPendingRotations check
+         */
+        if (null == maxPendingRotations) {
+            maxPendingRotations = Constant.DEFAULT_MAX_PENDING_ROTATIONS;
+        } else {
+            if (maxPendingRotations < 1) {
+                throw DataXException.asDataXException(
+                        TxtFileRollWriterErrorCode.ILLEGAL_VALUE,
+                        String.format("您配置的maxPendingRotations: [%d]错误, 至少为 1", maxPendingRotations)
+                );
+            }
+        }
+
+        conf.set(Key.MAX_PENDING_ROTATIONS, maxPendingRotations);
+
+        /*
+         * outputEngine check
+         */
+        if (StringUtils.isBlank(outputEngine)) {
+            outputEngine = Constant.OUTPUT_ENGINE_STREAM;
+        } else {
+            outputEngine = outputEngine.trim();
+
+            if (Constant.OUTPUT_ENGINE_STREAM.equalsIgnoreCase(outputEngine)) {
+                outputEngine = Constant.OUTPUT_ENGINE_STREAM;
+            } else if (Constant.OUTPUT_ENGINE_CHANNEL.equalsIgnoreCase(outputEngine)) {
+                outputEngine = Constant.OUTPUT_ENGINE_CHANNEL;
+            } else if (Constant.OUTPUT_ENGINE_MMAP.equalsIgnoreCase(outputEngine)) {
+                outputEngine = Constant.OUTPUT_ENGINE_MMAP;
+            } else if (Constant.OUTPUT_ENGINE_DIRECT.equalsIgnoreCase(outputEngine)) {
+                outputEngine = Constant.OUTPUT_ENGINE_DIRECT;
+            } else {
+                throw DataXException.asDataXException(
+                        TxtFileRollWriterErrorCode.ILLEGAL_VALUE,
+                        String.format("您配置的outputEngine: [%s]错误, 支持stream, channel, mmap, direct四种", outputEngine)
+                );
+            }
+        }
+
+        conf.set(Key.OUTPUT_ENGINE, outputEngine);
+
+        /*
+         * directBufferSize check
+         */
+        if (null == directBufferSize) {
+            directBufferSize = Constant.DEFAULT_DIRECT_BUFFER_SIZE;
+        } else {
+            if (directBufferSize < Constant.MIN_DIRECT_BUFFER_SIZE) {
+                throw DataXException.asDataXException(
+                        TxtFileRollWriterErrorCode.ILLEGAL_VALUE,
+                        String.format("您配置的directBufferSize: [%d]错误, 至少为 %d", directBufferSize, Constant.MIN_DIRECT_BUFFER_SIZE)
+                );
+            }
+        }
+
+        conf.set(Key.DIRECT_BUFFER_SIZE, directBufferSize);
     }
 
     @Nonnull
     protected final FileManager fileManager;
 
-    protected BaseUnstructuredWriter(@Nonnull Configuration conf) {
+    @Nonnull
+    protected final ColumnEncoder columnEncoder;
+
+    // 复用的写入缓冲, 写满 FLUSH_SIZE 或者 rotate 时写入文件
+    @Nonnull
+    protected final RecordBuffer recordBuffer;
+
+    // channel, direct 方式下复用的直接内存缓冲区, 文件关闭后放回
+    // warn: 后台滚动时, 上一个文件可能还没有关闭, 所以不止 1 个
+    @Nonnull
+    private final Queue<ByteBuffer> directBuffers = new ConcurrentLinkedQueue<>();
+
+    // 当前文件使用的直接内存缓冲区
+    private ByteBuffer currentDirectBuffer;
+
+    // direct 方式下缓冲区对齐的字节数
+    private int directIoBlockSize;
+
+    // direct 方式下, jdk 或者文件系统不支持时改为 channel 方式
+    private boolean directIoFallback;
+
+    private OutputStream currentOutputStream;
+    private long rollingSize;
+    private int rollingCount;
+
+    /**
+     * @param resources 同一个 task 内共享的文件序号, 压缩线程, 后台滚动的线程, 在外面关闭
+     */
+    protected BaseUnstructuredWriter(@Nonnull Configuration conf, @Nonnull TaskResources resources) {
         this.fileFormat = conf.getString(Key.FILE_FORMAT);
         this.fieldDelimiter = conf.getChar(Key.FIELD_DELIMITER);
         List<String> headerList = conf.getList(Key.HEADER, String.class);
         this.encoding = conf.getString(Key.ENCODING);
         this.rollSize = conf.getLong(Key.ROLL_SIZE);
         this.rollCount = conf.getInt(Key.ROLL_COUNT);
+        this.asyncWrite = conf.getBool(Key.ASYNC_WRITE);
+        this.asyncBufferCount = conf.getInt(Key.ASYNC_BUFFER_COUNT);
+        this.outputEngine = conf.getString(Key.OUTPUT_ENGINE);
+        this.directBufferSize = conf.getInt(Key.DIRECT_BUFFER_SIZE);
+        this.compressCodec = BaseCompressCodec.getStreamImpl(conf);
+
+        this.compressThreads = conf.getInt(Key.COMPRESS_THREADS, Constant.DEFAULT_COMPRESS_THREADS);
+        this.compressExecutor = resources.getCompressExecutor();
+        this.rotationFinalizer = resources.getRotationFinalizer();
 
-        this.fileManager = new FileManager(conf);
+        this.fileManager = new FileManager(conf, resources.getFileIndex());
+        this.columnEncoder = new ColumnEncoder(conf);
+        this.recordBuffer = new RecordBuffer(FLUSH_SIZE + FLUSH_SIZE / 4, Charset.forName(this.encoding));
 
         final int headNumb = (headerList == null) ? 0 : headerList.size();
         if (headNumb != 0) {
@@ -169,16 +365,363 @@ public abstract class BaseUnstructuredWriter implements Closeable {
         }
     }
 
-    public abstract void writeOneRecord(@Nonnull String[] splitRows) throws IOException;
+    /**
+     * 把头部信息编码到 buffer，不包括换行符
+     */
+    protected abstract void encodeHeader(@Nonnull String[] header, @Nonnull RecordBuffer buffer);
+
+    /**
+     * 把 1 行编码到 buffer，不包括换行符
+     */
+    protected abstract void encodeRecord(@Nonnull Record record, @Nonnull RecordBuffer buffer) throws IOException;
+
+    /**
+     * 每个文件开头的内容, 不能作为文件滚动依据, 默认为头部信息加上换行符
+     */
+    protected void encodeFileHeader(@Nonnull RecordBuffer buffer) {
+        if (ArrayUtils.isNotEmpty(this.header)) {
+            encodeHeader(this.header, buffer);
+            buffer.write(NEW_LINE);  // remember
+        }
+    }
+
+    /**
+     * 每个文件结尾的内容, 在文件关闭之前编码, 默认没有
+     * 例如 parquet: 还没有写入的 row group 和 footer
+     */
+    protected void encodeFileFooter(@Nonnull RecordBuffer buffer) throws IOException {
+    }
+
+    /**
+     * false -> 每行之后不写入换行符, 例如 parquet
+     */
+    protected boolean isLineOriented() {
+        return true;
+    }
+
+    /**
+     * 编码器缓冲的, 还没有写入 record buffer 的字节数, 计入 rollSize, 默认没有
+     * 例如 parquet: parquet-mr 还没有写入的 row group
+     */
+    protected long bufferedSize() {
+        return 0;
+    }
+
+    @Nonnull
+    protected OutputStream openOutputStream(@Nonnull File file) throws IOException {
+        // 覆盖，已经检查过文件的重复性
+        // warn: record buffer 已经攒批, 不需要再套一层 buffered output stream
+        OutputStream out;
+
+        if (Constant.OUTPUT_ENGINE_CHANNEL.equals(this.outputEngine)) {
+            out = openChannelOutputStream(file);
+        } else if (Constant.OUTPUT_ENGINE_DIRECT.equals(this.outputEngine)) {
+            out = openDirectIoOutputStream(file);
+        } else if (Constant.OUTPUT_ENGINE_MMAP.equals(this.outputEngine)) {
+            // warn: 配置了 rollSize 时, 第一段映射即为 rollSize, 文件一次扩展到位, close 时再截断为实际长度
+            FileChannel channel = FileChannel.open(
+                    file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE
+            );
+            long firstSegmentSize = (this.rollSize > 0) ? this.rollSize : Constant.MMAP_SEGMENT_SIZE;
+            out = new MappedOutputStream(channel, firstSegmentSize, Constant.MMAP_SEGMENT_SIZE);
+        } else {
+            out = new FileOutputStream(file);
+        }
+
+        if (this.compressCodec != null) {
+            // warn: 在 async output stream 之内, 异步写入时由专门的线程压缩
+            // rollSize 按压缩后的字节数计算
+            final CompressedSizeCounter counter = new CompressedSizeCounter();
+            this.currentCompressedSizeCounter = counter;
+
+            try {
+                if (this.compressExecutor != null) {
+                    // 正在压缩和等待写入的块为线程数的 2 倍, 线程不会空闲
+                    out = new ParallelCompressOutputStream(
+                            out, this.compressCodec, this.compressExecutor, Constant.COMPRESS_BLOCK_SIZE, 2 * this.compressThreads, counter
+                    );
+                } else {
+                    out = counter.countRaw(this.compressCodec.compress(counter.countCompressed(out)));
+                }
+            } catch (IOException | RuntimeException e) {
+                closeQuietly(out);
+                throw e;
+            }
+        }
+
+        if (this.asyncWrite) {
+            out = new AsyncOutputStream(out, file.getName(), Constant.ASYNC_BUFFER_SIZE, this.asyncBufferCount);
+        }
+
+        return out;
+    }
+
+    @Nonnull
+    private OutputStream openChannelOutputStream(@Nonnull File file) throws IOException {
+        ByteBuffer buffer = this.currentDirectBuffer;
+        if (buffer == null) {
+            buffer = acquireDirectBuffer();
+        }
+
+        FileChannel channel = FileChannel.open(
+                file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE
+        );
+        return new ChannelOutputStream(channel, buffer);
+    }
+
+    @Nonnull
+    private OutputStream openDirectIoOutputStream(@Nonnull File file) throws IOException {
+        if (this.directIoBlockSize == 0 && !this.directIoFallback) {
+            if (DirectIoOutputStream.isSupported()) {
+                this.directIoBlockSize = DirectIoOutputStream.blockSize(file.getAbsoluteFile().getParentFile().toPath());
+            } else {
+                this.directIoFallback = true;
+            }
+        }
+
+        ByteBuffer buffer = acquireDirectBuffer();
+
+        if (!this.directIoFallback) {
+            try {
+                return DirectIoOutputStream.open(file.toPath(), buffer, this.directIoBlockSize);
+            } catch (IOException | UnsupportedOperationException e) {
+                LOG.warn(String.format("文件 [%s] 所在的文件系统不支持 direct io, 改为 channel 方式写入", file.getAbsolutePath()), e);
+                this.directIoFallback = true;
+            }
+        }
+
+        // warn: 对齐的缓冲区也是直接内存, 可以直接给 channel 方式使用
+        return openChannelOutputStream(file);
+    }
+
+    /**
+     * 取出空闲的直接内存缓冲区, 没有时分配, 作为当前文件的缓冲区
+     */
+    @Nonnull
+    private ByteBuffer acquireDirectBuffer() {
+        ByteBuffer buffer = this.directBuffers.poll();
+
+        if (buffer == null) {
+            if (this.directIoBlockSize > 0) {
+                buffer = DirectIoOutputStream.allocateAligned(this.directBufferSize, this.directIoBlockSize);
+            } else {
+                buffer = ByteBuffer.allocateDirect(this.directBufferSize);
+            }
+        }
+
+        this.currentDirectBuffer = buffer;
+        return buffer;
+    }
+
+    @Nonnull
+    private OutputStream getCurrentOutputStream() throws IOException {
+        OutputStream out = this.currentOutputStream;
+
+        if (out == null) {
+            File file = this.fileManager.getCurrentFile();
+            String filePath = file.getAbsolutePath();
+            LOG.info(String.format("正在打开文件 [%s] 获取写入流", filePath));
+
+            try {
+                out = openOutputStream(file);
+            } catch (IOException ioe) {
+                IOException toThrow = new IOException(String.format("打开文件 [%s] 获取写入流时出错", filePath));
+                toThrow.addSuppressed(ioe);
+                throw toThrow;
+            }
+
+            Assert.assertNotNull(out);
+            this.currentOutputStream = out;
+            this.recordBuffer.setSink(out, FLUSH_SIZE);
+
+            // warn: 因为要滚动文件，所以每个滚动的文件都要写入头部信息
+            // warn: 头部信息不能作为文件滚动依据
+            // warn: 赋值后再写入，因为要finally close
+            encodeFileHeader(this.recordBuffer);
+        }
+
+        return out;
+    }
+
+    /**
+     * 压缩时按压缩率估算压缩后的字节数
+     *
+     * @param rollingSize task 线程写入的字节数, 包括还在缓冲区里的
+     */
+    private long estimateFileSize(long rollingSize) {
+        final CompressedSizeCounter counter = this.currentCompressedSizeCounter;
+
+        if (counter == null) {
+            return rollingSize;
+        }
+        return (long) (rollingSize * counter.ratio(this.lastCompressRatio));
+    }
+
+    private void rotate() throws IOException {
+        OutputStream out = this.currentOutputStream;
+
+        if (out != null) {
+            this.currentOutputStream = null;
+            this.rollingSize = 0;
+            this.rollingCount = 0;
+
+            final FileManager fileManager = this.fileManager;
+            final RecordBuffer buffer = this.recordBuffer;
+            final File file = fileManager.detachCurrentFile();
+            final ByteBuffer directBuffer = this.currentDirectBuffer;
+            this.currentDirectBuffer = null;
+            final CompressedSizeCounter counter = this.currentCompressedSizeCounter;
+            this.currentCompressedSizeCounter = null;
+
+            Assert.assertNotNull(file);
+
+            // warn: record buffer 由 task 线程复用, 所以在 task 线程编码文件结尾并写入
+            try {
+                encodeFileFooter(buffer);
+                buffer.writeTo(out);
+            } catch (IOException ioe) {
+                closeQuietly(out);
+                throw closeFailed(file, ioe);
+            } finally {
+                buffer.reset();
+                buffer.setSink(null, 0);
+            }
+
+            final RotationFinalizer rotationFinalizer = this.rotationFinalizer;
+
+            if (rotationFinalizer == null) {
+                closeAndFinish(out, file, directBuffer, counter);
+            } else {
+                // 下一个文件可以立即打开
+                rotationFinalizer.submit(() -> closeAndFinish(out, file, directBuffer, counter));
+            }
+        }
+    }
+
+    /**
+     * 关闭文件, 归还直接内存缓冲区, 再由 file manager 完成 (fsync, 重命名)
+     * warn: 后台滚动时在后台线程调用
+     *
+     * @param counter null -> 不压缩
+     */
+    private void closeAndFinish(
+            @Nonnull OutputStream out, @Nonnull File file, ByteBuffer directBuffer, CompressedSizeCounter counter
+    ) throws IOException {
+        try {
+            out.close();
+        } catch (IOException ioe) {
+            throw closeFailed(file, ioe);
+        }
+
+        if (counter != null) {
+            // 关闭后压缩前后的字节数是准确的
+            this.lastCompressRatio = counter.ratio(this.lastCompressRatio);
+        }
+
+        if (directBuffer != null) {
+            this.directBuffers.offer(directBuffer);
+        }
+
+        // 不放到 finally, 因为有写入异常就尽快抛出以结束 datax 任务
+        this.fileManager.finishFile(file);
+    }
+
+    @Nonnull
+    private static IOException closeFailed(@Nonnull File file, @Nonnull IOException ioe) {
+        IOException toThrow = new IOException(String.format("关闭文件写入流失败 [%s]", file.getAbsolutePath()));
+        toThrow.addSuppressed(ioe);
+        return toThrow;
+    }
+
+    private static void closeQuietly(@Nonnull OutputStream out) {
+        try {
+            out.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    public final void writeOneRecord(@Nonnull Record record) throws IOException {
+        // write
+        // warn: 直接编码到复用的 record buffer, 写入的字节数是准确的
+        final OutputStream out = getCurrentOutputStream();
+        final RecordBuffer buffer = this.recordBuffer;
+        // warn: 编码 stripe, row group 时会 drain, 所以按 position 计算
+        final long start = buffer.position();
+
+        encodeRecord(record, buffer);
+        if (isLineOriented()) {
+            buffer.write(NEW_LINE);
+        }
+
+        final long written = buffer.position() - start;
+
+        if (buffer.size() >= FLUSH_SIZE) {
+            buffer.writeTo(out);
+            buffer.reset();
+        }
+
+        // roll
+        boolean rolled = false;
+
+        final long rollSize = this.rollSize;
+        final int rollCount = this.rollCount;
+        long rollingSize = this.rollingSize;
+        int rollingCount = this.rollingCount;
+
+        rollingSize += written;
+        rollingCount += 1;
+
+        if (rollSize > 0 && estimateFileSize(rollingSize) + bufferedSize() >= rollSize) {
+            rollingSize = 0;
+            rollingCount = 0;
+            this.rotate();
+            rolled = true;
+        }
+        if (!rolled) {
+            if (rollCount > 0 && rollingCount >= rollCount) {
+                rollingSize = 0;
+                rollingCount = 0;
+                this.rotate();
+                // rolled = true;
+            }
+        }
+
+        this.rollingSize = rollingSize;
+        this.rollingCount = rollingCount;
+    }
+
+    /**
+     * 完成最后 1 个文件
+     * warn: 后台滚动时只是提交, 由 TaskResources#close 等待所有滚动的文件处理完成
+     */
+    @Override
+    public void close() throws IOException {
+        this.rotate();
+    }
 
+    /**
+     * @param resources 同一个 task 内共享, 在外面关闭
+     */
     @Nonnull
-    public static BaseUnstructuredWriter getImpl(@Nonnull Configuration conf) {
+    public static BaseUnstructuredWriter getImpl(@Nonnull Configuration conf, @Nonnull TaskResources resources) {
         String fileFormat = conf.getString(Key.FILE_FORMAT);
 
         if (Constant.FILE_FORMAT_TEXT.equalsIgnoreCase(fileFormat)) {
-            return new TextWriterImpl(conf);
+            return new TextWriterImpl(conf, resources);
         } else if (Constant.FILE_FORMAT_CSV.equalsIgnoreCase(fileFormat)) {
-            return new CsvWriterImpl(conf);
+            return new CsvWriterImpl(conf, resources);
+        } else if (Constant.FILE_FORMAT_PARQUET.equalsIgnoreCase(fileFormat)) {
+            return new ParquetWriterImpl(conf, resources);
+        } else if (Constant.FILE_FORMAT_ORC.equalsIgnoreCase(fileFormat)) {
+            return new OrcWriterImpl(conf, resources);
+        } else if (Constant.FILE_FORMAT_AVRO.equalsIgnoreCase(fileFormat)) {
+            return new AvroWriterImpl(conf, resources);
+        } else if (Constant.FILE_FORMAT_JSONL.equalsIgnoreCase(fileFormat)) {
+            return new JsonlWriterImpl(conf, resources);
+        } else if (Constant.FILE_FORMAT_ARROW.equalsIgnoreCase(fileFormat)) {
+            return new ArrowWriterImpl(conf, resources);
+        } else if (Constant.FILE_FORMAT_FIXED.equalsIgnoreCase(fileFormat)) {
+            return new FixedWriterImpl(conf, resources);
         } else {
             throw new IllegalStateException("should not happen");
         }
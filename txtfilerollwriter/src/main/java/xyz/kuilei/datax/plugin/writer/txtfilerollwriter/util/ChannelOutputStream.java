@@ -0,0 +1,100 @@
+package xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 基于 file channel 的写入: 先攒到大的直接内存缓冲区, 写满后 1 次 write 系统调用写入文件
+ *
+ * NOTE:
+ * 1. 直接内存缓冲区由 writer 复用, 滚动文件时不需要重新分配
+ * 2. 单次写入的数据比缓冲区剩余空间大, 而且不小于整个缓冲区时, 已经攒下的数据和它一起聚集写入 (gathering write), 不再拷贝
+ * 3. flush 只把缓冲区写入 channel, 不做 force
+ *
+ * warn: 非线程安全，只能由 1 个线程写入
+ *
+ * @author JiaKun Xu, 2026-10-17 17:40
+ */
+public class ChannelOutputStream extends OutputStream {
+    @Nonnull
+    private final FileChannel channel;
+
+    @Nonnull
+    private final ByteBuffer buffer;
+
+    private boolean closed;
+
+    public ChannelOutputStream(@Nonnull FileChannel channel, @Nonnull ByteBuffer buffer) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.buffer.clear();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        final ByteBuffer buffer = this.buffer;
+
+        if (!buffer.hasRemaining()) {
+            drain();
+        }
+        buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(@Nonnull byte[] b, int off, int len) throws IOException {
+        final ByteBuffer buffer = this.buffer;
+        final int remaining = buffer.remaining();
+
+        if (len <= remaining) {
+            buffer.put(b, off, len);
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+        } else if (len < buffer.capacity()) {
+            // 填满, 写入, 剩余的放到空的缓冲区
+            buffer.put(b, off, remaining);
+            drain();
+            buffer.put(b, off + remaining, len - remaining);
+        } else {
+            // 大块数据: 与已经攒下的数据聚集写入
+            buffer.flip();
+            ByteBuffer[] srcs = {buffer, ByteBuffer.wrap(b, off, len)};
+            while (srcs[1].hasRemaining()) {
+                this.channel.write(srcs);
+            }
+            buffer.clear();
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+
+        try {
+            drain();
+        } finally {
+            this.channel.close();
+        }
+    }
+
+    private void drain() throws IOException {
+        final ByteBuffer buffer = this.buffer;
+
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            this.channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
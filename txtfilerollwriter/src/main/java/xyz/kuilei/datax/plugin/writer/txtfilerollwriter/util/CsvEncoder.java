@@ -0,0 +1,114 @@
+package xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util;
+
+import javax.annotation.Nonnull;
+import java.nio.charset.Charset;
+
+/**
+ * 替代 javacsv 的 CsvWriter，直接编码到 record buffer，写入的字节数就是 record buffer 增加的字节数
+ *
+ * NOTE: 与 javacsv 默认配置的输出保持一致
+ * 1. 每个字段先 trim
+ * 2. 包含文本限定符 "、列分隔符、换行符，或者是每行第 1 个字段且为空、以注释符 # 开头时，用 " 包起来
+ * 3. 包起来的字段中的 " 写为 ""
+ * 每个字段只扫描 1 遍，ASCII 字符查表判断是否需要包起来
+ *
+ * @author JiaKun Xu, 2026-10-17 14:05
+ */
+public class CsvEncoder {
+    private static final char TEXT_QUALIFIER = '"';
+    private static final char COMMENT = '#';
+
+    private final char fieldDelimiter;
+
+    // ASCII 字符是否需要用 " 包起来
+    @Nonnull
+    private final boolean[] specials = new boolean[0x80];
+
+    // 整数(数字和负号)是否一定不需要包起来
+    private final boolean integerSafe;
+
+    @Nonnull
+    private final byte[] textQualifierBytes;
+
+    /**
+     * @param lineBreaks 出现时需要包起来的换行符
+     */
+    public CsvEncoder(char fieldDelimiter, @Nonnull char[] lineBreaks, @Nonnull Charset charset) {
+        this.fieldDelimiter = fieldDelimiter;
+
+        markSpecial(TEXT_QUALIFIER);
+        markSpecial(fieldDelimiter);
+        for (char lineBreak : lineBreaks) {
+            markSpecial(lineBreak);
+        }
+
+        boolean integerSafe = !this.specials['-'];
+        for (char c = '0'; c <= '9'; c++) {
+            integerSafe &= !this.specials[c];
+        }
+        this.integerSafe = integerSafe;
+
+        this.textQualifierBytes = String.valueOf(TEXT_QUALIFIER).getBytes(charset);
+    }
+
+    private void markSpecial(char c) {
+        if (c < 0x80) {
+            this.specials[c] = true;
+        }
+    }
+
+    public boolean isIntegerSafe() {
+        return this.integerSafe;
+    }
+
+    /**
+     * @param first 是否为每行的第 1 个字段
+     */
+    public void writeField(@Nonnull String field, boolean first, @Nonnull RecordBuffer out) {
+        // 与 String#trim 一致, 但不创建新的字符串
+        int start = 0;
+        int end = field.length();
+        while (start < end && field.charAt(start) <= ' ') {
+            start++;
+        }
+        while (start < end && field.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        boolean qualify = first && (start == end || field.charAt(start) == COMMENT);
+
+        if (!qualify) {
+            final boolean[] specials = this.specials;
+            final char fieldDelimiter = this.fieldDelimiter;
+
+            for (int i = start; i < end; i++) {
+                final char c = field.charAt(i);
+                if ((c < 0x80) ? specials[c] : (c == fieldDelimiter)) {
+                    qualify = true;
+                    break;
+                }
+            }
+        }
+
+        if (!qualify) {
+            out.writeString(field, start, end);
+            return;
+        }
+
+        final byte[] textQualifierBytes = this.textQualifierBytes;
+        out.write(textQualifierBytes);
+
+        int from = start;
+        for (int i = start; i < end; i++) {
+            if (field.charAt(i) == TEXT_QUALIFIER) {
+                // 连同这个 " 一起写入, 再补 1 个
+                out.writeString(field, from, i + 1);
+                out.write(textQualifierBytes);
+                from = i + 1;
+            }
+        }
+        out.writeString(field, from, end);
+
+        out.write(textQualifierBytes);
+    }
+}
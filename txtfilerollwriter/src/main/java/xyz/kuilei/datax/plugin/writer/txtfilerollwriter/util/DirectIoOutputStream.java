@@ -0,0 +1,210 @@
+package xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 绕过 page cache 的写入 (O_DIRECT): 大批量导出时不会挤掉同一台机器上数据库的 page cache
+ *
+ * NOTE:
+ * 1. 缓冲区的地址, 每次写入的位置和长度都要按 block size 对齐, 所以缓冲区写满后才写入
+ * 2. close 时最后不满 1 个 block 的数据补 0 后写入, 再把文件截断为实际长度
+ * 3. 需要 jdk 10+ 的 ExtendedOpenOption.DIRECT 和 ByteBuffer#alignedSlice, 通过反射获取, 以兼容 jdk 8 编译和运行
+ *
+ * warn: 非线程安全，只能由 1 个线程写入
+ *
+ * @author JiaKun Xu, 2026-10-17 19:10
+ */
+public class DirectIoOutputStream extends OutputStream {
+    private static final Logger LOG = LoggerFactory.getLogger(DirectIoOutputStream.class);
+
+    // 获取不到文件系统的 block size 时使用
+    private static final int DEFAULT_BLOCK_SIZE = 4096;
+
+    // null -> 不支持
+    @Nullable
+    private static final OpenOption DIRECT;
+
+    @Nullable
+    private static final Method ALIGNED_SLICE;
+
+    @Nullable
+    private static final Method GET_BLOCK_SIZE;
+
+    static {
+        OpenOption direct = null;
+        Method alignedSlice = null;
+        Method getBlockSize = null;
+
+        try {
+            Class<?> extendedOpenOption = Class.forName("com.sun.nio.file.ExtendedOpenOption");
+            direct = (OpenOption) extendedOpenOption.getField("DIRECT").get(null);
+            alignedSlice = ByteBuffer.class.getMethod("alignedSlice", int.class);
+            getBlockSize = FileStore.class.getMethod("getBlockSize");
+        } catch (Throwable t) {
+            direct = null;
+            LOG.info("当前 jdk 不支持 direct io, 将使用 channel 方式写入");
+        }
+
+        DIRECT = direct;
+        ALIGNED_SLICE = alignedSlice;
+        GET_BLOCK_SIZE = getBlockSize;
+    }
+
+    public static boolean isSupported() {
+        return DIRECT != null;
+    }
+
+    /**
+     * @param dir 文件所在的目录
+     * @return 文件系统的 block size, 获取不到时为 4096
+     */
+    public static int blockSize(@Nonnull Path dir) {
+        try {
+            if (GET_BLOCK_SIZE != null) {
+                long blockSize = (Long) GET_BLOCK_SIZE.invoke(Files.getFileStore(dir));
+                // 必须是 2 的幂
+                if (blockSize > 0 && blockSize <= Integer.MAX_VALUE && Long.bitCount(blockSize) == 1) {
+                    return (int) blockSize;
+                }
+            }
+        } catch (Throwable t) {
+            LOG.warn(String.format("获取 [%s] 所在文件系统的 block size 失败, 使用 %d", dir, DEFAULT_BLOCK_SIZE), t);
+        }
+        return DEFAULT_BLOCK_SIZE;
+    }
+
+    /**
+     * @param size 向上取整为 blockSize 的倍数
+     * @return 地址按 blockSize 对齐的直接内存缓冲区
+     */
+    @Nonnull
+    public static ByteBuffer allocateAligned(int size, int blockSize) {
+        final int capacity = (size + blockSize - 1) / blockSize * blockSize;
+        ByteBuffer raw = ByteBuffer.allocateDirect(capacity + blockSize);
+
+        try {
+            ByteBuffer aligned = (ByteBuffer) ALIGNED_SLICE.invoke(raw, blockSize);
+            aligned.limit(capacity);
+            return aligned.slice();
+        } catch (Exception e) {
+            throw new IllegalStateException("分配对齐的直接内存缓冲区失败", e);
+        }
+    }
+
+    /**
+     * @param buffer 由 allocateAligned 分配
+     * @throws IOException 文件系统不支持 O_DIRECT 时 (例如 tmpfs) 打开失败
+     */
+    @Nonnull
+    public static DirectIoOutputStream open(@Nonnull Path file, @Nonnull ByteBuffer buffer, int blockSize) throws IOException {
+        FileChannel channel = FileChannel.open(
+                file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE, DIRECT
+        );
+        return new DirectIoOutputStream(channel, buffer, blockSize);
+    }
+
+    @Nonnull
+    private final FileChannel channel;
+
+    @Nonnull
+    private final ByteBuffer buffer;
+
+    private final int blockSize;
+
+    // 实际写入的字节数
+    private long length;
+
+    private boolean closed;
+
+    private DirectIoOutputStream(@Nonnull FileChannel channel, @Nonnull ByteBuffer buffer, int blockSize) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.blockSize = blockSize;
+        this.buffer.clear();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        final ByteBuffer buffer = this.buffer;
+
+        buffer.put((byte) b);
+        this.length++;
+
+        if (!buffer.hasRemaining()) {
+            drain();
+        }
+    }
+
+    @Override
+    public void write(@Nonnull byte[] b, int off, int len) throws IOException {
+        final ByteBuffer buffer = this.buffer;
+        this.length += len;
+
+        while (len > 0) {
+            final int n = Math.min(len, buffer.remaining());
+            buffer.put(b, off, n);
+            off += n;
+            len -= n;
+
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+        }
+    }
+
+    /**
+     * warn: 不满 1 个缓冲区时不能写入, 否则破坏对齐, 所以 flush 不做任何事情
+     */
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+
+        try {
+            final ByteBuffer buffer = this.buffer;
+            final int tail = buffer.position();
+
+            if (tail > 0) {
+                // 补 0 到 block 的整数倍
+                final int padded = (tail + this.blockSize - 1) / this.blockSize * this.blockSize;
+                while (buffer.position() < padded) {
+                    buffer.put((byte) 0);
+                }
+                drain();
+                this.channel.truncate(this.length);
+            }
+        } finally {
+            this.channel.close();
+        }
+    }
+
+    private void drain() throws IOException {
+        final ByteBuffer buffer = this.buffer;
+
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            this.channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
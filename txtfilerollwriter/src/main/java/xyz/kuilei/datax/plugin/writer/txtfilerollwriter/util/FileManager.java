@@ -36,7 +36,8 @@ public class FileManager {
 
         if (StringUtils.isBlank(suffix)) {
             LOG.warn(String.format("您的 suffix 配置为空, 将使用默认值 [%s]", Constant.DEFAULT_SUFFIX));
-            conf.set(Key.SUFFIX, Constant.DEFAULT_SUFFIX);
+            suffix = Constant.DEFAULT_SUFFIX;
+            conf.set(Key.SUFFIX, suffix);
         } else {
             suffix = suffix.trim();
 
@@ -57,7 +58,8 @@ public class FileManager {
 
         if (StringUtils.isBlank(inUseSuffix)) {
             LOG.warn(String.format("您的 inUseSuffix 配置为空, 将使用默认值 [%s]", Constant.DEFAULT_IN_USE_SUFFIX));
-            conf.set(Key.IN_USE_SUFFIX, Constant.DEFAULT_IN_USE_SUFFIX);
+            inUseSuffix = Constant.DEFAULT_IN_USE_SUFFIX;
+            conf.set(Key.IN_USE_SUFFIX, inUseSuffix);
         } else {
             inUseSuffix = inUseSuffix.trim();
 
@@ -80,6 +82,50 @@ public class FileManager {
                     String.format("suffix: [%s] 与 inUseSuffix: [%s] 不能相同", suffix, inUseSuffix)
             );
         }
+
+        /*
+         * durability check
+         */
+        String durability = conf.getString(Key.DURABILITY);
+
+        if (StringUtils.isBlank(durability)) {
+            durability = Constant.DURABILITY_NONE;
+        } else {
+            durability = durability.trim();
+
+            if (Constant.DURABILITY_NONE.equalsIgnoreCase(durability)) {
+                durability = Constant.DURABILITY_NONE;
+            } else if (Constant.DURABILITY_ON_ROTATE.equalsIgnoreCase(durability)) {
+                durability = Constant.DURABILITY_ON_ROTATE;
+            } else if (Constant.DURABILITY_PERIODIC.equalsIgnoreCase(durability)) {
+                durability = Constant.DURABILITY_PERIODIC;
+            } else {
+                throw DataXException.asDataXException(
+                        TxtFileRollWriterErrorCode.ILLEGAL_VALUE,
+                        String.format("您配置的durability: [%s]错误, 支持none, onRotate, periodic三种", durability)
+                );
+            }
+        }
+
+        conf.set(Key.DURABILITY, durability);
+
+        /*
+         * syncInterval check
+         */
+        Long syncInterval = conf.getLong(Key.SYNC_INTERVAL);
+
+        if (null == syncInterval) {
+            syncInterval = Constant.DEFAULT_SYNC_INTERVAL;
+        } else {
+            if (syncInterval <= 0) {
+                throw DataXException.asDataXException(
+                        TxtFileRollWriterErrorCode.ILLEGAL_VALUE,
+                        String.format("您配置的syncInterval: [%d]错误, 必须大于 0", syncInterval)
+                );
+            }
+        }
+
+        conf.set(Key.SYNC_INTERVAL, syncInterval);
     }
 
     // not blank
@@ -89,16 +135,39 @@ public class FileManager {
     @Nonnull
     private final File baseDirectory;
 
-    private final AtomicInteger fileIndex = new AtomicInteger();
+    // warn: 并行写入时多个 file manager 共享, 保证文件名不重复
+    @Nonnull
+    private final AtomicInteger fileIndex;
+
+    // none, onRotate or periodic
+    @Nonnull
+    private final String durability;
+
+    // > 0
+    private final long syncInterval;
+
+    // null -> 不压缩
+    private final String compressExtension;
 
     private File currentFile;
 
     public FileManager(@Nonnull Configuration conf) {
+        this(conf, new AtomicInteger());
+    }
+
+    public FileManager(@Nonnull Configuration conf, @Nonnull AtomicInteger fileIndex) {
         String path = conf.getString(Key.PATH);
 
+        this.fileIndex = fileIndex;
+
         this.prefixWithUUID = conf.getString(Key.INTERNAL_PREFIX_WITH_UUID);
         this.suffix = conf.getString(Key.SUFFIX);
         this.inUseSuffix = conf.getString(Key.IN_USE_SUFFIX);
+
+        BaseCompressCodec codec = BaseCompressCodec.getStreamImpl(conf);
+        this.compressExtension = (codec == null) ? null : codec.getExtension();
+        this.durability = conf.getString(Key.DURABILITY, Constant.DURABILITY_NONE);
+        this.syncInterval = conf.getLong(Key.SYNC_INTERVAL, Constant.DEFAULT_SYNC_INTERVAL);
         this.baseDirectory = new File(path);
     }
 
@@ -110,10 +179,17 @@ public class FileManager {
         sb.append("-");
         sb.append(this.fileIndex.incrementAndGet());
         sb.append(".").append(this.suffix);
+        if (this.compressExtension != null) {
+            sb.append(".").append(this.compressExtension);
+        }
         sb.append(".").append(this.inUseSuffix);
 
         File file = new File(this.baseDirectory, sb.toString());
         this.currentFile = file;  // 不要忘了赋值
+
+        if (Constant.DURABILITY_PERIODIC.equals(this.durability)) {
+            FileSyncer.getInstance().register(file.toPath(), this.syncInterval);
+        }
         return file;
     }
 
@@ -123,25 +199,52 @@ public class FileManager {
         return (tempFile == null) ? nextFile() : tempFile;
     }
 
-    public void rotate() {
+    /**
+     * 取出当前文件, 下一次 getCurrentFile 时使用新的文件
+     *
+     * @return null -> 没有当前文件
+     */
+    public File detachCurrentFile() {
         File tempFile = this.currentFile;
+        this.currentFile = null;
+        return tempFile;
+    }
 
-        if (tempFile != null) {
-            this.currentFile = null;
-
-            String tempFilePath = tempFile.getAbsolutePath();
-            String destFilePath = tempFilePath.substring(0, tempFilePath.lastIndexOf(this.inUseSuffix) - 1);
-
-            File destFile = new File(destFilePath);
+    /**
+     * 完成已经关闭的临时文件: fsync (按 durability), 重命名
+     * warn: 可以在后台线程调用
+     *
+     * @throws IOException durability 不为 none 时, fsync 失败
+     */
+    public void finishFile(@Nonnull File tempFile) throws IOException {
+        String tempFilePath = tempFile.getAbsolutePath();
+        String destFilePath = tempFilePath.substring(0, tempFilePath.lastIndexOf(this.inUseSuffix) - 1);
+
+        File destFile = new File(destFilePath);
+
+        final boolean durable = !Constant.DURABILITY_NONE.equals(this.durability);
+        final FileSyncer fileSyncer = FileSyncer.getInstance();
+
+        if (durable) {
+            fileSyncer.unregister(tempFile.toPath());
+            // warn: 重命名之前落盘, 否则断电后可能得到重命名了但是为空的文件
+            fileSyncer.syncFile(tempFile.toPath());
+        }
 
-            try {
-                FileUtils.moveFile(tempFile, destFile);
-                if (LOG.isDebugEnabled()) {
-                    LOG.debug(String.format("移动文件成功, from: [%s], to: [%s]", tempFilePath, destFilePath));
-                }
-            } catch (IOException ioe) {
-                LOG.error(String.format("移动文件失败, from: [%s], to: [%s]", tempFilePath, destFilePath), ioe);
+        boolean moved = false;
+        try {
+            FileUtils.moveFile(tempFile, destFile);
+            moved = true;
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(String.format("移动文件成功, from: [%s], to: [%s]", tempFilePath, destFilePath));
             }
+        } catch (IOException ioe) {
+            LOG.error(String.format("移动文件失败, from: [%s], to: [%s]", tempFilePath, destFilePath), ioe);
+        }
+
+        if (durable && moved) {
+            // 同 1 个 jvm 内多个 task 的重命名合并为 1 次目录 fsync
+            fileSyncer.syncDirectory(this.baseDirectory.toPath());
         }
     }
 }
@@ -0,0 +1,199 @@
+package xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 同 1 个 jvm 内所有 task 共享的 fsync 工具
+ *
+ * NOTE:
+ * 1. 文件: 在重命名之前 fsync, 各个 task 并发执行, 由文件系统的日志合并提交
+ * 2. 目录: 组提交 (group sync), 1 次 fsync 覆盖开始之前的所有请求, 期间到达的请求由下 1 次 fsync 一起覆盖
+ *    多个 task 同时滚动时, 目录只需要 fsync 很少的次数
+ * 3. 定期同步: 由 1 个 daemon 线程按间隔 fsync 正在写入的文件, 不阻塞 task 线程
+ *
+ * @author JiaKun Xu, 2026-10-17 19:40
+ */
+public class FileSyncer {
+    private static final Logger LOG = LoggerFactory.getLogger(FileSyncer.class);
+
+    private static final FileSyncer INSTANCE = new FileSyncer();
+
+    // windows 不支持 fsync 目录
+    private static final boolean IS_WINDOWS = System.getProperty("os.name", "").toLowerCase().startsWith("windows");
+
+    @Nonnull
+    public static FileSyncer getInstance() {
+        return INSTANCE;
+    }
+
+    @Nonnull
+    private final Map<Path, DirectoryState> directories = new ConcurrentHashMap<>();
+
+    @Nonnull
+    private final Map<Path, ScheduledFuture<?>> periodicSyncs = new ConcurrentHashMap<>();
+
+    // 第一次 register 时创建
+    private volatile ScheduledExecutorService scheduler;
+
+    private FileSyncer() {
+    }
+
+    /**
+     * fsync 文件的数据和元数据
+     */
+    public void syncFile(@Nonnull Path file) throws IOException {
+        // warn: 以写方式打开, 否则 windows 上 force 会失败
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * fsync 目录, 使目录下的重命名落盘, 多个调用者合并为 1 次 fsync
+     * 返回时, 调用之前在该目录下的重命名都已经落盘
+     */
+    public void syncDirectory(@Nonnull Path dir) throws IOException {
+        if (IS_WINDOWS) {
+            return;
+        }
+
+        final DirectoryState state = this.directories.computeIfAbsent(dir, k -> new DirectoryState());
+        final Batch batch;
+
+        synchronized (state) {
+            // 加入还没有开始的批次
+            Batch pending = state.pending;
+            if (pending == null) {
+                pending = new Batch();
+                state.pending = pending;
+            }
+            batch = pending;
+
+            while (!batch.done && state.syncing) {
+                try {
+                    state.wait();
+                } catch (InterruptedException ie) {
+                    // 批次仍然保留, 由下 1 个 leader 覆盖
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException(String.format("等待同步目录 [%s] 时被中断", dir));
+                }
+            }
+
+            if (batch.done) {
+                batch.check(dir);
+                return;
+            }
+
+            // 成为 leader, 之后到达的请求进入下 1 个批次
+            state.pending = null;
+            state.syncing = true;
+        }
+
+        IOException error = null;
+        try {
+            // warn: fsync 时不持有锁, 新的请求可以进来排队
+            try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+                channel.force(true);
+            }
+        } catch (IOException ioe) {
+            error = ioe;
+        } finally {
+            synchronized (state) {
+                batch.done = true;
+                batch.error = error;
+                state.syncing = false;
+                state.notifyAll();
+            }
+        }
+
+        batch.check(dir);
+    }
+
+    /**
+     * 每隔 intervalMillis 毫秒 fsync 1 次正在写入的文件, 文件还不存在时跳过
+     */
+    public void register(@Nonnull Path file, long intervalMillis) {
+        ScheduledFuture<?> future = scheduler().scheduleWithFixedDelay(() -> {
+            try {
+                syncFile(file);
+            } catch (NoSuchFileException ignored) {
+                // 还没有打开, 或者已经重命名
+            } catch (Throwable t) {
+                LOG.warn(String.format("定期同步文件 [%s] 失败", file), t);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+
+        ScheduledFuture<?> old = this.periodicSyncs.put(file, future);
+        if (old != null) {
+            old.cancel(false);
+        }
+    }
+
+    public void unregister(@Nonnull Path file) {
+        ScheduledFuture<?> future = this.periodicSyncs.remove(file);
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    @Nonnull
+    private ScheduledExecutorService scheduler() {
+        ScheduledExecutorService scheduler = this.scheduler;
+
+        if (scheduler == null) {
+            synchronized (this) {
+                scheduler = this.scheduler;
+                if (scheduler == null) {
+                    scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                        Thread thread = new Thread(r, "periodic-file-sync");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    this.scheduler = scheduler;
+                }
+            }
+        }
+
+        return scheduler;
+    }
+
+    /**
+     * 单个目录的组提交状态, 由自身的锁保护
+     */
+    private static final class DirectoryState {
+        // 还没有开始 fsync 的批次
+        Batch pending;
+
+        boolean syncing;
+    }
+
+    /**
+     * 1 次 fsync 覆盖的请求
+     */
+    private static final class Batch {
+        boolean done;
+
+        IOException error;
+
+        void check(@Nonnull Path dir) throws IOException {
+            if (this.error != null) {
+                throw new IOException(String.format("同步目录 [%s] 失败", dir), this.error);
+            }
+        }
+    }
+}
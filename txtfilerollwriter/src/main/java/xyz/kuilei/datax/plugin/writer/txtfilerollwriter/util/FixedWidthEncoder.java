@@ -0,0 +1,219 @@
+package xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util;
+
+import com.alibaba.datax.common.element.Column;
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.util.Configuration;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.Key;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.TxtFileRollWriterErrorCode;
+
+import javax.annotation.Nonnull;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 定长格式的编码, 每个字段按 encoding 编码后补齐到 columnWidths 个字节
+ *
+ * NOTE:
+ * 1. 字段先按 text 的方式直接编码到 record buffer, 再在原位置补齐: 左对齐时补齐字节在后面, 右对齐时内容后移, 补齐字节在前面
+ * 2. 每列的补齐字节预先填充为 1 个 width 长的数组, 补齐时整段拷贝
+ * 3. 超过 width 的字段按字符截断, 不会截断多字节字符的一部分, 不足的字节再补齐 (慢路径, 只在超长时走)
+ * 4. 每行的字节数固定为 columnWidths 之和 (不包括换行符), 所以 rollSize 是准确的
+ *
+ * @author JiaKun Xu, 2026-10-18 03:10
+ */
+public class FixedWidthEncoder {
+
+    public static void validateParameter(@Nonnull Configuration conf) {
+        String fileFormat = conf.getString(Key.FILE_FORMAT);
+        List<Integer> columnWidths = conf.getList(Key.COLUMN_WIDTHS, Integer.class);
+        List<String> columnAligns = conf.getList(Key.COLUMN_ALIGNS, String.class);
+        List<String> columnPadChars = conf.getList(Key.COLUMN_PAD_CHARS, String.class);
+        List<String> header = conf.getList(Key.HEADER, String.class);
+
+        if (!Constant.FILE_FORMAT_FIXED.equals(fileFormat)) {
+            return;
+        }
+
+        // encoding 已经在 BaseUnstructuredWriter#validateParameter 中检查过
+        Charset charset = Charset.forName(conf.getString(Key.ENCODING));
+
+        /*
+         * columnWidths check
+         */
+        if (columnWidths == null || columnWidths.isEmpty()) {
+            throw DataXException.asDataXException(
+                    TxtFileRollWriterErrorCode.REQUIRED_VALUE,
+                    "fileFormat为fixed时必须配置columnWidths, 作为每个字段的字节数"
+            );
+        }
+        for (Integer columnWidth : columnWidths) {
+            if (columnWidth == null || columnWidth <= 0) {
+                throw DataXException.asDataXException(
+                        TxtFileRollWriterErrorCode.ILLEGAL_VALUE,
+                        String.format("您配置的columnWidths: %s 中的 [%s] 错误, 必须大于 0", columnWidths, columnWidth)
+                );
+            }
+        }
+
+        final int columnNumb = columnWidths.size();
+
+        /*
+         * columnAligns check
+         */
+        if (columnAligns == null || columnAligns.isEmpty()) {
+            columnAligns = new ArrayList<>(columnNumb);
+            for (int i = 0; i < columnNumb; i++) {
+                columnAligns.add(Constant.DEFAULT_COLUMN_ALIGN);
+            }
+        } else {
+            checkSize(Key.COLUMN_ALIGNS, columnAligns.size(), columnNumb);
+
+            List<String> normalized = new ArrayList<>(columnNumb);
+            for (String columnAlign : columnAligns) {
+                String align = (columnAlign == null) ? null : columnAlign.trim();
+                if (Constant.COLUMN_ALIGN_LEFT.equalsIgnoreCase(align)) {
+                    normalized.add(Constant.COLUMN_ALIGN_LEFT);
+                } else if (Constant.COLUMN_ALIGN_RIGHT.equalsIgnoreCase(align)) {
+                    normalized.add(Constant.COLUMN_ALIGN_RIGHT);
+                } else {
+                    throw DataXException.asDataXException(
+                            TxtFileRollWriterErrorCode.ILLEGAL_VALUE,
+                            String.format("您配置的columnAligns: %s 中的 [%s] 错误, 支持left, right", columnAligns, columnAlign)
+                    );
+                }
+            }
+            columnAligns = normalized;
+        }
+
+        conf.set(Key.COLUMN_ALIGNS, columnAligns);
+
+        /*
+         * columnPadChars check
+         */
+        if (columnPadChars == null || columnPadChars.isEmpty()) {
+            columnPadChars = new ArrayList<>(columnNumb);
+            for (int i = 0; i < columnNumb; i++) {
+                columnPadChars.add(Constant.DEFAULT_COLUMN_PAD_CHAR);
+            }
+        } else {
+            checkSize(Key.COLUMN_PAD_CHARS, columnPadChars.size(), columnNumb);
+
+            for (String columnPadChar : columnPadChars) {
+                // warn: 补齐字节按单字节拷贝, 所以补齐字符按 encoding 编码后必须是 1 个字节
+                if (columnPadChar == null || columnPadChar.length() != 1 || columnPadChar.getBytes(charset).length != 1) {
+                    throw DataXException.asDataXException(
+                            TxtFileRollWriterErrorCode.ILLEGAL_VALUE,
+                            String.format("您配置的columnPadChars: %s 中的 [%s] 错误, 必须是 1 个字符, 并且按encoding: [%s] 编码后是 1 个字节",
+                                    columnPadChars, columnPadChar, charset.name())
+                    );
+                }
+            }
+        }
+
+        conf.set(Key.COLUMN_PAD_CHARS, columnPadChars);
+
+        /*
+         * header check
+         */
+        if (header != null && !header.isEmpty()) {
+            checkSize(Key.HEADER, header.size(), columnNumb);
+        }
+    }
+
+    private static void checkSize(@Nonnull String key, int size, int columnNumb) {
+        if (size != columnNumb) {
+            throw DataXException.asDataXException(
+                    TxtFileRollWriterErrorCode.ILLEGAL_VALUE,
+                    String.format("您配置的%s的个数 [%d] 与columnWidths的个数 [%d] 不一致", key, size, columnNumb)
+            );
+        }
+    }
+
+    @Nonnull
+    private final int[] widths;
+
+    // true -> 右对齐
+    @Nonnull
+    private final boolean[] rights;
+
+    // 每列预先填充好的补齐字节, 长度为 width
+    @Nonnull
+    private final byte[][] paddings;
+
+    public FixedWidthEncoder(@Nonnull Configuration conf) {
+        List<Integer> columnWidths = conf.getList(Key.COLUMN_WIDTHS, Integer.class);
+        List<String> columnAligns = conf.getList(Key.COLUMN_ALIGNS, String.class);
+        List<String> columnPadChars = conf.getList(Key.COLUMN_PAD_CHARS, String.class);
+        Charset charset = Charset.forName(conf.getString(Key.ENCODING));
+
+        final int columnNumb = columnWidths.size();
+        this.widths = new int[columnNumb];
+        this.rights = new boolean[columnNumb];
+        this.paddings = new byte[columnNumb][];
+
+        for (int i = 0; i < columnNumb; i++) {
+            final int width = columnWidths.get(i);
+            this.widths[i] = width;
+            this.rights[i] = Constant.COLUMN_ALIGN_RIGHT.equals(columnAligns.get(i));
+
+            final byte[] padding = new byte[width];
+            Arrays.fill(padding, columnPadChars.get(i).getBytes(charset)[0]);
+            this.paddings[i] = padding;
+        }
+    }
+
+    public int getColumnNumber() {
+        return this.widths.length;
+    }
+
+    /**
+     * 第 index 个字段: 直接编码, 超长时截断, 再补齐到 width
+     */
+    public void writeColumn(int index, @Nonnull Column col, @Nonnull ColumnEncoder columnEncoder, @Nonnull RecordBuffer out) {
+        final int start = out.size();
+        columnEncoder.writeColumn(index, col, out);
+
+        if (out.size() - start > this.widths[index]) {
+            out.truncate(start);
+            writeTruncated(columnEncoder.formatColumn(index, col), this.widths[index], out);
+        }
+        out.padTo(start, this.widths[index], this.rights[index], this.paddings[index]);
+    }
+
+    /**
+     * 表头按相同的宽度和对齐方式写入
+     */
+    public void writeString(int index, @Nonnull String s, @Nonnull RecordBuffer out) {
+        final int start = out.size();
+        out.writeString(s);
+
+        if (out.size() - start > this.widths[index]) {
+            out.truncate(start);
+            writeTruncated(s, this.widths[index], out);
+        }
+        out.padTo(start, this.widths[index], this.rights[index], this.paddings[index]);
+    }
+
+    /**
+     * 逐个字符写入, 直到再写 1 个字符就超过 width
+     */
+    private static void writeTruncated(@Nonnull String s, int width, @Nonnull RecordBuffer out) {
+        final int start = out.size();
+        final int len = s.length();
+
+        int i = 0;
+        while (i < len) {
+            final int next = i + Character.charCount(s.codePointAt(i));
+            final int before = out.size();
+
+            out.writeString(s, i, Math.min(next, len));
+            if (out.size() - start > width) {
+                out.truncate(before);
+                return;
+            }
+            i = next;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util;
+
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.util.Configuration;
+import org.junit.Assert;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.TxtFileRollWriterErrorCode;
+
+import javax.annotation.Nonnull;
+
+/**
+ * NOTE:
+ * 1. 每个字段补齐到 columnWidths 个字节, 字段之间没有分隔符, 每行之后仍然写入换行符
+ * 2. header 按相同的宽度和对齐方式写入, fieldDelimiter 不起作用
+ *
+ * @author JiaKun Xu, 2026-10-18 03:20
+ */
+public class FixedWriterImpl extends BaseUnstructuredWriter {
+    @Nonnull
+    private final FixedWidthEncoder fixedWidthEncoder;
+
+    public FixedWriterImpl(@Nonnull Configuration conf, @Nonnull TaskResources resources) {
+        super(conf, resources);
+
+        Assert.assertTrue(Constant.FILE_FORMAT_FIXED.equalsIgnoreCase(super.fileFormat));
+
+        this.fixedWidthEncoder = new FixedWidthEncoder(conf);
+    }
+
+    @Override
+    protected void encodeHeader(@Nonnull String[] header, @Nonnull RecordBuffer buffer) {
+        for (int i = 0; i < header.length; i++) {
+            this.fixedWidthEncoder.writeString(i, header[i], buffer);
+        }
+    }
+
+    @Override
+    protected void encodeRecord(@Nonnull Record record, @Nonnull RecordBuffer buffer) {
+        // warn: 直接编码到复用的 record buffer, 在原位置补齐, 每行的字节数固定
+        final FixedWidthEncoder fixedWidthEncoder = this.fixedWidthEncoder;
+        final ColumnEncoder columnEncoder = super.columnEncoder;
+
+        final int recLen = record.getColumnNumber();
+        if (recLen != fixedWidthEncoder.getColumnNumber()) {
+            throw DataXException.asDataXException(
+                    TxtFileRollWriterErrorCode.ILLEGAL_VALUE,
+                    String.format("fixed文件每行的列数必须与columnWidths的个数 [%d] 相同, 当前行为 [%d] 列",
+                            fixedWidthEncoder.getColumnNumber(), recLen)
+            );
+        }
+
+        for (int i = 0; i < recLen; i++) {
+            fixedWidthEncoder.writeColumn(i, record.getColumn(i), columnEncoder, buffer);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util;
+
+import javax.annotation.Nonnull;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * json lines 的流式编码，直接编码到 record buffer，不经过 fastjson 的 JSONObject
+ *
+ * NOTE:
+ * 1. 每一行为 1 个 json object, 字段名来自 header, 没有配置或者列数多于 header 时为 _col0, _col1, ...
+ * 2. 字段名连同前面的 { 或 , 和后面的 : 预先编码好, 每个字段只写入 1 次
+ * 3. 字符串每个字段只扫描 1 遍, ASCII 字符查表判断是否需要转义: " \ 和控制字符, 其余字符原样按 encoding 编码
+ * 4. U+2028, U+2029 在 json 中可以不转义, 但是 javascript 和 python 的 splitlines 等把它们当作换行符, 所以也转义, 每行仍然是 1 个 object
+ *
+ * @author JiaKun Xu, 2026-10-18 01:10
+ */
+public class JsonEncoder {
+    private static final String DEFAULT_KEY_PREFIX = "_col";
+
+    // ASCII 字符转义后的字节, null -> 不需要转义
+    @Nonnull
+    private final byte[][] escapes = new byte[0x80][];
+
+    @Nonnull
+    private final Charset charset;
+
+    // 配置的 header, if is null, use _col0, _col1, ...
+    private final String[] header;
+
+    // 第 i 个字段的 {"key": 或 ,"key":, 按需扩容
+    @Nonnull
+    private byte[][] keyPrefixes;
+
+    // U+2028, U+2029 转义后的字节
+    @Nonnull
+    private final byte[] lineSeparatorBytes;
+
+    @Nonnull
+    private final byte[] paragraphSeparatorBytes;
+
+    @Nonnull
+    private final byte[] quoteBytes;
+
+    @Nonnull
+    private final byte[] objectEndBytes;
+
+    @Nonnull
+    private final byte[] emptyObjectBytes;
+
+    @Nonnull
+    private final byte[] nullBytes;
+
+    public JsonEncoder(String[] header, @Nonnull Charset charset) {
+        this.charset = charset;
+        this.header = header;
+
+        for (char c = 0; c < 0x20; c++) {
+            this.escapes[c] = String.format("\\u%04x", (int) c).getBytes(charset);
+        }
+        this.escapes['"'] = "\\\"".getBytes(charset);
+        this.escapes['\\'] = "\\\\".getBytes(charset);
+        this.escapes['\b'] = "\\b".getBytes(charset);
+        this.escapes['\f'] = "\\f".getBytes(charset);
+        this.escapes['\n'] = "\\n".getBytes(charset);
+        this.escapes['\r'] = "\\r".getBytes(charset);
+        this.escapes['\t'] = "\\t".getBytes(charset);
+
+        this.keyPrefixes = new byte[(header == null) ? 16 : header.length][];
+        this.lineSeparatorBytes = "\\u2028".getBytes(charset);
+        this.paragraphSeparatorBytes = "\\u2029".getBytes(charset);
+        this.quoteBytes = "\"".getBytes(charset);
+        this.objectEndBytes = "}".getBytes(charset);
+        this.emptyObjectBytes = "{}".getBytes(charset);
+        this.nullBytes = "null".getBytes(charset);
+    }
+
+    /**
+     * 写入第 index 个字段的 {"key": 或 ,"key":
+     */
+    public void writeKey(int index, @Nonnull RecordBuffer out) {
+        byte[][] keyPrefixes = this.keyPrefixes;
+
+        if (index >= keyPrefixes.length) {
+            keyPrefixes = Arrays.copyOf(keyPrefixes, Math.max(keyPrefixes.length << 1, index + 1));
+            this.keyPrefixes = keyPrefixes;
+        }
+
+        byte[] keyPrefix = keyPrefixes[index];
+        if (keyPrefix == null) {
+            keyPrefix = encodeKeyPrefix(index);
+            keyPrefixes[index] = keyPrefix;
+        }
+        out.write(keyPrefix);
+    }
+
+    @Nonnull
+    private byte[] encodeKeyPrefix(int index) {
+        final String[] header = this.header;
+        final String key = (header != null && index < header.length) ? header[index] : DEFAULT_KEY_PREFIX + index;
+
+        // 只在第 1 次见到该列时编码, 借用 writeString 转义
+        final RecordBuffer buffer = new RecordBuffer(key.length() * 2 + 8, this.charset);
+        buffer.writeString((index == 0) ? "{" : ",");
+        writeString(key, buffer);
+        buffer.writeString(":");
+        return buffer.toByteArray();
+    }
+
+    /**
+     * 写入 1 行的结尾 }, 没有字段时写入 {}
+     */
+    public void writeObjectEnd(int fieldNumb, @Nonnull RecordBuffer out) {
+        out.write((fieldNumb == 0) ? this.emptyObjectBytes : this.objectEndBytes);
+    }
+
+    public void writeNull(@Nonnull RecordBuffer out) {
+        out.write(this.nullBytes);
+    }
+
+    /**
+     * 写入带引号的字符串, 不需要转义的部分整段写入
+     */
+    public void writeString(@Nonnull String s, @Nonnull RecordBuffer out) {
+        final byte[][] escapes = this.escapes;
+        final int len = s.length();
+
+        out.write(this.quoteBytes);
+
+        int from = 0;
+        for (int i = 0; i < len; i++) {
+            final char c = s.charAt(i);
+            if (c < 0x80) {
+                if (escapes[c] != null) {
+                    out.writeString(s, from, i);
+                    out.write(escapes[c]);
+                    from = i + 1;
+                }
+            } else if (c == '\u2028' || c == '\u2029') {
+                out.writeString(s, from, i);
+                out.write((c == '\u2028') ? this.lineSeparatorBytes : this.paragraphSeparatorBytes);
+                from = i + 1;
+            }
+        }
+        out.writeString(s, from, len);
+
+        out.write(this.quoteBytes);
+    }
+
+    /**
+     * datax 的 double column 的 plain string 是否可以直接作为 json number 写入
+     * warn: 由字符串构造的 double column 保留原样, 可能是 +1, .5, 007 等 json 不支持的写法, 这时按字符串写入
+     */
+    public static boolean isJsonNumber(@Nonnull String s) {
+        final int len = s.length();
+        int i = 0;
+
+        if (i < len && s.charAt(i) == '-') {
+            i++;
+        }
+
+        // 整数部分: 0 或者不以 0 开头
+        if (i >= len) {
+            return false;
+        }
+        if (s.charAt(i) == '0') {
+            i++;
+        } else {
+            final int start = i;
+            i = skipDigits(s, i);
+            if (i == start) {
+                return false;
+            }
+        }
+
+        // 小数部分
+        if (i < len && s.charAt(i) == '.') {
+            final int start = ++i;
+            i = skipDigits(s, i);
+            if (i == start) {
+                return false;
+            }
+        }
+
+        // 指数部分
+        if (i < len && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            i++;
+            if (i < len && (s.charAt(i) == '+' || s.charAt(i) == '-')) {
+                i++;
+            }
+            final int start = i;
+            i = skipDigits(s, i);
+            if (i == start) {
+                return false;
+            }
+        }
+
+        return i == len;
+    }
+
+    private static int skipDigits(@Nonnull String s, int i) {
+        final int len = s.length();
+        while (i < len && s.charAt(i) >= '0' && s.charAt(i) <= '9') {
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,179 @@
+package xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 基于内存映射的写入: 直接把数据拷贝到映射的 page cache, 不经过 write 系统调用
+ *
+ * NOTE:
+ * 1. 第一段映射 firstSegmentSize 个字节 (配置了 rollSize 时即为 rollSize), 映射时文件一次扩展到该大小, 不再随写入反复扩展
+ * 2. 按 rollSize 滚动时, 最后 1 行可能超过 rollSize, 写满后再映射 growSegmentSize 个字节
+ * 3. close 时解除映射, 把文件截断为实际写入的长度, 再由 file manager 重命名
+ * 4. flush 不需要做任何事情, 数据已经在 page cache 中
+ *
+ * warn: 非线程安全，只能由 1 个线程写入
+ *
+ * @author JiaKun Xu, 2026-10-17 18:10
+ */
+public class MappedOutputStream extends OutputStream {
+    private static final Logger LOG = LoggerFactory.getLogger(MappedOutputStream.class);
+
+    // 单段映射的上限
+    public static final long MAX_SEGMENT_SIZE = 1024L * 1024 * 1024;
+
+    @Nonnull
+    private final FileChannel channel;
+
+    private final long firstSegmentSize;
+
+    private final long growSegmentSize;
+
+    private MappedByteBuffer segment;
+
+    // 当前段在文件中的起始位置
+    private long segmentStart;
+
+    private boolean closed;
+
+    /**
+     * @param channel 需要以读写方式打开
+     */
+    public MappedOutputStream(@Nonnull FileChannel channel, long firstSegmentSize, long growSegmentSize) {
+        this.channel = channel;
+        this.firstSegmentSize = Math.min(firstSegmentSize, MAX_SEGMENT_SIZE);
+        this.growSegmentSize = Math.min(growSegmentSize, MAX_SEGMENT_SIZE);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        MappedByteBuffer segment = this.segment;
+
+        if (segment == null || !segment.hasRemaining()) {
+            segment = nextSegment();
+        }
+        segment.put((byte) b);
+    }
+
+    @Override
+    public void write(@Nonnull byte[] b, int off, int len) throws IOException {
+        MappedByteBuffer segment = this.segment;
+
+        while (len > 0) {
+            if (segment == null || !segment.hasRemaining()) {
+                segment = nextSegment();
+            }
+
+            final int n = Math.min(len, segment.remaining());
+            segment.put(b, off, n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+
+        final MappedByteBuffer segment = this.segment;
+        final long length = (segment == null) ? 0L : this.segmentStart + segment.position();
+        this.segment = null;
+
+        try {
+            if (segment != null) {
+                // warn: 先解除映射再截断
+                unmap(segment);
+            }
+            this.channel.truncate(length);
+        } finally {
+            this.channel.close();
+        }
+    }
+
+    @Nonnull
+    private MappedByteBuffer nextSegment() throws IOException {
+        if (this.closed) {
+            throw new IOException("stream closed");
+        }
+
+        final MappedByteBuffer old = this.segment;
+        final long start;
+        final long size;
+
+        if (old == null) {
+            start = 0L;
+            size = this.firstSegmentSize;
+        } else {
+            start = this.segmentStart + old.capacity();
+            size = this.growSegmentSize;
+            unmap(old);
+        }
+
+        MappedByteBuffer segment = this.channel.map(FileChannel.MapMode.READ_WRITE, start, size);
+        this.segment = segment;
+        this.segmentStart = start;
+        return segment;
+    }
+
+    // ------------------------------------------------
+    // 解除映射
+    // ------------------------------------------------
+    // java 9+: sun.misc.Unsafe#invokeCleaner
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafe = theUnsafe.get(null);
+        } catch (Throwable t) {
+            // java 8 没有 invokeCleaner
+            invokeCleaner = null;
+        }
+
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    /**
+     * 尽力立即解除映射, 失败时留给 gc
+     */
+    private static void unmap(@Nonnull MappedByteBuffer buffer) {
+        try {
+            if (INVOKE_CLEANER != null) {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+            } else {
+                // java 8: sun.nio.ch.DirectBuffer#cleaner
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            }
+        } catch (Throwable t) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("解除内存映射失败, 留给 gc", t);
+            }
+        }
+    }
+}
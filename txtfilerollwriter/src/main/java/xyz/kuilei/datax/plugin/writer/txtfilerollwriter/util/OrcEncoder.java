@@ -0,0 +1,329 @@
+package xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util;
+
+import com.alibaba.datax.common.element.Column;
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.util.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.TimestampColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.orc.CompressionKind;
+import org.apache.orc.OrcConf;
+import org.apache.orc.OrcFile;
+import org.apache.orc.TypeDescription;
+import org.apache.orc.Writer;
+import org.apache.orc.impl.PhysicalFsWriter;
+import org.apache.orc.impl.writer.WriterEncryptionVariant;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.Key;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.TxtFileRollWriterErrorCode;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 用 orc-core 的 Writer 写 orc 文件
+ *
+ * NOTE:
+ * 1. schema 为 1 层的 struct, 列名来自 header, 没有配置时为 _col0, _col1, ...; 类型来自 columnTypes, 必须配置:
+ *    long -> bigint, double -> double, string -> string, date -> timestamp, bool -> boolean, bytes -> binary
+ * 2. record 先填入 VectorizedRowBatch, 满了交给 orc-core; stripe 的切分, RLE v2 和字典编码, 行索引, 统计信息,
+ *    按块压缩 (none, deflate (orc 的 ZLIB), zstd) 都由 orc-core 完成
+ * 3. 通过 PhysicalFsWriter 写入 record buffer, orc-core 只追加写入, 不需要 seek 和 hadoop 的 FileSystem, 所以 ftp/sftp 也可以直接写入
+ * 4. 每个文件 1 个 Writer, 还没有写入的 stripe 在 orc-core 的 stream 缓冲里, 见 bufferedSize
+ * 5. timestamp 与 orc-core 默认相同按 JVM 默认时区写入, 所以 hive 读出来的是本地时间, 与 text 按 dateFormat 写入的相同
+ *
+ * warn: 非线程安全，只能由 1 个线程写入
+ *
+ * @author JiaKun Xu, 2026-10-17 23:20
+ */
+public class OrcEncoder {
+    // orc-core 每攒 1 个 batch 检查 1 次 stripe 的大小, 默认 5000 行才检查, stripeSize 较小时会超出
+    private static final int BATCH_SIZE = VectorizedRowBatch.DEFAULT_SIZE;
+
+    // orc-core 写入不需要 hadoop 的配置文件
+    private static final org.apache.hadoop.conf.Configuration HADOOP_CONF = new org.apache.hadoop.conf.Configuration(false);
+
+    static {
+        OrcConf.ROWS_BETWEEN_CHECKS.setLong(HADOOP_CONF, BATCH_SIZE);
+    }
+
+    // orc-core 的 MemoryManager 按 path 区分 writer, 每个 writer 1 个不同的 path, 不会创建这个文件
+    private static final AtomicLong WRITER_ID = new AtomicLong();
+
+    public static void validateParameter(@Nonnull Configuration conf) {
+        String fileFormat = conf.getString(Key.FILE_FORMAT);
+        String compress = conf.getString(Key.COMPRESS, Constant.COMPRESS_NONE);
+        int compressThreads = conf.getInt(Key.COMPRESS_THREADS, Constant.DEFAULT_COMPRESS_THREADS);
+        List<String> columnTypes = conf.getList(Key.COLUMN_TYPES, String.class);
+        List<String> header = conf.getList(Key.HEADER, String.class);
+        Long stripeSize = conf.getLong(Key.STRIPE_SIZE);
+
+        /*
+         * stripeSize check
+         */
+        if (null == stripeSize) {
+            stripeSize = Constant.DEFAULT_STRIPE_SIZE;
+        } else {
+            if (stripeSize < Constant.MIN_STRIPE_SIZE) {
+                throw DataXException.asDataXException(
+                        TxtFileRollWriterErrorCode.ILLEGAL_VALUE,
+                        String.format("您配置的stripeSize: [%d]错误, 至少为 %d", stripeSize, Constant.MIN_STRIPE_SIZE)
+                );
+            }
+        }
+
+        conf.set(Key.STRIPE_SIZE, stripeSize);
+
+        if (!Constant.FILE_FORMAT_ORC.equals(fileFormat)) {
+            return;
+        }
+
+        /*
+         * columnTypes check
+         */
+        if (columnTypes == null || columnTypes.isEmpty()) {
+            throw DataXException.asDataXException(
+                    TxtFileRollWriterErrorCode.REQUIRED_VALUE,
+                    "fileFormat为orc时必须配置columnTypes, 作为orc文件的schema"
+            );
+        }
+        if (header != null && !header.isEmpty() && header.size() != columnTypes.size()) {
+            throw DataXException.asDataXException(
+                    TxtFileRollWriterErrorCode.ILLEGAL_VALUE,
+                    String.format("您配置的header的个数 [%d] 与columnTypes的个数 [%d] 不一致, orc 文件的列名来自 header",
+                            header.size(), columnTypes.size())
+            );
+        }
+
+        /*
+         * compress check
+         */
+        if (toCompressionKind(compress) == null) {
+            throw DataXException.asDataXException(
+                    TxtFileRollWriterErrorCode.ILLEGAL_VALUE,
+                    String.format("您配置的compress: [%s]错误, fileFormat为orc时按块压缩, 支持none, deflate, zstd", compress)
+            );
+        }
+        if (compressThreads > 1) {
+            throw DataXException.asDataXException(
+                    TxtFileRollWriterErrorCode.ILLEGAL_VALUE,
+                    String.format("您配置的compressThreads: [%d]错误, fileFormat为orc时按块压缩, 只能为 1", compressThreads)
+            );
+        }
+    }
+
+    /**
+     * @return null -> orc 不支持
+     */
+    private static CompressionKind toCompressionKind(@Nonnull String compress) {
+        if (Constant.COMPRESS_NONE.equals(compress)) {
+            return CompressionKind.NONE;
+        } else if (Constant.COMPRESS_DEFLATE.equals(compress)) {
+            return CompressionKind.ZLIB;
+        } else if (Constant.COMPRESS_ZSTD.equals(compress)) {
+            return CompressionKind.ZSTD;
+        } else {
+            return null;
+        }
+    }
+
+    @Nonnull
+    private final TypeDescription schema;
+
+    @Nonnull
+    private final byte[] kinds;
+
+    @Nonnull
+    private final CompressionKind compressionKind;
+
+    private final long stripeSize;
+
+    // 复用的 batch, 满了交给 writer
+    @Nonnull
+    private final VectorizedRowBatch batch;
+
+    @Nonnull
+    private final RecordBufferOutputStream out = new RecordBufferOutputStream();
+
+    // 当前文件的 writer, null -> 当前文件还没有 record
+    private Writer writer;
+
+    // 上次交给 writer 之后, writer 缓冲的字节数, 以及当前文件每行平均的字节数, 估算 bufferedSize
+    private long writerBufferedSize;
+    private double rowSize;
+
+    /**
+     * @param header if is null, use _col0, _col1, ...
+     */
+    public OrcEncoder(@Nonnull Configuration conf, String[] header) {
+        List<String> columnTypes = conf.getList(Key.COLUMN_TYPES, String.class);
+
+        this.compressionKind = toCompressionKind(conf.getString(Key.COMPRESS, Constant.COMPRESS_NONE));
+        this.stripeSize = conf.getLong(Key.STRIPE_SIZE, Constant.DEFAULT_STRIPE_SIZE);
+
+        final int columnNumb = columnTypes.size();
+        final TypeDescription schema = TypeDescription.createStruct();
+        this.kinds = new byte[columnNumb];
+        for (int i = 0; i < columnNumb; i++) {
+            String name = (header != null) ? header[i] : "_col" + i;
+            byte kind = ColumnKind.of(columnTypes.get(i));
+            this.kinds[i] = kind;
+
+            switch (kind) {
+                case ColumnKind.LONG:
+                    schema.addField(name, TypeDescription.createLong());
+                    break;
+                case ColumnKind.DOUBLE:
+                    schema.addField(name, TypeDescription.createDouble());
+                    break;
+                case ColumnKind.DATE:
+                    schema.addField(name, TypeDescription.createTimestamp());
+                    break;
+                case ColumnKind.BOOL:
+                    schema.addField(name, TypeDescription.createBoolean());
+                    break;
+                case ColumnKind.BYTES:
+                    schema.addField(name, TypeDescription.createBinary());
+                    break;
+                default:
+                    schema.addField(name, TypeDescription.createString());
+                    break;
+            }
+        }
+        this.schema = schema;
+        this.batch = schema.createRowBatch(BATCH_SIZE);
+    }
+
+    /**
+     * writer 在 addRecord 时创建, 创建时写入文件开头的 magic
+     */
+    public void startFile(@Nonnull RecordBuffer out) {
+        this.out.startFile(out);
+        this.writerBufferedSize = 0;
+        this.rowSize = 0;
+    }
+
+    /**
+     * 填入 batch, batch 满了交给 orc-core, 攒够 1 个 stripe 时由 orc-core 写入 out
+     */
+    public void addRecord(@Nonnull Record record, @Nonnull RecordBuffer out) throws IOException {
+        final byte[] kinds = this.kinds;
+
+        final int recLen = record.getColumnNumber();
+        if (recLen != kinds.length) {
+            throw DataXException.asDataXException(
+                    TxtFileRollWriterErrorCode.ILLEGAL_VALUE,
+                    String.format("orc 文件每行的列数必须与columnTypes的个数 [%d] 相同, 当前行为 [%d] 列", kinds.length, recLen)
+            );
+        }
+
+        if (this.writer == null) {
+            this.writer = createWriter();
+        }
+
+        final VectorizedRowBatch batch = this.batch;
+        final int row = batch.size++;
+        for (int i = 0; i < recLen; i++) {
+            setValue(batch.cols[i], kinds[i], row, record.getColumn(i));
+        }
+
+        if (batch.size == batch.getMaxSize()) {
+            flushBatch();
+        }
+    }
+
+    /**
+     * 剩余的行作为最后 1 个 stripe, 再写入 footer, postscript 和 postscript 的长度
+     */
+    public void finishFile(@Nonnull RecordBuffer out) throws IOException {
+        final Writer writer = this.writer;
+        if (writer != null) {
+            flushBatch();
+            this.writer = null;
+            writer.close();
+        }
+    }
+
+    /**
+     * @return orc-core 缓冲的还没有写入 out 的字节数, batch 里的行按当前文件每行平均的字节数估算
+     */
+    public long bufferedSize() {
+        if (this.writer == null) {
+            return 0;
+        }
+        return this.writerBufferedSize + (long) (this.batch.size * this.rowSize);
+    }
+
+    @Nonnull
+    private Writer createWriter() throws IOException {
+        final OrcFile.WriterOptions opts = OrcFile.writerOptions(HADOOP_CONF)
+                .setSchema(this.schema)
+                .compress(this.compressionKind)
+                .stripeSize(this.stripeSize)
+                .useUTCTimestamp(false);
+        // warn: 不需要 statistics, FSDataOutputStream 只用来累计偏移量
+        opts.physicalWriter(new PhysicalFsWriter(new FSDataOutputStream(this.out, null), opts, new WriterEncryptionVariant[0]));
+
+        return OrcFile.createWriter(new Path("orc-writer-" + WRITER_ID.incrementAndGet()), opts);
+    }
+
+    private void flushBatch() throws IOException {
+        final VectorizedRowBatch batch = this.batch;
+        if (batch.size == 0) {
+            return;
+        }
+
+        final Writer writer = this.writer;
+        writer.addRowBatch(batch);
+        batch.reset();
+
+        final long buffered = writer.estimateMemory();
+        this.writerBufferedSize = buffered;
+        this.rowSize = (double) (this.out.position() + buffered) / writer.getNumberOfRows();
+    }
+
+    private static void setValue(@Nonnull ColumnVector vector, byte kind, int row, @Nonnull Column col) {
+        final Object raw = col.getRawData();
+        if (raw == null) {
+            vector.noNulls = false;
+            vector.isNull[row] = true;
+            return;
+        }
+
+        switch (kind) {
+            case ColumnKind.LONG:
+                ((LongColumnVector) vector).vector[row] = ColumnKind.asLong(col, raw);
+                break;
+            case ColumnKind.DOUBLE:
+                ((DoubleColumnVector) vector).vector[row] = ColumnKind.asDouble(col, raw);
+                break;
+            case ColumnKind.DATE:
+                final long millis = ColumnKind.asDate(col, raw);
+                final TimestampColumnVector ts = (TimestampColumnVector) vector;
+                ts.time[row] = millis;
+                ts.nanos[row] = (int) Math.floorMod(millis, 1000L) * 1000000;
+                break;
+            case ColumnKind.BOOL:
+                ((LongColumnVector) vector).vector[row] = ColumnKind.asBoolean(col, raw) ? 1 : 0;
+                break;
+            case ColumnKind.BYTES:
+                // column 的数组写入之后不再修改, 不用复制
+                final byte[] bytes = ColumnKind.asBytes(col, raw);
+                ((BytesColumnVector) vector).setRef(row, bytes, 0, bytes.length);
+                break;
+            default:
+                // warn: orc 的 string 固定为 UTF-8, 与 encoding 无关
+                final byte[] utf8 = ColumnKind.asString(col, raw).getBytes(StandardCharsets.UTF_8);
+                ((BytesColumnVector) vector).setRef(row, utf8, 0, utf8.length);
+                break;
+        }
+    }
+}
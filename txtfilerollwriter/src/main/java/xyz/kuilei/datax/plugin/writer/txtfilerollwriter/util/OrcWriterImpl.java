@@ -0,0 +1,60 @@
+package xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util;
+
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.util.Configuration;
+import org.junit.Assert;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+
+/**
+ * NOTE:
+ * 1. record 先由 orc-core 按列缓冲, 攒够 1 个 stripe 时才写入 record buffer, 写入时 drain 到文件
+ *    record buffer 不用容纳整个 stripe; 还没有写入的 stripe 计入 rollSize, 见 bufferedSize
+ * 2. 文件关闭之前, 剩余的行作为最后 1 个 stripe, 再写入 footer 和 postscript
+ * 3. header 作为列名写入 footer, fieldDelimiter, nullFormat, dateFormat 不起作用
+ *
+ * @author JiaKun Xu, 2026-10-17 23:40
+ */
+public class OrcWriterImpl extends BaseUnstructuredWriter {
+    @Nonnull
+    private final OrcEncoder orcEncoder;
+
+    public OrcWriterImpl(@Nonnull Configuration conf, @Nonnull TaskResources resources) {
+        super(conf, resources);
+
+        Assert.assertTrue(Constant.FILE_FORMAT_ORC.equalsIgnoreCase(super.fileFormat));
+
+        this.orcEncoder = new OrcEncoder(conf, super.header);
+    }
+
+    @Override
+    protected void encodeHeader(@Nonnull String[] header, @Nonnull RecordBuffer buffer) {
+        // header 是 footer 里的列名, 见 encodeFileHeader
+    }
+
+    @Override
+    protected void encodeFileHeader(@Nonnull RecordBuffer buffer) {
+        this.orcEncoder.startFile(buffer);
+    }
+
+    @Override
+    protected void encodeRecord(@Nonnull Record record, @Nonnull RecordBuffer buffer) throws IOException {
+        this.orcEncoder.addRecord(record, buffer);
+    }
+
+    @Override
+    protected void encodeFileFooter(@Nonnull RecordBuffer buffer) throws IOException {
+        this.orcEncoder.finishFile(buffer);
+    }
+
+    @Override
+    protected long bufferedSize() {
+        return this.orcEncoder.bufferedSize();
+    }
+
+    @Override
+    protected boolean isLineOriented() {
+        return false;
+    }
+}
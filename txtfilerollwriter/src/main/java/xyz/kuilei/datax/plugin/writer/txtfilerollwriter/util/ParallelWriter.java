@@ -0,0 +1,300 @@
+package xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util;
+
+import com.alibaba.datax.common.element.Column;
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.util.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.Key;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.TxtFileRollWriterErrorCode;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+
+/**
+ * 单个 task 内的并行写入: task 线程把 record 分发给 parallelism 个 lane, 每个 lane 由专门的线程编码并写入自己的文件序列
+ * 1 个 channel 就可以用满多个 cpu 和磁盘, 不需要增加 channel (增加 channel 也会增加 reader 到数据源的连接)
+ *
+ * NOTE:
+ * 1. parallelism 为 1 时, 直接在 task 线程写入, 与原来一样
+ * 2. 没有配置 partitionColumn 时轮流分发, 否则按该列的值取 hash 分发, 相同的值写入同一个 lane
+ * 3. 每个 lane 有自己的 writer (record buffer, column encoder, file manager), 共享同一个 prefixWithUUID 和 TaskResources (文件序号, 压缩线程, 后台滚动的线程)
+ * 4. lane 写入失败后不再消费, 异常在 task 线程下一次分发到该 lane 或者 close 时抛出
+ *
+ * warn: 非线程安全，只能由 1 个线程写入
+ *
+ * @author JiaKun Xu, 2026-10-17 17:05
+ */
+public class ParallelWriter implements Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(ParallelWriter.class);
+
+    public static void validateParameter(@Nonnull Configuration conf) {
+        Integer parallelism = conf.getInt(Key.PARALLELISM);
+        Integer partitionColumn = conf.getInt(Key.PARTITION_COLUMN);
+
+        /*
+         * parallelism check
+         */
+        if (null == parallelism) {
+            parallelism = Constant.DEFAULT_PARALLELISM;
+        } else {
+            if (parallelism < 1) {
+                throw DataXException.asDataXException(
+                        TxtFileRollWriterErrorCode.ILLEGAL_VALUE,
+                        String.format("您配置的parallelism: [%d]错误, 至少为 1", parallelism)
+                );
+            }
+        }
+
+        conf.set(Key.PARALLELISM, parallelism);
+
+        /*
+         * partitionColumn check
+         */
+        if (null != partitionColumn) {
+            if (partitionColumn < 0) {
+                throw DataXException.asDataXException(
+                        TxtFileRollWriterErrorCode.ILLEGAL_VALUE,
+                        String.format("您配置的partitionColumn: [%d]错误, 列的下标从 0 开始", partitionColumn)
+                );
+            }
+
+            conf.set(Key.PARTITION_COLUMN, partitionColumn);
+        }
+    }
+
+    // parallelism 为 1 时不为 null
+    @Nullable
+    private final BaseUnstructuredWriter singleWriter;
+
+    // parallelism 大于 1 时不为 null
+    @Nullable
+    private final Lane[] lanes;
+
+    // 所有 writer 关闭之后再关闭
+    @Nonnull
+    private final TaskResources resources;
+
+    // -1 -> 轮流分发
+    private final int partitionColumn;
+
+    private int nextLane;
+
+    private boolean closed;
+
+    public ParallelWriter(@Nonnull Configuration conf) {
+        final int parallelism = conf.getInt(Key.PARALLELISM);
+        this.partitionColumn = conf.getInt(Key.PARTITION_COLUMN, -1);
+        final TaskResources resources = new TaskResources(conf);
+        this.resources = resources;
+
+        if (parallelism == 1) {
+            this.singleWriter = BaseUnstructuredWriter.getImpl(conf, resources);
+            this.lanes = null;
+        } else {
+            final int capacity = conf.getInt(Key.PIPELINE_CAPACITY);
+            final String prefixWithUUID = conf.getString(Key.INTERNAL_PREFIX_WITH_UUID);
+
+            Lane[] lanes = new Lane[parallelism];
+            for (int i = 0; i < parallelism; i++) {
+                lanes[i] = new Lane(BaseUnstructuredWriter.getImpl(conf, resources), capacity, prefixWithUUID + "-" + i);
+            }
+            // warn: 全部创建成功后再启动线程
+            for (Lane lane : lanes) {
+                lane.thread.start();
+            }
+
+            this.singleWriter = null;
+            this.lanes = lanes;
+
+            LOG.info(String.format("parallel write, parallelism: [%d], partition column: [%d]", parallelism, this.partitionColumn));
+        }
+    }
+
+    public void writeOneRecord(@Nonnull Record record) throws IOException {
+        final Lane[] lanes = this.lanes;
+
+        if (lanes == null) {
+            assert this.singleWriter != null;
+            this.singleWriter.writeOneRecord(record);
+            return;
+        }
+
+        final Lane lane = lanes[selectLane(record, lanes.length)];
+        // put 返回 false 说明 lane 已经失败
+        if (lane.error != null || !lane.ring.put(record)) {
+            throw rethrow(lane.error);
+        }
+    }
+
+    /**
+     * 等待所有 lane 写完剩余的 record, 再关闭各自的 writer, 最后等待后台滚动的文件处理完成
+     */
+    @Override
+    public void close() throws IOException {
+        final Lane[] lanes = this.lanes;
+
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+
+        if (lanes == null) {
+            assert this.singleWriter != null;
+            Throwable error = null;
+            try {
+                this.singleWriter.close();
+            } catch (Throwable t) {
+                error = t;
+            }
+            error = closeResources(error);
+            if (error != null) {
+                throw rethrow(error);
+            }
+            return;
+        }
+
+        for (Lane lane : lanes) {
+            lane.ring.finish();
+        }
+
+        try {
+            for (Lane lane : lanes) {
+                lane.thread.join();
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待并行写入结束时被中断");
+        }
+
+        // lane 的异常优先, 关闭时的异常作为 suppressed
+        Throwable error = null;
+
+        for (Lane lane : lanes) {
+            if (lane.error != null) {
+                error = addError(error, lane.error);
+            }
+        }
+        for (Lane lane : lanes) {
+            try {
+                lane.writer.close();
+            } catch (Throwable t) {
+                error = addError(error, t);
+            }
+        }
+        error = closeResources(error);
+
+        if (error != null) {
+            throw rethrow(error);
+        }
+    }
+
+    /**
+     * warn: writer 关闭失败时也要关闭, 等待已经提交的滚动文件处理完成, 再关闭线程
+     */
+    private Throwable closeResources(@Nullable Throwable error) {
+        try {
+            this.resources.close();
+        } catch (Throwable t) {
+            error = addError(error, t);
+        }
+        return error;
+    }
+
+    private int selectLane(@Nonnull Record record, int laneCount) {
+        final int partitionColumn = this.partitionColumn;
+
+        if (partitionColumn < 0) {
+            int i = this.nextLane;
+            this.nextLane = (i + 1 == laneCount) ? 0 : i + 1;
+            return i;
+        }
+
+        if (partitionColumn >= record.getColumnNumber()) {
+            return 0;
+        }
+
+        Column column = record.getColumn(partitionColumn);
+        Object raw = (column == null) ? null : column.getRawData();
+
+        int h;
+        if (raw == null) {
+            h = 0;
+        } else if (raw instanceof byte[]) {
+            h = Arrays.hashCode((byte[]) raw);
+        } else {
+            h = raw.hashCode();
+        }
+        // 打散低位
+        h ^= (h >>> 16);
+
+        return Math.floorMod(h, laneCount);
+    }
+
+    @Nonnull
+    private static Throwable addError(@Nullable Throwable error, @Nonnull Throwable t) {
+        if (error == null) {
+            return t;
+        }
+        if (error != t) {
+            error.addSuppressed(t);
+        }
+        return error;
+    }
+
+    /**
+     * 保持异常类型, task 会按类型转换为 datax exception
+     */
+    @Nonnull
+    private static IOException rethrow(@Nullable Throwable t) throws IOException {
+        if (t instanceof IOException) {
+            throw (IOException) t;
+        } else if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        } else if (t instanceof Error) {
+            throw (Error) t;
+        } else {
+            throw new IOException("并行写入失败", t);
+        }
+    }
+
+    private static final class Lane implements Runnable {
+        @Nonnull
+        final BaseUnstructuredWriter writer;
+
+        @Nonnull
+        final RecordRingBuffer ring;
+
+        @Nonnull
+        final Thread thread;
+
+        // lane 线程写入时的异常
+        volatile Throwable error;
+
+        Lane(@Nonnull BaseUnstructuredWriter writer, int capacity, @Nonnull String name) {
+            this.writer = writer;
+            this.ring = new RecordRingBuffer(capacity);
+            this.thread = new Thread(this, "parallel-write-" + name);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                Record record;
+                while ((record = this.ring.take()) != null) {
+                    this.writer.writeOneRecord(record);
+                }
+            } catch (Throwable t) {
+                this.error = t;
+                // 不再消费, task 线程的 put 返回 false
+                this.ring.cancel();
+            }
+        }
+    }
+}
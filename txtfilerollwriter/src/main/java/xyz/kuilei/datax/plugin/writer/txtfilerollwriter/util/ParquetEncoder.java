@@ -0,0 +1,409 @@
+package xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util;
+
+import com.alibaba.datax.common.element.Column;
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.util.Configuration;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.OutputFile;
+import org.apache.parquet.io.PositionOutputStream;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.RecordConsumer;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Types;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.Key;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.TxtFileRollWriterErrorCode;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 用 parquet-mr 的 ParquetWriter 写 parquet 文件
+ *
+ * NOTE:
+ * 1. schema 只有 1 层, 所有列都是 OPTIONAL, 列名来自 header, 没有配置时为 _c0, _c1, ...
+ *    类型来自 columnTypes, 没有配置时按第 1 个 record 的 column type:
+ *    long -> INT64, double -> DOUBLE, string -> BYTE_ARRAY (UTF8), date -> INT64 (TIMESTAMP_MILLIS), bool -> BOOLEAN, bytes -> BYTE_ARRAY
+ * 2. RecordWriteSupport 直接把 column 的值交给 parquet-mr, 不经过 Group
+ *    row group, 数据页的切分, 字典编码, 统计信息, 按页压缩 (none, gzip, zstd) 都由 parquet-mr 完成
+ * 3. 通过 OutputFile 写入 record buffer, parquet-mr 只追加写入, 不需要 seek 和 hadoop 的 FileSystem, 所以 ftp/sftp 也可以直接写入
+ * 4. 每个文件 1 个 ParquetWriter, 还没有写入的 row group 在 parquet-mr 的列缓冲里, 见 bufferedSize
+ *
+ * warn: 非线程安全，只能由 1 个线程写入
+ *
+ * @author JiaKun Xu, 2026-10-17 22:20
+ */
+public class ParquetEncoder {
+    // parquet-mr 读写都不需要 hadoop 的配置文件
+    private static final org.apache.hadoop.conf.Configuration HADOOP_CONF = new org.apache.hadoop.conf.Configuration(false);
+
+    public static void validateParameter(@Nonnull Configuration conf) {
+        String fileFormat = conf.getString(Key.FILE_FORMAT);
+        String compress = conf.getString(Key.COMPRESS, Constant.COMPRESS_NONE);
+        int compressThreads = conf.getInt(Key.COMPRESS_THREADS, Constant.DEFAULT_COMPRESS_THREADS);
+        Long rowGroupSize = conf.getLong(Key.ROW_GROUP_SIZE);
+        Integer pageSize = conf.getInt(Key.PAGE_SIZE);
+
+        /*
+         * pageSize check
+         */
+        if (null == pageSize) {
+            pageSize = Constant.DEFAULT_PAGE_SIZE;
+        } else {
+            if (pageSize < Constant.MIN_PAGE_SIZE) {
+                throw DataXException.asDataXException(
+                        TxtFileRollWriterErrorCode.ILLEGAL_VALUE,
+                        String.format("您配置的pageSize: [%d]错误, 至少为 %d", pageSize, Constant.MIN_PAGE_SIZE)
+                );
+            }
+        }
+
+        conf.set(Key.PAGE_SIZE, pageSize);
+
+        /*
+         * rowGroupSize check
+         */
+        if (null == rowGroupSize) {
+            rowGroupSize = Constant.DEFAULT_ROW_GROUP_SIZE;
+        } else {
+            if (rowGroupSize < pageSize) {
+                throw DataXException.asDataXException(
+                        TxtFileRollWriterErrorCode.ILLEGAL_VALUE,
+                        String.format("您配置的rowGroupSize: [%d]错误, 不能小于pageSize: [%d]", rowGroupSize, pageSize)
+                );
+            }
+        }
+
+        conf.set(Key.ROW_GROUP_SIZE, rowGroupSize);
+
+        /*
+         * compress check
+         */
+        if (!Constant.FILE_FORMAT_PARQUET.equals(fileFormat)) {
+            return;
+        }
+
+        if (toCodecName(compress) == null) {
+            throw DataXException.asDataXException(
+                    TxtFileRollWriterErrorCode.ILLEGAL_VALUE,
+                    String.format("您配置的compress: [%s]错误, fileFormat为parquet时按页压缩, 支持none, gzip, zstd", compress)
+            );
+        }
+        if (compressThreads > 1) {
+            throw DataXException.asDataXException(
+                    TxtFileRollWriterErrorCode.ILLEGAL_VALUE,
+                    String.format("您配置的compressThreads: [%d]错误, fileFormat为parquet时按页压缩, 只能为 1", compressThreads)
+            );
+        }
+    }
+
+    /**
+     * @return null -> parquet 不支持
+     */
+    private static CompressionCodecName toCodecName(@Nonnull String compress) {
+        if (Constant.COMPRESS_NONE.equals(compress)) {
+            return CompressionCodecName.UNCOMPRESSED;
+        } else if (Constant.COMPRESS_GZIP.equals(compress)) {
+            return CompressionCodecName.GZIP;
+        } else if (Constant.COMPRESS_ZSTD.equals(compress)) {
+            return CompressionCodecName.ZSTD;
+        } else {
+            return null;
+        }
+    }
+
+    // if is null, use _c0, _c1, ...
+    private final String[] header;
+
+    // 配置的列类型, ColumnKind.UNBOUND -> 按第 1 个 record 的 column type
+    @Nonnull
+    private final byte[] configuredKinds;
+
+    @Nonnull
+    private final CompressionCodecName codecName;
+
+    private final long rowGroupSize;
+
+    private final int pageSize;
+
+    // null -> 还没有见到第 1 个 record, 之后所有文件的 schema 都相同
+    private RecordWriteSupport writeSupport;
+
+    @Nonnull
+    private final RecordBufferOutputStream out = new RecordBufferOutputStream();
+
+    // 当前文件的 writer, null -> 当前文件还没有 record
+    private ParquetWriter<Record> writer;
+
+    public ParquetEncoder(@Nonnull Configuration conf, String[] header) {
+        List<String> columnTypes = conf.getList(Key.COLUMN_TYPES, String.class);
+
+        this.header = header;
+        this.codecName = toCodecName(conf.getString(Key.COMPRESS, Constant.COMPRESS_NONE));
+        this.rowGroupSize = conf.getLong(Key.ROW_GROUP_SIZE, Constant.DEFAULT_ROW_GROUP_SIZE);
+        this.pageSize = conf.getInt(Key.PAGE_SIZE, Constant.DEFAULT_PAGE_SIZE);
+
+        final int typeNumb = (columnTypes == null) ? 0 : columnTypes.size();
+        this.configuredKinds = new byte[typeNumb];
+        for (int i = 0; i < typeNumb; i++) {
+            this.configuredKinds[i] = ColumnKind.of(columnTypes.get(i));
+        }
+    }
+
+    /**
+     * 第 1 个 record 才能确定 schema, 所以 writer 在 addRecord 时创建, 创建时写入文件开头的 magic
+     */
+    public void startFile(@Nonnull RecordBuffer out) {
+        this.out.startFile(out);
+    }
+
+    /**
+     * 写入 parquet-mr 的列缓冲, 攒够 1 个 row group 时由 parquet-mr 写入 out
+     */
+    public void addRecord(@Nonnull Record record, @Nonnull RecordBuffer out) throws IOException {
+        ParquetWriter<Record> writer = this.writer;
+        if (writer == null) {
+            if (this.writeSupport == null) {
+                this.writeSupport = bindColumns(record);
+            }
+            writer = new Builder(new RecordBufferOutputFile(this.out), this.writeSupport)
+                    .withConf(HADOOP_CONF)
+                    .withCompressionCodec(this.codecName)
+                    .withRowGroupSize(this.rowGroupSize)
+                    .withPageSize(this.pageSize)
+                    .withDictionaryEncoding(true)
+                    .build();
+            this.writer = writer;
+        }
+
+        writer.write(record);
+    }
+
+    /**
+     * 剩余的行作为最后 1 个 row group, 再写入 footer 和文件结尾的 magic
+     */
+    public void finishFile(@Nonnull RecordBuffer out) throws IOException {
+        final ParquetWriter<Record> writer = this.writer;
+        if (writer != null) {
+            this.writer = null;
+            writer.close();
+        }
+    }
+
+    /**
+     * @return parquet-mr 缓冲的还没有写入 out 的字节数, 已经压缩的页按压缩后的字节数
+     */
+    public long bufferedSize() {
+        final ParquetWriter<Record> writer = this.writer;
+        if (writer == null) {
+            return 0;
+        }
+        return Math.max(0, writer.getDataSize() - this.out.position());
+    }
+
+    @Nonnull
+    private RecordWriteSupport bindColumns(@Nonnull Record record) {
+        final int recLen = record.getColumnNumber();
+
+        if (this.header != null && this.header.length != recLen) {
+            throw DataXException.asDataXException(
+                    TxtFileRollWriterErrorCode.ILLEGAL_VALUE,
+                    String.format("header的个数 [%d] 与列数 [%d] 不一致, parquet 文件的列名来自 header", this.header.length, recLen)
+            );
+        }
+
+        final String[] names = new String[recLen];
+        final byte[] kinds = new byte[recLen];
+        final Types.MessageTypeBuilder builder = Types.buildMessage();
+
+        for (int i = 0; i < recLen; i++) {
+            final String name = (this.header != null) ? this.header[i] : "_c" + i;
+            byte kind = (i < this.configuredKinds.length) ? this.configuredKinds[i] : ColumnKind.UNBOUND;
+            if (kind == ColumnKind.UNBOUND) {
+                kind = ColumnKind.of(record.getColumn(i).getType());
+            }
+            names[i] = name;
+            kinds[i] = kind;
+
+            switch (kind) {
+                case ColumnKind.LONG:
+                    builder.optional(PrimitiveType.PrimitiveTypeName.INT64).named(name);
+                    break;
+                case ColumnKind.DOUBLE:
+                    builder.optional(PrimitiveType.PrimitiveTypeName.DOUBLE).named(name);
+                    break;
+                case ColumnKind.DATE:
+                    builder.optional(PrimitiveType.PrimitiveTypeName.INT64)
+                            .as(LogicalTypeAnnotation.timestampType(true, LogicalTypeAnnotation.TimeUnit.MILLIS))
+                            .named(name);
+                    break;
+                case ColumnKind.BOOL:
+                    builder.optional(PrimitiveType.PrimitiveTypeName.BOOLEAN).named(name);
+                    break;
+                case ColumnKind.BYTES:
+                    builder.optional(PrimitiveType.PrimitiveTypeName.BINARY).named(name);
+                    break;
+                default:
+                    builder.optional(PrimitiveType.PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named(name);
+                    break;
+            }
+        }
+
+        return new RecordWriteSupport(builder.named("schema"), names, kinds);
+    }
+
+    /**
+     * 把 datax 的 record 按列类型交给 parquet-mr, null 不写入 (OPTIONAL 列的空值)
+     */
+    private static final class RecordWriteSupport extends WriteSupport<Record> {
+        @Nonnull
+        private final MessageType schema;
+
+        @Nonnull
+        private final String[] names;
+
+        @Nonnull
+        private final byte[] kinds;
+
+        private RecordConsumer consumer;
+
+        RecordWriteSupport(@Nonnull MessageType schema, @Nonnull String[] names, @Nonnull byte[] kinds) {
+            this.schema = schema;
+            this.names = names;
+            this.kinds = kinds;
+        }
+
+        @Override
+        public WriteContext init(org.apache.hadoop.conf.Configuration configuration) {
+            return new WriteContext(this.schema, Collections.emptyMap());
+        }
+
+        @Override
+        public void prepareForWrite(RecordConsumer recordConsumer) {
+            this.consumer = recordConsumer;
+        }
+
+        @Override
+        public void write(Record record) {
+            final byte[] kinds = this.kinds;
+
+            final int recLen = record.getColumnNumber();
+            if (recLen != kinds.length) {
+                throw DataXException.asDataXException(
+                        TxtFileRollWriterErrorCode.ILLEGAL_VALUE,
+                        String.format("parquet 文件每行的列数必须相同, 第 1 行为 [%d] 列, 当前行为 [%d] 列", kinds.length, recLen)
+                );
+            }
+
+            final RecordConsumer consumer = this.consumer;
+            consumer.startMessage();
+            for (int i = 0; i < recLen; i++) {
+                final Column col = record.getColumn(i);
+                final Object raw = col.getRawData();
+                if (raw == null) {
+                    continue;
+                }
+
+                consumer.startField(this.names[i], i);
+                switch (kinds[i]) {
+                    case ColumnKind.LONG:
+                        consumer.addLong(ColumnKind.asLong(col, raw));
+                        break;
+                    case ColumnKind.DOUBLE:
+                        consumer.addDouble(ColumnKind.asDouble(col, raw));
+                        break;
+                    case ColumnKind.DATE:
+                        consumer.addLong(ColumnKind.asDate(col, raw));
+                        break;
+                    case ColumnKind.BOOL:
+                        consumer.addBoolean(ColumnKind.asBoolean(col, raw));
+                        break;
+                    case ColumnKind.BYTES:
+                        // column 的数组写入之后不再修改, parquet-mr 不用复制
+                        consumer.addBinary(Binary.fromConstantByteArray(ColumnKind.asBytes(col, raw)));
+                        break;
+                    default:
+                        // warn: parquet 的字符串固定为 UTF-8, 与 encoding 无关
+                        consumer.addBinary(Binary.fromString(ColumnKind.asString(col, raw)));
+                        break;
+                }
+                consumer.endField(this.names[i], i);
+            }
+            consumer.endMessage();
+        }
+    }
+
+    private static final class Builder extends ParquetWriter.Builder<Record, Builder> {
+        @Nonnull
+        private final RecordWriteSupport writeSupport;
+
+        Builder(@Nonnull OutputFile file, @Nonnull RecordWriteSupport writeSupport) {
+            super(file);
+            this.writeSupport = writeSupport;
+        }
+
+        @Override
+        protected Builder self() {
+            return this;
+        }
+
+        @Override
+        protected WriteSupport<Record> getWriteSupport(org.apache.hadoop.conf.Configuration conf) {
+            return this.writeSupport;
+        }
+    }
+
+    /**
+     * 当前文件, 偏移量即为写入 record buffer 的字节数
+     */
+    private static final class RecordBufferOutputFile implements OutputFile {
+        @Nonnull
+        private final RecordBufferOutputStream out;
+
+        RecordBufferOutputFile(@Nonnull RecordBufferOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public PositionOutputStream create(long blockSizeHint) {
+            return createOrOverwrite(blockSizeHint);
+        }
+
+        @Override
+        public PositionOutputStream createOrOverwrite(long blockSizeHint) {
+            final RecordBufferOutputStream out = this.out;
+            return new PositionOutputStream() {
+                @Override
+                public long getPos() {
+                    return out.position();
+                }
+
+                @Override
+                public void write(int b) throws IOException {
+                    out.write(b);
+                }
+
+                @Override
+                public void write(@Nonnull byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public boolean supportsBlockSize() {
+            return false;
+        }
+
+        @Override
+        public long defaultBlockSize() {
+            return 0;
+        }
+    }
+}
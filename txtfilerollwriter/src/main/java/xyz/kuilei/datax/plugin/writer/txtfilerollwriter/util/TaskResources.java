@@ -0,0 +1,89 @@
+package xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util;
+
+import com.alibaba.datax.common.util.Configuration;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.Key;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 同一个 task 内所有 writer 共享的资源: 文件序号, 压缩线程, 后台滚动的线程
+ *
+ * NOTE:
+ * 1. 由 ParallelWriter 创建 1 次, 注入到每个 lane 的 writer, 线程数不随 parallelism 增加
+ * 2. writer 关闭时只提交最后 1 个文件, 不关闭共享的资源; 所有 writer 关闭之后再关闭, 等待后台滚动的文件处理完成
+ * 3. 先等待滚动的文件完成, 再关闭压缩线程, 因为关闭压缩流时还要用到压缩线程
+ *
+ * @author JiaKun Xu, 2026-10-18 19:40
+ */
+public class TaskResources implements Closeable {
+    // warn: 并行写入时多个 file manager 共享, 保证文件名不重复
+    @Nonnull
+    private final AtomicInteger fileIndex = new AtomicInteger();
+
+    // null -> 在写入线程压缩
+    private final ExecutorService compressExecutor;
+
+    // null -> 在写入线程完成滚动的文件
+    private final RotationFinalizer rotationFinalizer;
+
+    private boolean closed;
+
+    public TaskResources(@Nonnull Configuration conf) {
+        final String prefixWithUUID = conf.getString(Key.INTERNAL_PREFIX_WITH_UUID);
+        final int compressThreads = conf.getInt(Key.COMPRESS_THREADS, Constant.DEFAULT_COMPRESS_THREADS);
+
+        if (BaseCompressCodec.getStreamImpl(conf) != null && compressThreads > 1) {
+            this.compressExecutor = ParallelCompressOutputStream.newExecutor(prefixWithUUID, compressThreads);
+        } else {
+            this.compressExecutor = null;
+        }
+
+        if (conf.getBool(Key.ASYNC_ROTATE, Constant.DEFAULT_ASYNC_ROTATE)) {
+            this.rotationFinalizer = new RotationFinalizer(
+                    prefixWithUUID,
+                    conf.getInt(Key.MAX_PENDING_ROTATIONS, Constant.DEFAULT_MAX_PENDING_ROTATIONS)
+            );
+        } else {
+            this.rotationFinalizer = null;
+        }
+    }
+
+    @Nonnull
+    public AtomicInteger getFileIndex() {
+        return this.fileIndex;
+    }
+
+    public ExecutorService getCompressExecutor() {
+        return this.compressExecutor;
+    }
+
+    public RotationFinalizer getRotationFinalizer() {
+        return this.rotationFinalizer;
+    }
+
+    /**
+     * 等待后台滚动的文件处理完成, 再关闭压缩线程
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+
+        try {
+            if (this.rotationFinalizer != null) {
+                this.rotationFinalizer.close();
+            }
+        } finally {
+            // warn: 所有文件都已经关闭之后, 才能关闭压缩线程
+            if (this.compressExecutor != null) {
+                this.compressExecutor.shutdownNow();
+            }
+        }
+    }
+}
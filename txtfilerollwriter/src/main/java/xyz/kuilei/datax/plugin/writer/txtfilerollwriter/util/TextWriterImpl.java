@@ -1,140 +1,104 @@
 package xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util;
 
+import com.alibaba.datax.common.element.Column;
+import com.alibaba.datax.common.element.Record;
 import com.alibaba.datax.common.util.Configuration;
-import org.apache.commons.lang3.ArrayUtils;
-import org.apache.commons.lang3.StringUtils;
 import org.junit.Assert;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.Key;
 
 import javax.annotation.Nonnull;
-import java.io.*;
-import java.nio.charset.StandardCharsets;
+import javax.annotation.Nullable;
+import java.nio.charset.Charset;
 
 /**
  * @author JiaKun Xu, 2023-02-14 14:45
  */
 public class TextWriterImpl extends BaseUnstructuredWriter {
-    private static final Logger LOG = LoggerFactory.getLogger(TextWriterImpl.class);
-    private static final byte[] NEW_LINE = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+    // 预先编码好的列分隔符
+    @Nonnull
+    private final byte[] fieldDelimiterBytes;
 
-    private OutputStream currentOutputStream;
-    private long rollingSize;
-    private int rollingCount;
+    // textEscape 为 none 时为 null, 不转义
+    @Nullable
+    private final TextEncoder textEncoder;
 
-    public TextWriterImpl(@Nonnull Configuration conf) {
-        super(conf);
+    public TextWriterImpl(@Nonnull Configuration conf, @Nonnull TaskResources resources) {
+        super(conf, resources);
 
         Assert.assertTrue(Constant.FILE_FORMAT_TEXT.equalsIgnoreCase(super.fileFormat));
-    }
-
-    @Nonnull
-    private OutputStream getCurrentOutputStream() throws IOException {
-        OutputStream out = this.currentOutputStream;
-
-        if (out == null) {
-            File file = super.fileManager.getCurrentFile();
-            String filePath = file.getAbsolutePath();
-            LOG.info(String.format("正在打开文件 [%s] 获取写入流", filePath));
-
-            try {
-                // 覆盖，已经检查过文件的重复性
-                out = new BufferedOutputStream(new FileOutputStream(file));
-            } catch (IOException ioe) {
-                IOException toThrow = new IOException(String.format("打开文件 [%s] 获取写入流时出错", filePath));
-                toThrow.addSuppressed(ioe);
-                throw toThrow;
-            }
 
-            Assert.assertNotNull(out);
-            this.currentOutputStream = out;
+        Charset charset = Charset.forName(super.encoding);
+        this.fieldDelimiterBytes = String.valueOf(super.fieldDelimiter).getBytes(charset);
 
-            // warn: 因为要滚动文件，所以每个滚动的文件都要写入头部信息
-            // warn: 头部信息不能作为文件滚动依据
-            // warn: 赋值后再写入，因为要finally close
-            if (ArrayUtils.isNotEmpty(super.header)) {
-                byte[] line = StringUtils.join(super.header, super.fieldDelimiter).getBytes(super.encoding);
-                out.write(line);
-                out.write(NEW_LINE);  // remember
-            }
+        if (Constant.TEXT_ESCAPE_NONE.equals(conf.getString(Key.TEXT_ESCAPE, Constant.DEFAULT_TEXT_ESCAPE))) {
+            this.textEncoder = null;
+        } else {
+            this.textEncoder = new TextEncoder(conf, super.fieldDelimiter, charset);
         }
-
-        return out;
     }
 
-    private void rotate() throws IOException {
-        OutputStream out = this.currentOutputStream;
-
-        if (out != null) {
-            this.currentOutputStream = null;
-            this.rollingSize = 0;
-            this.rollingCount = 0;
-
-            final FileManager fileManager = super.fileManager;
-
-            try {
-                out.close();
-            } catch (IOException ioe) {
-                File file = fileManager.getCurrentFile();
-                IOException toThrow = new IOException(String.format("关闭文件写入流失败 [%s]", file.getAbsolutePath()));
-                toThrow.addSuppressed(ioe);
-                throw toThrow;
+    @Override
+    protected void encodeHeader(@Nonnull String[] header, @Nonnull RecordBuffer buffer) {
+        for (int i = 0; i < header.length; i++) {
+            if (i != 0) {
+                buffer.write(this.fieldDelimiterBytes);
+            }
+            if (this.textEncoder == null) {
+                buffer.writeString(header[i]);
+            } else {
+                this.textEncoder.writeField(header[i], buffer);
             }
-
-            // 不放到 finally, 因为有写入异常就尽快抛出以结束 datax 任务
-            fileManager.rotate();
         }
     }
 
     @Override
-    public void writeOneRecord(@Nonnull String[] splitRows) throws IOException {
-        // write
-        // warn: 之前是把line byte与line separator bytes合并后再写入
-        // warn: 想了想：为了效率，还是分开写好一点，这样可以少copy一次内存
-        // warn: 前提是使用了buffered output stream
-        final OutputStream out = getCurrentOutputStream();
-        int written = 0;
+    protected void encodeRecord(@Nonnull Record record, @Nonnull RecordBuffer buffer) {
+        // warn: 直接编码到复用的 record buffer, 不再经过 String[] 和 join 后的整行
+        final ColumnEncoder columnEncoder = super.columnEncoder;
+        final TextEncoder textEncoder = this.textEncoder;
+        if (textEncoder != null) {
+            encodeEscapedRecord(record, buffer, columnEncoder, textEncoder);
+            return;
+        }
 
-        if (splitRows.length != 0) {
-            byte[] line = StringUtils.join(splitRows, super.fieldDelimiter).getBytes(super.encoding);
-            out.write(line);
-            written += line.length;
+        final int recLen = record.getColumnNumber();
+        for (int i = 0; i < recLen; i++) {
+            if (i != 0) {
+                buffer.write(this.fieldDelimiterBytes);
+            }
+            columnEncoder.writeColumn(i, record.getColumn(i), buffer);
         }
-        out.write(NEW_LINE);
-        written += NEW_LINE.length;
+    }
 
-        // roll
-        boolean rolled = false;
+    private void encodeEscapedRecord(@Nonnull Record record, @Nonnull RecordBuffer buffer,
+                                     @Nonnull ColumnEncoder columnEncoder, @Nonnull TextEncoder textEncoder) {
+        final boolean integerSafe = textEncoder.isIntegerSafe();
 
-        final long rollSize = super.rollSize;
-        final int rollCount = super.rollCount;
-        long rollingSize = this.rollingSize;
-        int rollingCount = this.rollingCount;
+        final int recLen = record.getColumnNumber();
+        for (int i = 0; i < recLen; i++) {
+            if (i != 0) {
+                buffer.write(this.fieldDelimiterBytes);
+            }
 
-        rollingSize += written;
-        rollingCount += 1;
+            Column column = record.getColumn(i);
+            if (column.getRawData() == null) {
+                textEncoder.writeNull(buffer);
+                continue;
+            }
+            if (integerSafe && columnEncoder.writeIntegerColumn(i, column, buffer)) {
+                // 整数不需要转义, 直接写入
+                continue;
+            }
 
-        if (rollSize > 0 && rollingSize >= rollSize) {
-            rollingSize = 0;
-            rollingCount = 0;
-            this.rotate();
-            rolled = true;
-        }
-        if (!rolled) {
-            if (rollCount > 0 && rollingCount >= rollCount) {
-                rollingSize = 0;
-                rollingCount = 0;
-                this.rotate();
-                // rolled = true;
+            // 数字, 日期, bool 先直接编码, 再原位转义, 不经过 String
+            final int start = buffer.size();
+            if (columnEncoder.writeNonStringColumn(i, column, buffer)) {
+                if (textEncoder.escapeWritten(buffer, start)) {
+                    continue;
+                }
+                buffer.truncate(start);
             }
+            textEncoder.writeField(columnEncoder.formatColumn(i, column), buffer);
         }
-
-        this.rollingSize = rollingSize;
-        this.rollingCount = rollingCount;
-    }
-
-    @Override
-    public void close() throws IOException {
-        this.rotate();
     }
 }
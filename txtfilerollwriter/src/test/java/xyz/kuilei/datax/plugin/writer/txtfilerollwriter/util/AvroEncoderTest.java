@@ -0,0 +1,190 @@
+package xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util;
+
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.util.Configuration;
+import org.apache.avro.LogicalTypes;
+import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileReader;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.Key;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util.EncoderTestUtil.*;
+
+/**
+ * AvroEncoder 写的文件用 avro 读回来比较, 检查 schema, block 的切分和 rollSize
+ *
+ * @author JiaKun Xu, 2026-10-18 13:00
+ */
+public class AvroEncoderTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // avro 读出来的 avro.codec
+    private static final String[] CODEC_NAMES = {"null", "deflate", "zstandard"};
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        final String[] compresses = {Constant.COMPRESS_NONE, Constant.COMPRESS_DEFLATE, Constant.COMPRESS_ZSTD};
+
+        for (int i = 0; i < compresses.length; i++) {
+            final File dir = folder.newFolder(compresses[i]);
+            final List<File> files = writeFiles(dir, newEncoder(compresses[i]), 30000, 0);
+
+            Assert.assertEquals(1, files.size());
+            Assert.assertEquals(30000, readRows(files.get(0), 0));
+
+            try (DataFileReader<GenericRecord> reader = new DataFileReader<>(files.get(0), new GenericDatumReader<>())) {
+                Assert.assertEquals(CODEC_NAMES[i], reader.getMetaString("avro.codec"));
+
+                final Schema schema = reader.getSchema();
+                Assert.assertEquals(Schema.Type.RECORD, schema.getType());
+                Assert.assertEquals(HEADER.length, schema.getFields().size());
+                for (int col = 0; col < HEADER.length; col++) {
+                    final Schema.Field field = schema.getFields().get(col);
+                    Assert.assertEquals(HEADER[col], field.name());
+                    // ["null", type], 默认值为 null
+                    Assert.assertEquals(Schema.Type.UNION, field.schema().getType());
+                    Assert.assertEquals(Schema.Type.NULL, field.schema().getTypes().get(0).getType());
+                    Assert.assertTrue(field.hasDefaultValue());
+                }
+                Assert.assertEquals(
+                        LogicalTypes.timestampMillis(),
+                        schema.getField("ts").schema().getTypes().get(1).getLogicalType()
+                );
+            }
+
+            // 每个 block 16KB
+            final int blocks = countBlocks(files.get(0));
+            Assert.assertTrue(compresses[i] + " blocks: " + blocks, blocks > 1);
+        }
+    }
+
+    @Test
+    public void testRollSize() throws IOException {
+        final long rollSize = 256 * 1024;
+        final List<File> files = writeFiles(folder.getRoot(), newEncoder(Constant.COMPRESS_DEFLATE), 50000, rollSize);
+
+        Assert.assertTrue("files: " + files.size(), files.size() > 2);
+
+        int row = 0;
+        for (File file : files) {
+            final int rows = readRows(file, row);
+            Assert.assertTrue(file.getName(), rows > 0);
+            row += rows;
+
+            // 缓冲的 block 按上 1 个 block 的压缩率计入 rollSize, 文件不会超出 1 个 block
+            if (file != files.get(files.size() - 1)) {
+                Assert.assertTrue(file.getName() + ": " + file.length(), file.length() >= rollSize - 16 * 1024);
+            }
+            Assert.assertTrue(file.getName() + ": " + file.length(), file.length() < rollSize + 16 * 1024);
+        }
+        Assert.assertEquals(50000, row);
+    }
+
+    @Nonnull
+    private static AvroEncoder newEncoder(@Nonnull String compress) {
+        final Configuration conf = newConf(Constant.FILE_FORMAT_AVRO, compress);
+        conf.set(Key.HEADER, Arrays.asList(HEADER));
+        conf.set(Key.AVRO_SYNC_INTERVAL, 16 * 1024);
+        AvroEncoder.validateParameter(conf);
+        return new AvroEncoder(conf, HEADER);
+    }
+
+    @Nonnull
+    private static List<File> writeFiles(@Nonnull File dir, @Nonnull AvroEncoder encoder, int rows, long rollSize)
+            throws IOException {
+        return EncoderTestUtil.writeFiles(dir, "avro", new FileEncoder() {
+            @Override
+            public void startFile(@Nonnull RecordBuffer out) {
+                encoder.startFile(out);
+            }
+
+            @Override
+            public void addRecord(@Nonnull Record record, @Nonnull RecordBuffer out) throws IOException {
+                encoder.addRecord(record, out);
+            }
+
+            @Override
+            public void finishFile(@Nonnull RecordBuffer out) throws IOException {
+                encoder.finishFile(out);
+            }
+
+            @Override
+            public long bufferedSize() {
+                return encoder.bufferedSize();
+            }
+        }, rows, rollSize);
+    }
+
+    private static int countBlocks(@Nonnull File file) throws IOException {
+        int blocks = 0;
+        try (InputStream in = new FileInputStream(file);
+             DataFileStream<GenericRecord> stream = new DataFileStream<>(in, new GenericDatumReader<>())) {
+            while (stream.hasNext()) {
+                stream.nextBlock();
+                blocks++;
+            }
+        }
+        return blocks;
+    }
+
+    /**
+     * 读回来逐行比较
+     *
+     * @param firstRow 文件第 1 行的行号
+     * @return 行数
+     */
+    private static int readRows(@Nonnull File file, int firstRow) throws IOException {
+        int row = firstRow;
+        try (DataFileReader<GenericRecord> reader = new DataFileReader<>(file, new GenericDatumReader<>())) {
+            for (GenericRecord record : reader) {
+                for (int col = 0; col < HEADER.length; col++) {
+                    final Object expected = value(row, col);
+                    final Object actual = record.get(col);
+                    final String message = "row " + row + " " + HEADER[col];
+
+                    if (actual == null) {
+                        Assert.assertNull(message, expected);
+                        continue;
+                    }
+                    Assert.assertNotNull(message, expected);
+
+                    switch (col) {
+                        case CITY:
+                        case UUID:
+                            // org.apache.avro.util.Utf8
+                            Assert.assertEquals(message, expected, actual.toString());
+                            break;
+                        case PAYLOAD:
+                            final ByteBuffer bytes = (ByteBuffer) actual;
+                            final byte[] payload = new byte[bytes.remaining()];
+                            bytes.get(payload);
+                            Assert.assertArrayEquals(message, (byte[]) expected, payload);
+                            break;
+                        default:
+                            // id, price, ts, flag, big
+                            Assert.assertEquals(message, expected, actual);
+                            break;
+                    }
+                }
+                row++;
+            }
+        }
+        return row - firstRow;
+    }
+}
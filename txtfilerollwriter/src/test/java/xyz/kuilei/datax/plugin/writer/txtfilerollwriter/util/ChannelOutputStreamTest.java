@@ -0,0 +1,120 @@
+package xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util;
+
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.util.Configuration;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.Key;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * channel 方式写入的文件与 stream 方式逐字节相同
+ *
+ * NOTE:
+ * 1. 交替写入单字节, 正好填满缓冲区, 跨缓冲区, 不小于整个缓冲区 (聚集写入) 的数据, 中间穿插 flush
+ * 2. writer 按 rollSize, rollCount 滚动, 压缩和不压缩, 每个文件都与 stream 方式相同
+ *
+ * @author JiaKun Xu, 2026-10-18 21:30
+ */
+public class ChannelOutputStreamTest {
+    private static final int BUFFER_SIZE = 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testWrites() throws IOException {
+        final Random random = new Random(20261018L);
+        final byte[] data = new byte[300 * 1024 + 7];
+        random.nextBytes(data);
+
+        final File file = folder.newFile();
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        // 缓冲区由 writer 复用, 里面可能有上一个文件的数据
+        buffer.put((byte) 1);
+
+        try (ChannelOutputStream out = new ChannelOutputStream(
+                FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), buffer)) {
+            int off = 0;
+            while (off < data.length) {
+                final int n;
+                switch (random.nextInt(5)) {
+                    case 0:
+                        n = 1;
+                        break;
+                    case 1:
+                        n = buffer.remaining();
+                        break;
+                    case 2:
+                        n = 1 + random.nextInt(BUFFER_SIZE - 1);
+                        break;
+                    case 3:
+                        n = BUFFER_SIZE + random.nextInt(3 * BUFFER_SIZE);
+                        break;
+                    default:
+                        n = random.nextInt(100);
+                        break;
+                }
+                final int len = Math.min(n, data.length - off);
+
+                if (len == 1 && random.nextBoolean()) {
+                    out.write(data[off]);
+                } else {
+                    out.write(data, off, len);
+                }
+                off += len;
+
+                if (random.nextInt(30) == 0) {
+                    out.flush();
+                }
+            }
+        }
+
+        Assert.assertArrayEquals(data, Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    public void testSameAsStream() throws IOException {
+        final List<Record> records = records();
+
+        for (String compress : new String[]{Constant.COMPRESS_NONE, Constant.COMPRESS_GZIP}) {
+            final List<byte[]> expected = WriterTestUtil.writeFiles(newConf(Constant.OUTPUT_ENGINE_STREAM, compress), records);
+            final List<byte[]> actual = WriterTestUtil.writeFiles(newConf(Constant.OUTPUT_ENGINE_CHANNEL, compress), records);
+
+            Assert.assertTrue(expected.size() > 1);
+            WriterTestUtil.assertSameFiles(expected, actual);
+        }
+    }
+
+    @Nonnull
+    private Configuration newConf(@Nonnull String outputEngine, @Nonnull String compress) throws IOException {
+        final Configuration conf = WriterTestUtil.newConf(folder.newFolder(), Constant.FILE_FORMAT_TEXT);
+        conf.set(Key.OUTPUT_ENGINE, outputEngine);
+        conf.set(Key.DIRECT_BUFFER_SIZE, Constant.MIN_DIRECT_BUFFER_SIZE);
+        conf.set(Key.COMPRESS, compress);
+        conf.set(Key.ROLL_SIZE, 300 * 1024);
+        WriterTestUtil.validate(conf);
+        return conf;
+    }
+
+    @Nonnull
+    private static List<Record> records() {
+        final List<Record> records = new ArrayList<>();
+        for (int row = 0; row < 20000; row++) {
+            records.add(EncoderTestUtil.record(row));
+        }
+        return records;
+    }
+}
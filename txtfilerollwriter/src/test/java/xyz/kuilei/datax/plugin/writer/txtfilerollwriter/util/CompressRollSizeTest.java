@@ -0,0 +1,85 @@
+package xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util;
+
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.util.Configuration;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.Key;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 压缩时 rollSize 按压缩后的大小滚动
+ *
+ * NOTE:
+ * 1. 单线程, 异步写入, 多线程压缩, 除了最后 1 个文件, 压缩后的大小都接近 rollSize, 超出的不超过 codec 内部缓冲的数据
+ * 2. 异步写入和多线程压缩时, 第 1 个文件还没有任何输出, 压缩率未知, 按不压缩滚动, 所以只检查上限
+ * 3. 每个文件单独解压, 拼接后与不压缩, 不滚动的结果相同
+ *
+ * @author JiaKun Xu, 2026-10-18 23:00
+ */
+public class CompressRollSizeTest {
+    private static final String[] CODECS = {Constant.COMPRESS_GZIP, Constant.COMPRESS_ZSTD, Constant.COMPRESS_LZ4};
+
+    private static final long ROLL_SIZE = 128 * 1024;
+
+    // codec 内部缓冲, 还没有输出的数据
+    private static final long MAX_OVERSHOOT = 32 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRollSize() throws IOException {
+        final List<Record> records = new ArrayList<>();
+        for (int row = 0; row < 50000; row++) {
+            records.add(EncoderTestUtil.record(row));
+        }
+
+        final Configuration plain = WriterTestUtil.newConf(folder.newFolder(), Constant.FILE_FORMAT_TEXT);
+        plain.set(Key.ROLL_SIZE, 0);
+        WriterTestUtil.validate(plain);
+        final List<byte[]> expected = WriterTestUtil.writeFiles(plain, records);
+        Assert.assertEquals(1, expected.size());
+
+        for (String compress : CODECS) {
+            // compressThreads, asyncWrite
+            for (int mode = 0; mode < 3; mode++) {
+                final int compressThreads = (mode == 2) ? 4 : 1;
+                final boolean asyncWrite = (mode == 1);
+                final String message = compress + " compressThreads=" + compressThreads + " asyncWrite=" + asyncWrite;
+
+                final Configuration conf = WriterTestUtil.newConf(folder.newFolder(), Constant.FILE_FORMAT_TEXT);
+                conf.set(Key.COMPRESS, compress);
+                conf.set(Key.COMPRESS_THREADS, compressThreads);
+                conf.set(Key.ASYNC_WRITE, asyncWrite);
+                conf.set(Key.ROLL_SIZE, ROLL_SIZE);
+                WriterTestUtil.validate(conf);
+
+                final List<byte[]> files = WriterTestUtil.writeFiles(conf, records);
+                Assert.assertTrue(message, files.size() > 2);
+
+                final ByteArrayOutputStream content = new ByteArrayOutputStream();
+                for (int i = 0; i < files.size(); i++) {
+                    final byte[] file = files.get(i);
+                    final String fileMessage = message + " file " + (i + 1) + " size " + file.length;
+
+                    if (i < files.size() - 1) {
+                        Assert.assertTrue(fileMessage, file.length <= ROLL_SIZE + MAX_OVERSHOOT);
+                        if (i > 0) {
+                            Assert.assertTrue(fileMessage, file.length >= ROLL_SIZE * 9 / 10);
+                        }
+                    }
+                    content.write(BaseCompressCodecTest.decompress(compress, file));
+                }
+                Assert.assertArrayEquals(message, expected.get(0), content.toByteArray());
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util;
+
+import com.csvreader.CsvWriter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * CsvEncoder 与 javacsv 默认配置的 CsvWriter 输出相同
+ *
+ * NOTE:
+ * 1. 随机生成的字段包括空白、文本限定符、各种列分隔符、换行符、注释符、中文和 surrogate pair
+ * 2. 换行符与 CsvWriterImpl (系统换行符, \r 和 \n 都需要包起来), CsvRemoteWriterImpl (自定义换行符 \n) 相同
+ *
+ * @author JiaKun Xu, 2026-10-18 13:00
+ */
+public class CsvEncoderTest {
+    private static final char[] DELIMITERS = {',', '\t', '|', ';', '，', '1', '-'};
+
+    private static final String ALPHABET = "ab \t\",|;，#\r\n1-中";
+
+    private static final String SURROGATE_PAIR = "😀";
+
+    @Test
+    public void testSameAsJavacsv() throws IOException {
+        final Random random = new Random(20261018L);
+
+        for (Charset charset : new Charset[]{StandardCharsets.UTF_8, Charset.forName("GBK")}) {
+            for (char delimiter : DELIMITERS) {
+                for (boolean customRecordDelimiter : new boolean[]{false, true}) {
+                    final String message = charset + " [" + delimiter + "] " + (customRecordDelimiter ? "\\n" : "system");
+                    // GBK 编码不了 surrogate pair
+                    final String[][] records = randomRecords(random, 2000, StandardCharsets.UTF_8.equals(charset));
+
+                    Assert.assertArrayEquals(
+                            message,
+                            javacsv(records, delimiter, customRecordDelimiter).getBytes(charset),
+                            encode(records, delimiter, customRecordDelimiter, charset)
+                    );
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testIntegerSafe() {
+        for (char delimiter : DELIMITERS) {
+            final CsvEncoder encoder = new CsvEncoder(delimiter, new char[]{'\r', '\n'}, StandardCharsets.UTF_8);
+            Assert.assertEquals(String.valueOf(delimiter), delimiter != '1' && delimiter != '-', encoder.isIntegerSafe());
+        }
+    }
+
+    @Nonnull
+    private static String[][] randomRecords(@Nonnull Random random, int n, boolean surrogatePair) {
+        final String[][] records = new String[n][];
+        for (int i = 0; i < n; i++) {
+            final String[] record = new String[1 + random.nextInt(5)];
+            for (int j = 0; j < record.length; j++) {
+                final StringBuilder sb = new StringBuilder();
+                final int length = random.nextInt(9);
+                for (int k = 0; k < length; k++) {
+                    if (surrogatePair && random.nextInt(20) == 0) {
+                        sb.append(SURROGATE_PAIR);
+                    } else {
+                        sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+                    }
+                }
+                record[j] = sb.toString();
+            }
+            records[i] = record;
+        }
+        return records;
+    }
+
+    /**
+     * 与原来的 CsvWriterImpl, CsvRemoteWriterImpl 相同的用法
+     */
+    @Nonnull
+    private static String javacsv(@Nonnull String[][] records, char delimiter, boolean customRecordDelimiter) throws IOException {
+        final StringWriter out = new StringWriter();
+        final CsvWriter csvWriter = new CsvWriter(out, delimiter);
+        if (customRecordDelimiter) {
+            csvWriter.setRecordDelimiter('\n');
+        }
+        for (String[] record : records) {
+            csvWriter.writeRecord(record);
+        }
+        csvWriter.close();
+        return out.toString();
+    }
+
+    @Nonnull
+    private static byte[] encode(@Nonnull String[][] records, char delimiter, boolean customRecordDelimiter, @Nonnull Charset charset) {
+        final CsvEncoder encoder = customRecordDelimiter
+                ? new CsvEncoder(delimiter, new char[]{'\n'}, charset)
+                : new CsvEncoder(delimiter, new char[]{'\r', '\n'}, charset);
+        final String lineSeparator = customRecordDelimiter ? "\n" : System.lineSeparator();
+        final RecordBuffer buffer = new RecordBuffer(1024, charset);
+
+        for (String[] record : records) {
+            for (int i = 0; i < record.length; i++) {
+                if (i != 0) {
+                    buffer.writeString(String.valueOf(delimiter));
+                }
+                encoder.writeField(record[i], i == 0, buffer);
+            }
+            buffer.writeString(lineSeparator);
+        }
+
+        return buffer.toByteArray();
+    }
+}
@@ -0,0 +1,108 @@
+package xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util;
+
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.util.Configuration;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.Key;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * direct 方式写入的文件与 stream 方式逐字节相同
+ *
+ * NOTE:
+ * 1. 最后不满 1 个 block 的数据补 0 写入后, 文件截断为实际写入的长度; 正好写满缓冲区, 没有写入时不补 0
+ * 2. jdk 或者临时目录的文件系统 (例如 tmpfs) 不支持 O_DIRECT 时跳过 1, writer 改为 channel 方式, 仍然比较 2
+ * 3. writer 按 rollSize 滚动, 压缩和不压缩, 每个文件都与 stream 方式相同
+ *
+ * @author JiaKun Xu, 2026-10-18 22:00
+ */
+public class DirectIoOutputStreamTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testUnalignedTail() throws IOException {
+        Assume.assumeTrue(DirectIoOutputStream.isSupported());
+
+        final File dir = folder.newFolder();
+        final int blockSize = DirectIoOutputStream.blockSize(dir.toPath());
+        final ByteBuffer buffer = DirectIoOutputStream.allocateAligned(4 * blockSize - 1, blockSize);
+        Assert.assertEquals(4 * blockSize, buffer.capacity());
+
+        final Random random = new Random(20261018L);
+        int index = 0;
+
+        for (int length : new int[]{0, 1, blockSize - 1, blockSize, 4 * blockSize, 4 * blockSize + 1, 10 * blockSize + 123}) {
+            final byte[] data = new byte[length];
+            random.nextBytes(data);
+
+            final File file = new File(dir, "direct-" + (index++));
+            final DirectIoOutputStream out;
+            try {
+                out = DirectIoOutputStream.open(file.toPath(), buffer, blockSize);
+            } catch (IOException | UnsupportedOperationException e) {
+                Assume.assumeNoException(e);
+                return;
+            }
+
+            try {
+                int off = 0;
+                while (off < data.length) {
+                    final int n = Math.min(data.length - off, random.nextInt(3) == 0 ? 1 : random.nextInt(3 * blockSize));
+                    if (n == 1) {
+                        out.write(data[off]);
+                    } else {
+                        out.write(data, off, n);
+                    }
+                    off += n;
+                    // 不满 1 个缓冲区时不写入
+                    out.flush();
+                }
+            } finally {
+                out.close();
+            }
+
+            Assert.assertEquals(length, file.length());
+            Assert.assertArrayEquals(data, Files.readAllBytes(file.toPath()));
+        }
+    }
+
+    @Test
+    public void testSameAsStream() throws IOException {
+        final List<Record> records = new ArrayList<>();
+        for (int row = 0; row < 20000; row++) {
+            records.add(EncoderTestUtil.record(row));
+        }
+
+        for (String compress : new String[]{Constant.COMPRESS_NONE, Constant.COMPRESS_GZIP}) {
+            final List<byte[]> expected = WriterTestUtil.writeFiles(newConf(Constant.OUTPUT_ENGINE_STREAM, compress), records);
+            final List<byte[]> actual = WriterTestUtil.writeFiles(newConf(Constant.OUTPUT_ENGINE_DIRECT, compress), records);
+
+            Assert.assertTrue(expected.size() > 1);
+            WriterTestUtil.assertSameFiles(expected, actual);
+        }
+    }
+
+    @Nonnull
+    private Configuration newConf(@Nonnull String outputEngine, @Nonnull String compress) throws IOException {
+        final Configuration conf = WriterTestUtil.newConf(folder.newFolder(), Constant.FILE_FORMAT_TEXT);
+        conf.set(Key.OUTPUT_ENGINE, outputEngine);
+        conf.set(Key.DIRECT_BUFFER_SIZE, Constant.MIN_DIRECT_BUFFER_SIZE);
+        conf.set(Key.COMPRESS, compress);
+        conf.set(Key.ROLL_SIZE, 300 * 1024);
+        WriterTestUtil.validate(conf);
+        return conf;
+    }
+}
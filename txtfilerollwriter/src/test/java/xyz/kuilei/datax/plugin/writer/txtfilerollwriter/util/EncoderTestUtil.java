@@ -0,0 +1,218 @@
+package xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util;
+
+import com.alibaba.datax.common.element.BoolColumn;
+import com.alibaba.datax.common.element.BytesColumn;
+import com.alibaba.datax.common.element.DateColumn;
+import com.alibaba.datax.common.element.DoubleColumn;
+import com.alibaba.datax.common.element.LongColumn;
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.element.StringColumn;
+import com.alibaba.datax.common.util.Configuration;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.Key;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 二进制格式 (parquet, orc, avro, arrow) 测试共用的数据和写文件的方式
+ *
+ * NOTE:
+ * 1. 每列的值只由行号决定, 读回来之后按行号逐个比较; 每列按不同的间隔出现 null
+ * 2. price, city 的不同值很少 (字典编码), uuid 每行都不同 (直接编码); ts 有 1970 年之前的; big 是 BigInteger
+ * 3. 写文件与 BaseUnstructuredWriter 相同: record buffer 满了才写入, 按 position 累计写入的字节数, 加上 encoder 缓冲的字节数达到 rollSize 时滚动
+ *
+ * @author JiaKun Xu, 2026-10-18 13:00
+ */
+final class EncoderTestUtil {
+    static final String[] HEADER = {"id", "price", "city", "uuid", "ts", "flag", "payload", "big"};
+
+    static final List<String> COLUMN_TYPES = Arrays.asList(
+            Constant.COLUMN_TYPE_LONG, Constant.COLUMN_TYPE_DOUBLE, Constant.COLUMN_TYPE_STRING, Constant.COLUMN_TYPE_STRING,
+            Constant.COLUMN_TYPE_DATE, Constant.COLUMN_TYPE_BOOL, Constant.COLUMN_TYPE_BYTES, Constant.COLUMN_TYPE_LONG
+    );
+
+    static final int ID = 0;
+    static final int PRICE = 1;
+    static final int CITY = 2;
+    static final int UUID = 3;
+    static final int TS = 4;
+    static final int FLAG = 5;
+    static final int PAYLOAD = 6;
+    static final int BIG = 7;
+
+    private static final String[] CITIES = {"北京", "上海", "shenzhen", "杭州", "", "a,b\"c", "😀"};
+
+    // city 不同值的个数, 不包括 null
+    static final int CITY_COUNT = CITIES.length;
+
+    // 与 BaseUnstructuredWriter 相同
+    private static final int FLUSH_SIZE = 64 * 1024;
+
+    private EncoderTestUtil() {
+    }
+
+    @Nonnull
+    static Configuration newConf(@Nonnull String fileFormat, @Nonnull String compress) {
+        Configuration conf = Configuration.newDefault();
+        conf.set(Key.FILE_FORMAT, fileFormat);
+        conf.set(Key.COMPRESS, compress);
+        conf.set(Key.COLUMN_TYPES, COLUMN_TYPES);
+        return conf;
+    }
+
+    /**
+     * @return 第 row 行第 col 列的值, null -> null
+     * Long, Double, String, Long (epoch millis), Boolean, byte[], Long
+     */
+    static Object value(int row, int col) {
+        switch (col) {
+            case ID:
+                return (long) row;
+            case PRICE:
+                return (row % 11 == 3) ? null : (row % 20) * 0.25 - 1.5;
+            case CITY:
+                return (row % 13 == 5) ? null : CITIES[row % CITIES.length];
+            case UUID:
+                return (row % 17 == 7) ? null : Long.toHexString(row * 2654435761L) + ((row % 5 == 0) ? "-中文" : "-" + row);
+            case TS:
+                // 从 1950 年开始, 每行加 1 小时多一点, 包括负数的 epoch millis
+                return (row % 19 == 2) ? null : -631152000000L + row * 3600123L;
+            case FLAG:
+                return (row % 23 == 1) ? null : (row % 3 == 0);
+            case PAYLOAD:
+                if (row % 29 == 4) {
+                    return null;
+                }
+                final byte[] payload = new byte[row % 40];
+                for (int i = 0; i < payload.length; i++) {
+                    payload[i] = (byte) (row * 31 + i);
+                }
+                return payload;
+            case BIG:
+                return (row % 31 == 6) ? null : ((row & 1) == 0 ? 1000000007L * row : -1000000007L * row);
+            default:
+                throw new IllegalArgumentException(String.valueOf(col));
+        }
+    }
+
+    @Nonnull
+    static Record record(int row) {
+        final Record record = new TestRecord();
+        record.addColumn(new LongColumn((Long) value(row, ID)));
+        record.addColumn(new DoubleColumn((Double) value(row, PRICE)));
+        record.addColumn(new StringColumn((String) value(row, CITY)));
+        record.addColumn(new StringColumn((String) value(row, UUID)));
+        record.addColumn(new DateColumn((Long) value(row, TS)));
+        record.addColumn(new BoolColumn((Boolean) value(row, FLAG)));
+        record.addColumn(new BytesColumn((byte[]) value(row, PAYLOAD)));
+
+        // 与 mysql 的 bigint unsigned 等相同, raw data 是 BigInteger
+        final Long big = (Long) value(row, BIG);
+        record.addColumn((big == null) ? new LongColumn((BigInteger) null) : new LongColumn(BigInteger.valueOf(big)));
+        return record;
+    }
+
+    /**
+     * @return 第 firstRow 行开始的 rows 行里, 第 col 列 null 的个数
+     */
+    static long countNulls(int col, long firstRow, long rows) {
+        long nulls = 0;
+        for (long row = firstRow; row < firstRow + rows; row++) {
+            if (value((int) row, col) == null) {
+                nulls++;
+            }
+        }
+        return nulls;
+    }
+
+    /**
+     * 与 ParquetWriterImpl 等相同, 把 encoder 的 3 个方法接到 writeFiles
+     */
+    interface FileEncoder {
+        void startFile(@Nonnull RecordBuffer out);
+
+        void addRecord(@Nonnull Record record, @Nonnull RecordBuffer out) throws IOException;
+
+        void finishFile(@Nonnull RecordBuffer out) throws IOException;
+
+        /**
+         * 与 BaseUnstructuredWriter.bufferedSize 相同, 计入 rollSize
+         */
+        default long bufferedSize() {
+            return 0;
+        }
+    }
+
+    /**
+     * 把第 0 ~ rows - 1 行写入 dir 下的 0.suffix, 1.suffix, ...
+     *
+     * @param rollSize 0 -> 不滚动
+     * @return 按顺序写入的文件
+     */
+    @Nonnull
+    static List<File> writeFiles(@Nonnull File dir, @Nonnull String suffix, @Nonnull FileEncoder encoder, int rows, long rollSize)
+            throws IOException {
+        final List<File> files = new ArrayList<>();
+        final RecordBuffer buffer = new RecordBuffer(FLUSH_SIZE + FLUSH_SIZE / 4, StandardCharsets.UTF_8);
+
+        OutputStream out = null;
+        long rollingSize = 0;
+        try {
+            for (int row = 0; row < rows; row++) {
+                if (out == null) {
+                    final File file = new File(dir, files.size() + "." + suffix);
+                    files.add(file);
+                    out = new FileOutputStream(file);
+                    buffer.setSink(out, FLUSH_SIZE);
+                    encoder.startFile(buffer);
+                }
+
+                final long start = buffer.position();
+                encoder.addRecord(record(row), buffer);
+                rollingSize += buffer.position() - start;
+
+                if (buffer.size() >= FLUSH_SIZE) {
+                    buffer.writeTo(out);
+                    buffer.reset();
+                }
+
+                if (rollSize > 0 && rollingSize + encoder.bufferedSize() >= rollSize) {
+                    rollingSize = 0;
+                    finishFile(encoder, buffer, out);
+                    out = null;
+                }
+            }
+
+            if (out != null) {
+                finishFile(encoder, buffer, out);
+                out = null;
+            }
+        } finally {
+            if (out != null) {
+                out.close();
+            }
+        }
+
+        return files;
+    }
+
+    private static void finishFile(@Nonnull FileEncoder encoder, @Nonnull RecordBuffer buffer, @Nonnull OutputStream out)
+            throws IOException {
+        try {
+            encoder.finishFile(buffer);
+            buffer.writeTo(out);
+        } finally {
+            buffer.reset();
+            buffer.setSink(null, 0);
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util;
+
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.util.Configuration;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.Key;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * FileSyncer 的组提交和 durability 策略
+ *
+ * NOTE:
+ * 1. 多个线程同时 fsync 同 1 个目录时都能返回, 不会丢失唤醒
+ * 2. fsync 失败时, 同 1 批次的调用者都得到异常, 之后的批次不受影响
+ * 3. 不同的 durability 写出的文件与 none 逐字节相同, 没有留下未完成的文件
+ *
+ * @author JiaKun Xu, 2026-10-18 22:15
+ */
+public class FileSyncerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSyncFile() throws IOException {
+        final FileSyncer fileSyncer = FileSyncer.getInstance();
+        fileSyncer.syncFile(folder.newFile().toPath());
+
+        try {
+            fileSyncer.syncFile(new File(folder.getRoot(), "missing").toPath());
+            Assert.fail();
+        } catch (NoSuchFileException expected) {
+            // 文件不存在
+        }
+    }
+
+    @Test
+    public void testConcurrentSyncDirectory() throws InterruptedException {
+        final Path dir = folder.getRoot().toPath();
+        final int threads = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+
+        for (int i = 0; i < threads; i++) {
+            final Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int j = 0; j < 50; j++) {
+                        FileSyncer.getInstance().syncDirectory(dir);
+                    }
+                } catch (Throwable t) {
+                    error.compareAndSet(null, t);
+                } finally {
+                    done.countDown();
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        start.countDown();
+        Assert.assertTrue(done.await(60L, TimeUnit.SECONDS));
+        Assert.assertNull(error.get());
+    }
+
+    @Test
+    public void testSyncDirectoryError() throws IOException {
+        final FileSyncer fileSyncer = FileSyncer.getInstance();
+
+        try {
+            fileSyncer.syncDirectory(new File(folder.getRoot(), "missing").toPath());
+            Assert.fail();
+        } catch (IOException expected) {
+            Assert.assertTrue(expected.getCause() instanceof NoSuchFileException);
+        }
+
+        fileSyncer.syncDirectory(folder.getRoot().toPath());
+    }
+
+    @Test
+    public void testDurability() throws IOException {
+        final List<Record> records = new ArrayList<>();
+        for (int row = 0; row < 20000; row++) {
+            records.add(EncoderTestUtil.record(row));
+        }
+
+        final List<byte[]> expected = WriterTestUtil.writeFiles(newConf(Constant.DURABILITY_NONE), records);
+        Assert.assertTrue(expected.size() > 1);
+
+        for (String durability : new String[]{Constant.DURABILITY_ON_ROTATE, Constant.DURABILITY_PERIODIC}) {
+            WriterTestUtil.assertSameFiles(expected, WriterTestUtil.writeFiles(newConf(durability), records));
+        }
+    }
+
+    @Nonnull
+    private Configuration newConf(@Nonnull String durability) throws IOException {
+        final Configuration conf = WriterTestUtil.newConf(folder.newFolder(), Constant.FILE_FORMAT_TEXT);
+        conf.set(Key.DURABILITY, durability);
+        conf.set(Key.SYNC_INTERVAL, 1);
+        conf.set(Key.ASYNC_ROTATE, true);
+        conf.set(Key.ROLL_SIZE, 300 * 1024);
+        WriterTestUtil.validate(conf);
+        return conf;
+    }
+}
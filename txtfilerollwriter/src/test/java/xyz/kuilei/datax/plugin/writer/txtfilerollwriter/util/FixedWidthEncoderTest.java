@@ -0,0 +1,301 @@
+package xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util;
+
+import com.alibaba.datax.common.element.Column;
+import com.alibaba.datax.common.element.DateColumn;
+import com.alibaba.datax.common.element.DoubleColumn;
+import com.alibaba.datax.common.element.LongColumn;
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.element.StringColumn;
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.util.Configuration;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.Key;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 定长格式: RecordBuffer#padTo, RecordBuffer#truncate, FixedWidthEncoder 与按字符截断再 getBytes 的结果相同
+ *
+ * NOTE:
+ * 1. 超长的字段按字符截断, UTF-8 的 3, 4 字节字符, GBK 的 2 字节字符都不会被截断一部分
+ * 2. 左对齐补齐字节在后面, 右对齐在前面, 每个字段都正好是 width 个字节
+ * 3. 补齐字符按 encoding 编码后必须是 1 个字节, 多字节的补齐字符在校验时报错
+ *
+ * @author JiaKun Xu, 2026-10-18 18:40
+ */
+public class FixedWidthEncoderTest {
+    // 2026-10-18 12:34:56.789 +08:00
+    private static final long MILLIS = 1792298096789L;
+
+    private static final String[] STRINGS = {
+            "", "a", "abc", "abcdefghijklmn", "中", "中文", "a中b文c", "乗亅", "ab乗", "😀", "a😀", "😀中a", "한국어", "é€"
+    };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testPadTo() {
+        final byte[] padding = new byte[16];
+        Arrays.fill(padding, (byte) '*');
+
+        final RecordBuffer buffer = new RecordBuffer(4, StandardCharsets.UTF_8);
+        buffer.writeString("x");
+
+        // 左对齐, 扩容
+        buffer.writeString("ab");
+        buffer.padTo(1, 6, false, padding);
+        Assert.assertEquals("xab****", new String(buffer.toByteArray(), StandardCharsets.UTF_8));
+
+        // 右对齐, 内容后移
+        int start = buffer.size();
+        buffer.writeString("中");
+        buffer.padTo(start, 5, true, padding);
+        Assert.assertEquals("xab******中", new String(buffer.toByteArray(), StandardCharsets.UTF_8));
+
+        // 正好 width, 以及超过 width 时不变
+        start = buffer.size();
+        buffer.writeString("cd");
+        buffer.padTo(start, 2, true, padding);
+        buffer.padTo(start, 1, false, padding);
+        Assert.assertEquals("xab******中cd", new String(buffer.toByteArray(), StandardCharsets.UTF_8));
+
+        // 空字段全部是补齐字节
+        start = buffer.size();
+        buffer.padTo(start, 3, true, padding);
+        Assert.assertEquals("xab******中cd***", new String(buffer.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testTruncate() {
+        final RecordBuffer buffer = new RecordBuffer(4, StandardCharsets.UTF_8);
+        buffer.writeString("abc");
+        final int start = buffer.size();
+        buffer.writeString("中文def");
+
+        // 截断之后继续写入, 覆盖被丢弃的字节
+        buffer.truncate(start);
+        Assert.assertEquals(start, buffer.size());
+        buffer.writeString("g");
+        Assert.assertEquals("abcg", new String(buffer.toByteArray(), StandardCharsets.UTF_8));
+
+        buffer.truncate(0);
+        Assert.assertEquals(0, buffer.toByteArray().length);
+    }
+
+    @Test
+    public void testWriteString() {
+        for (Charset charset : new Charset[]{StandardCharsets.UTF_8, Charset.forName("GBK")}) {
+            for (int width = 1; width <= 12; width++) {
+                for (boolean right : new boolean[]{false, true}) {
+                    final FixedWidthEncoder encoder = newEncoder(charset, width, right, "_");
+                    final RecordBuffer buffer = new RecordBuffer(4, charset);
+
+                    for (String s : STRINGS) {
+                        buffer.reset();
+                        buffer.writeString("x");
+                        encoder.writeString(0, s, buffer);
+
+                        final byte[] field = Arrays.copyOfRange(buffer.toByteArray(), 1, buffer.size());
+                        final String message = charset + " " + width + " " + right + " " + s;
+                        Assert.assertArrayEquals(message, expected(s, charset, width, right, '_'), field);
+                        assertWholeChars(message, s, field, charset, right);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testTruncateMultiByte() {
+        // UTF-8: 中 3 个字节, 😀 4 个字节, 放不下的整个字符都不写
+        Assert.assertEquals("a__", write(StandardCharsets.UTF_8, 3, false, "a中"));
+        Assert.assertEquals("a中", write(StandardCharsets.UTF_8, 4, false, "a中b"));
+        Assert.assertEquals("___", write(StandardCharsets.UTF_8, 3, true, "😀"));
+        Assert.assertEquals("a😀_", write(StandardCharsets.UTF_8, 6, false, "a😀😀"));
+        Assert.assertEquals("__a😀", write(StandardCharsets.UTF_8, 7, true, "a😀😀"));
+
+        // GBK: 2 个字节, 乗 的第 2 个字节是 \
+        Assert.assertEquals("a_", write(Charset.forName("GBK"), 2, false, "a乗"));
+        Assert.assertEquals("_乗", write(Charset.forName("GBK"), 3, true, "乗亅"));
+        Assert.assertEquals("中文", write(Charset.forName("GBK"), 4, false, "中文字"));
+    }
+
+    @Test
+    public void testPadChar() {
+        // 1 个字节的非 ASCII 补齐字符
+        final Charset latin1 = StandardCharsets.ISO_8859_1;
+        final FixedWidthEncoder encoder = newEncoder(latin1, 4, true, "é");
+        final RecordBuffer buffer = new RecordBuffer(4, latin1);
+        encoder.writeString(0, "ab", buffer);
+        Assert.assertEquals("ééab", new String(buffer.toByteArray(), latin1));
+
+        // 多字节的补齐字符, 按字节补齐会得到不完整的字符
+        assertIllegalPadChar(StandardCharsets.UTF_8, "é");
+        assertIllegalPadChar(StandardCharsets.UTF_8, "　");
+        assertIllegalPadChar(Charset.forName("GBK"), "中");
+        assertIllegalPadChar(StandardCharsets.UTF_8, "ab");
+        assertIllegalPadChar(StandardCharsets.UTF_8, "");
+    }
+
+    @Test
+    public void testEncodeRecord() throws IOException {
+        final Random random = new Random(20261018L);
+        final int[] widths = {1, 3, 5, 8, 12, 20};
+        final String[] aligns = {"left", "right", "left", "right", "left", "right"};
+        final String[] padChars = {" ", "0", "_", " ", "*", "-"};
+
+        final List<Record> records = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            final Record record = new TestRecord();
+            for (int j = 0; j < widths.length; j++) {
+                record.addColumn(randomColumn(random));
+            }
+            records.add(record);
+        }
+
+        for (String encoding : new String[]{"UTF-8", "GBK"}) {
+            final Configuration conf = WriterTestUtil.newConf(folder.newFolder(), Constant.FILE_FORMAT_FIXED);
+            conf.set(Key.ENCODING, encoding);
+            conf.set(Key.DATE_FORMAT, "yyyy-MM-dd HH:mm:ss");
+            conf.set(Key.NULL_FORMAT, "NULL");
+            conf.set(Key.COLUMN_WIDTHS, Arrays.asList(1, 3, 5, 8, 12, 20));
+            conf.set(Key.COLUMN_ALIGNS, Arrays.asList(aligns));
+            conf.set(Key.COLUMN_PAD_CHARS, Arrays.asList(padChars));
+            WriterTestUtil.validate(conf);
+
+            final Charset charset = Charset.forName(encoding);
+            final SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+            final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            for (Record record : records) {
+                for (int j = 0; j < widths.length; j++) {
+                    final Column column = record.getColumn(j);
+                    final String s;
+                    if (column.getRawData() == null) {
+                        s = "NULL";
+                    } else if (column instanceof DateColumn) {
+                        s = format.format(new Date((Long) column.getRawData()));
+                    } else {
+                        s = column.asString();
+                    }
+                    final byte[] field = expected(s, charset, widths[j], "right".equals(aligns[j]), padChars[j].charAt(0));
+                    expected.write(field, 0, field.length);
+                }
+                expected.write('\n');
+            }
+
+            final byte[] actual = WriterTestUtil.encodeRecords(conf, records);
+            Assert.assertArrayEquals(encoding, expected.toByteArray(), actual);
+            // 每行的字节数固定
+            Assert.assertEquals(encoding, records.size() * (1 + 1 + 3 + 5 + 8 + 12 + 20), actual.length);
+        }
+    }
+
+    @Nonnull
+    private static Column randomColumn(@Nonnull Random random) {
+        switch (random.nextInt(5)) {
+            case 0:
+                return new LongColumn(random.nextLong() >> random.nextInt(64));
+            case 1:
+                return new DoubleColumn(random.nextDouble() * 1000 - 500);
+            case 2:
+                return new DateColumn(MILLIS + random.nextInt() * 1000L);
+            case 3:
+                return new StringColumn(null);
+            default:
+                final StringBuilder sb = new StringBuilder();
+                final int length = random.nextInt(4);
+                for (int k = 0; k < length; k++) {
+                    sb.append(STRINGS[random.nextInt(STRINGS.length)]);
+                }
+                return new StringColumn(sb.toString());
+        }
+    }
+
+    @Nonnull
+    private static FixedWidthEncoder newEncoder(@Nonnull Charset charset, int width, boolean right, @Nonnull String padChar) {
+        final Configuration conf = Configuration.newDefault();
+        conf.set(Key.FILE_FORMAT, Constant.FILE_FORMAT_FIXED);
+        conf.set(Key.ENCODING, charset.name());
+        conf.set(Key.COLUMN_WIDTHS, Arrays.asList(width));
+        conf.set(Key.COLUMN_ALIGNS, Arrays.asList(right ? "right" : "left"));
+        conf.set(Key.COLUMN_PAD_CHARS, Arrays.asList(padChar));
+        FixedWidthEncoder.validateParameter(conf);
+        return new FixedWidthEncoder(conf);
+    }
+
+    private static void assertIllegalPadChar(@Nonnull Charset charset, @Nonnull String padChar) {
+        try {
+            newEncoder(charset, 4, false, padChar);
+            Assert.fail(charset + " [" + padChar + "]");
+        } catch (DataXException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("columnPadChars"));
+        }
+    }
+
+    @Nonnull
+    private static String write(@Nonnull Charset charset, int width, boolean right, @Nonnull String s) {
+        final RecordBuffer buffer = new RecordBuffer(4, charset);
+        newEncoder(charset, width, right, "_").writeString(0, s, buffer);
+        Assert.assertEquals(width, buffer.size());
+        return new String(buffer.toByteArray(), charset);
+    }
+
+    /**
+     * 逐个字符编码, 直到再加 1 个字符就超过 width, 再补齐
+     */
+    @Nonnull
+    private static byte[] expected(@Nonnull String s, @Nonnull Charset charset, int width, boolean right, char padChar) {
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        for (int i = 0; i < s.length(); ) {
+            final int next = i + Character.charCount(s.codePointAt(i));
+            final byte[] bytes = s.substring(i, next).getBytes(charset);
+            if (content.size() + bytes.length > width) {
+                break;
+            }
+            content.write(bytes, 0, bytes.length);
+            i = next;
+        }
+
+        final byte[] padding = new byte[width - content.size()];
+        Arrays.fill(padding, String.valueOf(padChar).getBytes(charset)[0]);
+
+        final ByteArrayOutputStream field = new ByteArrayOutputStream();
+        if (right) {
+            field.write(padding, 0, padding.length);
+        }
+        field.write(content.toByteArray(), 0, content.size());
+        if (!right) {
+            field.write(padding, 0, padding.length);
+        }
+        return field.toByteArray();
+    }
+
+    /**
+     * 去掉补齐字节后, 解码得到的是原字符串的前缀, 没有被截断一部分的字符
+     */
+    private static void assertWholeChars(@Nonnull String message, @Nonnull String s, @Nonnull byte[] field,
+                                         @Nonnull Charset charset, boolean right) {
+        String decoded = new String(field, charset);
+        decoded = right ? decoded.replaceAll("^_+", "") : decoded.replaceAll("_+$", "");
+
+        Assert.assertFalse(message + " -> " + decoded, decoded.indexOf('�') >= 0);
+        // GBK 中没有的字符编码为 ?
+        if (new String(s.getBytes(charset), charset).equals(s)) {
+            Assert.assertTrue(message + " -> " + decoded, s.startsWith(decoded));
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util;
+
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.util.Configuration;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.Key;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * mmap 方式写入的文件与 stream 方式逐字节相同
+ *
+ * NOTE:
+ * 1. 映射的段比实际写入的多, close 时截断为实际写入的长度, 包括没有写入和正好写满 1 段的情况
+ * 2. writer 按 rollSize 滚动时第一段即为 rollSize, 最后 1 行超过时再映射 1 段; 按 rollCount 滚动时每段 64MB
+ *
+ * @author JiaKun Xu, 2026-10-18 21:45
+ */
+public class MappedOutputStreamTest {
+    private static final int FIRST_SEGMENT_SIZE = 1000;
+
+    private static final int GROW_SEGMENT_SIZE = 4096;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testTailTruncate() throws IOException {
+        final Random random = new Random(20261018L);
+
+        for (int length : new int[]{0, 1, FIRST_SEGMENT_SIZE - 1, FIRST_SEGMENT_SIZE, FIRST_SEGMENT_SIZE + 1,
+                FIRST_SEGMENT_SIZE + GROW_SEGMENT_SIZE, 10 * GROW_SEGMENT_SIZE + 3}) {
+            final byte[] data = new byte[length];
+            random.nextBytes(data);
+
+            final File file = folder.newFile();
+            try (MappedOutputStream out = open(file)) {
+                int off = 0;
+                while (off < data.length) {
+                    final int n = Math.min(data.length - off, random.nextInt(3) == 0 ? 1 : random.nextInt(3 * GROW_SEGMENT_SIZE));
+                    if (n == 1) {
+                        out.write(data[off]);
+                    } else {
+                        out.write(data, off, n);
+                    }
+                    off += n;
+                }
+            }
+
+            Assert.assertEquals(length, file.length());
+            Assert.assertArrayEquals(data, Files.readAllBytes(file.toPath()));
+        }
+    }
+
+    @Test
+    public void testWriteAfterClose() throws IOException {
+        final File file = folder.newFile();
+        final MappedOutputStream out = open(file);
+        out.write(new byte[FIRST_SEGMENT_SIZE]);
+        out.close();
+        out.close();
+
+        try {
+            out.write(1);
+            Assert.fail();
+        } catch (IOException expected) {
+            // 已经关闭
+        }
+        Assert.assertEquals(FIRST_SEGMENT_SIZE, file.length());
+    }
+
+    @Test
+    public void testSameAsStream() throws IOException {
+        final List<Record> records = new ArrayList<>();
+        for (int row = 0; row < 20000; row++) {
+            records.add(EncoderTestUtil.record(row));
+        }
+
+        // rollSize, rollCount
+        for (long[] roll : Arrays.asList(new long[]{300 * 1024, 0}, new long[]{0, 7000})) {
+            final List<byte[]> expected = WriterTestUtil.writeFiles(newConf(Constant.OUTPUT_ENGINE_STREAM, roll), records);
+            final List<byte[]> actual = WriterTestUtil.writeFiles(newConf(Constant.OUTPUT_ENGINE_MMAP, roll), records);
+
+            Assert.assertTrue(expected.size() > 1);
+            WriterTestUtil.assertSameFiles(expected, actual);
+        }
+    }
+
+    @Nonnull
+    private static MappedOutputStream open(@Nonnull File file) throws IOException {
+        final FileChannel channel = FileChannel.open(
+                file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING
+        );
+        return new MappedOutputStream(channel, FIRST_SEGMENT_SIZE, GROW_SEGMENT_SIZE);
+    }
+
+    @Nonnull
+    private Configuration newConf(@Nonnull String outputEngine, @Nonnull long[] roll) throws IOException {
+        final Configuration conf = WriterTestUtil.newConf(folder.newFolder(), Constant.FILE_FORMAT_TEXT);
+        conf.set(Key.OUTPUT_ENGINE, outputEngine);
+        conf.set(Key.ROLL_SIZE, roll[0]);
+        conf.set(Key.ROLL_COUNT, roll[1]);
+        WriterTestUtil.validate(conf);
+        return conf;
+    }
+}
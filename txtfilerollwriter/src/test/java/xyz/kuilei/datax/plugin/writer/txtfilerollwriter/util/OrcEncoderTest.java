@@ -0,0 +1,231 @@
+package xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util;
+
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.util.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.TimestampColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.orc.ColumnStatistics;
+import org.apache.orc.CompressionKind;
+import org.apache.orc.IntegerColumnStatistics;
+import org.apache.orc.OrcFile;
+import org.apache.orc.OrcProto;
+import org.apache.orc.Reader;
+import org.apache.orc.RecordReader;
+import org.apache.orc.StripeInformation;
+import org.apache.orc.impl.RecordReaderImpl;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.Key;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TimeZone;
+
+import static xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util.EncoderTestUtil.*;
+
+/**
+ * OrcEncoder 写的文件用 orc-core 读回来比较, 检查 schema, stripe 的切分, 时区和 rollSize
+ *
+ * @author JiaKun Xu, 2026-10-18 13:00
+ */
+public class OrcEncoderTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final org.apache.hadoop.conf.Configuration HADOOP_CONF = new org.apache.hadoop.conf.Configuration();
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        final String[] compresses = {Constant.COMPRESS_NONE, Constant.COMPRESS_DEFLATE, Constant.COMPRESS_ZSTD};
+        final CompressionKind[] kinds = {CompressionKind.NONE, CompressionKind.ZLIB, CompressionKind.ZSTD};
+
+        for (int i = 0; i < compresses.length; i++) {
+            final File dir = folder.newFolder(compresses[i]);
+            final List<File> files = writeFiles(dir, newEncoder(compresses[i]), 30000, 0);
+
+            Assert.assertEquals(1, files.size());
+            Assert.assertEquals(30000, readRows(files.get(0), 0));
+
+            try (Reader reader = createReader(files.get(0))) {
+                Assert.assertEquals(kinds[i], reader.getCompressionKind());
+                Assert.assertEquals(
+                        "struct<id:bigint,price:double,city:string,uuid:string,ts:timestamp,flag:boolean,payload:binary,big:bigint>",
+                        reader.getSchema().toString()
+                );
+
+                // 每个 stripe 64KB
+                final List<StripeInformation> stripes = reader.getStripes();
+                Assert.assertTrue(compresses[i] + " stripes: " + stripes.size(), stripes.size() > 1);
+
+                try (RecordReaderImpl rows = (RecordReaderImpl) reader.rows()) {
+                    for (StripeInformation stripe : stripes) {
+                        final List<OrcProto.ColumnEncoding> encodings = rows.readStripeFooter(stripe).getColumnsList();
+                        Assert.assertEquals(HEADER.length + 1, encodings.size());
+
+                        // city 的不同值很少, uuid 每行都不同
+                        Assert.assertEquals(OrcProto.ColumnEncoding.Kind.DICTIONARY_V2, encodings.get(CITY + 1).getKind());
+                        Assert.assertEquals(CITY_COUNT, encodings.get(CITY + 1).getDictionarySize());
+                        Assert.assertEquals(OrcProto.ColumnEncoding.Kind.DIRECT_V2, encodings.get(UUID + 1).getKind());
+                    }
+                }
+
+                final ColumnStatistics[] statistics = reader.getStatistics();
+                Assert.assertEquals(30000, statistics[0].getNumberOfValues());
+                for (int col = 0; col < HEADER.length; col++) {
+                    final long nulls = countNulls(col, 0, 30000);
+                    Assert.assertEquals(HEADER[col], 30000 - nulls, statistics[col + 1].getNumberOfValues());
+                    Assert.assertEquals(HEADER[col], nulls > 0, statistics[col + 1].hasNull());
+                }
+                Assert.assertEquals(0, ((IntegerColumnStatistics) statistics[ID + 1]).getMinimum());
+                Assert.assertEquals(29999, ((IntegerColumnStatistics) statistics[ID + 1]).getMaximum());
+            }
+        }
+    }
+
+    /**
+     * 按 JVM 默认时区写入, orc-core 在同一个时区读出来的 epoch millis 相同, 包括有夏令时的时区
+     */
+    @Test
+    public void testTimeZone() throws IOException {
+        final TimeZone defaultTimeZone = TimeZone.getDefault();
+        try {
+            for (String zone : new String[]{"UTC", "Asia/Shanghai", "America/Los_Angeles"}) {
+                TimeZone.setDefault(TimeZone.getTimeZone(zone));
+
+                final List<File> files = writeFiles(folder.newFolder(zone.replace('/', '_')), newEncoder(Constant.COMPRESS_NONE), 20000, 0);
+                Assert.assertEquals(20000, readRows(files.get(0), 0));
+            }
+        } finally {
+            TimeZone.setDefault(defaultTimeZone);
+        }
+    }
+
+    @Test
+    public void testRollSize() throws IOException {
+        final long rollSize = 256 * 1024;
+        final List<File> files = writeFiles(folder.getRoot(), newEncoder(Constant.COMPRESS_NONE), 50000, rollSize);
+
+        Assert.assertTrue("files: " + files.size(), files.size() > 2);
+
+        int row = 0;
+        for (File file : files) {
+            final int rows = readRows(file, row);
+            Assert.assertTrue(file.getName(), rows > 0);
+            row += rows;
+
+            // 缓冲的 stripe 计入 rollSize, 文件不会超出 1 个 stripe
+            // orc-core 缓冲的字节数是估计值, 所以文件可能略小于 rollSize
+            if (file != files.get(files.size() - 1)) {
+                Assert.assertTrue(file.getName() + ": " + file.length(), file.length() >= rollSize - 64 * 1024);
+            }
+            Assert.assertTrue(file.getName() + ": " + file.length(), file.length() < rollSize + 64 * 1024);
+        }
+        Assert.assertEquals(50000, row);
+    }
+
+    @Nonnull
+    private static OrcEncoder newEncoder(@Nonnull String compress) {
+        final Configuration conf = newConf(Constant.FILE_FORMAT_ORC, compress);
+        conf.set(Key.STRIPE_SIZE, Constant.MIN_STRIPE_SIZE);
+        OrcEncoder.validateParameter(conf);
+        return new OrcEncoder(conf, HEADER);
+    }
+
+    @Nonnull
+    private static List<File> writeFiles(@Nonnull File dir, @Nonnull OrcEncoder encoder, int rows, long rollSize)
+            throws IOException {
+        return EncoderTestUtil.writeFiles(dir, "orc", new FileEncoder() {
+            @Override
+            public void startFile(@Nonnull RecordBuffer out) {
+                encoder.startFile(out);
+            }
+
+            @Override
+            public void addRecord(@Nonnull Record record, @Nonnull RecordBuffer out) throws IOException {
+                encoder.addRecord(record, out);
+            }
+
+            @Override
+            public void finishFile(@Nonnull RecordBuffer out) throws IOException {
+                encoder.finishFile(out);
+            }
+
+            @Override
+            public long bufferedSize() {
+                return encoder.bufferedSize();
+            }
+        }, rows, rollSize);
+    }
+
+    @Nonnull
+    private static Reader createReader(@Nonnull File file) throws IOException {
+        return OrcFile.createReader(new Path(file.getAbsolutePath()), OrcFile.readerOptions(HADOOP_CONF));
+    }
+
+    /**
+     * 读回来逐行比较
+     *
+     * @param firstRow 文件第 1 行的行号
+     * @return 行数
+     */
+    private static int readRows(@Nonnull File file, int firstRow) throws IOException {
+        int row = firstRow;
+        try (Reader reader = createReader(file); RecordReader rows = reader.rows()) {
+            final VectorizedRowBatch batch = reader.getSchema().createRowBatch();
+            while (rows.nextBatch(batch)) {
+                for (int r = 0; r < batch.size; r++, row++) {
+                    for (int col = 0; col < HEADER.length; col++) {
+                        final Object expected = value(row, col);
+                        final String message = "row " + row + " " + HEADER[col];
+                        final ColumnVector vector = batch.cols[col];
+                        final int i = vector.isRepeating ? 0 : r;
+
+                        if (!vector.noNulls && vector.isNull[i]) {
+                            Assert.assertNull(message, expected);
+                            continue;
+                        }
+                        Assert.assertNotNull(message, expected);
+
+                        switch (col) {
+                            case PRICE:
+                                Assert.assertEquals(message, (Double) expected, ((DoubleColumnVector) vector).vector[i], 0.0);
+                                break;
+                            case CITY:
+                            case UUID:
+                                Assert.assertEquals(message, expected, ((BytesColumnVector) vector).toString(i));
+                                break;
+                            case TS:
+                                Assert.assertEquals(message, expected, ((TimestampColumnVector) vector).getTime(i));
+                                break;
+                            case FLAG:
+                                Assert.assertEquals(message, expected, ((LongColumnVector) vector).vector[i] == 1);
+                                break;
+                            case PAYLOAD:
+                                final BytesColumnVector bytes = (BytesColumnVector) vector;
+                                Assert.assertArrayEquals(
+                                        message, (byte[]) expected,
+                                        Arrays.copyOfRange(bytes.vector[i], bytes.start[i], bytes.start[i] + bytes.length[i])
+                                );
+                                break;
+                            default:
+                                // id, big
+                                Assert.assertEquals(message, expected, ((LongColumnVector) vector).vector[i]);
+                                break;
+                        }
+                    }
+                }
+            }
+        }
+        return row - firstRow;
+    }
+}
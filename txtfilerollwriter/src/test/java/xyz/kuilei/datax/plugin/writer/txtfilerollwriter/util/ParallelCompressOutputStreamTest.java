@@ -0,0 +1,208 @@
+package xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * ParallelCompressOutputStream 的顺序, 内存上限和错误传递
+ *
+ * NOTE:
+ * 1. 用不压缩, 随机变慢的 codec: 后提交的块可能先完成, 写入的顺序仍然与提交的顺序相同, 结果与输入相同
+ * 2. 同时压缩的块不超过 maxInFlight, 与线程数无关
+ * 3. 多个流共享同 1 个线程池 (并行写入时的 lane), 互不影响
+ * 4. 某个块压缩失败时, 异常在之后的 write 或者 close 时抛出, 底层流被关闭
+ *
+ * @author JiaKun Xu, 2026-10-18 22:45
+ */
+public class ParallelCompressOutputStreamTest {
+    private static final int BLOCK_SIZE = 1024;
+
+    private final ExecutorService executor = ParallelCompressOutputStream.newExecutor("test", 8);
+
+    @After
+    public void tearDown() {
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    public void testOrder() throws IOException {
+        final SlowCodec codec = new SlowCodec(false);
+        final byte[] data = randomBytes(20261018L, 100 * BLOCK_SIZE + 17);
+
+        Assert.assertArrayEquals(data, write(codec, 4, data));
+        Assert.assertTrue(codec.maxRunning.get() <= 4);
+    }
+
+    @Test
+    public void testMaxInFlight() throws IOException {
+        final SlowCodec codec = new SlowCodec(false);
+        final byte[] data = randomBytes(1L, 50 * BLOCK_SIZE);
+
+        Assert.assertArrayEquals(data, write(codec, 2, data));
+        Assert.assertTrue(codec.maxRunning.get() <= 2);
+    }
+
+    @Test
+    public void testSharedExecutor() throws InterruptedException {
+        final SlowCodec codec = new SlowCodec(false);
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+
+        final Thread[] lanes = new Thread[4];
+        for (int i = 0; i < lanes.length; i++) {
+            final byte[] data = randomBytes(i, 30 * BLOCK_SIZE + i);
+            lanes[i] = new Thread(() -> {
+                try {
+                    Assert.assertArrayEquals(data, write(codec, 4, data));
+                } catch (Throwable t) {
+                    error.compareAndSet(null, t);
+                }
+            });
+            lanes[i].start();
+        }
+        for (Thread lane : lanes) {
+            lane.join();
+        }
+
+        Assert.assertNull(error.get());
+    }
+
+    @Test
+    public void testCompressError() {
+        // 第 5 个块以 FAIL 开头, 压缩失败
+        final SlowCodec codec = new SlowCodec(true);
+        final byte[] data = new byte[50 * BLOCK_SIZE];
+        data[4 * BLOCK_SIZE] = SlowCodec.FAIL;
+        final ClosedCheckOutputStream out = new ClosedCheckOutputStream();
+
+        IOException error = null;
+        final ParallelCompressOutputStream compressed = new ParallelCompressOutputStream(
+                out, codec, this.executor, BLOCK_SIZE, 4, new CompressedSizeCounter()
+        );
+        try {
+            try {
+                compressed.write(data);
+            } finally {
+                compressed.close();
+            }
+        } catch (IOException e) {
+            error = e;
+        }
+
+        Assert.assertNotNull(error);
+        Assert.assertEquals("fail", error.getMessage());
+        Assert.assertTrue(out.closed);
+        // 失败之前的块按顺序写入
+        Assert.assertEquals(4 * BLOCK_SIZE, out.size());
+    }
+
+    @Nonnull
+    private byte[] write(@Nonnull BaseCompressCodec codec, int maxInFlight, @Nonnull byte[] data) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final Random random = new Random(data.length);
+
+        try (OutputStream compressed = new ParallelCompressOutputStream(
+                out, codec, this.executor, BLOCK_SIZE, maxInFlight, new CompressedSizeCounter())) {
+            int off = 0;
+            while (off < data.length) {
+                if (random.nextInt(4) == 0) {
+                    compressed.write(data[off++]);
+                } else {
+                    final int n = Math.min(data.length - off, random.nextInt(3 * BLOCK_SIZE));
+                    compressed.write(data, off, n);
+                    off += n;
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+
+    @Nonnull
+    private static byte[] randomBytes(long seed, int length) {
+        final byte[] data = new byte[length];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    /**
+     * 不压缩, 每个块随机等待 0 ~ 3 毫秒, 记录同时压缩的块数
+     * warn: 压缩线程的调用顺序与块的顺序无关, 所以按块的内容决定是否失败
+     */
+    private static final class SlowCodec extends BaseCompressCodec {
+        static final byte FAIL = 1;
+
+        // true -> 以 FAIL 开头的块失败
+        private final boolean failOnMarker;
+
+        private final AtomicInteger running = new AtomicInteger();
+
+        final AtomicInteger maxRunning = new AtomicInteger();
+
+        SlowCodec(boolean failOnMarker) {
+            this.failOnMarker = failOnMarker;
+        }
+
+        @Nonnull
+        @Override
+        public String getName() {
+            return "slow";
+        }
+
+        @Nonnull
+        @Override
+        public String getExtension() {
+            return "slow";
+        }
+
+        @Override
+        public boolean isConcatenable() {
+            return true;
+        }
+
+        @Nonnull
+        @Override
+        public OutputStream compress(@Nonnull OutputStream out) throws IOException {
+            this.maxRunning.accumulateAndGet(this.running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(ThreadLocalRandom.current().nextInt(4));
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            } finally {
+                this.running.decrementAndGet();
+            }
+
+            final boolean failOnMarker = this.failOnMarker;
+            return new FilterOutputStream(out) {
+                @Override
+                public void write(@Nonnull byte[] b, int off, int len) throws IOException {
+                    if (failOnMarker && len > 0 && b[off] == FAIL) {
+                        throw new IOException("fail");
+                    }
+                    this.out.write(b, off, len);
+                }
+            };
+        }
+    }
+
+    private static final class ClosedCheckOutputStream extends ByteArrayOutputStream {
+        boolean closed;
+
+        @Override
+        public void close() {
+            this.closed = true;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util;
+
+import com.alibaba.datax.common.element.LongColumn;
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.element.StringColumn;
+import com.alibaba.datax.common.util.Configuration;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.Key;
+
+import javax.annotation.Nonnull;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 并行写入: 所有 lane 共享 TaskResources, record 的分发
+ *
+ * NOTE:
+ * 1. 压缩线程和后台滚动的线程个数不随 parallelism 增加
+ * 2. 文件序号从 1 开始连续且不重复, 所有文件都已经完成 (没有 inUseSuffix), 内容与写入的 record 相同
+ * 3. 不滚动时每个 lane 只有 1 个文件: 轮流分发时每个文件的行数相同, 按 partitionColumn 分发时相同的值只出现在 1 个文件
+ *
+ * @author JiaKun Xu, 2026-10-18 20:50
+ */
+public class ParallelWriterTest {
+    private static final String PREFIX_WITH_UUID = "parallel-uuid";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSharedResources() throws IOException {
+        final File dir = folder.newFolder();
+        final Configuration conf = WriterTestUtil.newConf(dir, Constant.FILE_FORMAT_TEXT);
+        conf.set(Key.PARALLELISM, 4);
+        conf.set(Key.ASYNC_ROTATE, true);
+        conf.set(Key.MAX_PENDING_ROTATIONS, 2);
+        conf.set(Key.COMPRESS, Constant.COMPRESS_GZIP);
+        conf.set(Key.COMPRESS_THREADS, 2);
+        conf.set(Key.ROLL_COUNT, 10);
+        WriterTestUtil.validate(conf);
+        // warn: 与其他测试的线程名称不同
+        conf.set(Key.INTERNAL_PREFIX_WITH_UUID, PREFIX_WITH_UUID);
+
+        final Set<String> expected = new HashSet<>();
+
+        try (ParallelWriter writer = new ParallelWriter(conf)) {
+            for (int i = 0; i < 1000; i++) {
+                final Record record = new TestRecord();
+                record.addColumn(new LongColumn(i));
+                record.addColumn(new StringColumn("v" + i));
+                writer.writeOneRecord(record);
+                expected.add(i + ",v" + i);
+            }
+
+            Assert.assertTrue(countThreads("parallel-compress-" + PREFIX_WITH_UUID + "-") <= 2);
+            Assert.assertTrue(countThreads("rotation-finalizer-" + PREFIX_WITH_UUID + "-") <= 2);
+        }
+
+        final Map<String, List<String>> files = readFiles(dir, ".txt.gz");
+        Assert.assertTrue(files.size() >= 100);
+
+        final Set<String> actual = new HashSet<>();
+        for (List<String> lines : files.values()) {
+            for (String line : lines) {
+                Assert.assertTrue(line, actual.add(line));
+            }
+        }
+        Assert.assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testRoundRobin() throws IOException {
+        final File dir = folder.newFolder();
+        final Configuration conf = newConf(dir, null);
+
+        try (ParallelWriter writer = new ParallelWriter(conf)) {
+            for (int i = 0; i < 1000; i++) {
+                writer.writeOneRecord(record(i, "k" + i));
+            }
+        }
+
+        final Map<String, List<String>> files = readFiles(dir, ".txt");
+        Assert.assertEquals(4, files.size());
+        for (List<String> lines : files.values()) {
+            Assert.assertEquals(250, lines.size());
+        }
+    }
+
+    @Test
+    public void testPartitionColumn() throws IOException {
+        final File dir = folder.newFolder();
+        final Configuration conf = newConf(dir, 1);
+
+        final Map<String, Integer> expected = new HashMap<>();
+        try (ParallelWriter writer = new ParallelWriter(conf)) {
+            for (int i = 0; i < 1000; i++) {
+                final String key = "k" + (i % 37);
+                writer.writeOneRecord(record(i, key));
+                expected.merge(key, 1, Integer::sum);
+            }
+            // 分区列为 null, 或者 record 没有该列时, 写入同一个 lane
+            final Record noColumn = new TestRecord();
+            noColumn.addColumn(new LongColumn(1000L));
+            writer.writeOneRecord(noColumn);
+            writer.writeOneRecord(record(1001, null));
+        }
+
+        final Map<String, List<String>> files = readFiles(dir, ".txt");
+        Assert.assertTrue(files.size() > 1 && files.size() <= 4);
+
+        // key -> 所在的文件
+        final Map<String, String> keyFiles = new HashMap<>();
+        final Map<String, Integer> actual = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : files.entrySet()) {
+            for (String line : entry.getValue()) {
+                final int comma = line.indexOf(',');
+                final String key = (comma < 0) ? "null" : line.substring(comma + 1);
+                final String file = keyFiles.putIfAbsent(key, entry.getKey());
+                Assert.assertTrue(line, file == null || file.equals(entry.getKey()));
+                if (key.startsWith("k")) {
+                    actual.merge(key, 1, Integer::sum);
+                }
+            }
+        }
+        Assert.assertEquals(expected, actual);
+    }
+
+    /**
+     * 4 个 lane, 不滚动, 不压缩
+     *
+     * @param partitionColumn null -> 轮流分发
+     */
+    @Nonnull
+    private static Configuration newConf(@Nonnull File dir, Integer partitionColumn) {
+        final Configuration conf = WriterTestUtil.newConf(dir, Constant.FILE_FORMAT_TEXT);
+        conf.set(Key.PARALLELISM, 4);
+        conf.set(Key.ROLL_SIZE, 0);
+        conf.set(Key.ROLL_COUNT, 0);
+        if (partitionColumn != null) {
+            conf.set(Key.PARTITION_COLUMN, partitionColumn);
+        }
+        WriterTestUtil.validate(conf);
+        conf.set(Key.INTERNAL_PREFIX_WITH_UUID, PREFIX_WITH_UUID);
+        return conf;
+    }
+
+    @Nonnull
+    private static Record record(int i, String key) {
+        final Record record = new TestRecord();
+        record.addColumn(new LongColumn(i));
+        record.addColumn(new StringColumn(key));
+        return record;
+    }
+
+    /**
+     * 按文件序号读取所有文件的行, 同时检查序号从 1 开始连续, 没有未完成的文件
+     *
+     * @param suffix 包括压缩的扩展名, 以 .gz 结尾时解压
+     */
+    @Nonnull
+    private static Map<String, List<String>> readFiles(@Nonnull File dir, @Nonnull String suffix) throws IOException {
+        final File[] files = dir.listFiles();
+        Assert.assertNotNull(files);
+
+        final Map<String, List<String>> lines = new HashMap<>();
+        for (File file : files) {
+            final String name = file.getName();
+            Assert.assertTrue(name, name.startsWith(PREFIX_WITH_UUID + "-") && name.endsWith(suffix));
+            final String index = name.substring(PREFIX_WITH_UUID.length() + 1, name.length() - suffix.length());
+
+            final List<String> fileLines = new ArrayList<>();
+            InputStream in = new FileInputStream(file);
+            if (suffix.endsWith(".gz")) {
+                in = new GZIPInputStream(in);
+            }
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    fileLines.add(line);
+                }
+            }
+            lines.put(index, fileLines);
+        }
+
+        for (int i = 1; i <= files.length; i++) {
+            Assert.assertTrue(String.valueOf(i), lines.containsKey(String.valueOf(i)));
+        }
+        return lines;
+    }
+
+    private static int countThreads(@Nonnull String namePrefix) {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith(namePrefix)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
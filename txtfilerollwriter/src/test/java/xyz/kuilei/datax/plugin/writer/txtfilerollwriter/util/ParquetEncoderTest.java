@@ -0,0 +1,211 @@
+package xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util;
+
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.util.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.column.Encoding;
+import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.example.GroupReadSupport;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.Key;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util.EncoderTestUtil.*;
+
+/**
+ * ParquetEncoder 写的文件用 parquet-mr 读回来比较, 检查 schema, row group 的切分和 rollSize
+ *
+ * @author JiaKun Xu, 2026-10-18 13:00
+ */
+public class ParquetEncoderTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final org.apache.hadoop.conf.Configuration HADOOP_CONF = new org.apache.hadoop.conf.Configuration();
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        for (String compress : new String[]{Constant.COMPRESS_NONE, Constant.COMPRESS_GZIP, Constant.COMPRESS_ZSTD}) {
+            final File dir = folder.newFolder(compress);
+            final List<File> files = writeFiles(dir, newEncoder(compress), 30000, 0);
+
+            Assert.assertEquals(1, files.size());
+            Assert.assertEquals(30000, readRows(files.get(0), 0));
+
+            final ParquetMetadata footer = readFooter(files.get(0));
+            final List<BlockMetaData> rowGroups = footer.getBlocks();
+            // 每个 row group 64KB
+            Assert.assertTrue(compress + " row groups: " + rowGroups.size(), rowGroups.size() > 1);
+
+            long firstRow = 0;
+            for (BlockMetaData rowGroup : rowGroups) {
+                final long rowCount = rowGroup.getRowCount();
+                for (ColumnChunkMetaData chunk : rowGroup.getColumns()) {
+                    final String name = chunk.getPath().toDotString();
+
+                    // 每个 column chunk 都有 statistics
+                    final Statistics<?> statistics = chunk.getStatistics();
+                    Assert.assertTrue(name, statistics.hasNonNullValue());
+                    Assert.assertEquals(name, countNulls(Arrays.asList(HEADER).indexOf(name), firstRow, rowCount), statistics.getNumNulls());
+                    if ("id".equals(name)) {
+                        Assert.assertEquals(firstRow, statistics.genericGetMin());
+                        Assert.assertEquals(firstRow + rowCount - 1, statistics.genericGetMax());
+                    }
+
+                    final boolean dictionary = chunk.getEncodings().contains(Encoding.PLAIN_DICTIONARY);
+                    Assert.assertEquals(name, dictionary, chunk.hasDictionaryPage());
+
+                    // 不同值很少的只用字典, 每行都不同的字典超出 pageSize 之后退回 PLAIN
+                    if ("price".equals(name) || "city".equals(name)) {
+                        Assert.assertTrue(name, dictionary);
+                        Assert.assertFalse(name, chunk.getEncodings().contains(Encoding.PLAIN));
+                    } else if ("id".equals(name) || "uuid".equals(name) || "ts".equals(name)) {
+                        Assert.assertTrue(name, chunk.getEncodings().contains(Encoding.PLAIN));
+                    }
+                }
+                firstRow += rowCount;
+            }
+            Assert.assertEquals(30000, firstRow);
+
+            final MessageType schema = footer.getFileMetaData().getSchema();
+            Assert.assertEquals(HEADER.length, schema.getFieldCount());
+            Assert.assertEquals(PrimitiveType.PrimitiveTypeName.INT64, schema.getType("id").asPrimitiveType().getPrimitiveTypeName());
+            Assert.assertEquals(LogicalTypeAnnotation.stringType(), schema.getType("city").getLogicalTypeAnnotation());
+            Assert.assertEquals(
+                    LogicalTypeAnnotation.timestampType(true, LogicalTypeAnnotation.TimeUnit.MILLIS),
+                    schema.getType("ts").getLogicalTypeAnnotation()
+            );
+            Assert.assertNull(schema.getType("payload").getLogicalTypeAnnotation());
+        }
+    }
+
+    @Test
+    public void testRollSize() throws IOException {
+        final long rollSize = 256 * 1024;
+        final List<File> files = writeFiles(folder.getRoot(), newEncoder(Constant.COMPRESS_NONE), 50000, rollSize);
+
+        Assert.assertTrue("files: " + files.size(), files.size() > 2);
+
+        int row = 0;
+        for (File file : files) {
+            final int rows = readRows(file, row);
+            Assert.assertTrue(file.getName(), rows > 0);
+            row += rows;
+
+            // 缓冲的 row group 计入 rollSize, 文件不会超出 1 个 row group
+            // parquet-mr 缓冲的字节数是估计值, 字典编码的页偏大, 所以文件可能略小于 rollSize
+            if (file != files.get(files.size() - 1)) {
+                Assert.assertTrue(file.getName() + ": " + file.length(), file.length() >= rollSize - 64 * 1024);
+            }
+            Assert.assertTrue(file.getName() + ": " + file.length(), file.length() < rollSize + 64 * 1024);
+        }
+        Assert.assertEquals(50000, row);
+    }
+
+    @Nonnull
+    private static ParquetEncoder newEncoder(@Nonnull String compress) {
+        final Configuration conf = newConf(Constant.FILE_FORMAT_PARQUET, compress);
+        conf.set(Key.PAGE_SIZE, 8 * 1024);
+        conf.set(Key.ROW_GROUP_SIZE, 64 * 1024);
+        ParquetEncoder.validateParameter(conf);
+        return new ParquetEncoder(conf, HEADER);
+    }
+
+    @Nonnull
+    private static List<File> writeFiles(@Nonnull File dir, @Nonnull ParquetEncoder encoder, int rows, long rollSize)
+            throws IOException {
+        return EncoderTestUtil.writeFiles(dir, "parquet", new FileEncoder() {
+            @Override
+            public void startFile(@Nonnull RecordBuffer out) {
+                encoder.startFile(out);
+            }
+
+            @Override
+            public void addRecord(@Nonnull Record record, @Nonnull RecordBuffer out) throws IOException {
+                encoder.addRecord(record, out);
+            }
+
+            @Override
+            public void finishFile(@Nonnull RecordBuffer out) throws IOException {
+                encoder.finishFile(out);
+            }
+
+            @Override
+            public long bufferedSize() {
+                return encoder.bufferedSize();
+            }
+        }, rows, rollSize);
+    }
+
+    @Nonnull
+    private static ParquetMetadata readFooter(@Nonnull File file) throws IOException {
+        try (ParquetFileReader reader = ParquetFileReader.open(HadoopInputFile.fromPath(new Path(file.getAbsolutePath()), HADOOP_CONF))) {
+            return reader.getFooter();
+        }
+    }
+
+    /**
+     * 读回来逐行比较
+     *
+     * @param firstRow 文件第 1 行的行号
+     * @return 行数
+     */
+    private static int readRows(@Nonnull File file, int firstRow) throws IOException {
+        int row = firstRow;
+        try (ParquetReader<Group> reader = ParquetReader.builder(new GroupReadSupport(), new Path(file.getAbsolutePath())).build()) {
+            Group group;
+            while ((group = reader.read()) != null) {
+                for (int col = 0; col < HEADER.length; col++) {
+                    final Object expected = value(row, col);
+                    final String message = "row " + row + " " + HEADER[col];
+
+                    if (group.getFieldRepetitionCount(col) == 0) {
+                        Assert.assertNull(message, expected);
+                        continue;
+                    }
+                    Assert.assertNotNull(message, expected);
+
+                    switch (col) {
+                        case PRICE:
+                            Assert.assertEquals(message, (Double) expected, group.getDouble(col, 0), 0.0);
+                            break;
+                        case CITY:
+                        case UUID:
+                            Assert.assertEquals(message, expected, group.getBinary(col, 0).toStringUsingUTF8());
+                            break;
+                        case FLAG:
+                            Assert.assertEquals(message, expected, group.getBoolean(col, 0));
+                            break;
+                        case PAYLOAD:
+                            Assert.assertArrayEquals(message, (byte[]) expected, group.getBinary(col, 0).getBytes());
+                            break;
+                        default:
+                            // id, ts, big
+                            Assert.assertEquals(message, expected, group.getLong(col, 0));
+                            break;
+                    }
+                }
+                row++;
+            }
+        }
+        return row - firstRow;
+    }
+}
@@ -0,0 +1,58 @@
+package xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util;
+
+import com.alibaba.datax.common.element.Column;
+import com.alibaba.datax.common.element.Record;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * datax 的 DefaultRecord 在 datax-core 里, 测试时用这个
+ *
+ * @author JiaKun Xu, 2026-10-18 13:00
+ */
+final class TestRecord implements Record {
+    private final List<Column> columns = new ArrayList<>();
+
+    @Override
+    public void addColumn(Column column) {
+        this.columns.add(column);
+    }
+
+    @Override
+    public void setColumn(int i, Column column) {
+        while (this.columns.size() <= i) {
+            this.columns.add(null);
+        }
+        this.columns.set(i, column);
+    }
+
+    @Override
+    public Column getColumn(int i) {
+        return (i < this.columns.size()) ? this.columns.get(i) : null;
+    }
+
+    @Override
+    public int getColumnNumber() {
+        return this.columns.size();
+    }
+
+    @Override
+    public int getByteSize() {
+        int byteSize = 0;
+        for (Column column : this.columns) {
+            byteSize += (column == null) ? 0 : column.getByteSize();
+        }
+        return byteSize;
+    }
+
+    @Override
+    public int getMemorySize() {
+        return getByteSize();
+    }
+
+    @Override
+    public String toString() {
+        return this.columns.toString();
+    }
+}
@@ -0,0 +1,124 @@
+package xyz.kuilei.datax.plugin.writer.txtfilerollwriter.util;
+
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.util.Configuration;
+import org.junit.Assert;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.Key;
+import xyz.kuilei.datax.plugin.writer.txtfilerollwriter.TxtFileRollWriter;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 文本格式 (text, jsonl, fixed) 测试共用: 按 job 的方式校验配置, 创建 writer, 把 record 编码为字节或者写入文件
+ *
+ * NOTE:
+ * 1. 配置的校验与 TxtFileRollWriter.Job#init 相同, prefixWithUUID 与 split 之后相同
+ * 2. encodeRecords 直接调用 writer 的 encodeRecord, 不写文件, 每行后面加上 \n
+ * 3. writeFiles 与 task 相同, 写入并关闭后按文件序号读回所有文件
+ *
+ * @author JiaKun Xu, 2026-10-18 17:30
+ */
+final class WriterTestUtil {
+    static final String PREFIX = "test";
+
+    static final String PREFIX_WITH_UUID = PREFIX + "-uuid";
+
+    private WriterTestUtil() {
+    }
+
+    @Nonnull
+    static Configuration newConf(@Nonnull File dir, @Nonnull String fileFormat) {
+        final Configuration conf = Configuration.newDefault();
+        conf.set(Key.PATH, dir.getAbsolutePath());
+        conf.set(Key.WRITE_MODE, "truncate");
+        conf.set(Key.PREFIX, PREFIX);
+        conf.set(Key.FILE_FORMAT, fileFormat);
+        return conf;
+    }
+
+    /**
+     * 与 TxtFileRollWriter.Job#init 相同的校验, 以及 split 之后的 prefixWithUUID
+     */
+    static void validate(@Nonnull Configuration conf) {
+        TxtFileRollWriter.validateParameter(conf);
+        DataXRecordReader.validateParameter(conf);
+        ColumnEncoder.validateParameter(conf);
+        BaseUnstructuredWriter.validateParameter(conf);
+        BaseCompressCodec.validateParameter(conf);
+        ParquetEncoder.validateParameter(conf);
+        OrcEncoder.validateParameter(conf);
+        AvroEncoder.validateParameter(conf);
+        ArrowEncoder.validateParameter(conf);
+        FixedWidthEncoder.validateParameter(conf);
+        TextEncoder.validateParameter(conf);
+        ParallelWriter.validateParameter(conf);
+        FileManager.validateParameter(conf);
+
+        conf.set(Key.INTERNAL_PREFIX_WITH_UUID, PREFIX_WITH_UUID);
+    }
+
+    /**
+     * 用 conf 创建的 writer 编码 records, 每行后面加上 \n
+     */
+    @Nonnull
+    static byte[] encodeRecords(@Nonnull Configuration conf, @Nonnull List<Record> records) throws IOException {
+        final RecordBuffer buffer = new RecordBuffer(64, Charset.forName(conf.getString(Key.ENCODING)));
+
+        try (TaskResources resources = new TaskResources(conf);
+             BaseUnstructuredWriter writer = BaseUnstructuredWriter.getImpl(conf, resources)) {
+            for (Record record : records) {
+                writer.encodeRecord(record, buffer);
+                buffer.write('\n');
+            }
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * 用 conf 创建的 writer 写入 records 并关闭, 按文件序号返回每个文件的内容
+     * warn: path 需要是空目录
+     */
+    @Nonnull
+    static List<byte[]> writeFiles(@Nonnull Configuration conf, @Nonnull List<Record> records) throws IOException {
+        try (TaskResources resources = new TaskResources(conf);
+             BaseUnstructuredWriter writer = BaseUnstructuredWriter.getImpl(conf, resources)) {
+            for (Record record : records) {
+                writer.writeOneRecord(record);
+            }
+        }
+
+        final File[] files = new File(conf.getString(Key.PATH)).listFiles();
+        Assert.assertNotNull(files);
+        final String prefix = conf.getString(Key.INTERNAL_PREFIX_WITH_UUID) + "-";
+        final String inUse = "." + conf.getString(Key.IN_USE_SUFFIX);
+
+        // 文件名: prefixWithUUID-序号.suffix[.压缩的扩展名]
+        Arrays.sort(files, Comparator.comparingInt(file -> {
+            final String name = file.getName();
+            return Integer.parseInt(name.substring(prefix.length(), name.indexOf('.', prefix.length())));
+        }));
+
+        final List<byte[]> contents = new ArrayList<>(files.length);
+        for (File file : files) {
+            Assert.assertTrue(file.getName(), file.getName().startsWith(prefix));
+            Assert.assertFalse(file.getName(), file.getName().endsWith(inUse));
+            contents.add(Files.readAllBytes(file.toPath()));
+        }
+        return contents;
+    }
+
+    static void assertSameFiles(@Nonnull List<byte[]> expected, @Nonnull List<byte[]> actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertArrayEquals("file " + (i + 1), expected.get(i), actual.get(i));
+        }
+    }
+}